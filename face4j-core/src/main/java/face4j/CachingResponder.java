@@ -0,0 +1,532 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.Validate;
+import org.apache.http.NameValuePair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import face4j.cache.CacheStats;
+import face4j.cache.DependencyIndex;
+import face4j.cache.EvictionListener;
+import face4j.cache.ResultCache;
+import face4j.cache.Weigher;
+import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+
+/**
+ * {@link Responder} decorator that caches the responses of read-mostly endpoints for a 
+ * time to live set per endpoint. Requests are keyed by path and sorted parameters, 
+ * without the API secret. Only successful responses are cached, failures are thrown and 
+ * the next request goes to the delegate again. Uploads and endpoints without a TTL go 
+ * straight to the delegate.
+ * <p>
+ * An entry older than its TTL but within the stale window is still served while it is 
+ * revalidated on the refresh executor. Without an executor the caller that finds it stale 
+ * revalidates it and gets the fresh response, while concurrent callers are served the stale 
+ * one. Concurrent misses and refreshes of the same request are coalesced into a single 
+ * call to the delegate. The 
+ * delegate must be thread safe if a refresh executor is set; {@link ResponderImpl} is not.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public class CachingResponder implements StreamingResponder
+{
+	private static final Logger logger = LoggerFactory.getLogger(CachingResponder.class);
+	
+	/**
+	 * 8 MB of response bodies
+	 */
+	public static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+	
+	private static final class Entry
+	{
+		final byte[] body;
+		
+		final long fetched;
+		
+		Entry(final byte[] body, final long fetched)
+		{
+			this.body    = body;
+			this.fetched = fetched;
+		}
+	}
+	
+	/**
+	 * Weighs an entry by the length of its body
+	 */
+	private static final Weigher<Entry> BODY_WEIGHER = new Weigher<Entry>()
+	{
+		public int weigh(final Entry entry)
+		{
+			return Math.max(1, entry.body.length);
+		}
+	};
+	
+	private final Responder delegate;
+	
+	private final ResultCache<String, Entry> entries;
+	
+	/**
+	 * Calls to the delegate in flight, by key
+	 */
+	private final ConcurrentMap<String, FutureTask<Entry>> pending = new ConcurrentHashMap<String, FutureTask<Entry>>();
+	
+	/**
+	 * Users, namespaces and endpoints of the cached responses
+	 */
+	private final DependencyIndex<String> dependencies = new DependencyIndex<String>();
+	
+	/**
+	 * Bumped by every invalidation, so a response fetched across one isn't cached
+	 */
+	private final AtomicLong generation = new AtomicLong();
+	
+	/**
+	 * Milliseconds by path
+	 */
+	private final ConcurrentMap<String, Long> ttls = new ConcurrentHashMap<String, Long>();
+	
+	private volatile long staleMillis = TimeUnit.MINUTES.toMillis(1);
+	
+	private volatile Executor refreshExecutor;
+	
+	/**
+	 * Caches the responses of the default {@link Responder}
+	 * 
+	 * @see #CachingResponder(Responder)
+	 */
+	public CachingResponder()
+	{
+		this(new ResponderImpl());
+	}
+	
+	/**
+	 * Caches account limits, namespaces and users for 5 minutes and statuses and tags for 
+	 * 1 minute
+	 */
+	public CachingResponder(final Responder delegate)
+	{
+		this(delegate, DEFAULT_MAX_BYTES);
+	}
+	
+	/**
+	 * @param maxBytes Bound on the total length of the cached bodies, least recently used 
+	 * responses are evicted beyond it and larger ones aren't cached
+	 */
+	public CachingResponder(final Responder delegate, final long maxBytes)
+	{
+		Validate.notNull(delegate, "Delegate cannot be null");
+		
+		this.delegate = delegate;
+		this.entries  = new ResultCache<String, Entry>(maxBytes, BODY_WEIGHER);
+		
+		entries.setEvictionListener(new EvictionListener<String>()
+		{
+			public void onEviction(final String key)
+			{
+				dependencies.unregister(key);
+			}
+		});
+		
+		setTtl(Api.LIMITS, 5, TimeUnit.MINUTES);
+		setTtl(Api.NAMESPACES, 5, TimeUnit.MINUTES);
+		setTtl(Api.USERS, 5, TimeUnit.MINUTES);
+		setTtl(Api.STATUS, 1, TimeUnit.MINUTES);
+		setTtl(Api.GET_TAGS, 1, TimeUnit.MINUTES);
+	}
+	
+	/**
+	 * Caches responses of the endpoint at {@code path}, such as {@code /account/limits.json}, 
+	 * for {@code ttl}. A TTL of 0 turns caching off for it.
+	 */
+	public void setTtl (final String path, final long ttl, final TimeUnit unit)
+	{
+		Validate.isTrue(ttl >= 0, "TTL cannot be negative");
+		
+		if (ttl == 0)
+		{
+			ttls.remove(path);
+		}
+		
+		else
+		{
+			ttls.put(path, unit.toMillis(ttl));
+		}
+	}
+	
+	/**
+	 * @return The TTL of the endpoint at {@code path}, 0 if it isn't cached
+	 */
+	public long getTtl (final String path, final TimeUnit unit)
+	{
+		final Long ttl = ttls.get(path);
+		
+		return (ttl == null) ? 0 : unit.convert(ttl.longValue(), TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * How long past its TTL an entry may be served while it is refreshed, 1 minute by default
+	 */
+	public void setStaleWindow (final long window, final TimeUnit unit)
+	{
+		Validate.isTrue(window >= 0, "Window cannot be negative");
+		
+		this.staleMillis = unit.toMillis(window);
+	}
+	
+	/**
+	 * Runs revalidations of stale entries on {@code executor} instead of the calling 
+	 * thread, {@code null} by default
+	 */
+	public void setRefreshExecutor (final Executor executor)
+	{
+		this.refreshExecutor = executor;
+	}
+	
+	/**
+	 * Drops every cached response
+	 */
+	public void invalidateAll ()
+	{
+		generation.incrementAndGet();
+		entries.invalidateAll();
+		dependencies.clear();
+	}
+	
+	/**
+	 * Drops the cached responses that depend on {@code dependency}, made by 
+	 * {@link DependencyIndex}. Responses depend on the path of their endpoint, on the users 
+	 * or namespaces in their {@code uids} and on the namespaces in their {@code namespaces}; 
+	 * tag lookups without uids depend on {@link DependencyIndex#TAGS_BY_PHOTO}.
+	 */
+	public void invalidate (final String dependency)
+	{
+		generation.incrementAndGet();
+		
+		for (String key : dependencies.invalidate(dependency))
+		{
+			entries.invalidate(key);
+		}
+	}
+	
+	public CacheStats getStats ()
+	{
+		return entries.getStats();
+	}
+	
+	public String doGet (final URI uri) throws FaceClientException, FaceServerException
+	{
+		return delegate.doGet(uri);
+	}
+	
+	public String doPost (final URI uri, final List<NameValuePair> params) throws FaceClientException, FaceServerException
+	{
+		return delegate.doPost(uri, params);
+	}
+	
+	public String doPost (final File file, final URI uri, final List<NameValuePair> params) 
+		throws FaceClientException, FaceServerException
+	{
+		return delegate.doPost(file, uri, params);
+	}
+	
+	public InputStream doPostStream (final File file, final URI uri, final List<NameValuePair> params) 
+		throws FaceClientException, FaceServerException
+	{
+		return Responders.openStream(delegate, file, uri, params);
+	}
+	
+	public InputStream doPostStream (final URI uri, final List<NameValuePair> params) 
+		throws FaceClientException, FaceServerException
+	{
+		final Long ttl = ttls.get(uri.getPath());
+		
+		if (ttl == null)
+		{
+			return Responders.openStream(delegate, null, uri, params);
+		}
+		
+		final String key = key(uri, params);
+		final Entry entry = entries.get(key);
+		final long age = (entry == null) ? Long.MAX_VALUE : System.currentTimeMillis() - entry.fetched;
+		
+		if (age < ttl)
+		{
+			return new ByteArrayInputStream(entry.body);
+		}
+		
+		if (age - ttl < staleMillis)
+		{
+			final Executor executor = refreshExecutor;
+			
+			// Unless another caller is revalidating it, this one pays for the round trip and 
+			// may as well get the fresh response
+			if (executor != null || pending.containsKey(key))
+			{
+				refresh(key, uri, params, executor);
+				
+				return new ByteArrayInputStream(entry.body);
+			}
+		}
+		
+		return new ByteArrayInputStream(fetch(key, uri, params).body);
+	}
+	
+	/**
+	 * Revalidates a stale entry on {@code executor} unless another caller already is
+	 */
+	private void refresh (final String key, final URI uri, final List<NameValuePair> params, final Executor executor)
+	{
+		if (executor == null)
+		{
+			return;
+		}
+		
+		final FutureTask<Entry> task = newTask(key, uri, params);
+		
+		if (pending.putIfAbsent(key, task) != null)
+		{
+			return;
+		}
+		
+		if (logger.isDebugEnabled())
+		{
+			logger.debug("Revalidating {}", uri);
+		}
+		
+		try
+		{
+			executor.execute(new Runnable()
+			{
+				public void run()
+				{
+					task.run();
+					
+					try
+					{
+						task.get();
+					}
+					
+					catch (ExecutionException ee)
+					{
+						logger.warn("Revalidating " + uri + " failed, serving the stale response", ee.getCause());
+					}
+					
+					catch (InterruptedException ie)
+					{
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}
+		
+		catch (RejectedExecutionException ree)
+		{
+			pending.remove(key, task);
+			logger.warn("Revalidating " + uri + " was rejected", ree);
+		}
+	}
+	
+	/**
+	 * Calls the delegate, or waits for a call already in flight for {@code key}
+	 */
+	private Entry fetch (final String key, final URI uri, final List<NameValuePair> params) 
+		throws FaceClientException, FaceServerException
+	{
+		final FutureTask<Entry> task = newTask(key, uri, params);
+		final FutureTask<Entry> running = pending.putIfAbsent(key, task);
+		
+		if (running == null)
+		{
+			task.run();
+		}
+		
+		try
+		{
+			return (running == null ? task : running).get();
+		}
+		
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			throw new FaceClientException(ie);
+		}
+		
+		catch (ExecutionException ee)
+		{
+			final Throwable cause = ee.getCause();
+			
+			if (cause instanceof FaceServerException)
+			{
+				throw (FaceServerException) cause;
+			}
+			
+			if (cause instanceof FaceClientException)
+			{
+				throw (FaceClientException) cause;
+			}
+			
+			throw new FaceClientException(cause);
+		}
+	}
+	
+	private FutureTask<Entry> newTask (final String key, final URI uri, final List<NameValuePair> params)
+	{
+		return new FutureTask<Entry>(new Callable<Entry>()
+		{
+			public Entry call() throws Exception
+			{
+				final long started = generation.get();
+				
+				try
+				{
+					final byte[] body = readFully(Responders.openStream(delegate, null, uri, params));
+					
+					// Failures, e.g. of a wrong secret which the key leaves out, are never cached
+					Responders.checkBody(body);
+					
+					final Entry entry = new Entry(body, System.currentTimeMillis());
+					
+					synchronized (dependencies)
+					{
+						if (generation.get() == started)
+						{
+							entries.put(key, entry);
+							dependencies.register(key, dependencies(uri.getPath(), params));
+						}
+					}
+					
+					return entry;
+				}
+				
+				catch (IOException ioe)
+				{
+					logger.error("Error reading response from {}", uri, ioe);
+					throw new FaceClientException(ioe);
+				}
+				
+				finally
+				{
+					pending.remove(key);
+				}
+			}
+		});
+	}
+	
+	private static byte[] readFully (final InputStream in) throws IOException
+	{
+		try
+		{
+			final ByteArrayOutputStream body = new ByteArrayOutputStream();
+			final byte[] chunk = new byte[4096];
+			
+			int n;
+			
+			while ((n = in.read(chunk)) != -1)
+			{
+				body.write(chunk, 0, n);
+			}
+			
+			return body.toByteArray();
+		}
+		
+		finally
+		{
+			in.close();
+		}
+	}
+	
+	private static Set<String> dependencies (final String path, final List<NameValuePair> params)
+	{
+		final Set<String> found = new HashSet<String>();
+		boolean byUser = false;
+		
+		found.add(DependencyIndex.path(path));
+		
+		for (NameValuePair nvp : params)
+		{
+			if ("uids".equals(nvp.getName()) && nvp.getValue() != null)
+			{
+				found.addAll(DependencyIndex.forUids(nvp.getValue()));
+				byUser = true;
+			}
+			
+			else if ("namespaces".equals(nvp.getName()) && nvp.getValue() != null)
+			{
+				for (String namespace : nvp.getValue().split(","))
+				{
+					found.add(DependencyIndex.namespace(namespace.trim()));
+				}
+			}
+		}
+		
+		if (Api.GET_TAGS.equals(path) && !byUser)
+		{
+			found.add(DependencyIndex.TAGS_BY_PHOTO);
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Path followed by the sorted parameters, leaving out the API secret
+	 */
+	private static String key (final URI uri, final List<NameValuePair> params)
+	{
+		final Map<String, String> sorted = new TreeMap<String, String>();
+		
+		for (NameValuePair nvp : params)
+		{
+			if (!"api_secret".equals(nvp.getName()))
+			{
+				sorted.put(nvp.getName(), nvp.getValue());
+			}
+		}
+		
+		return uri.getPath() + sorted;
+	}
+}
@@ -1,63 +1,63 @@
-/*
- * Copyright (c) 2010 Marlon Hendred
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in
- * all copies or substantial portions of the Software.
- *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
- * THE SOFTWARE.
- */
-
-package face4j;
-
-import java.util.LinkedList;
-import java.util.List;
-
-import org.apache.commons.lang.StringUtils;
-
-/**
- * Class to handle Facebook and Twitter account credentials. Currently only
- * supports OAuth.
- * 
- * @author Marlon Hendred
- *
- */
-class Credentials extends Parameters
-{
-	private final List<String> vals;
-	
-	public Credentials() 
-	{	super();
-		
-		this.vals = new LinkedList<String>();
-	}
-	
-	public String getAuthString()
-	{		
-		if (isEmpty())
-		{
-			return null;
-		}
-		
-		vals.clear();
-		
-		for (String key : params.keySet())
-		{
-			vals.add(key + ":" + params.get(key));
-		}
-		
-		return StringUtils.join(vals, ",");
-	}
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Class to handle Facebook and Twitter account credentials. Currently only
+ * supports OAuth.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+class Credentials extends Parameters
+{
+	private final List<String> vals;
+	
+	public Credentials() 
+	{	super();
+		
+		this.vals = new LinkedList<String>();
+	}
+	
+	public String getAuthString()
+	{		
+		if (isEmpty())
+		{
+			return null;
+		}
+		
+		vals.clear();
+		
+		for (String key : params.keySet())
+		{
+			vals.add(key + ":" + params.get(key));
+		}
+		
+		return StringUtils.join(vals, ",");
+	}
 }
\ No newline at end of file
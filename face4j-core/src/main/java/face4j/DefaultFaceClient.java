@@ -1,537 +1,1527 @@
-/*
- * Copyright (c) 2010 Marlon Hendred
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in
- * all copies or substantial portions of the Software.
- *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
- * THE SOFTWARE.
- */
-
-package face4j;
-
-import java.io.File;
-import java.net.URI;
-import java.net.URL;
-import java.util.List;
-
-import org.apache.commons.lang.Validate;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import face4j.exception.FaceClientException;
-import face4j.exception.FaceServerException;
-import face4j.model.Namespace;
-import face4j.model.Photo;
-import face4j.model.RemovedTag;
-import face4j.model.SavedTag;
-import face4j.model.UserStatus;
-import face4j.response.GroupResponse;
-import face4j.response.GroupResponseImpl;
-import face4j.response.LimitsResponse;
-import face4j.response.LimitsResponseImpl;
-import face4j.response.NamespaceResponse;
-import face4j.response.NamespaceResponseImpl;
-import face4j.response.PhotoResponse;
-import face4j.response.PhotoResponseImpl;
-import face4j.response.RemoveTagResponse;
-import face4j.response.RemoveTagResponseImpl;
-import face4j.response.SaveTagResponse;
-import face4j.response.SaveTagResponseImpl;
-import face4j.response.StatusResponse;
-import face4j.response.StatusResponseImpl;
-import face4j.response.TrainResponse;
-import face4j.response.TrainResponseImpl;
-import face4j.response.UsersResponse;
-import face4j.response.UsersResponseImpl;
-
-/**
- * Default implementation of {@link FaceClient} interface
- * 
- * @author Marlon Hendred 
- * 
- * @see {@link FaceClient}  
- * @see <a href="http://developers.face.com/docs/">Developer's page</a>
- */
-public class DefaultFaceClient implements FaceClient
-{	
-	/**
-	 * Logger (SLF4J)
-	 */
-	private static final Logger logger = LoggerFactory.getLogger(FaceClient.class);
-	
-	/**
-	 * Default API end point @TODO: set from properties
-	 */
-	private static final String API_ENDPOINT = "http://api.face.com";
-	
-	/**
-	 * Handles {@code POST}s to the face.com endpoint
-	 */
-	private final Responder http;
-	
-	/**
-	 * Facebook and twitter credentials
-	 * 
-	 * @TODO: Implement facebook OAuth dance
-	 */
-	private final Credentials creds;
-	
-	/**
-	 * Parameters that are required for every call
-	 */
-	private final Parameters reqd;
-	
-	/**
-	 * Base {@link URI} endpoint
-	 */
-	private final URI baseURI;
-
-	/**
-	 * Detector mode
-	 */
-	private boolean isAggressive;
-	/**
-	 * Convenience constructor with default {@link Responder} implementation
-	 * 
-	 * @see {@link DefaultResponder}
-	 * @see {@link #DefaultFaceClient(String, String, Responder)}
-	 */
-	public DefaultFaceClient (final String apiKey, final String apiSecret)
-	{
-		this (apiKey, apiSecret, new ResponderImpl());
-	}
-	
-	/**
-	 * Constructs a Face.com API client pointing to {@code host}. You need to obtain an API key/secret pair.
-	 * You can get an API key/secret from face.com 
-	 * 
-	 * @param apiKey Your aplication's API key
-	 * @param apiSecret Your applications API secret
-	 *  
-	 * @see {@link Responder}
-	 * @see <a href="http://developers.face.com/docs/">Developer's page</a> for information on obtaining an
-	 * 		API key/secret
-	 */
-	public DefaultFaceClient (final String apiKey, final String apiSecret, final Responder responder)
-	{
-		this.baseURI = URI.create(API_ENDPOINT);
-		this.http    = responder;
-		this.creds   = new Credentials();
-		this.reqd	 = new Parameters();
-		
-		reqd.put("api_key", apiKey);
-		reqd.put("api_secret", apiSecret);
-		
-		setAggressive(false);
-	}	
-	
-	/**
-	 * @see {@link FaceClient#removeTags(String)}
-	 */
-	public List<RemovedTag> removeTags (final String tids) throws FaceClientException, FaceServerException
-	{
-		Validate.notEmpty(tids, "Tag ids cannot be empty");
-		
-		final Parameters params = new Parameters("tids", tids);
-		final String json = executePost(Api.REMOVE_TAGS, params);
-		final RemoveTagResponse response = new RemoveTagResponseImpl(json);
-		
-		return response.getRemovedTags();	
-	}
-	
-	/**
-	 * @see {@link FaceClient#train(String)}
-	 */
-	public TrainResponse train (final String uids) throws FaceClientException, FaceServerException
-	{
-		final Parameters params = new Parameters("uids", uids);		
-		final String json = executePost(Api.TRAIN, params);
-		final TrainResponse response = new TrainResponseImpl(json);
-		
-		return response;
-	}
-	
-	/**
-	 * @see {@link FaceClient#addTag(String, float, float, int, int, String, String, String)}
-	 */
-	public void addTag (
-			final String url, 
-			final float x, 
-			final float y,
-			final int width, 
-			final int height, 
-			final String uid, 
-			final String label, 
-			final String taggerId) 
-		throws FaceClientException, FaceServerException
-	{
-		Validate.notNull(uid, "UID cannot be null");
-		
-		final Parameters params = new Parameters();
-		
-		params.put("x", x);
-		params.put("y", y);
-		params.put("width", width);
-		params.put("height", height);
-		params.put("tagger_id", taggerId);
-		params.put("url", url);
-		params.put("uid", uid);
-		params.put("label", label);
-
-		// No response
-		executePost(Api.ADD_TAG, params);
-	}
-	
-	/**
-	 * @see {@link FaceClient#getTags(String, String, String, String, boolean, int)}
-	 */
-	public List<Photo> getTags (
-			final String urls,
-			final String uids,
-			final String order,
-			final String filter,
-			final boolean together,
-			final int limit)
-	throws FaceClientException, FaceServerException
-	{
-		return getTags(null, urls, uids, order, filter, together, limit);
-	}
-	
-	/**
-	 * @see {@link FaceClient#getTags(String, String, String, String, String, boolean, int)}
-	 */
-	public List<Photo> getTags (
-			final String pids, 
-			final String urls, 
-			final String uids, 
-			final String order,
-			final String filter,
-			final boolean together,
-			final int limit) 
-		throws FaceClientException, FaceServerException
-	{
-		final Parameters params = new Parameters();
-		
-		params.put("pids", pids);
-		params.put("urls", urls);
-		params.put("uids", uids);
-		params.put("order", order);
-		params.put("filter", filter);
-		params.put("together", together);
-		params.put("limit", limit);
-		
-		final String json = executePost(Api.GET_TAGS, params);
-		final PhotoResponse response = new PhotoResponseImpl(json);
-		
-		return response.getPhotos();
-	}
-
-	/**
-	 * @see {@list FaceClient#saveTags(String, String, String)}
-	 */
-	public List<SavedTag> saveTags (final String tids, final String uid, final String label) 
-		throws FaceClientException, FaceServerException
-	{
-		Validate.notEmpty(uid, "User IDs cannot be null");
-		Validate.notEmpty(tids, "Tag IDs cannot be null");
-		
-		final Parameters params = new Parameters("tids", tids);
-		
-		params.put("uid", uid);
-		params.put("label", label);
-		
-		final String json = executePost(Api.SAVE_TAGS, params);
-		final SaveTagResponse response = new SaveTagResponseImpl(json);
-
-		return response.getSavedTags();
-	}
-	
-	/**
-	 * @see {@link FaceClient#recognize(URL, String)}
-	 */
-	public Photo recognize (final File imageFile, final String uids) throws FaceClientException, FaceServerException
-	{	
-		Validate.notNull(imageFile, "File is null");
-		Validate.isTrue(imageFile.exists(), "File does not exist!");
-		Validate.notEmpty(uids, "User IDs cannot be null");
-			
-		final Parameters params = new Parameters("uids", uids);
-		final String json =  executePost(imageFile, Api.RECOGNIZE, params);
-		final PhotoResponse response = new PhotoResponseImpl(json);		
-		
-		return response.getPhoto();
-	}
-	
-	/**
-	 * @see {@link FaceClient#recognize(String, String)}
-	 */
-	public List<Photo> recognize (final String urls, final String uids) throws FaceClientException, FaceServerException
-	{
-		Validate.notEmpty(urls, "URLs cant be empty");
-		Validate.notEmpty(uids, "User IDs can't be empty");
-				
-		final Parameters params = new Parameters("uids", uids);
-		
-		params.put("urls", urls);
-
-		final String json = executePost(Api.RECOGNIZE, params);
-		final PhotoResponse response = new PhotoResponseImpl(json);
-				
-		return response.getPhotos();
-	}
-	
-	/**
-h	 * @see {@link FaceClient#detect(URL)}
-	 */
-	public Photo detect (final File imageFile) throws FaceClientException, FaceServerException
-	{	
-		Validate.notNull(imageFile, "File is null");
-		Validate.isTrue(imageFile.exists(), "File doesn't exist!");
-		
-		final String json = executePost(imageFile, Api.DETECT, new Parameters());
-		final PhotoResponse response = new PhotoResponseImpl(json);
-		
-		return response.getPhoto();
-	}
-
-	/**
-	 * @see {@link FaceClient#detect(String)}
-	 */
-	public List<Photo> detect (final String urls) throws FaceClientException, FaceServerException
-	{
-		Validate.notNull(urls, "URLs cannot be null");
-		
-		final Parameters params = new Parameters();
-		
-		params.put("urls", urls);
-		
-		final String json = executePost(Api.DETECT, params);
-		final PhotoResponse response = new PhotoResponseImpl(json);
-		
-		return response.getPhotos();
-	}
-
-	/**
-	 * @see {@link FaceClient#status(String)}
-	 */
-	public List<UserStatus> status (final String uids) throws FaceClientException, FaceServerException
-	{
-		Validate.notEmpty(uids, "UIDs cant be empty");
-				
-		final Parameters params = new Parameters();
-
-		params.put("uids", uids);
-		
-		final String json = executePost(Api.STATUS, params);
-		final StatusResponse response = new StatusResponseImpl(json);
-			
-		return response.getTrainingStatus();
-	}
-	
-	/**
-	 * @see {@link FaceClient#facebookGet(String)}
-	 */
-	public List<Photo> facebookGet (final String uids) throws FaceClientException, FaceServerException
-	{
-		Validate.notEmpty(uids, "User IDs cannot be empty");
-		
-		final Parameters params = new Parameters();
-
-		params.put("uids", uids);
-		
-		final String json = executePost(Api.FACEBOOK, params);
-		final PhotoResponse response = new PhotoResponseImpl(json);
-						
-		return response.getPhotos();	
-	}
-
-	/**
-	 * @see {@link FaceClient#group(String, String)}
-	 */
-	public GroupResponse group(String urls, String uids) throws FaceClientException, FaceServerException
-	{
-		Validate.notEmpty(urls, "URLs cannot be empty");
-		Validate.notEmpty(uids, "UIDs cannot be empty");
-		
-		final Parameters params = new Parameters();
-		
-		params.put("uids", uids);
-		params.put("urls", urls);
-
-		final String json = executePost(Api.GROUP, params);
-		final GroupResponse response = new GroupResponseImpl(json);
-						
-		return response;
-	}
-
-	/**
-	 * @see {@link FaceClient#group(File, String)}
-	 */
-	public GroupResponse group (File imageFile, String uids) throws FaceClientException, FaceServerException 
-	{
-		Validate.isTrue(imageFile.exists(), "File does not exist");
-		Validate.notEmpty(uids, "UIDs cannot be empty");
-		
-		final Parameters params = new Parameters();
-		
-		params.put("uids", uids);
-		
-		final String json = executePost(imageFile, Api.GROUP, params);
-		final GroupResponse response = new GroupResponseImpl(json);
-			
-		return response;
-	}
-
-	/** 
-	 * @see {@link FaceClient#users(String)}
-	 */
-	public UsersResponse users (String namespaces) throws FaceClientException, FaceServerException
-	{
-		Validate.notEmpty(namespaces, "Must supply namespace(s)");
-		
-		final Parameters params = new Parameters();
-		params.put("namespaces", namespaces);
-		
-		final String json = executePost(Api.USERS, params);
-		final UsersResponse response = new UsersResponseImpl(json, namespaces);
-		
-		return response;
-	}
-	
-	/**
-	 * @see {@link FaceClient#usage()}
-	 */
-	public LimitsResponse limits () throws FaceClientException, FaceServerException
-	{
-		final String json = executePost(Api.LIMITS, new Parameters());
-		final LimitsResponse response = new LimitsResponseImpl(json);
-		
-		return response;
-	}
-	
-	/**
-	 * @see {@link FaceClient#namespaces()}
-	 */
-	public List<Namespace> namespaces() throws FaceClientException, FaceServerException
-	{
-		final String json = executePost(Api.NAMESPACES, new Parameters());
-		final NamespaceResponse response = new NamespaceResponseImpl(json);
-		
-		return response.getNamespaces();
-	}
-	
-	/**
-	 * @see {@link FaceClient#getNamespace(String)
-	 */
-	public Namespace getNamespace(String namespace) throws FaceClientException, FaceServerException
-	{
-		for (Namespace ns : namespaces())
-		{
-			if (ns.getName().equals(namespace))
-			{
-				return ns;
-			}
-		}
-		
-		return null;
-	}
-	
-	/**
-	 * @see {@link FaceClient#setFacebookOauth2(String, String)}
-	 */
-	public void setFacebookOauth2(final String fbUserId, final String oauthToken)
-	{
-		creds.put("fb_user", fbUserId);
-		creds.put("fb_oauth_token", oauthToken);
-	}
-	
-	/**
-	 * @see {@link FaceClient#setTwitterOauth(String, String, String)}
-	 */
-	public void setTwitterOauth(final String oauthUser, final String oauthSecret, final String oauthToken)
-	{
-		creds.put("twitter_oauth_user", oauthUser);
-		creds.put("twitter_oauth_secret", oauthSecret);
-		creds.put("twitter_oauth_token", oauthToken);
-	}
-	
-	/**
-	 * @see {@link FaceClient#clearFacebookCreds()}
-	 */
-	public void clearFacebookCreds()
-	{
-		creds.remove("fb_oauth_token");
-		creds.remove("fb_user");
-	}
-	
-	/**
-	 * @see {@link FaceClient#clearTwitterCreds()}
-	 */
-	public void clearTwitterCreds()
-	{
-		creds.remove("twitter_oauth_user");
-		creds.remove("twitter_oauth_secret");
-		creds.remove("twitter_oauth_token");
-	}
-	
-	/**
-	 * @see {@link FaceClient#setAggressive(boolean)} 
-	 */
-	public void setAggressive(final boolean isAggressive)
-	{
-		this.isAggressive = isAggressive;
-		
-		reqd.put("detector", isAggressive ? "Aggressive" : "Normal");
-	}
-	
-	/**
-	 * @see {@link FaceClient#isAggressive()}
-	 */
-	public boolean isAggressive()
-	{
-		return isAggressive;	
-	}
-	
-	private String executePost(String api, Parameters params) throws FaceClientException, FaceServerException
-	{
-		return executePost(null, api, params);
-	}
-	
-	private String executePost(File file, String api, Parameters params) throws FaceClientException, FaceServerException
-	{
-		final URI uri = baseURI.resolve(api);
-		
-		params.putAll(reqd.getMap());
-		params.put("user_auth", creds.getAuthString());
-
-		if (logger.isInfoEnabled())
-		{
-			logger.info("POSTing to: {} ", uri.toString());
-			logger.info("Detector mode [{}]", (isAggressive ? "agressive" : "normal"));
-			logger.info("POST parameters: {}", params.toString());
-		}
-		
-		if (file != null)
-		{
-			return http.doPost(file, uri, params.toPostParams());
-		}
-		
-		else
-		{
-			return http.doPost(uri, params.toPostParams());
-		}
-	}
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import face4j.cache.ContentDigest;
+import face4j.cache.DependencyIndex;
+import face4j.cache.DiskResultCache;
+import face4j.cache.EvictionListener;
+import face4j.cache.NearDuplicateCache;
+import face4j.cache.NegativeCache;
+import face4j.cache.PerceptualHash;
+import face4j.cache.ResultCache;
+import face4j.cache.ResultKey;
+import face4j.cache.TrainingEpochs;
+import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+import face4j.image.FaceCropper;
+import face4j.image.MosaicPacker;
+import face4j.image.Sheet;
+import face4j.image.Tile;
+import face4j.image.Upload;
+import face4j.image.UploadPreprocessor;
+import face4j.json.JsonCodec;
+import face4j.json.JsonCodecs;
+import face4j.json.JsonReader;
+import face4j.model.Face;
+import face4j.model.FaceVisitor;
+import face4j.model.Namespace;
+import face4j.model.Photo;
+import face4j.model.RemovedTag;
+import face4j.model.SavedTag;
+import face4j.model.SymbolTable;
+import face4j.model.UserStatus;
+import face4j.response.GroupResponse;
+import face4j.response.GroupResponseImpl;
+import face4j.response.LimitsResponse;
+import face4j.response.LimitsResponseImpl;
+import face4j.response.NamespaceResponse;
+import face4j.response.NamespaceResponseImpl;
+import face4j.response.PhotoResponse;
+import face4j.response.ParseOptions;
+import face4j.response.PhotoHandler;
+import face4j.response.PhotoResponseImpl;
+import face4j.response.RemoveTagResponse;
+import face4j.response.RemoveTagResponseImpl;
+import face4j.response.SaveTagResponse;
+import face4j.response.SaveTagResponseImpl;
+import face4j.response.StatusResponse;
+import face4j.response.StatusResponseImpl;
+import face4j.response.TrainResponse;
+import face4j.response.TrainResponseImpl;
+import face4j.response.UsersResponse;
+import face4j.response.UsersResponseImpl;
+
+/**
+ * Default implementation of {@link FaceClient} interface
+ * 
+ * @author Marlon Hendred 
+ * 
+ * @see {@link FaceClient}  
+ * @see <a href="http://developers.face.com/docs/">Developer's page</a>
+ */
+public class DefaultFaceClient implements FaceClient
+{	
+	/**
+	 * Logger (SLF4J)
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(FaceClient.class);
+	
+	/**
+	 * Default API end point @TODO: set from properties
+	 */
+	private static final String API_ENDPOINT = "http://api.face.com";
+	
+	/**
+	 * Name of the file next to the disk cache's segments the training epochs are saved in
+	 */
+	private static final String EPOCHS_FILE = "training.epochs";
+	
+	/**
+	 * Most recognition results to track for eager eviction on training. Results of 
+	 * untracked ones are still never served after it, their keys carry the epoch.
+	 */
+	private static final int MAX_TRACKED_RECOGNITIONS = 1 << 16;
+	
+	/**
+	 * Handles {@code POST}s to the face.com endpoint
+	 */
+	private final Responder http;
+	
+	/**
+	 * Facebook and twitter credentials
+	 * 
+	 * @TODO: Implement facebook OAuth dance
+	 */
+	private final Credentials creds;
+	
+	/**
+	 * Parameters that are required for every call
+	 */
+	private final Parameters reqd;
+	
+	/**
+	 * Base {@link URI} endpoint
+	 */
+	private final URI baseURI;
+
+	/**
+	 * Detector mode
+	 */
+	private boolean isAggressive;
+	
+	/**
+	 * How responses are decoded
+	 */
+	private ParseOptions parseOptions = ParseOptions.DEFAULT;
+	
+	/**
+	 * Parser responses are decoded with
+	 */
+	private JsonCodec codec = JsonCodecs.getDefault();
+	
+	/**
+	 * Results of image uploads, {@code null} when caching is off
+	 */
+	private volatile ResultCache<ResultKey, Photo> resultCache;
+	
+	/**
+	 * Persistent tier behind {@link #resultCache}, {@code null} when off
+	 */
+	private volatile DiskResultCache diskCache;
+	
+	/**
+	 * Detection results by perceptual hash, {@code null} when off
+	 */
+	private volatile NearDuplicateCache nearDuplicateCache;
+	
+	/**
+	 * Digests of images without faces, {@code null} when off
+	 */
+	private volatile NegativeCache negativeCache;
+	
+	/**
+	 * Applied to image files before they are uploaded, {@code null} when off
+	 */
+	private volatile UploadPreprocessor uploadPreprocessor;
+	
+	/**
+	 * Cuts the faces out for {@link #recognize(File, String, Photo)}
+	 */
+	private volatile FaceCropper faceCropper = new FaceCropper();
+	
+	/**
+	 * Packs the images of {@link #detect(List)}
+	 */
+	private volatile MosaicPacker mosaicPacker = new MosaicPacker();
+	
+	/**
+	 * Namespaces by name as of the last {@link #namespaces()} call
+	 */
+	private volatile NamespaceIndex namespaceIndex;
+	
+	/**
+	 * Trainings per namespace, part of the keys of cached recognition results
+	 */
+	private final TrainingEpochs epochs = new TrainingEpochs();
+	
+	/**
+	 * Namespaces the cached recognition results depend on
+	 */
+	private final DependencyIndex<ResultKey> recognitions = new DependencyIndex<ResultKey>(MAX_TRACKED_RECOGNITIONS);
+	
+	private static final class NamespaceIndex
+	{
+		final Map<String, Namespace> byName;
+		
+		final long created = System.currentTimeMillis();
+		
+		NamespaceIndex(final List<Namespace> namespaces)
+		{
+			byName = new HashMap<String, Namespace>(namespaces.size() * 2);
+			
+			for (Namespace ns : namespaces)
+			{
+				if (!byName.containsKey(ns.getName()))
+				{
+					byName.put(ns.getName(), ns);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Convenience constructor with default {@link Responder} implementation
+	 * 
+	 * @see {@link DefaultResponder}
+	 * @see {@link #DefaultFaceClient(String, String, Responder)}
+	 */
+	public DefaultFaceClient (final String apiKey, final String apiSecret)
+	{
+		this (apiKey, apiSecret, new ResponderImpl());
+	}
+	
+	/**
+	 * Constructs a Face.com API client pointing to {@code host}. You need to obtain an API key/secret pair.
+	 * You can get an API key/secret from face.com 
+	 * 
+	 * @param apiKey Your aplication's API key
+	 * @param apiSecret Your applications API secret
+	 *  
+	 * @see {@link Responder}
+	 * @see <a href="http://developers.face.com/docs/">Developer's page</a> for information on obtaining an
+	 * 		API key/secret
+	 */
+	public DefaultFaceClient (final String apiKey, final String apiSecret, final Responder responder)
+	{
+		this.baseURI = URI.create(API_ENDPOINT);
+		this.http    = responder;
+		this.creds   = new Credentials();
+		this.reqd	 = new Parameters();
+		
+		reqd.put("api_key", apiKey);
+		reqd.put("api_secret", apiSecret);
+		
+		setAggressive(false);
+	}	
+	
+	/**
+	 * @see {@link FaceClient#removeTags(String)}
+	 */
+	public List<RemovedTag> removeTags (final String tids) throws FaceClientException, FaceServerException
+	{
+		Validate.notEmpty(tids, "Tag ids cannot be empty");
+		
+		final Parameters params = new Parameters("tids", tids);
+		final JsonReader reader = executeRead(Api.REMOVE_TAGS, params);
+		final RemoveTagResponse response = new RemoveTagResponseImpl(reader, parseOptions);
+		
+		// The response doesn't tell whose tags these were
+		invalidateResponses(Arrays.asList(DependencyIndex.path(Api.GET_TAGS), DependencyIndex.path(Api.STATUS), 
+			DependencyIndex.path(Api.USERS)));
+		
+		return response.getRemovedTags();	
+	}
+	
+	/**
+	 * @see {@link FaceClient#train(String)}
+	 */
+	public TrainResponse train (final String uids) throws FaceClientException, FaceServerException
+	{
+		final Parameters params = new Parameters("uids", uids);		
+		final JsonReader reader = executeRead(Api.TRAIN, params);
+		final TrainResponse response = new TrainResponseImpl(reader, parseOptions);
+		
+		if (uids != null)
+		{
+			trained(uids);
+		}
+		
+		return response;
+	}
+	
+	/**
+	 * @see {@link FaceClient#addTag(String, float, float, int, int, String, String, String)}
+	 */
+	public void addTag (
+			final String url, 
+			final float x, 
+			final float y,
+			final int width, 
+			final int height, 
+			final String uid, 
+			final String label, 
+			final String taggerId) 
+		throws FaceClientException, FaceServerException
+	{
+		Validate.notNull(uid, "UID cannot be null");
+		
+		final Parameters params = new Parameters();
+		
+		params.put("x", x);
+		params.put("y", y);
+		params.put("width", width);
+		params.put("height", height);
+		params.put("tagger_id", taggerId);
+		params.put("url", url);
+		params.put("uid", uid);
+		params.put("label", label);
+
+		// No response
+		executePost(Api.ADD_TAG, params);
+		
+		tagged(uid);
+	}
+	
+	/**
+	 * @see {@link FaceClient#getTags(String, String, String, String, boolean, int)}
+	 */
+	public List<Photo> getTags (
+			final String urls,
+			final String uids,
+			final String order,
+			final String filter,
+			final boolean together,
+			final int limit)
+	throws FaceClientException, FaceServerException
+	{
+		return getTags(null, urls, uids, order, filter, together, limit);
+	}
+	
+	/**
+	 * @see {@link FaceClient#getTags(String, String, String, String, String, boolean, int)}
+	 */
+	public List<Photo> getTags (
+			final String pids, 
+			final String urls, 
+			final String uids, 
+			final String order,
+			final String filter,
+			final boolean together,
+			final int limit) 
+		throws FaceClientException, FaceServerException
+	{
+		return getTags(pids, urls, uids, order, filter, together, limit, parseOptions);
+	}
+	
+	/**
+	 * Same as {@link #getTags(String, String, String, String, String, boolean, int)} but 
+	 * decodes with {@code options} rather than the client's {@link #getParseOptions()}
+	 */
+	public List<Photo> getTags (
+			final String pids, 
+			final String urls, 
+			final String uids, 
+			final String order,
+			final String filter,
+			final boolean together,
+			final int limit,
+			final ParseOptions options) 
+		throws FaceClientException, FaceServerException
+	{
+		Validate.notNull(options, "Options cannot be null");
+		
+		final Parameters params = getTagsParams(pids, urls, uids, order, filter, together, limit);
+		final JsonReader reader = executeRead(Api.GET_TAGS, params);
+		final PhotoResponse response = new PhotoResponseImpl(reader, options);
+		
+		return response.getPhotos();
+	}
+	
+	/**
+	 * @see {@link FaceClient#getTags(String, String, String, String, String, boolean, int, PhotoHandler)}
+	 */
+	public LimitsResponse getTags (
+			final String pids, 
+			final String urls, 
+			final String uids, 
+			final String order,
+			final String filter,
+			final boolean together,
+			final int limit,
+			final PhotoHandler handler) 
+		throws FaceClientException, FaceServerException
+	{
+		Validate.notNull(handler, "Handler cannot be null");
+		
+		final Parameters params = getTagsParams(pids, urls, uids, order, filter, together, limit);
+		final JsonReader reader = executeRead(Api.GET_TAGS, params);
+		
+		return new PhotoResponseImpl(reader, parseOptions, handler);
+	}
+	
+	/**
+	 * @see {@link FaceClient#getTags(String, String, String, String, String, boolean, int, FaceVisitor)}
+	 */
+	public LimitsResponse getTags (
+			final String pids, 
+			final String urls, 
+			final String uids, 
+			final String order,
+			final String filter,
+			final boolean together,
+			final int limit,
+			final FaceVisitor visitor) 
+		throws FaceClientException, FaceServerException
+	{
+		Validate.notNull(visitor, "Visitor cannot be null");
+		
+		final Parameters params = getTagsParams(pids, urls, uids, order, filter, together, limit);
+		final JsonReader reader = executeRead(Api.GET_TAGS, params);
+		
+		return new PhotoResponseImpl(reader, parseOptions, visitor);
+	}
+	
+	private static Parameters getTagsParams (
+			final String pids, 
+			final String urls, 
+			final String uids, 
+			final String order,
+			final String filter,
+			final boolean together,
+			final int limit)
+	{
+		final Parameters params = new Parameters();
+		
+		params.put("pids", pids);
+		params.put("urls", urls);
+		params.put("uids", uids);
+		params.put("order", order);
+		params.put("filter", filter);
+		params.put("together", together);
+		params.put("limit", limit);
+		
+		return params;
+	}
+
+	/**
+	 * @see {@list FaceClient#saveTags(String, String, String)}
+	 */
+	public List<SavedTag> saveTags (final String tids, final String uid, final String label) 
+		throws FaceClientException, FaceServerException
+	{
+		Validate.notEmpty(uid, "User IDs cannot be null");
+		Validate.notEmpty(tids, "Tag IDs cannot be null");
+		
+		final Parameters params = new Parameters("tids", tids);
+		
+		params.put("uid", uid);
+		params.put("label", label);
+		
+		final JsonReader reader = executeRead(Api.SAVE_TAGS, params);
+		final SaveTagResponse response = new SaveTagResponseImpl(reader, parseOptions);
+		
+		tagged(uid);
+
+		return response.getSavedTags();
+	}
+	
+	/**
+	 * @see {@link FaceClient#recognize(URL, String)}
+	 */
+	public Photo recognize (final File imageFile, final String uids) throws FaceClientException, FaceServerException
+	{	
+		Validate.notNull(imageFile, "File is null");
+		Validate.isTrue(imageFile.exists(), "File does not exist!");
+		Validate.notEmpty(uids, "User IDs cannot be null");
+			
+		return readPhoto(imageFile, Api.RECOGNIZE, new Parameters("uids", uids));
+	}
+	
+	/**
+	 * @see {@link FaceClient#recognize(File, String, Photo)}
+	 */
+	public Photo recognize (final File imageFile, final String uids, final Photo detected) 
+		throws FaceClientException, FaceServerException
+	{
+		Validate.notNull(imageFile, "File is null");
+		Validate.isTrue(imageFile.exists(), "File does not exist!");
+		Validate.notEmpty(uids, "User IDs cannot be null");
+		Validate.notNull(detected, "Detected photo cannot be null");
+		
+		if (detected.getFaceCount() == 0)
+		{
+			return detected;
+		}
+		
+		final Sheet sheet;
+		
+		try
+		{
+			sheet = faceCropper.crop(imageFile, detected);
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.warn("Recognizing the whole of " + imageFile, ioe);
+			return recognize(imageFile, uids);
+		}
+		
+		try
+		{
+			final JsonReader reader = executeRead(sheet.getFile(), Api.RECOGNIZE, new Parameters("uids", uids));
+			final Photo photo = new PhotoResponseImpl(reader, parseOptions).getPhoto();
+			
+			if (photo == null)
+			{
+				return null;
+			}
+			
+			final Face[] found = new Face[detected.getFaceCount()];
+			
+			for (Face face : photo.getFaces())
+			{
+				final Tile tile = sheet.tileOf(face);
+				
+				if (tile == null || found[tile.getSource()] != null)
+				{
+					continue;
+				}
+				
+				final Face mapped = sheet.toSource(face, tile);
+				final Face known = detected.getFaces().get(tile.getSource());
+				
+				// Skip neighbours caught in the margin of the crop
+				if (known.getRectangle().contains(mapped.getCenter()))
+				{
+					// The tid of the sheet's tag would tag the sheet
+					found[tile.getSource()] = mapped.withTID(known.getTID());
+				}
+			}
+			
+			final List<Face> faces = new ArrayList<Face>(found.length);
+			
+			for (Face face : found)
+			{
+				if (face != null)
+				{
+					faces.add(face);
+				}
+			}
+			
+			return photo.withSource(detected.getURL(), detected.getPID())
+				.withSize(sheet.getTiles().get(0).getSourceWidth(), sheet.getTiles().get(0).getSourceHeight())
+				.withFaces(faces);
+		}
+		
+		finally
+		{
+			sheet.release();
+		}
+	}
+	
+	/**
+	 * @see {@link FaceClient#recognize(String, String)}
+	 */
+	public List<Photo> recognize (final String urls, final String uids) throws FaceClientException, FaceServerException
+	{
+		Validate.notEmpty(urls, "URLs cant be empty");
+		Validate.notEmpty(uids, "User IDs can't be empty");
+				
+		final Parameters params = new Parameters("uids", uids);
+		
+		params.put("urls", urls);
+
+		final JsonReader reader = executeRead(Api.RECOGNIZE, params);
+		final PhotoResponse response = new PhotoResponseImpl(reader, parseOptions);
+				
+		return response.getPhotos();
+	}
+	
+	/**
+	 * @see {@link FaceClient#recognize(String, String, PhotoHandler)}
+	 */
+	public LimitsResponse recognize (final String urls, final String uids, final PhotoHandler handler) 
+		throws FaceClientException, FaceServerException
+	{
+		Validate.notEmpty(urls, "URLs cant be empty");
+		Validate.notEmpty(uids, "User IDs can't be empty");
+		Validate.notNull(handler, "Handler cannot be null");
+				
+		final Parameters params = new Parameters("uids", uids);
+		
+		params.put("urls", urls);
+
+		final JsonReader reader = executeRead(Api.RECOGNIZE, params);
+		
+		return new PhotoResponseImpl(reader, parseOptions, handler);
+	}
+	
+	/**
+	 * @see {@link FaceClient#recognize(String, String, FaceVisitor)}
+	 */
+	public LimitsResponse recognize (final String urls, final String uids, final FaceVisitor visitor) 
+		throws FaceClientException, FaceServerException
+	{
+		Validate.notEmpty(urls, "URLs cant be empty");
+		Validate.notEmpty(uids, "User IDs can't be empty");
+		Validate.notNull(visitor, "Visitor cannot be null");
+				
+		final Parameters params = new Parameters("uids", uids);
+		
+		params.put("urls", urls);
+
+		final JsonReader reader = executeRead(Api.RECOGNIZE, params);
+		
+		return new PhotoResponseImpl(reader, parseOptions, visitor);
+	}
+	
+	/**
+h	 * @see {@link FaceClient#detect(URL)}
+	 */
+	public Photo detect (final File imageFile) throws FaceClientException, FaceServerException
+	{	
+		Validate.notNull(imageFile, "File is null");
+		Validate.isTrue(imageFile.exists(), "File doesn't exist!");
+		
+		return readPhoto(imageFile, Api.DETECT, new Parameters());
+	}
+	
+	/**
+	 * @see {@link FaceClient#detect(List)}
+	 */
+	public List<Photo> detect (final List<File> imageFiles) throws FaceClientException, FaceServerException
+	{
+		Validate.notEmpty(imageFiles, "Files cannot be empty");
+		
+		final List<Sheet> sheets;
+		
+		try
+		{
+			sheets = mosaicPacker.pack(imageFiles);
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error packing images", ioe);
+			throw new FaceClientException(ioe);
+		}
+		
+		final List<Photo> photos = new ArrayList<Photo>(imageFiles.size());
+		
+		try
+		{
+			for (Sheet sheet : sheets)
+			{
+				final JsonReader reader = executeRead(sheet.getFile(), Api.DETECT, new Parameters());
+				final Photo photo = new PhotoResponseImpl(reader, parseOptions).getPhoto();
+				
+				if (photo == null)
+				{
+					throw new FaceClientException("Response is missing the photo of " + sheet.getTiles().size() + " images");
+				}
+				
+				photos.addAll(sheet.split(photo));
+			}
+		}
+		
+		finally
+		{
+			for (Sheet sheet : sheets)
+			{
+				sheet.release();
+			}
+		}
+		
+		return photos;
+	}
+
+	/**
+	 * @see {@link FaceClient#detect(String)}
+	 */
+	public List<Photo> detect (final String urls) throws FaceClientException, FaceServerException
+	{
+		Validate.notNull(urls, "URLs cannot be null");
+		
+		final Parameters params = new Parameters();
+		
+		params.put("urls", urls);
+		
+		final JsonReader reader = executeRead(Api.DETECT, params);
+		final PhotoResponse response = new PhotoResponseImpl(reader, parseOptions);
+		
+		return response.getPhotos();
+	}
+	
+	/**
+	 * @see {@link FaceClient#detect(String, PhotoHandler)}
+	 */
+	public LimitsResponse detect (final String urls, final PhotoHandler handler) throws FaceClientException, FaceServerException
+	{
+		Validate.notNull(urls, "URLs cannot be null");
+		Validate.notNull(handler, "Handler cannot be null");
+		
+		final Parameters params = new Parameters();
+		
+		params.put("urls", urls);
+		
+		final JsonReader reader = executeRead(Api.DETECT, params);
+		
+		return new PhotoResponseImpl(reader, parseOptions, handler);
+	}
+	
+	/**
+	 * @see {@link FaceClient#detect(String, FaceVisitor)}
+	 */
+	public LimitsResponse detect (final String urls, final FaceVisitor visitor) throws FaceClientException, FaceServerException
+	{
+		Validate.notNull(urls, "URLs cannot be null");
+		Validate.notNull(visitor, "Visitor cannot be null");
+		
+		final Parameters params = new Parameters();
+		
+		params.put("urls", urls);
+		
+		final JsonReader reader = executeRead(Api.DETECT, params);
+		
+		return new PhotoResponseImpl(reader, parseOptions, visitor);
+	}
+
+	/**
+	 * @see {@link FaceClient#status(String)}
+	 */
+	public List<UserStatus> status (final String uids) throws FaceClientException, FaceServerException
+	{
+		Validate.notEmpty(uids, "UIDs cant be empty");
+				
+		final Parameters params = new Parameters();
+
+		params.put("uids", uids);
+		
+		final JsonReader reader = executeRead(Api.STATUS, params);
+		final StatusResponse response = new StatusResponseImpl(reader, parseOptions);
+			
+		return response.getTrainingStatus();
+	}
+	
+	/**
+	 * @see {@link FaceClient#facebookGet(String)}
+	 */
+	public List<Photo> facebookGet (final String uids) throws FaceClientException, FaceServerException
+	{
+		Validate.notEmpty(uids, "User IDs cannot be empty");
+		
+		final Parameters params = new Parameters();
+
+		params.put("uids", uids);
+		
+		final JsonReader reader = executeRead(Api.FACEBOOK, params);
+		final PhotoResponse response = new PhotoResponseImpl(reader, parseOptions);
+						
+		return response.getPhotos();	
+	}
+
+	/**
+	 * @see {@link FaceClient#group(String, String)}
+	 */
+	public GroupResponse group(String urls, String uids) throws FaceClientException, FaceServerException
+	{
+		Validate.notEmpty(urls, "URLs cannot be empty");
+		Validate.notEmpty(uids, "UIDs cannot be empty");
+		
+		final Parameters params = new Parameters();
+		
+		params.put("uids", uids);
+		params.put("urls", urls);
+
+		final JsonReader reader = executeRead(Api.GROUP, params);
+		final GroupResponse response = new GroupResponseImpl(reader, parseOptions);
+						
+		return response;
+	}
+
+	/**
+	 * @see {@link FaceClient#group(File, String)}
+	 */
+	public GroupResponse group (File imageFile, String uids) throws FaceClientException, FaceServerException 
+	{
+		Validate.isTrue(imageFile.exists(), "File does not exist");
+		Validate.notEmpty(uids, "UIDs cannot be empty");
+		
+		final Parameters params = new Parameters();
+		
+		params.put("uids", uids);
+		
+		final JsonReader reader = executeRead(imageFile, Api.GROUP, params);
+		final GroupResponse response = new GroupResponseImpl(reader, parseOptions);
+			
+		return response;
+	}
+
+	/** 
+	 * @see {@link FaceClient#users(String)}
+	 */
+	public UsersResponse users (String namespaces) throws FaceClientException, FaceServerException
+	{
+		Validate.notEmpty(namespaces, "Must supply namespace(s)");
+		
+		final Parameters params = new Parameters();
+		params.put("namespaces", namespaces);
+		
+		final JsonReader reader = executeRead(Api.USERS, params);
+		final UsersResponse response = new UsersResponseImpl(reader, parseOptions);
+		
+		return response;
+	}
+	
+	/**
+	 * @see {@link FaceClient#usage()}
+	 */
+	public LimitsResponse limits () throws FaceClientException, FaceServerException
+	{
+		final JsonReader reader = executeRead(Api.LIMITS, new Parameters());
+		final LimitsResponse response = new LimitsResponseImpl(reader, parseOptions);
+		
+		return response;
+	}
+	
+	/**
+	 * @see {@link FaceClient#namespaces()}
+	 */
+	public List<Namespace> namespaces() throws FaceClientException, FaceServerException
+	{
+		final JsonReader reader = executeRead(Api.NAMESPACES, new Parameters());
+		final NamespaceResponse response = new NamespaceResponseImpl(reader, parseOptions);
+		final List<Namespace> namespaces = response.getNamespaces();
+		
+		namespaceIndex = new NamespaceIndex(namespaces);
+		
+		return namespaces;
+	}
+	
+	/**
+	 * Looks {@code namespace} up by name. With a {@link CachingResponder} the names of the 
+	 * last {@link #namespaces()} call are reused for the TTL of the namespaces endpoint, 
+	 * otherwise the namespaces are fetched on every call.
+	 * 
+	 * @see {@link FaceClient#getNamespace(String)
+	 */
+	public Namespace getNamespace(String namespace) throws FaceClientException, FaceServerException
+	{
+		final long ttl = (http instanceof CachingResponder) 
+			? ((CachingResponder) http).getTtl(Api.NAMESPACES, TimeUnit.MILLISECONDS) : 0;
+		
+		NamespaceIndex index = namespaceIndex;
+		
+		if (index == null || System.currentTimeMillis() - index.created >= ttl)
+		{
+			namespaces();
+			index = namespaceIndex;
+		}
+		
+		return index.byName.get(namespace);
+	}
+	
+	/**
+	 * @see {@link FaceClient#setFacebookOauth2(String, String)}
+	 */
+	public void setFacebookOauth2(final String fbUserId, final String oauthToken)
+	{
+		creds.put("fb_user", fbUserId);
+		creds.put("fb_oauth_token", oauthToken);
+	}
+	
+	/**
+	 * @see {@link FaceClient#setTwitterOauth(String, String, String)}
+	 */
+	public void setTwitterOauth(final String oauthUser, final String oauthSecret, final String oauthToken)
+	{
+		creds.put("twitter_oauth_user", oauthUser);
+		creds.put("twitter_oauth_secret", oauthSecret);
+		creds.put("twitter_oauth_token", oauthToken);
+	}
+	
+	/**
+	 * @see {@link FaceClient#clearFacebookCreds()}
+	 */
+	public void clearFacebookCreds()
+	{
+		creds.remove("fb_oauth_token");
+		creds.remove("fb_user");
+	}
+	
+	/**
+	 * @see {@link FaceClient#clearTwitterCreds()}
+	 */
+	public void clearTwitterCreds()
+	{
+		creds.remove("twitter_oauth_user");
+		creds.remove("twitter_oauth_secret");
+		creds.remove("twitter_oauth_token");
+	}
+	
+	/**
+	 * @see {@link FaceClient#setAggressive(boolean)} 
+	 */
+	public void setAggressive(final boolean isAggressive)
+	{
+		this.isAggressive = isAggressive;
+		
+		reqd.put("detector", isAggressive ? "Aggressive" : "Normal");
+	}
+	
+	/**
+	 * @see {@link FaceClient#isAggressive()}
+	 */
+	public boolean isAggressive()
+	{
+		return isAggressive;	
+	}
+	
+	/**
+	 * @see {@link FaceClient#setRetainRawResponses(boolean)}
+	 */
+	public void setRetainRawResponses(final boolean retainRawResponses)
+	{
+		this.parseOptions = parseOptions.withRetainRaw(retainRawResponses);
+	}
+	
+	/**
+	 * @see {@link FaceClient#isRetainRawResponses()}
+	 */
+	public boolean isRetainRawResponses()
+	{
+		return parseOptions.isRetainRaw();
+	}
+	
+	/**
+	 * Sets how responses are decoded, e.g. {@link ParseOptions#withParallelDecoding(int)} for 
+	 * large {@code getTags} and multi-url {@code recognize} responses
+	 */
+	public void setParseOptions(final ParseOptions parseOptions)
+	{
+		Validate.notNull(parseOptions, "Parse options cannot be null");
+		
+		this.parseOptions = parseOptions;
+	}
+	
+	public ParseOptions getParseOptions()
+	{
+		return parseOptions;
+	}
+	
+	/**
+	 * Interns the uids of every response this client decodes in {@code symbolTable}, 
+	 * {@code null} turns interning off. Shorthand for {@link ParseOptions#withSymbolTable(SymbolTable)}.
+	 */
+	public void setSymbolTable(final SymbolTable symbolTable)
+	{
+		this.parseOptions = parseOptions.withSymbolTable(symbolTable);
+	}
+	
+	/**
+	 * Sets the parser responses are decoded with, {@link JsonCodecs#getDefault()} unless set
+	 */
+	public void setJsonCodec(final JsonCodec codec)
+	{
+		Validate.notNull(codec, "Codec cannot be null");
+		
+		this.codec = codec;
+	}
+	
+	public JsonCodec getJsonCodec()
+	{
+		return codec;
+	}
+	
+	/**
+	 * Serves {@link #detect(File)} and {@link #recognize(File, String)} from {@code resultCache} 
+	 * when the same image bytes were uploaded before with the same parameters, {@code null} 
+	 * turns caching off. Results are cached as pixel independent percentages, as returned.
+	 */
+	public void setResultCache(final ResultCache<ResultKey, Photo> resultCache)
+	{
+		if (resultCache != null)
+		{
+			resultCache.setEvictionListener(new EvictionListener<ResultKey>()
+			{
+				public void onEviction(final ResultKey key)
+				{
+					// Still needed to invalidate the disk tier
+					if (diskCache == null)
+					{
+						recognitions.unregister(key);
+					}
+				}
+			});
+		}
+		
+		this.resultCache = resultCache;
+	}
+	
+	public ResultCache<ResultKey, Photo> getResultCache()
+	{
+		return resultCache;
+	}
+	
+	/**
+	 * Keeps the results of {@link #detect(File)} and {@link #recognize(File, String)} in 
+	 * {@code diskCache} as well, so they survive restarts. It is looked up after the 
+	 * {@link #setResultCache(ResultCache) result cache}, {@code null} turns it off. The 
+	 * client does not close it.
+	 * <p>
+	 * The {@link #getTrainingEpochs() training epochs} recognition results are keyed by are 
+	 * loaded from and saved to the cache's directory, so results of a namespace trained since 
+	 * they were stored stay unreachable after a restart.
+	 * 
+	 * @throws FaceClientException if the saved epochs cannot be read
+	 */
+	public void setDiskCache(final DiskResultCache diskCache) throws FaceClientException
+	{
+		if (diskCache != null)
+		{
+			diskCache.setEvictionListener(new EvictionListener<ResultKey>()
+			{
+				public void onEviction(final ResultKey key)
+				{
+					recognitions.unregister(key);
+				}
+			});
+			
+			try
+			{
+				epochs.persistTo(new File(diskCache.getDirectory(), EPOCHS_FILE));
+			}
+			
+			catch (IOException ioe)
+			{
+				logger.error("Error loading training epochs", ioe);
+				throw new FaceClientException(ioe);
+			}
+		}
+		
+		this.diskCache = diskCache;
+	}
+	
+	public DiskResultCache getDiskCache()
+	{
+		return diskCache;
+	}
+	
+	/**
+	 * Answers {@link #detect(File)} for resized or recompressed copies of images that were 
+	 * detected before, found by their {@link PerceptualHash}. Looked up after the exact 
+	 * caches, its hits have no pid or url and are not added to them. {@code null} turns 
+	 * it off.
+	 */
+	public void setNearDuplicateCache(final NearDuplicateCache nearDuplicateCache)
+	{
+		this.nearDuplicateCache = nearDuplicateCache;
+	}
+	
+	public NearDuplicateCache getNearDuplicateCache()
+	{
+		return nearDuplicateCache;
+	}
+	
+	/**
+	 * Skips uploads through {@link #detect(File)} and {@link #recognize(File, String)} of 
+	 * images no faces were found in before in the same detector mode, returning 
+	 * {@link NegativeCache#NO_FACES} instead. Looked up after the result caches, 
+	 * {@code null} turns it off.
+	 */
+	public void setNegativeCache(final NegativeCache negativeCache)
+	{
+		this.negativeCache = negativeCache;
+	}
+	
+	public NegativeCache getNegativeCache()
+	{
+		return negativeCache;
+	}
+	
+	/**
+	 * Uploads the images of {@link #detect(File)} and {@link #recognize(File, String)} as 
+	 * prepared by {@code uploadPreprocessor}, e.g. a {@link face4j.image.Downscaler}. The 
+	 * photos returned have the size of the original images, {@code null} uploads files 
+	 * as they are.
+	 */
+	public void setUploadPreprocessor(final UploadPreprocessor uploadPreprocessor)
+	{
+		this.uploadPreprocessor = uploadPreprocessor;
+	}
+	
+	public UploadPreprocessor getUploadPreprocessor()
+	{
+		return uploadPreprocessor;
+	}
+	
+	/**
+	 * Sets how {@link #recognize(File, String, Photo)} crops faces, e.g. with a wider margin
+	 */
+	public void setFaceCropper(final FaceCropper faceCropper)
+	{
+		Validate.notNull(faceCropper, "Face cropper cannot be null");
+		
+		this.faceCropper = faceCropper;
+	}
+	
+	public FaceCropper getFaceCropper()
+	{
+		return faceCropper;
+	}
+	
+	/**
+	 * Sets how {@link #detect(List)} packs images, e.g. more of them per upload
+	 */
+	public void setMosaicPacker(final MosaicPacker mosaicPacker)
+	{
+		Validate.notNull(mosaicPacker, "Mosaic packer cannot be null");
+		
+		this.mosaicPacker = mosaicPacker;
+	}
+	
+	public MosaicPacker getMosaicPacker()
+	{
+		return mosaicPacker;
+	}
+	
+	/**
+	 * @return The trainings of every namespace seen by this client, which cached 
+	 * recognition results are keyed by
+	 */
+	public TrainingEpochs getTrainingEpochs()
+	{
+		return epochs;
+	}
+	
+	private String executePost(String api, Parameters params) throws FaceClientException, FaceServerException
+	{
+		return executePost(null, api, params);
+	}
+	
+	private String executePost(File file, String api, Parameters params) throws FaceClientException, FaceServerException
+	{
+		final URI uri = prepare(api, params);
+		
+		if (file != null)
+		{
+			return http.doPost(file, uri, params.toPostParams());
+		}
+		
+		else
+		{
+			return http.doPost(uri, params.toPostParams());
+		}
+	}
+	
+	private JsonReader executeRead(String api, Parameters params) throws FaceClientException, FaceServerException
+	{
+		return executeRead(null, api, params);
+	}
+	
+	/**
+	 * Same as {@link #executePost(File, String, Parameters)} but hands back a reader over the
+	 * raw response bytes so the response is decoded without an intermediate {@code String}, 
+	 * if the responder is a {@link StreamingResponder}
+	 */
+	private JsonReader executeRead(File file, String api, Parameters params) throws FaceClientException, FaceServerException
+	{
+		final URI uri = prepare(api, params);
+		final InputStream in = Responders.openStream(http, file, uri, params.toPostParams());
+		
+		try
+		{
+			return codec.newReader(in);
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error reading response", ioe);
+			closeQuietly(in);
+			throw new FaceClientException(ioe);
+		}
+		
+		catch (RuntimeException re)
+		{
+			closeQuietly(in);
+			throw re;
+		}
+	}
+	
+	private static void closeQuietly(InputStream in)
+	{
+		try
+		{
+			in.close();
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.warn("Error closing response", ioe);
+		}
+	}
+	
+	/**
+	 * Uploads {@code file} and decodes the single photo of the response, going through 
+	 * the result caches if there are any
+	 */
+	private Photo readPhoto(File file, String api, Parameters params) throws FaceClientException, FaceServerException
+	{
+		final NearDuplicateCache nearDuplicates = Api.DETECT.equals(api) ? nearDuplicateCache : null;
+		final NegativeCache noFaces = negativeCache;
+		final ResultKey key = (resultCache == null && diskCache == null && nearDuplicates == null && noFaces == null) 
+			? null : cacheKey(file, api, params);
+		
+		if (key != null)
+		{
+			final Photo cached = lookup(key);
+			
+			if (cached != null)
+			{
+				if (logger.isDebugEnabled())
+				{
+					logger.debug("Cache hit for {}", key);
+				}
+				
+				track(key, params);
+				
+				return cached;
+			}
+		}
+		
+		final String detector = reqd.getMap().get("detector");
+		
+		if (noFaces != null && noFaces.contains(key.getDigest(), detector))
+		{
+			if (logger.isDebugEnabled())
+			{
+				logger.debug("Skipping {}, no faces were found in it before", file);
+			}
+			
+			return NegativeCache.NO_FACES;
+		}
+		
+		final PerceptualHash hash = (nearDuplicates == null) ? null : perceptualHash(file);
+		
+		if (hash != null)
+		{
+			final Photo similar = nearDuplicates.get(key, hash);
+			
+			if (similar != null)
+			{
+				if (logger.isDebugEnabled())
+				{
+					logger.debug("Near duplicate hit for {}", hash);
+				}
+				
+				// Not stored under the exact digest, it was never detected in this image
+				return similar;
+			}
+		}
+		
+		final Photo photo = upload(file, api, params);
+		
+		if (noFaces != null && photo != null && photo.getFaceCount() == 0)
+		{
+			noFaces.add(key.getDigest(), detector);
+		}
+		
+		if (key != null && photo != null)
+		{
+			store(key, photo);
+			track(key, params);
+			
+			if (hash != null)
+			{
+				nearDuplicates.put(key, hash, photo);
+			}
+		}
+		
+		return photo;
+	}
+	
+	/**
+	 * Uploads {@code file}, or what the {@link #uploadPreprocessor} makes of it, and 
+	 * decodes the single photo of the response
+	 */
+	private Photo upload(File file, String api, Parameters params) throws FaceClientException, FaceServerException
+	{
+		final Upload upload = prepare(file);
+		
+		try
+		{
+			final JsonReader reader = executeRead(upload.getFile(), api, params);
+			final Photo photo = new PhotoResponseImpl(reader, parseOptions).getPhoto();
+			
+			return (photo != null && upload.isTransformed()) ? photo.withSize(upload.getWidth(), upload.getHeight()) : photo;
+		}
+		
+		finally
+		{
+			upload.release();
+		}
+	}
+	
+	/**
+	 * @return The upload for {@code file}, the file itself if there is no preprocessor or 
+	 * it fails
+	 */
+	private Upload prepare(File file)
+	{
+		final UploadPreprocessor preprocessor = uploadPreprocessor;
+		
+		if (preprocessor != null)
+		{
+			try
+			{
+				return preprocessor.prepare(file);
+			}
+			
+			catch (IOException ioe)
+			{
+				logger.warn("Uploading " + file + " as is", ioe);
+			}
+		}
+		
+		return Upload.of(file);
+	}
+	
+	/**
+	 * @return The perceptual hash of {@code file} or {@code null} if it isn't an image 
+	 * {@code javax.imageio} can read
+	 */
+	private PerceptualHash perceptualHash(File file) throws FaceClientException
+	{
+		try
+		{
+			return PerceptualHash.of(file);
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error reading image", ioe);
+			throw new FaceClientException(ioe);
+		}
+	}
+	
+	/**
+	 * Records the namespaces a cached recognition result depends on
+	 */
+	private void track(ResultKey key, Parameters params)
+	{
+		final String uids = params.getMap().get("uids");
+		
+		if (uids != null)
+		{
+			final List<String> dependencies = new ArrayList<String>();
+			
+			for (String namespace : DependencyIndex.namespacesOf(uids))
+			{
+				dependencies.add(DependencyIndex.namespace(namespace));
+			}
+			
+			recognitions.register(key, dependencies);
+		}
+	}
+	
+	/**
+	 * Evicts what a tag saved for {@code uid} makes stale: its tags and status, the users 
+	 * of its namespace and tag lookups by photo
+	 */
+	private void tagged(String uid)
+	{
+		final Set<String> dependencies = DependencyIndex.forUids(uid);
+		
+		for (String namespace : DependencyIndex.namespacesOf(uid))
+		{
+			dependencies.add(DependencyIndex.namespace(namespace));
+		}
+		
+		dependencies.add(DependencyIndex.TAGS_BY_PHOTO);
+		
+		invalidateResponses(dependencies);
+	}
+	
+	/**
+	 * Starts a new training epoch of every namespace in {@code uids}, evicting the cached 
+	 * recognition results of those namespaces and the statuses of {@code uids}
+	 */
+	private void trained(String uids)
+	{
+		final ResultCache<ResultKey, Photo> memory = resultCache;
+		final DiskResultCache disk = diskCache;
+		
+		for (String namespace : DependencyIndex.namespacesOf(uids))
+		{
+			epochs.advance(namespace);
+			
+			for (ResultKey key : recognitions.invalidate(DependencyIndex.namespace(namespace)))
+			{
+				if (memory != null)
+				{
+					memory.invalidate(key);
+				}
+				
+				if (disk != null)
+				{
+					disk.invalidate(key);
+				}
+			}
+		}
+		
+		invalidateResponses(DependencyIndex.forUids(uids));
+	}
+	
+	private void invalidateResponses(Collection<String> dependencies)
+	{
+		if (http instanceof CachingResponder)
+		{
+			final CachingResponder responder = (CachingResponder) http;
+			
+			for (String dependency : dependencies)
+			{
+				responder.invalidate(dependency);
+			}
+		}
+	}
+	
+	/**
+	 * Looks {@code key} up in memory, then on disk. Disk hits are promoted to memory.
+	 */
+	private Photo lookup(ResultKey key)
+	{
+		final ResultCache<ResultKey, Photo> memory = resultCache;
+		final DiskResultCache disk = diskCache;
+		
+		Photo photo = (memory == null) ? null : memory.get(key);
+		
+		if (photo == null && disk != null)
+		{
+			photo = disk.get(key, parseOptions.getSymbolTable());
+			
+			if (photo != null && memory != null)
+			{
+				memory.put(key, photo);
+			}
+		}
+		
+		if (photo == null)
+		{
+			// Not stored or dropped since, nothing left to evict
+			recognitions.unregister(key);
+		}
+		
+		return photo;
+	}
+	
+	private void store(ResultKey key, Photo photo)
+	{
+		final ResultCache<ResultKey, Photo> memory = resultCache;
+		final DiskResultCache disk = diskCache;
+		
+		if (memory != null)
+		{
+			memory.put(key, photo);
+		}
+		
+		if (disk != null)
+		{
+			disk.put(key, photo);
+		}
+	}
+	
+	/**
+	 * Key of an upload: the digest of the file plus everything that is posted with it, 
+	 * except the API secret
+	 */
+	private ResultKey cacheKey(File file, String api, Parameters params) throws FaceClientException
+	{
+		final Map<String, String> keyParams = new HashMap<String, String>(params.getMap());
+		
+		keyParams.putAll(reqd.getMap());
+		keyParams.remove("api_secret");
+		keyParams.put("user_auth", creds.getAuthString());
+		
+		if (keyParams.containsKey("uids"))
+		{
+			keyParams.put("epochs", epochs.describe(DependencyIndex.namespacesOf(keyParams.get("uids"))));
+		}
+		
+		try
+		{
+			return new ResultKey(api, ContentDigest.of(file), keyParams);
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error reading image", ioe);
+			throw new FaceClientException(ioe);
+		}
+	}
+	
+	private URI prepare(String api, Parameters params)
+	{
+		final URI uri = baseURI.resolve(api);
+		
+		params.putAll(reqd.getMap());
+		params.put("user_auth", creds.getAuthString());
+
+		if (logger.isInfoEnabled())
+		{
+			logger.info("POSTing to: {} ", uri.toString());
+			logger.info("Detector mode [{}]", (isAggressive ? "agressive" : "normal"));
+			logger.info("POST parameters: {}", params.toString());
+		}
+		
+		return uri;
+	}
 }
\ No newline at end of file
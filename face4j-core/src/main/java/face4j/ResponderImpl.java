@@ -1,237 +1,328 @@
-/*
- * Copyright (c) 2010 Marlon Hendred
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in
- * all copies or substantial portions of the Software.
- *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
- * THE SOFTWARE.
- */
-
-package face4j;
-
-import java.io.File;
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URI;
-import java.util.List;
-
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.mime.MultipartEntity;
-import org.apache.http.entity.mime.content.FileBody;
-import org.apache.http.entity.mime.content.StringBody;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.util.EntityUtils;
-import org.json.JSONException;
-import org.json.JSONObject;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import face4j.exception.FaceClientException;
-import face4j.exception.FaceServerException;
-
-/**
- * Default implementation of {@link Responder} interface. It seems as though
- * face.com always returns an HTTP status code of 200 even for 404 not founds.
- * This is why there is no need to check the status line.
- * 
- * @author Marlon Hendred
- *
- */
-class ResponderImpl implements Responder
-{
-	/**
-	 * This is a slf4j logger. You can change the framework and runtime by adding a jar to
-	 * your classpath
-	 * 
-	 *  @see http://www.slf4j.org
-	 */
-	private static final Logger logger = LoggerFactory.getLogger(Responder.class);
-	
-	/**
-	 * "failure" string constant
-	 */
-	private static final String FAILURE = "failure";
-	
-	/**
-	 * {@link HttpClient} for executing requests
-	 */
-	private final HttpClient httpClient;
-	
-	/**
-	 * {@link HttpPost} method for {@code POST}s
-	 */
-	private final HttpPost postMethod;
-	
-	/**
-	 * {@link HttpGet} method for {@code GET}s
-	 */
-	private final HttpGet getMethod;
-	
-	public ResponderImpl()
-	{
-		this.httpClient = new DefaultHttpClient();	
-		this.postMethod = new HttpPost();
-		this.getMethod  = new HttpGet();
-	}
-
-	/** 
-	 * @see {@link Responder#doPost(URI, List)}
-	 */
-	public String doPost(final URI uri, final List<NameValuePair> params) throws FaceClientException, FaceServerException
-	{		
-		try
-		{
-			final HttpEntity entity = new UrlEncodedFormEntity(params, "UTF-8");
-			
-			postMethod.setURI(uri);
-			postMethod.setEntity(entity);
-		
-			final HttpResponse response = httpClient.execute(postMethod);	
-			
-			return checkResponse(response);
-		}
-		
-		catch (IOException ioe)
-		{
-			logger.error("Error while POSTing to {} ", uri, ioe);
-			throw new FaceClientException(ioe);
-		}
-	}
-	
-	/**
-	 * @see {@link Responder#doPost(File, URI, List)}
-	 */
-	public String doPost(final File file, final URI uri, final List<NameValuePair> params) throws  FaceClientException, FaceServerException
-	{		
-		try
-		{
-			final MultipartEntity entity = new MultipartEntity();	
-			
-			if (logger.isInfoEnabled())
-			{
-				logger.info("Adding image entity, size: [{}] bytes", file.length());
-			}
-			
-			entity.addPart("image", new FileBody(file));
-
-			try 
-			{
-				for (NameValuePair nvp : params)
-				{
-					entity.addPart(nvp.getName(), new StringBody(nvp.getValue()));
-				}
-			}
-			
-			catch (UnsupportedEncodingException uee)
-			{
-				logger.error("Error adding entity", uee);
-				throw new FaceClientException(uee);
-			}
-		
-			postMethod.setURI(uri);
-			postMethod.setEntity(entity);
-			
-			final long start = System.currentTimeMillis();
-			final HttpResponse response = httpClient.execute(postMethod);
-		
-			if (logger.isDebugEnabled())
-			{
-				logger.debug("POST took {} (ms)", (System.currentTimeMillis() - start));
-			}
-			
-			return checkResponse(response);
-		}
-		
-		catch (IOException ioe)
-		{
-			logger.error("Error while POSTing to {} ", uri, ioe);
-			throw new FaceClientException(ioe);
-		}
-	}
-	
-	/**
-	 * @see {@code Responder#doGet(URI)}
-	 */
-	public String doGet (final URI uri) throws  FaceClientException, FaceServerException
-	{
-		getMethod.setURI(uri);
-		
-		try 
-		{
-			final HttpResponse response = httpClient.execute(getMethod);
-			return checkResponse(response);
-		}
-		
-		catch (IOException ioe)
-		{
-			logger.error("Error while POSTing to {} ", uri, ioe);
-			throw new FaceClientException(ioe);
-		}
-	}
-	
-	private String checkResponse(HttpResponse httpResponse) throws FaceServerException, FaceClientException
-	{
-		try 
-		{
-			final String json = EntityUtils.toString(httpResponse.getEntity());
-		
-			if (json.contains(FAILURE))
-			{
-				final JSONObject obj = new JSONObject(json);
-				final String message = obj.getString("error_message");
-				final int errorCode  = obj.getInt("error_code");
-				
-				final FaceServerException fse = new FaceServerException(message, errorCode);
-				
-				if (logger.isDebugEnabled())
-				{
-					logger.debug("Error: ", fse);
-				}
-				
-				throw fse;	
-			}
-			
-			else 
-			{
-				if (logger.isInfoEnabled())
-				{
-					logger.info("SUCCESS:{} ", httpResponse.getStatusLine());
-				}
-				
-				return json;
-			}
-		
-		}
-		
-		catch (JSONException jse)
-		{
-			logger.error("Error parsing response", jse);
-			throw new FaceClientException(jse);
-		}
-		
-		catch (IOException ioe)
-		{
-			logger.error("Error parsing response", ioe);
-			throw new FaceClientException(ioe);
-		}
-	}
-}
\ No newline at end of file
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.util.List;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.mime.MultipartEntity;
+import org.apache.http.entity.mime.content.FileBody;
+import org.apache.http.entity.mime.content.StringBody;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+
+/**
+ * Default implementation of {@link Responder} interface. It seems as though
+ * face.com always returns an HTTP status code of 200 even for 404 not founds,
+ * so a failure status in the body is what is checked first. Other status codes 
+ * with bodies that aren't API responses, such as proxy error pages, are client errors.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+class ResponderImpl implements StreamingResponder
+{
+	/**
+	 * This is a slf4j logger. You can change the framework and runtime by adding a jar to
+	 * your classpath
+	 * 
+	 *  @see http://www.slf4j.org
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(Responder.class);
+	
+	/**
+	 * {@link HttpClient} for executing requests
+	 */
+	private final HttpClient httpClient;
+	
+	/**
+	 * {@link HttpPost} method for {@code POST}s
+	 */
+	private final HttpPost postMethod;
+	
+	/**
+	 * {@link HttpGet} method for {@code GET}s
+	 */
+	private final HttpGet getMethod;
+	
+	public ResponderImpl()
+	{
+		this.httpClient = new DefaultHttpClient();	
+		this.postMethod = new HttpPost();
+		this.getMethod  = new HttpGet();
+	}
+
+	/** 
+	 * @see {@link Responder#doPost(URI, List)}
+	 */
+	public String doPost(final URI uri, final List<NameValuePair> params) throws FaceClientException, FaceServerException
+	{		
+		try
+		{
+			final HttpResponse response = execute(uri, toEntity(params));	
+			
+			return checkResponse(response);
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error while POSTing to {} ", uri, ioe);
+			throw new FaceClientException(ioe);
+		}
+	}
+	
+	/**
+	 * @see {@link Responder#doPost(File, URI, List)}
+	 */
+	public String doPost(final File file, final URI uri, final List<NameValuePair> params) throws  FaceClientException, FaceServerException
+	{		
+		try
+		{
+			final HttpResponse response = execute(uri, toEntity(file, params));
+			
+			return checkResponse(response);
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error while POSTing to {} ", uri, ioe);
+			throw new FaceClientException(ioe);
+		}
+	}
+	
+	/**
+	 * @see {@link StreamingResponder#doPostStream(URI, List)}
+	 */
+	public InputStream doPostStream(final URI uri, final List<NameValuePair> params) throws FaceClientException, FaceServerException
+	{
+		try
+		{
+			return openResponse(execute(uri, toEntity(params)));
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error while POSTing to {} ", uri, ioe);
+			throw new FaceClientException(ioe);
+		}
+	}
+	
+	/**
+	 * @see {@link StreamingResponder#doPostStream(File, URI, List)}
+	 */
+	public InputStream doPostStream(final File file, final URI uri, final List<NameValuePair> params) throws FaceClientException, FaceServerException
+	{
+		try
+		{
+			return openResponse(execute(uri, toEntity(file, params)));
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error while POSTing to {} ", uri, ioe);
+			throw new FaceClientException(ioe);
+		}
+	}
+	
+	private HttpEntity toEntity(final List<NameValuePair> params) throws UnsupportedEncodingException
+	{
+		return new UrlEncodedFormEntity(params, "UTF-8");
+	}
+	
+	private HttpEntity toEntity(final File file, final List<NameValuePair> params) throws FaceClientException
+	{
+		final MultipartEntity entity = new MultipartEntity();	
+		
+		if (logger.isInfoEnabled())
+		{
+			logger.info("Adding image entity, size: [{}] bytes", file.length());
+		}
+		
+		entity.addPart("image", new FileBody(file));
+
+		try 
+		{
+			for (NameValuePair nvp : params)
+			{
+				entity.addPart(nvp.getName(), new StringBody(nvp.getValue()));
+			}
+		}
+		
+		catch (UnsupportedEncodingException uee)
+		{
+			logger.error("Error adding entity", uee);
+			throw new FaceClientException(uee);
+		}
+		
+		return entity;
+	}
+	
+	private HttpResponse execute(final URI uri, final HttpEntity entity) throws IOException
+	{
+		postMethod.setURI(uri);
+		postMethod.setEntity(entity);
+		
+		final long start = System.currentTimeMillis();
+		final HttpResponse response = httpClient.execute(postMethod);
+	
+		if (logger.isDebugEnabled())
+		{
+			logger.debug("POST took {} (ms)", (System.currentTimeMillis() - start));
+		}
+		
+		return response;
+	}
+	
+	/**
+	 * Hands back the body of a successful response as it arrives, its status is checked 
+	 * by the response decoders. Other responses are read whole and checked like 
+	 * {@link #checkResponse(HttpResponse)}.
+	 */
+	private InputStream openResponse(HttpResponse httpResponse) throws IOException, FaceClientException, FaceServerException
+	{
+		final HttpEntity entity = httpResponse.getEntity();
+		
+		if (entity == null || !isSuccess(httpResponse))
+		{
+			// Throws, with the failure status of the body if there is one
+			readChecked(httpResponse);
+		}
+		
+		if (logger.isInfoEnabled())
+		{
+			logger.info("RECEIVED:{} ", httpResponse.getStatusLine());
+		}
+		
+		return entity.getContent();
+	}
+	
+	private static boolean isSuccess(HttpResponse httpResponse)
+	{
+		final int status = httpResponse.getStatusLine().getStatusCode();
+		
+		return status >= 200 && status < 300;
+	}
+	
+	/**
+	 * @see {@code Responder#doGet(URI)}
+	 */
+	public String doGet (final URI uri) throws  FaceClientException, FaceServerException
+	{
+		getMethod.setURI(uri);
+		
+		try 
+		{
+			final HttpResponse response = httpClient.execute(getMethod);
+			return checkResponse(response);
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error while POSTing to {} ", uri, ioe);
+			throw new FaceClientException(ioe);
+		}
+	}
+	
+	private String checkResponse(HttpResponse httpResponse) throws FaceServerException, FaceClientException
+	{
+		try
+		{
+			return new String(readChecked(httpResponse), "UTF-8");
+		}
+		
+		catch (UnsupportedEncodingException uee)
+		{
+			throw new FaceClientException(uee);
+		}
+	}
+	
+	/**
+	 * @return The body of {@code httpResponse} if it is a successful API response
+	 */
+	private byte[] readChecked(HttpResponse httpResponse) throws FaceServerException, FaceClientException
+	{
+		final HttpEntity entity = httpResponse.getEntity();
+		
+		if (entity == null)
+		{
+			throw new FaceClientException("Empty response: " + httpResponse.getStatusLine());
+		}
+		
+		final byte[] body;
+		
+		try 
+		{
+			body = EntityUtils.toByteArray(entity);
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error reading response", ioe);
+			throw new FaceClientException(ioe);
+		}
+		
+		final boolean ok = isSuccess(httpResponse);
+		
+		try
+		{
+			Responders.checkBody(body);
+		}
+		
+		catch (FaceClientException fce)
+		{
+			// Not an API response, the status line says more about e.g. a proxy error page
+			if (ok)
+			{
+				throw fce;
+			}
+		}
+		
+		if (!ok)
+		{
+			throw new FaceClientException("Unexpected response: " + httpResponse.getStatusLine());
+		}
+		
+		if (logger.isInfoEnabled())
+		{
+			logger.info("SUCCESS:{} ", httpResponse.getStatusLine());
+		}
+		
+		return body;
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.util.List;
+
+import org.apache.http.NameValuePair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+import face4j.json.JsonReader;
+import face4j.json.JsonToken;
+import face4j.json.Utf8JsonReader;
+
+/**
+ * Checks and adapters shared by the {@link Responder}s
+ * 
+ * @author Marlon Hendred
+ *
+ */
+final class Responders
+{
+	private static final Logger logger = LoggerFactory.getLogger(Responder.class);
+	
+	private static final String FAILURE = "failure";
+	
+	private Responders()
+	{
+		// Static helpers only
+	}
+	
+	/**
+	 * POSTs through {@link StreamingResponder#doPostStream(File, URI, List)} if {@code responder} 
+	 * streams, through {@link Responder#doPost(File, URI, List)} otherwise
+	 * 
+	 * @param file The file to upload, {@code null} for none
+	 */
+	static InputStream openStream (final Responder responder, final File file, final URI uri, final List<NameValuePair> params) 
+		throws FaceClientException, FaceServerException
+	{
+		if (responder instanceof StreamingResponder)
+		{
+			final StreamingResponder streaming = (StreamingResponder) responder;
+			
+			return (file == null) ? streaming.doPostStream(uri, params) : streaming.doPostStream(file, uri, params);
+		}
+		
+		final String body = (file == null) ? responder.doPost(uri, params) : responder.doPost(file, uri, params);
+		
+		try
+		{
+			return new ByteArrayInputStream(body.getBytes("UTF-8"));
+		}
+		
+		catch (UnsupportedEncodingException uee)
+		{
+			throw new FaceClientException(uee);
+		}
+	}
+	
+	/**
+	 * Checks a buffered response body the way the response decoders do, reading only the 
+	 * top level members of the object and skipping the others without decoding them
+	 * 
+	 * @throws FaceServerException if the body has a failure status
+	 * @throws FaceClientException if the body isn't a JSON object
+	 */
+	static void checkBody (final byte[] body) throws FaceServerException, FaceClientException
+	{
+		final JsonReader reader = new Utf8JsonReader(body);
+		
+		String status = null;
+		String errorMessage = null;
+		int errorCode = 0;
+		
+		try
+		{
+			if (reader.peek() != JsonToken.BEGIN_OBJECT)
+			{
+				throw new FaceClientException("Response is not a JSON object");
+			}
+			
+			reader.beginObject();
+			
+			while (reader.hasNext())
+			{
+				final String name = reader.nextName();
+				
+				if ("status".equals(name))
+				{
+					status = reader.nextString();
+				}
+				
+				else if ("error_code".equals(name))
+				{
+					errorCode = reader.optInt(0);
+				}
+				
+				else if ("error_message".equals(name))
+				{
+					errorMessage = reader.nextString();
+				}
+				
+				else
+				{
+					reader.skipValue();
+				}
+			}
+			
+			reader.endObject();
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error parsing response", ioe);
+			throw new FaceClientException(ioe);
+		}
+		
+		if (FAILURE.equals(status))
+		{
+			final FaceServerException fse = new FaceServerException(errorMessage, errorCode);
+			
+			if (logger.isDebugEnabled())
+			{
+				logger.debug("Error: ", fse);
+			}
+			
+			throw fse;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+
+import org.apache.http.NameValuePair;
+
+import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+
+/**
+ * A {@link Responder} that can hand back response bodies as bytes, so they are decoded 
+ * without an intermediate {@code String}. {@link DefaultFaceClient} uses these methods when 
+ * its responder implements this interface and {@link Responder#doPost(URI, List)} otherwise.
+ * Failed HTTP requests are thrown as by {@code doPost}. A failure status in the body of a 
+ * successful one may be left for the response decoder, which reads it from the stream.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public interface StreamingResponder extends Responder
+{
+	/**
+	 * Method for making {@code POST} requests to the server when the response body is to be decoded
+	 * straight from its {@code UTF-8} bytes
+	 * 
+	 * @param uri The {@link URI} of the REST resource to make the {@code POST} request on
+	 * @param params {@code List}<{@link NameValuePair} of {@code POST} parameters
+	 * 
+	 * @return The response body, which the caller must close
+	 * 
+	 * @throws FaceClientException if there was a problem making the request
+	 * @throws FaceServerException if the response has a failure status known before its body is read
+	 */
+	public InputStream doPostStream (final URI uri, final List<NameValuePair> params) throws FaceClientException, FaceServerException;
+	
+	/**
+	 * Method for {@code POST}ing files to the server when the response body is to be decoded straight
+	 * from its {@code UTF-8} bytes.
+	 * 
+	 * @param file The {@code File} to {@code POST} to the server
+	 * @param uri The {@link URI} of the REST resource to make the {@code POST} request on
+	 * @param params {@code List}<{@link NameValuePair}> of {@code POST} parameters 
+	 * 
+	 * @return The response body, which the caller must close
+	 * 
+	 * @throws FaceClientException if there was a problem making the request
+	 * @throws FaceServerException if the response has a failure status known before its body is read
+	 * 
+	 * @see #doPostStream(URI, List)
+	 */
+	public InputStream doPostStream (final File file, final URI uri, final List<NameValuePair> params) throws FaceClientException, FaceServerException;
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Burkhard-Keller tree over 64 bit hashes under the Hamming distance. Children are kept 
+ * per distance from their parent, so a search within {@code d} of a hash only descends 
+ * into children at distance {@code [k - d, k + d]} by the triangle inequality. Not 
+ * thread safe.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+final class BKTree<V>
+{
+	private static final class Node<V>
+	{
+		final long hash;
+		
+		V value;
+		
+		/**
+		 * Indexed by distance from this node, 0 is never used
+		 */
+		@SuppressWarnings("unchecked")
+		final Node<V>[] children = new Node[Long.SIZE + 1];
+		
+		Node(final long hash, final V value)
+		{
+			this.hash  = hash;
+			this.value = value;
+		}
+	}
+	
+	private Node<V> root;
+	
+	private int size;
+	
+	/**
+	 * Maps {@code hash} to {@code value}, replacing the value of an equal hash
+	 */
+	public void put (final long hash, final V value)
+	{
+		if (root == null)
+		{
+			root = new Node<V>(hash, value);
+			size++;
+			return;
+		}
+		
+		Node<V> node = root;
+		
+		while (true)
+		{
+			final int d = PerceptualHash.distance(hash, node.hash);
+			
+			if (d == 0)
+			{
+				node.value = value;
+				return;
+			}
+			
+			if (node.children[d] == null)
+			{
+				node.children[d] = new Node<V>(hash, value);
+				size++;
+				return;
+			}
+			
+			node = node.children[d];
+		}
+	}
+	
+	/**
+	 * @return The value of the hash closest to {@code hash} within {@code maxDistance} 
+	 * bits, or {@code null} if there is none
+	 */
+	public V nearest (final long hash, final int maxDistance)
+	{
+		if (root == null)
+		{
+			return null;
+		}
+		
+		final List<Node<V>> pending = new ArrayList<Node<V>>();
+		
+		Node<V> best = null;
+		int bound = maxDistance;
+		
+		pending.add(root);
+		
+		while (!pending.isEmpty())
+		{
+			final Node<V> node = pending.remove(pending.size() - 1);
+			final int d = PerceptualHash.distance(hash, node.hash);
+			
+			if (d <= bound)
+			{
+				best  = node;
+				bound = d;
+				
+				if (d == 0)
+				{
+					break;
+				}
+			}
+			
+			final int from = Math.max(1, d - bound);
+			final int to   = Math.min(Long.SIZE, d + bound);
+			
+			for (int k = from; k <= to; k++)
+			{
+				if (node.children[k] != null)
+				{
+					pending.add(node.children[k]);
+				}
+			}
+		}
+		
+		return (best == null) ? null : best.value;
+	}
+	
+	public int size ()
+	{
+		return size;
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.util.Arrays;
+
+/**
+ * Bloom filter over 128 bit digests. The {@code k} probes are derived from the two halves 
+ * of the digest by double hashing, which needs no further hashing as the digests are 
+ * already uniformly distributed. Not thread safe.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+final class BloomFilter
+{
+	private final long[] bits;
+	
+	private final long size;
+	
+	private final int probes;
+	
+	/**
+	 * Sized for {@code expected} digests at a false positive rate of {@code fpp}
+	 */
+	BloomFilter(final int expected, final double fpp)
+	{
+		final double ln2 = Math.log(2);
+		final long m = Math.max(64, (long) Math.ceil(-expected * Math.log(fpp) / (ln2 * ln2)));
+		
+		this.bits   = new long[(int) ((m + 63) >>> 6)];
+		this.size   = bits.length * 64L;
+		this.probes = Math.max(1, (int) Math.round((double) size / expected * ln2));
+	}
+	
+	void put (final long h1, final long h2)
+	{
+		long h = h1;
+		
+		for (int i = 0; i < probes; i++)
+		{
+			final long bit = (h & Long.MAX_VALUE) % size;
+			
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+			h += h2;
+		}
+	}
+	
+	boolean mightContain (final long h1, final long h2)
+	{
+		long h = h1;
+		
+		for (int i = 0; i < probes; i++)
+		{
+			final long bit = (h & Long.MAX_VALUE) % size;
+			
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0)
+			{
+				return false;
+			}
+			
+			h += h2;
+		}
+		
+		return true;
+	}
+	
+	void clear ()
+	{
+		Arrays.fill(bits, 0);
+	}
+	
+	/**
+	 * @return The size of the filter in bytes
+	 */
+	long getBytes ()
+	{
+		return bits.length * 8L;
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+/**
+ * Snapshot of the counters of a {@link ResultCache}
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class CacheStats
+{
+	private final long hits;
+	
+	private final long misses;
+	
+	private final long evictions;
+	
+	private final int size;
+	
+	private final long weight;
+	
+	CacheStats(final long hits, final long misses, final long evictions, final int size, final long weight)
+	{
+		this.hits      = hits;
+		this.misses    = misses;
+		this.evictions = evictions;
+		this.size      = size;
+		this.weight    = weight;
+	}
+	
+	public long getHits ()
+	{
+		return hits;
+	}
+	
+	public long getMisses ()
+	{
+		return misses;
+	}
+	
+	/**
+	 * @return Hits over lookups, 1 if there were none
+	 */
+	public double getHitRate ()
+	{
+		final long lookups = hits + misses;
+		
+		return (lookups == 0) ? 1.0 : (double) hits / lookups;
+	}
+	
+	/**
+	 * @return Entries dropped to stay within the weight bound
+	 */
+	public long getEvictions ()
+	{
+		return evictions;
+	}
+	
+	public int getSize ()
+	{
+		return size;
+	}
+	
+	public long getWeight ()
+	{
+		return weight;
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return "CacheStats[hits=" + hits + ", misses=" + misses + ", evictions=" + evictions 
+			+ ", size=" + size + ", weight=" + weight + "]";
+	}
+}
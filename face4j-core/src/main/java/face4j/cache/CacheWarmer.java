@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import face4j.DefaultFaceClient;
+import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+import face4j.model.Photo;
+import face4j.response.ParseOptions;
+
+/**
+ * Fills the caches of a client before it serves requests. For every configured namespace 
+ * the users are listed and their tags fetched with {@code getTags}, a batch of uids per 
+ * page. With a {@link face4j.CachingResponder} the responses land in its cache, and the 
+ * decoded photos are added to a {@link TagIndex}.
+ * <p>
+ * Large pages are decoded in parallel, with the client's other parse options and without 
+ * changing them, and pages are indexed on the executor, if set, while the 
+ * next page is fetched. The run stops starting pages once its time budget is spent.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class CacheWarmer
+{
+	private static final Logger logger = LoggerFactory.getLogger(CacheWarmer.class);
+	
+	/**
+	 * Bytes of a page from which it is decoded in parallel
+	 */
+	private static final int PARALLEL_THRESHOLD = 64 * 1024;
+	
+	private final DefaultFaceClient client;
+	
+	private final TagIndex index;
+	
+	private List<String> namespaces = Collections.emptyList();
+	
+	private int batchSize = 20;
+	
+	private int limit = 100;
+	
+	private long budget = TimeUnit.MINUTES.toMillis(1);
+	
+	private ExecutorService executor;
+	
+	private WarmUpListener listener;
+	
+	public CacheWarmer(final DefaultFaceClient client, final TagIndex index)
+	{
+		Validate.notNull(client, "Client cannot be null");
+		Validate.notNull(index, "Index cannot be null");
+		
+		this.client = client;
+		this.index  = index;
+	}
+	
+	public CacheWarmer setNamespaces (final String... namespaces)
+	{
+		this.namespaces = Arrays.asList(namespaces);
+		return this;
+	}
+	
+	/**
+	 * Uids per {@code getTags} call, 20 by default
+	 */
+	public CacheWarmer setBatchSize (final int batchSize)
+	{
+		Validate.isTrue(batchSize > 0, "Batch size must be positive");
+		
+		this.batchSize = batchSize;
+		return this;
+	}
+	
+	/**
+	 * Photos per {@code getTags} call, 100 by default
+	 */
+	public CacheWarmer setLimit (final int limit)
+	{
+		Validate.isTrue(limit > 0, "Limit must be positive");
+		
+		this.limit = limit;
+		return this;
+	}
+	
+	/**
+	 * Time after which no more pages are started, 1 minute by default
+	 */
+	public CacheWarmer setTimeBudget (final long budget, final TimeUnit unit)
+	{
+		Validate.isTrue(budget > 0, "Budget must be positive");
+		
+		this.budget = unit.toMillis(budget);
+		return this;
+	}
+	
+	/**
+	 * Indexes pages on {@code executor}, which is not shut down, instead of the calling thread
+	 */
+	public CacheWarmer setExecutor (final ExecutorService executor)
+	{
+		this.executor = executor;
+		return this;
+	}
+	
+	public CacheWarmer setListener (final WarmUpListener listener)
+	{
+		this.listener = listener;
+		return this;
+	}
+	
+	/**
+	 * Runs the warm up on the calling thread
+	 * 
+	 * @return The final progress, incomplete if the time budget ran out
+	 */
+	public WarmUpProgress warm () throws FaceClientException, FaceServerException
+	{
+		final long start = System.currentTimeMillis();
+		final long deadline = start + budget;
+		final ParseOptions clientOptions = client.getParseOptions();
+		final ParseOptions options = clientOptions.isParallel() 
+			? clientOptions : clientOptions.withParallelDecoding(PARALLEL_THRESHOLD);
+		final List<Future<?>> indexing = new ArrayList<Future<?>>();
+		
+		int users = 0;
+		int totalUsers = 0;
+		int pages = 0;
+		int photos = 0;
+		boolean complete = true;
+		
+		for (String namespace : namespaces)
+		{
+			if (System.currentTimeMillis() >= deadline)
+			{
+				complete = false;
+				break;
+			}
+			
+			final List<String> uids = client.users(namespace).getUsers(namespace);
+			
+			if (uids == null)
+			{
+				continue;
+			}
+			
+			totalUsers += uids.size();
+			
+			for (int from = 0; from < uids.size(); from += batchSize)
+			{
+				if (System.currentTimeMillis() >= deadline)
+				{
+					complete = false;
+					break;
+				}
+				
+				final List<String> batch = uids.subList(from, Math.min(uids.size(), from + batchSize));
+				final List<Photo> page = client.getTags(null, null, StringUtils.join(batch, ','), null, null, 
+					false, limit, options);
+				
+				indexing.add(index(page));
+				
+				users  += batch.size();
+				pages  += 1;
+				photos += page.size();
+				
+				progress(new WarmUpProgress(namespace, users, totalUsers, pages, photos, 
+					System.currentTimeMillis() - start, false));
+			}
+		}
+		
+		complete &= await(indexing, deadline);
+		
+		final WarmUpProgress done = new WarmUpProgress(null, users, totalUsers, pages, photos, 
+			System.currentTimeMillis() - start, complete);
+		
+		if (logger.isInfoEnabled())
+		{
+			logger.info("Warm up done: {}", done);
+		}
+		
+		progress(done);
+		
+		return done;
+	}
+	
+	private Future<?> index (final List<Photo> page)
+	{
+		final Runnable task = new Runnable()
+		{
+			public void run()
+			{
+				index.addAll(page);
+			}
+		};
+		
+		if (executor == null)
+		{
+			task.run();
+			return null;
+		}
+		
+		return executor.submit(task);
+	}
+	
+	/**
+	 * @return {@code false} if indexing didn't finish by {@code deadline}
+	 */
+	private static boolean await (final List<Future<?>> indexing, final long deadline) throws FaceClientException
+	{
+		try
+		{
+			for (Future<?> task : indexing)
+			{
+				if (task != null)
+				{
+					task.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				}
+			}
+			
+			return true;
+		}
+		
+		catch (TimeoutException te)
+		{
+			return false;
+		}
+		
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			throw new FaceClientException(ie);
+		}
+		
+		catch (ExecutionException ee)
+		{
+			throw new FaceClientException(ee.getCause());
+		}
+	}
+	
+	private void progress (final WarmUpProgress progress)
+	{
+		if (listener != null)
+		{
+			listener.onProgress(progress);
+		}
+	}
+}
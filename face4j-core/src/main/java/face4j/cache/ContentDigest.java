@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 128 bit MurmurHash3 digest of image bytes, identifying an upload by its content rather 
+ * than its file name
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class ContentDigest
+{
+	private static final int SEED = 0;
+	
+	private final long h1;
+	
+	private final long h2;
+	
+	public ContentDigest(final long h1, final long h2)
+	{
+		this.h1 = h1;
+		this.h2 = h2;
+	}
+	
+	public static ContentDigest of (final byte[] bytes)
+	{
+		return of(bytes, 0, bytes.length);
+	}
+	
+	public static ContentDigest of (final byte[] bytes, final int off, final int len)
+	{
+		final Murmur3 murmur = new Murmur3(SEED);
+		
+		murmur.update(bytes, off, len);
+		
+		return of(murmur);
+	}
+	
+	/**
+	 * Digests {@code in} up to its end, the stream is not closed
+	 */
+	public static ContentDigest of (final InputStream in) throws IOException
+	{
+		final Murmur3 murmur = new Murmur3(SEED);
+		final byte[] buf = new byte[8192];
+		
+		int n;
+		
+		while ((n = in.read(buf)) != -1)
+		{
+			murmur.update(buf, 0, n);
+		}
+		
+		return of(murmur);
+	}
+	
+	public static ContentDigest of (final File file) throws IOException
+	{
+		final InputStream in = new FileInputStream(file);
+		
+		try
+		{
+			return of(in);
+		}
+		
+		finally
+		{
+			in.close();
+		}
+	}
+	
+	private static ContentDigest of (final Murmur3 murmur)
+	{
+		final long[] h = murmur.finish();
+		
+		return new ContentDigest(h[0], h[1]);
+	}
+	
+	public long getHigh ()
+	{
+		return h1;
+	}
+	
+	public long getLow ()
+	{
+		return h2;
+	}
+	
+	@Override
+	public int hashCode ()
+	{
+		return (int) h1;
+	}
+	
+	@Override
+	public boolean equals (final Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		
+		if (!(obj instanceof ContentDigest))
+		{
+			return false;
+		}
+		
+		final ContentDigest other = (ContentDigest) obj;
+		
+		return h1 == other.h1 && h2 == other.h2;
+	}
+	
+	/**
+	 * @return 32 hex digits
+	 */
+	@Override
+	public String toString ()
+	{
+		return hex(h1) + hex(h2);
+	}
+	
+	private static String hex (final long h)
+	{
+		final String digits = Long.toHexString(h);
+		
+		return "0000000000000000".substring(digits.length()) + digits;
+	}
+}
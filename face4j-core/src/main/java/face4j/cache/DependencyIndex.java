@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Tracks which cache keys depend on which users, namespaces and endpoints, so a 
+ * mutation evicts exactly the entries it makes stale. Dependencies are plain strings 
+ * made by {@link #uid(String)}, {@link #namespace(String)} and {@link #path(String)}.
+ * <p>
+ * A bounded index forgets the keys registered longest ago first. It must then only 
+ * speed up eviction of entries that are unreachable anyway, such as recognition results 
+ * whose keys carry a {@link TrainingEpochs training epoch}.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class DependencyIndex<K>
+{
+	/**
+	 * Tag lookups by photo rather than by user, which any tag change may affect
+	 */
+	public static final String TAGS_BY_PHOTO = "tags";
+	
+	private final Map<String, Set<K>> dependents = new HashMap<String, Set<K>>();
+	
+	/**
+	 * In registration order, so the eldest key is forgotten first when bounded
+	 */
+	private final Map<K, Collection<String>> dependencies = new LinkedHashMap<K, Collection<String>>();
+	
+	private final int maxKeys;
+	
+	/**
+	 * Creates an unbounded index
+	 */
+	public DependencyIndex ()
+	{
+		this(Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * @param maxKeys The most keys to remember, the eldest are forgotten beyond it
+	 */
+	public DependencyIndex (final int maxKeys)
+	{
+		Validate.isTrue(maxKeys > 0, "Max keys must be positive");
+		
+		this.maxKeys = maxKeys;
+	}
+	
+	/**
+	 * @return The dependency on the user {@code uid}, such as {@code joe@facebook.com}
+	 */
+	public static String uid (final String uid)
+	{
+		return "uid:" + uid;
+	}
+	
+	/**
+	 * @return The dependency on the users and the training of {@code namespace}
+	 */
+	public static String namespace (final String namespace)
+	{
+		return "ns:" + namespace;
+	}
+	
+	/**
+	 * @return The dependency on everything returned by the endpoint at {@code path}
+	 */
+	public static String path (final String path)
+	{
+		return "path:" + path;
+	}
+	
+	/**
+	 * @return The namespace of {@code uid}, the part after the {@code @}, or {@code null}
+	 */
+	public static String namespaceOf (final String uid)
+	{
+		final int at = uid.lastIndexOf('@');
+		
+		return (at < 0) ? null : uid.substring(at + 1);
+	}
+	
+	/**
+	 * @param uids Comma separated uids, {@code all@namespace} standing for every user of 
+	 * the namespace
+	 * @return The user dependencies of {@code uids}, or the namespace dependency for 
+	 * {@code all@namespace}
+	 */
+	public static Set<String> forUids (final String uids)
+	{
+		final Set<String> found = new LinkedHashSet<String>();
+		
+		for (String uid : uids.split(","))
+		{
+			uid = uid.trim();
+			
+			if (uid.length() > 0)
+			{
+				found.add(uid.startsWith("all@") ? namespace(namespaceOf(uid)) : uid(uid));
+			}
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * @return The namespaces of the comma separated {@code uids}
+	 */
+	public static Set<String> namespacesOf (final String uids)
+	{
+		final Set<String> found = new LinkedHashSet<String>();
+		
+		for (String uid : uids.split(","))
+		{
+			final String namespace = namespaceOf(uid.trim());
+			
+			if (namespace != null)
+			{
+				found.add(namespace);
+			}
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Records that {@code key} depends on {@code keyDependencies}, replacing what was 
+	 * recorded for it before
+	 */
+	public synchronized void register (final K key, final Collection<String> keyDependencies)
+	{
+		unregister(key);
+		
+		if (keyDependencies.isEmpty())
+		{
+			return;
+		}
+		
+		dependencies.put(key, keyDependencies);
+		
+		for (String dependency : keyDependencies)
+		{
+			Set<K> keys = dependents.get(dependency);
+			
+			if (keys == null)
+			{
+				keys = new HashSet<K>();
+				dependents.put(dependency, keys);
+			}
+			
+			keys.add(key);
+		}
+		
+		if (dependencies.size() > maxKeys)
+		{
+			unregister(dependencies.keySet().iterator().next());
+		}
+	}
+	
+	/**
+	 * Forgets {@code key}, after it left the cache
+	 */
+	public synchronized void unregister (final K key)
+	{
+		final Collection<String> keyDependencies = dependencies.remove(key);
+		
+		if (keyDependencies != null)
+		{
+			for (String dependency : keyDependencies)
+			{
+				final Set<K> keys = dependents.get(dependency);
+				
+				keys.remove(key);
+				
+				if (keys.isEmpty())
+				{
+					dependents.remove(dependency);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Forgets every key that depends on {@code dependency}
+	 * 
+	 * @return The keys to evict
+	 */
+	public synchronized Set<K> invalidate (final String dependency)
+	{
+		final Set<K> keys = dependents.get(dependency);
+		
+		if (keys == null)
+		{
+			return Collections.emptySet();
+		}
+		
+		final Set<K> invalidated = new HashSet<K>(keys);
+		
+		for (K key : invalidated)
+		{
+			unregister(key);
+		}
+		
+		return invalidated;
+	}
+	
+	public synchronized void clear ()
+	{
+		dependents.clear();
+		dependencies.clear();
+	}
+	
+	/**
+	 * @return The number of keys with dependencies
+	 */
+	public synchronized int size ()
+	{
+		return dependencies.size();
+	}
+}
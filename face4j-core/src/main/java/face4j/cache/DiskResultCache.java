@@ -0,0 +1,818 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import face4j.model.Photo;
+import face4j.model.PhotoBuilder;
+import face4j.model.PhotoDecoder;
+import face4j.model.SymbolTable;
+
+/**
+ * Disk tier for detect and recognize results, kept across restarts. Results are appended 
+ * to memory mapped segment files of a fixed size; an on-heap index maps every key to the 
+ * offset of its latest record. Opening a directory replays its segments in order to 
+ * rebuild the index, so a restarted client answers repeat uploads without the network.
+ * <p>
+ * Every record is {@code [length][crc32][type][key][photo]}, the photo in the binary form 
+ * of {@link PhotoDecoder#writePhoto(Photo, java.io.DataOutput)}. The length is written 
+ * last and the checksum is verified on replay and on every read, so a record torn by a 
+ * crash is dropped along with anything after it in its segment.
+ * <p>
+ * Replaced and invalidated records leave garbage behind. A sealed segment that is less 
+ * than half live is compacted on a background thread by copying its live records to 
+ * the active segment. When there are more segments than allowed, the oldest is dropped 
+ * with its results.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class DiskResultCache implements Closeable
+{
+	private static final Logger logger = LoggerFactory.getLogger(DiskResultCache.class);
+	
+	public static final int DEFAULT_SEGMENT_SIZE = 16 << 20;
+	
+	public static final int DEFAULT_MAX_SEGMENTS = 16;
+	
+	private static final int MAGIC = 0x46344A43;
+	
+	private static final int VERSION = 1;
+	
+	/**
+	 * Magic, version and segment size, padded
+	 */
+	private static final int HEADER_SIZE = 16;
+	
+	/**
+	 * Length and checksum of a record, followed by its type
+	 */
+	private static final int RECORD_HEADER = 9;
+	
+	private static final byte PUT = 1;
+	
+	private static final byte REMOVE = 2;
+	
+	private static final String SUFFIX = ".seg";
+	
+	private static final class Segment
+	{
+		final int id;
+		
+		final File file;
+		
+		final MappedByteBuffer buffer;
+		
+		/**
+		 * End of the valid records
+		 */
+		int position = HEADER_SIZE;
+		
+		/**
+		 * Bytes of the records the index points to
+		 */
+		int live;
+		
+		Segment(final int id, final File file, final MappedByteBuffer buffer)
+		{
+			this.id     = id;
+			this.file   = file;
+			this.buffer = buffer;
+		}
+		
+		boolean isMostlyGarbage ()
+		{
+			return live < (position - HEADER_SIZE) / 2;
+		}
+	}
+	
+	private final File directory;
+	
+	private final int segmentSize;
+	
+	private final int maxSegments;
+	
+	private final TreeMap<Integer, Segment> segments = new TreeMap<Integer, Segment>();
+	
+	/**
+	 * Key to segment id in the high and offset in the low 32 bits
+	 */
+	private final Map<ResultKey, Long> index = new HashMap<ResultKey, Long>();
+	
+	private final ExecutorService compactor = Executors.newSingleThreadExecutor(new ThreadFactory()
+	{
+		public Thread newThread(final Runnable r)
+		{
+			final Thread thread = new Thread(r, "face4j-cache-compactor");
+			
+			thread.setDaemon(true);
+			
+			return thread;
+		}
+	});
+	
+	private Segment active;
+	
+	private EvictionListener<? super ResultKey> evictionListener;
+	
+	private boolean compactionPending;
+	
+	private boolean closed;
+	
+	private long hits;
+	
+	private long misses;
+	
+	private long evictions;
+	
+	private DiskResultCache(final File directory, final int segmentSize, final int maxSegments)
+	{
+		this.directory   = directory;
+		this.segmentSize = segmentSize;
+		this.maxSegments = maxSegments;
+	}
+	
+	/**
+	 * Opens or creates a cache in {@code directory} with the default segment size and count
+	 */
+	public static DiskResultCache open (final File directory) throws IOException
+	{
+		return open(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS);
+	}
+	
+	/**
+	 * Opens or creates a cache in {@code directory}. The cache takes at most 
+	 * {@code segmentSize * maxSegments} bytes of disk and address space.
+	 */
+	public static DiskResultCache open (final File directory, final int segmentSize, final int maxSegments) 
+		throws IOException
+	{
+		Validate.notNull(directory, "Directory cannot be null");
+		Validate.isTrue(segmentSize > HEADER_SIZE + RECORD_HEADER, "Segment size is too small");
+		Validate.isTrue(maxSegments > 1, "There must be at least 2 segments");
+		
+		if (!directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IOException("Cannot create " + directory);
+		}
+		
+		final DiskResultCache cache = new DiskResultCache(directory, segmentSize, maxSegments);
+		
+		cache.recover();
+		
+		return cache;
+	}
+	
+	private void recover () throws IOException
+	{
+		final File[] files = directory.listFiles();
+		final TreeMap<Integer, File> found = new TreeMap<Integer, File>();
+		
+		for (File file : files)
+		{
+			final String name = file.getName();
+			
+			if (name.endsWith(SUFFIX))
+			{
+				try
+				{
+					found.put(Integer.valueOf(name.substring(0, name.length() - SUFFIX.length())), file);
+				}
+				
+				catch (NumberFormatException nfe)
+				{
+					logger.warn("Ignoring {}", file);
+				}
+			}
+		}
+		
+		for (Map.Entry<Integer, File> entry : found.entrySet())
+		{
+			final Segment segment = map(entry.getKey().intValue(), entry.getValue());
+			
+			if (segment != null)
+			{
+				segments.put(segment.id, segment);
+				replay(segment);
+			}
+		}
+		
+		if (segments.isEmpty())
+		{
+			roll();
+		}
+		
+		else
+		{
+			active = segments.lastEntry().getValue();
+		}
+		
+		if (logger.isInfoEnabled())
+		{
+			logger.info("Recovered {} results from {} segments", index.size(), segments.size());
+		}
+	}
+	
+	/**
+	 * Maps a segment file, creating it if it's new. Files with a foreign header are deleted.
+	 */
+	private Segment map (final int id, final File file) throws IOException
+	{
+		final boolean exists = file.exists();
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		final MappedByteBuffer buffer;
+		
+		try
+		{
+			buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		}
+		
+		finally
+		{
+			raf.close();
+		}
+		
+		if (!exists)
+		{
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			buffer.putInt(8, segmentSize);
+		}
+		
+		else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != segmentSize)
+		{
+			logger.warn("Deleting {}, it was not written by this version or segment size", file);
+			
+			file.delete();
+			
+			return null;
+		}
+		
+		return new Segment(id, file, buffer);
+	}
+	
+	/**
+	 * Indexes the valid records of {@code segment}, stopping at the first torn record
+	 */
+	private void replay (final Segment segment) throws IOException
+	{
+		final ByteBuffer buffer = segment.buffer.duplicate();
+		final CRC32 crc = new CRC32();
+		
+		int offset = HEADER_SIZE;
+		
+		while (offset + RECORD_HEADER <= segmentSize)
+		{
+			final int length = buffer.getInt(offset);
+			
+			if (length == 0)
+			{
+				break;
+			}
+			
+			final byte[] record = (length > 0 && offset + RECORD_HEADER + length <= segmentSize) 
+				? read(buffer, offset, length, crc) : null;
+			
+			if (record == null)
+			{
+				logger.warn("Dropping torn records of {} after offset {}", segment.file, offset);
+				
+				for (int i = offset; i < segmentSize; i++)
+				{
+					buffer.put(i, (byte) 0);
+				}
+				
+				break;
+			}
+			
+			final ResultKey key = readKey(new DataInputStream(new ByteArrayInputStream(record)));
+			
+			if (buffer.get(offset + 8) == PUT)
+			{
+				index(key, segment, offset, RECORD_HEADER + length);
+			}
+			
+			else
+			{
+				unindex(key);
+			}
+			
+			offset += RECORD_HEADER + length;
+		}
+		
+		segment.position = offset;
+	}
+	
+	/**
+	 * @return The body of the record at {@code offset} or {@code null} if its checksum doesn't match
+	 */
+	private static byte[] read (final ByteBuffer buffer, final int offset, final int length, final CRC32 crc)
+	{
+		final byte[] body = new byte[length];
+		final ByteBuffer view = buffer.duplicate();
+		
+		view.position(offset + RECORD_HEADER);
+		view.get(body);
+		
+		crc.reset();
+		crc.update(buffer.get(offset + 8));
+		crc.update(body);
+		
+		return ((int) crc.getValue() == buffer.getInt(offset + 4)) ? body : null;
+	}
+	
+	/**
+	 * @return The cached photo or {@code null}, counted as a hit or a miss
+	 */
+	public Photo get (final ResultKey key)
+	{
+		return get(key, null);
+	}
+	
+	/**
+	 * @param symbols Interns the guessed uids, may be {@code null}
+	 * @return The cached photo or {@code null}, counted as a hit or a miss
+	 */
+	public Photo get (final ResultKey key, final SymbolTable symbols)
+	{
+		final byte[] record;
+		
+		synchronized (this)
+		{
+			final Long location = index.get(key);
+			
+			if (location == null)
+			{
+				misses++;
+				return null;
+			}
+			
+			final Segment segment = segments.get(segmentId(location));
+			final int offset = offset(location);
+			
+			record = read(segment.buffer, offset, segment.buffer.getInt(offset), new CRC32());
+			
+			if (record == null)
+			{
+				logger.warn("Corrupt record in {} at offset {}", segment.file, offset);
+				
+				unindex(key);
+				misses++;
+				
+				return null;
+			}
+			
+			hits++;
+		}
+		
+		try
+		{
+			final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+			final PhotoBuilder builder = new PhotoBuilder(symbols);
+			
+			readKey(in);
+			PhotoDecoder.readPhoto(in, builder);
+			
+			return builder.getPhotos().get(0);
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error decoding cached photo", ioe);
+			return null;
+		}
+	}
+	
+	/**
+	 * Appends {@code photo} as the result for {@code key}, replacing any earlier result
+	 * 
+	 * @return {@code false} if the photo is larger than a segment or the cache is closed
+	 */
+	public boolean put (final ResultKey key, final Photo photo)
+	{
+		Validate.notNull(photo, "Photo cannot be null");
+		
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		
+		try
+		{
+			final DataOutputStream out = new DataOutputStream(bytes);
+			
+			writeKey(key, out);
+			PhotoDecoder.writePhoto(photo, out);
+			out.flush();
+		}
+		
+		catch (IOException ioe)
+		{
+			// Can't happen writing to memory
+			throw new IllegalStateException(ioe);
+		}
+		
+		synchronized (this)
+		{
+			return append(key, PUT, bytes.toByteArray());
+		}
+	}
+	
+	/**
+	 * Told about every result dropped with the oldest segment, not about invalidated ones
+	 */
+	public synchronized void setEvictionListener (final EvictionListener<? super ResultKey> listener)
+	{
+		this.evictionListener = listener;
+	}
+	
+	/**
+	 * Forgets the result for {@code key}, across restarts too
+	 */
+	public void invalidate (final ResultKey key)
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		
+		try
+		{
+			writeKey(key, new DataOutputStream(bytes));
+		}
+		
+		catch (IOException ioe)
+		{
+			throw new IllegalStateException(ioe);
+		}
+		
+		synchronized (this)
+		{
+			if (index.containsKey(key))
+			{
+				append(key, REMOVE, bytes.toByteArray());
+			}
+		}
+	}
+	
+	/**
+	 * Writes one record to the active segment, rolling to a new segment if it's full
+	 */
+	private boolean append (final ResultKey key, final byte type, final byte[] body)
+	{
+		final int size = RECORD_HEADER + body.length;
+		
+		if (closed || size > segmentSize - HEADER_SIZE)
+		{
+			return false;
+		}
+		
+		if (active.position + size > segmentSize)
+		{
+			roll();
+		}
+		
+		final Segment segment = active;
+		final int offset = segment.position;
+		final ByteBuffer buffer = segment.buffer.duplicate();
+		final CRC32 crc = new CRC32();
+		
+		crc.update(type);
+		crc.update(body);
+		
+		buffer.position(offset + 8);
+		buffer.put(type);
+		buffer.put(body);
+		buffer.putInt(offset + 4, (int) crc.getValue());
+		
+		// Length goes last, a record without one is the end of the segment
+		buffer.putInt(offset, body.length);
+		
+		segment.position += size;
+		
+		if (type == PUT)
+		{
+			index(key, segment, offset, size);
+		}
+		
+		else
+		{
+			unindex(key);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Seals the active segment and starts a new one, dropping the oldest if there are too many
+	 */
+	private void roll ()
+	{
+		final int id = segments.isEmpty() ? 1 : segments.lastKey().intValue() + 1;
+		
+		try
+		{
+			active = map(id, new File(directory, String.format("%08d%s", id, SUFFIX)));
+		}
+		
+		catch (IOException ioe)
+		{
+			throw new IllegalStateException("Cannot create segment " + id, ioe);
+		}
+		
+		segments.put(id, active);
+		
+		while (segments.size() > maxSegments)
+		{
+			drop(segments.firstEntry().getValue());
+		}
+		
+		scheduleCompaction();
+	}
+	
+	/**
+	 * Deletes {@code segment} and every result in it
+	 */
+	private void drop (final Segment segment)
+	{
+		segments.remove(segment.id);
+		
+		final Iterator<Map.Entry<ResultKey, Long>> locations = index.entrySet().iterator();
+		
+		while (locations.hasNext())
+		{
+			final Map.Entry<ResultKey, Long> location = locations.next();
+			
+			if (segmentId(location.getValue()) == segment.id)
+			{
+				locations.remove();
+				evictions++;
+				
+				if (evictionListener != null)
+				{
+					evictionListener.onEviction(location.getKey());
+				}
+			}
+		}
+		
+		delete(segment);
+	}
+	
+	private static void delete (final Segment segment)
+	{
+		// The mapping stays valid until it's collected, the file is gone now on POSIX systems
+		if (!segment.file.delete())
+		{
+			logger.warn("Cannot delete {}", segment.file);
+		}
+	}
+	
+	private void index (final ResultKey key, final Segment segment, final int offset, final int size)
+	{
+		unindex(key);
+		
+		index.put(key, ((long) segment.id << 32) | offset);
+		segment.live += size;
+	}
+	
+	private void unindex (final ResultKey key)
+	{
+		final Long previous = index.remove(key);
+		
+		if (previous != null)
+		{
+			final Segment segment = segments.get(segmentId(previous));
+			
+			segment.live -= RECORD_HEADER + segment.buffer.getInt(offset(previous));
+		}
+	}
+	
+	private void scheduleCompaction ()
+	{
+		if (!compactionPending && !compactor.isShutdown())
+		{
+			compactionPending = true;
+			
+			compactor.execute(new Runnable()
+			{
+				public void run()
+				{
+					compact();
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Rewrites every sealed segment that is mostly garbage. Runs in the background after 
+	 * the active segment fills up, calling it directly is only needed to reclaim space sooner.
+	 */
+	public synchronized void compact ()
+	{
+		compactionPending = false;
+		
+		final List<Segment> candidates = new ArrayList<Segment>();
+		
+		for (Segment segment : segments.values())
+		{
+			if (segment != active && segment.isMostlyGarbage())
+			{
+				candidates.add(segment);
+			}
+		}
+		
+		for (Segment segment : candidates)
+		{
+			// Older segments may be dropped while copying, this one may not
+			if (segments.containsKey(segment.id))
+			{
+				compact(segment);
+			}
+		}
+	}
+	
+	private void compact (final Segment segment)
+	{
+		final boolean oldest = segments.firstKey().intValue() == segment.id;
+		final ByteBuffer buffer = segment.buffer;
+		final CRC32 crc = new CRC32();
+		
+		segments.remove(segment.id);
+		
+		int copied = 0;
+		
+		for (int offset = HEADER_SIZE; offset < segment.position; )
+		{
+			final int length = buffer.getInt(offset);
+			final byte[] body = read(buffer, offset, length, crc);
+			final byte type = buffer.get(offset + 8);
+			
+			if (body != null)
+			{
+				final ResultKey key;
+				
+				try
+				{
+					key = readKey(new DataInputStream(new ByteArrayInputStream(body)));
+				}
+				
+				catch (IOException ioe)
+				{
+					throw new IllegalStateException(ioe);
+				}
+				
+				final Long location = index.get(key);
+				final long self = ((long) segment.id << 32) | offset;
+				
+				// Removals are kept while an older segment may still hold what they removed
+				if ((type == PUT && location != null && location.longValue() == self) 
+					|| (type == REMOVE && location == null && !oldest))
+				{
+					if (type == PUT)
+					{
+						index.remove(key);
+					}
+					
+					append(key, type, body);
+					copied++;
+				}
+			}
+			
+			offset += RECORD_HEADER + length;
+		}
+		
+		delete(segment);
+		
+		if (logger.isDebugEnabled())
+		{
+			logger.debug("Compacted {}, {} records copied", segment.file, copied);
+		}
+	}
+	
+	/**
+	 * Forces the written records to disk
+	 */
+	public synchronized void flush ()
+	{
+		for (Segment segment : segments.values())
+		{
+			segment.buffer.force();
+		}
+	}
+	
+	/**
+	 * Flushes and stops background compaction. The cache cannot be used afterwards.
+	 */
+	public void close ()
+	{
+		compactor.shutdown();
+		
+		synchronized (this)
+		{
+			flush();
+			
+			closed = true;
+			segments.clear();
+			index.clear();
+		}
+	}
+	
+	public synchronized int size ()
+	{
+		return index.size();
+	}
+	
+	/**
+	 * @return Counters of this cache, the weight is the number of bytes in use in the segments
+	 */
+	public synchronized CacheStats getStats ()
+	{
+		long bytes = 0;
+		
+		for (Segment segment : segments.values())
+		{
+			bytes += segment.position;
+		}
+		
+		return new CacheStats(hits, misses, evictions, index.size(), bytes);
+	}
+	
+	private static void writeKey (final ResultKey key, final DataOutputStream out) throws IOException
+	{
+		out.writeUTF(key.getEndpoint());
+		out.writeLong(key.getDigest().getHigh());
+		out.writeLong(key.getDigest().getLow());
+		out.writeUTF(key.getParams());
+	}
+	
+	private static ResultKey readKey (final DataInputStream in) throws IOException
+	{
+		final String endpoint = in.readUTF();
+		final ContentDigest digest = new ContentDigest(in.readLong(), in.readLong());
+		
+		return new ResultKey(endpoint, digest, in.readUTF());
+	}
+	
+	private static int segmentId (final long location)
+	{
+		return (int) (location >>> 32);
+	}
+	
+	private static int offset (final long location)
+	{
+		return (int) location;
+	}
+	
+	/**
+	 * @return The directory of the segments, which other files may be kept next to
+	 */
+	public File getDirectory ()
+	{
+		return directory;
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return "DiskResultCache[" + directory + ", " + getStats() + "]";
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+/**
+ * Incremental MurmurHash3, x64 128 bit variant. Fast non cryptographic hashing of image 
+ * bytes for {@link ContentDigest}; input may be fed in chunks of any size.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+final class Murmur3
+{
+	private static final long C1 = 0x87c37b91114253d5L;
+	
+	private static final long C2 = 0x4cf5ad432745937fL;
+	
+	private long h1;
+	
+	private long h2;
+	
+	private long length;
+	
+	/**
+	 * Bytes of an incomplete 16 byte block
+	 */
+	private final byte[] tail = new byte[16];
+	
+	private int tailLength;
+	
+	Murmur3(final int seed)
+	{
+		h1 = seed & 0xffffffffL;
+		h2 = seed & 0xffffffffL;
+	}
+	
+	void update (final byte[] bytes, int off, int len)
+	{
+		length += len;
+		
+		if (tailLength > 0)
+		{
+			final int n = Math.min(16 - tailLength, len);
+			
+			System.arraycopy(bytes, off, tail, tailLength, n);
+			tailLength += n;
+			off += n;
+			len -= n;
+			
+			if (tailLength < 16)
+			{
+				return;
+			}
+			
+			block(tail, 0);
+			tailLength = 0;
+		}
+		
+		while (len >= 16)
+		{
+			block(bytes, off);
+			off += 16;
+			len -= 16;
+		}
+		
+		if (len > 0)
+		{
+			System.arraycopy(bytes, off, tail, 0, len);
+			tailLength = len;
+		}
+	}
+	
+	private void block (final byte[] b, final int off)
+	{
+		long k1 = littleEndian(b, off);
+		long k2 = littleEndian(b, off + 8);
+		
+		k1 *= C1;
+		k1 = Long.rotateLeft(k1, 31);
+		k1 *= C2;
+		h1 ^= k1;
+		
+		h1 = Long.rotateLeft(h1, 27);
+		h1 += h2;
+		h1 = h1 * 5 + 0x52dce729;
+		
+		k2 *= C2;
+		k2 = Long.rotateLeft(k2, 33);
+		k2 *= C1;
+		h2 ^= k2;
+		
+		h2 = Long.rotateLeft(h2, 31);
+		h2 += h1;
+		h2 = h2 * 5 + 0x38495ab5;
+	}
+	
+	/**
+	 * @return {@code h1} and {@code h2} of the bytes fed so far
+	 */
+	long[] finish ()
+	{
+		long k1 = 0;
+		long k2 = 0;
+		
+		for (int i = tailLength - 1; i >= 8; i--)
+		{
+			k2 ^= (tail[i] & 0xffL) << ((i - 8) * 8);
+		}
+		
+		for (int i = Math.min(tailLength, 8) - 1; i >= 0; i--)
+		{
+			k1 ^= (tail[i] & 0xffL) << (i * 8);
+		}
+		
+		long h1 = this.h1;
+		long h2 = this.h2;
+		
+		if (tailLength > 8)
+		{
+			k2 *= C2;
+			k2 = Long.rotateLeft(k2, 33);
+			k2 *= C1;
+			h2 ^= k2;
+		}
+		
+		if (tailLength > 0)
+		{
+			k1 *= C1;
+			k1 = Long.rotateLeft(k1, 31);
+			k1 *= C2;
+			h1 ^= k1;
+		}
+		
+		h1 ^= length;
+		h2 ^= length;
+		
+		h1 += h2;
+		h2 += h1;
+		
+		h1 = mix(h1);
+		h2 = mix(h2);
+		
+		h1 += h2;
+		h2 += h1;
+		
+		return new long[] { h1, h2 };
+	}
+	
+	private static long mix (long k)
+	{
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		
+		return k;
+	}
+	
+	private static long littleEndian (final byte[] b, final int off)
+	{
+		return (b[off] & 0xffL) 
+			| (b[off + 1] & 0xffL) << 8 
+			| (b[off + 2] & 0xffL) << 16 
+			| (b[off + 3] & 0xffL) << 24 
+			| (b[off + 4] & 0xffL) << 32 
+			| (b[off + 5] & 0xffL) << 40 
+			| (b[off + 6] & 0xffL) << 48 
+			| (b[off + 7] & 0xffL) << 56;
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+
+import face4j.model.Photo;
+
+/**
+ * Results keyed by the {@link PerceptualHash} of the image rather than its exact bytes, so 
+ * a resized or recompressed copy of an image that was already detected is answered 
+ * locally. Only results for the same endpoint and parameters are matched. Face coordinates 
+ * are percentages of the photo size, so a matched photo is returned with the size of the 
+ * new image and its faces unchanged. The pid and url of the matched photo belong to the 
+ * other upload and are left out, its tids still name the faces of that upload.
+ * <p>
+ * Hashes are searched in one {@link BKTree} per endpoint and parameters. When the cache 
+ * is full the oldest quarter of the entries is dropped and the trees are rebuilt.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class NearDuplicateCache
+{
+	/**
+	 * Bits two dHashes may differ in and still be taken for the same image
+	 */
+	public static final int DEFAULT_MAX_DISTANCE = 4;
+	
+	private static final class Entry
+	{
+		final String context;
+		
+		final long hash;
+		
+		final Photo photo;
+		
+		Entry(final String context, final long hash, final Photo photo)
+		{
+			this.context = context;
+			this.hash    = hash;
+			this.photo   = photo;
+		}
+	}
+	
+	private final Map<String, BKTree<Photo>> trees = new HashMap<String, BKTree<Photo>>();
+	
+	/**
+	 * Entries in insertion order, to rebuild the trees from
+	 */
+	private final List<Entry> entries = new ArrayList<Entry>();
+	
+	private final int maxEntries;
+	
+	private final int maxDistance;
+	
+	private long hits;
+	
+	private long misses;
+	
+	private long evictions;
+	
+	public NearDuplicateCache(final int maxEntries)
+	{
+		this(maxEntries, DEFAULT_MAX_DISTANCE);
+	}
+	
+	public NearDuplicateCache(final int maxEntries, final int maxDistance)
+	{
+		Validate.isTrue(maxEntries > 0, "Max entries must be positive");
+		Validate.isTrue(maxDistance >= 0 && maxDistance < Long.SIZE, "Max distance must be in [0, 64)");
+		
+		this.maxEntries  = maxEntries;
+		this.maxDistance = maxDistance;
+	}
+	
+	/**
+	 * @param key Endpoint and parameters of the upload, its digest is ignored
+	 * @return The result for the nearest image within the max distance, sized as 
+	 * {@code hash} and without pid or url, or {@code null}
+	 */
+	public synchronized Photo get (final ResultKey key, final PerceptualHash hash)
+	{
+		final BKTree<Photo> tree = trees.get(context(key));
+		final Photo photo = (tree == null) ? null : tree.nearest(hash.getHash(), maxDistance);
+		
+		if (photo == null)
+		{
+			misses++;
+			return null;
+		}
+		
+		hits++;
+		
+		return photo.withSource(null, null).withSize(hash.getWidth(), hash.getHeight());
+	}
+	
+	public synchronized void put (final ResultKey key, final PerceptualHash hash, final Photo photo)
+	{
+		Validate.notNull(photo, "Photo cannot be null");
+		
+		final Entry entry = new Entry(context(key), hash.getHash(), photo);
+		
+		entries.add(entry);
+		add(entry);
+		
+		if (entries.size() > maxEntries)
+		{
+			final int dropped = Math.max(1, maxEntries / 4) + entries.size() - maxEntries;
+			
+			entries.subList(0, dropped).clear();
+			evictions += dropped;
+			
+			trees.clear();
+			
+			for (Entry e : entries)
+			{
+				add(e);
+			}
+		}
+	}
+	
+	private void add (final Entry entry)
+	{
+		BKTree<Photo> tree = trees.get(entry.context);
+		
+		if (tree == null)
+		{
+			tree = new BKTree<Photo>();
+			trees.put(entry.context, tree);
+		}
+		
+		tree.put(entry.hash, entry.photo);
+	}
+	
+	private static String context (final ResultKey key)
+	{
+		return key.getEndpoint() + key.getParams();
+	}
+	
+	public synchronized void invalidateAll ()
+	{
+		entries.clear();
+		trees.clear();
+	}
+	
+	public synchronized int size ()
+	{
+		return entries.size();
+	}
+	
+	public synchronized CacheStats getStats ()
+	{
+		return new CacheStats(hits, misses, evictions, entries.size(), entries.size());
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return "NearDuplicateCache[maxDistance=" + maxDistance + ", " + getStats() + "]";
+	}
+}
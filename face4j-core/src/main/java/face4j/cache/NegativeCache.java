@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import face4j.model.Photo;
+import face4j.model.PhotoBuilder;
+
+/**
+ * Remembers images the API found no faces in, per detector mode, so they aren't uploaded 
+ * again. Digests are kept in two Bloom filters, one per half of the expiry: a recorded 
+ * image is remembered for at least half the expiry and at most all of it. Each filter is 
+ * sized for the expected number of images per half at half the false positive bound, so 
+ * a lookup is a false positive at most {@code fpp} of the time.
+ * <p>
+ * Opened on a file, every digest is also appended to it with the time it was recorded, 
+ * and the filters are rebuilt from it on the next open. The file is rewritten without 
+ * the expired digests whenever a filter expires.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class NegativeCache implements Closeable
+{
+	private static final Logger logger = LoggerFactory.getLogger(NegativeCache.class);
+	
+	/**
+	 * What a skipped upload returns: a photo without faces, pid, url or size
+	 */
+	public static final Photo NO_FACES;
+	
+	static
+	{
+		final PhotoBuilder builder = new PhotoBuilder();
+		
+		builder.onPhoto(null, null, 0, 0, 0);
+		
+		NO_FACES = builder.getPhotos().get(0);
+	}
+	
+	private static final int MAGIC = 0x46344A4E;
+	
+	private final int expected;
+	
+	private final double fpp;
+	
+	/**
+	 * Half the expiry, in milliseconds
+	 */
+	private final long period;
+	
+	private final File file;
+	
+	private DataOutputStream log;
+	
+	private BloomFilter current;
+	
+	private BloomFilter previous;
+	
+	/**
+	 * Index of the period {@link #current} covers
+	 */
+	private long generation;
+	
+	private long hits;
+	
+	private long misses;
+	
+	/**
+	 * In memory only
+	 * 
+	 * @param expected Images expected per half of the expiry
+	 * @param fpp Bound on the rate of images taken for having no faces when they weren't recorded
+	 */
+	public NegativeCache(final int expected, final double fpp, final long expiry, final TimeUnit unit)
+	{
+		this(null, expected, fpp, expiry, unit);
+	}
+	
+	private NegativeCache(final File file, final int expected, final double fpp, final long expiry, final TimeUnit unit)
+	{
+		Validate.isTrue(expected > 0, "Expected images must be positive");
+		Validate.isTrue(fpp > 0 && fpp < 1, "False positive rate must be in (0, 1)");
+		Validate.isTrue(unit.toMillis(expiry) >= 2, "Expiry is too short");
+		
+		this.file     = file;
+		this.expected = expected;
+		this.fpp      = fpp;
+		this.period   = unit.toMillis(expiry) / 2;
+		
+		this.current    = new BloomFilter(expected, fpp / 2);
+		this.previous   = new BloomFilter(expected, fpp / 2);
+		this.generation = System.currentTimeMillis() / period;
+	}
+	
+	/**
+	 * Opens or creates a cache persisted in {@code file}
+	 * 
+	 * @see #NegativeCache(int, double, long, TimeUnit)
+	 */
+	public static NegativeCache open (final File file, final int expected, final double fpp, final long expiry, 
+		final TimeUnit unit) throws IOException
+	{
+		Validate.notNull(file, "File cannot be null");
+		
+		final NegativeCache cache = new NegativeCache(file, expected, fpp, expiry, unit);
+		
+		if (file.exists())
+		{
+			cache.load();
+		}
+		
+		cache.rewrite();
+		
+		return cache;
+	}
+	
+	/**
+	 * @return {@code true} if the API found no faces in the image with {@code digest} in 
+	 * {@code detector} mode, or in a false positive
+	 */
+	public synchronized boolean contains (final ContentDigest digest, final String detector)
+	{
+		rotate();
+		
+		final long h1 = salt(digest, detector);
+		
+		if (current.mightContain(h1, digest.getLow()) || previous.mightContain(h1, digest.getLow()))
+		{
+			hits++;
+			return true;
+		}
+		
+		misses++;
+		return false;
+	}
+	
+	/**
+	 * Records that the API found no faces in the image with {@code digest} in {@code detector} mode
+	 */
+	public synchronized void add (final ContentDigest digest, final String detector)
+	{
+		rotate();
+		
+		final long h1 = salt(digest, detector);
+		
+		current.put(h1, digest.getLow());
+		
+		if (log != null)
+		{
+			try
+			{
+				write(log, System.currentTimeMillis(), h1, digest.getLow());
+				log.flush();
+			}
+			
+			catch (IOException ioe)
+			{
+				logger.error("Error writing to {}", file, ioe);
+			}
+		}
+	}
+	
+	/**
+	 * Mixes the detector mode into the high half, so modes don't share entries
+	 */
+	private static long salt (final ContentDigest digest, final String detector)
+	{
+		return digest.getHigh() ^ ((detector == null ? 0 : detector.hashCode()) * 0x9E3779B97F4A7C15L);
+	}
+	
+	/**
+	 * Expires the older filter once its period is over
+	 */
+	private void rotate ()
+	{
+		final long now = System.currentTimeMillis() / period;
+		
+		if (now == generation)
+		{
+			return;
+		}
+		
+		final BloomFilter expired = previous;
+		
+		expired.clear();
+		
+		if (now == generation + 1)
+		{
+			previous = current;
+			current  = expired;
+		}
+		
+		else
+		{
+			current.clear();
+		}
+		
+		generation = now;
+		
+		if (file != null)
+		{
+			try
+			{
+				rewrite();
+			}
+			
+			catch (IOException ioe)
+			{
+				logger.error("Error compacting {}", file, ioe);
+			}
+		}
+	}
+	
+	/**
+	 * Adds the digests of the file that haven't expired to the filters
+	 */
+	private void load () throws IOException
+	{
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		
+		try
+		{
+			if (in.readInt() != MAGIC)
+			{
+				logger.warn("Ignoring {}, it is not a negative cache", file);
+				return;
+			}
+			
+			while (true)
+			{
+				final long recorded = in.readLong();
+				final long h1 = in.readLong();
+				final long h2 = in.readLong();
+				final long age = generation - recorded / period;
+				
+				if (age == 0)
+				{
+					current.put(h1, h2);
+				}
+				
+				else if (age == 1)
+				{
+					previous.put(h1, h2);
+				}
+			}
+		}
+		
+		catch (EOFException eof)
+		{
+			// A torn last record is dropped
+		}
+		
+		finally
+		{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Rewrites the file with the digests that haven't expired and reopens it for appending
+	 */
+	private void rewrite () throws IOException
+	{
+		final File fresh = new File(file.getPath() + ".tmp");
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fresh)));
+		
+		try
+		{
+			out.writeInt(MAGIC);
+			copyLive(out);
+		}
+		
+		finally
+		{
+			out.close();
+		}
+		
+		if (log != null)
+		{
+			log.close();
+		}
+		
+		if (file.exists() && !file.delete() || !fresh.renameTo(file))
+		{
+			throw new IOException("Cannot replace " + file);
+		}
+		
+		log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+	}
+	
+	private void copyLive (final DataOutputStream out) throws IOException
+	{
+		if (log != null)
+		{
+			log.flush();
+		}
+		
+		if (!file.exists())
+		{
+			return;
+		}
+		
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		
+		try
+		{
+			if (in.readInt() != MAGIC)
+			{
+				return;
+			}
+			
+			while (true)
+			{
+				final long recorded = in.readLong();
+				final long h1 = in.readLong();
+				final long h2 = in.readLong();
+				
+				if (generation - recorded / period <= 1)
+				{
+					write(out, recorded, h1, h2);
+				}
+			}
+		}
+		
+		catch (EOFException eof)
+		{
+			// Done
+		}
+		
+		finally
+		{
+			in.close();
+		}
+	}
+	
+	private static void write (final DataOutputStream out, final long recorded, final long h1, final long h2) 
+		throws IOException
+	{
+		out.writeLong(recorded);
+		out.writeLong(h1);
+		out.writeLong(h2);
+	}
+	
+	public synchronized void close () throws IOException
+	{
+		if (log != null)
+		{
+			log.close();
+			log = null;
+		}
+	}
+	
+	/**
+	 * @return Counters of this cache, the weight is the size of the filters in bytes
+	 */
+	public synchronized CacheStats getStats ()
+	{
+		return new CacheStats(hits, misses, 0, 0, current.getBytes() + previous.getBytes());
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return "NegativeCache[expected=" + expected + ", fpp=" + fpp + ", " + getStats() + "]";
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * 64 bit difference hash (dHash) of an image and its size. The image is averaged down to 
+ * 9 by 8 cells of luminance and every bit tells whether a cell is brighter than its right 
+ * neighbour, so resized, recompressed and thumbnailed copies hash to the same or nearly 
+ * the same value. Compare hashes with {@link #distance(long, long)}.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class PerceptualHash
+{
+	private static final int COLUMNS = 9;
+	
+	private static final int ROWS = 8;
+	
+	private final long hash;
+	
+	private final int width;
+	
+	private final int height;
+	
+	public PerceptualHash(final long hash, final int width, final int height)
+	{
+		this.hash   = hash;
+		this.width  = width;
+		this.height = height;
+	}
+	
+	/**
+	 * @return The hash of {@code file} or {@code null} if {@code javax.imageio} cannot read it
+	 */
+	public static PerceptualHash of (final File file) throws IOException
+	{
+		final BufferedImage image = ImageIO.read(file);
+		
+		return (image == null) ? null : of(image);
+	}
+	
+	public static PerceptualHash of (final BufferedImage image)
+	{
+		Validate.notNull(image, "Image cannot be null");
+		
+		final int width  = image.getWidth();
+		final int height = image.getHeight();
+		
+		final long[] sums = new long[COLUMNS * ROWS];
+		final int[] counts = new int[COLUMNS * ROWS];
+		final int[] row = new int[width];
+		
+		for (int y = 0; y < height; y++)
+		{
+			final int cell = (int) ((long) y * ROWS / height) * COLUMNS;
+			
+			image.getRGB(0, y, width, 1, row, 0, width);
+			
+			for (int x = 0; x < width; x++)
+			{
+				final int rgb = row[x];
+				final int c = cell + (int) ((long) x * COLUMNS / width);
+				
+				// ITU-R 601 luma, scaled by 1000
+				sums[c] += ((rgb >> 16) & 0xFF) * 299 + ((rgb >> 8) & 0xFF) * 587 + (rgb & 0xFF) * 114;
+				counts[c]++;
+			}
+		}
+		
+		long hash = 0;
+		
+		for (int r = 0; r < ROWS; r++)
+		{
+			for (int c = 0; c < COLUMNS - 1; c++)
+			{
+				final int left  = r * COLUMNS + c;
+				final int right = left + 1;
+				
+				// Compares the averages without dividing
+				hash <<= 1;
+				hash |= (sums[left] * counts[right] > sums[right] * counts[left]) ? 1 : 0;
+			}
+		}
+		
+		return new PerceptualHash(hash, width, height);
+	}
+	
+	/**
+	 * @return The number of bits {@code a} and {@code b} differ in
+	 */
+	public static int distance (final long a, final long b)
+	{
+		return Long.bitCount(a ^ b);
+	}
+	
+	public long getHash ()
+	{
+		return hash;
+	}
+	
+	public int getWidth ()
+	{
+		return width;
+	}
+	
+	public int getHeight ()
+	{
+		return height;
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return "PerceptualHash[" + Long.toHexString(hash) + ", " + width + "x" + height + "]";
+	}
+}
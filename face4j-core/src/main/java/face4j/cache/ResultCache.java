@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+
+import face4j.model.Photo;
+
+/**
+ * Thread safe, weight bounded LRU cache of API results. When the total weight of the 
+ * entries exceeds the bound, the least recently used entries are evicted first. Values 
+ * are handed out as is, so they must be immutable, as {@link Photo}s are.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class ResultCache<K, V>
+{
+	/**
+	 * Weighs a photo by its faces, plus one for the photo itself
+	 */
+	public static final Weigher<Photo> PHOTO_WEIGHER = new Weigher<Photo>()
+	{
+		public int weigh(final Photo photo)
+		{
+			return 1 + photo.getFaceCount();
+		}
+	};
+	
+	private static final class Entry<V>
+	{
+		final V value;
+		
+		final int weight;
+		
+		Entry(final V value, final int weight)
+		{
+			this.value  = value;
+			this.weight = weight;
+		}
+	}
+	
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true);
+	
+	private final Weigher<? super V> weigher;
+	
+	private final long maxWeight;
+	
+	private long weight;
+	
+	private EvictionListener<? super K> evictionListener;
+	
+	private long hits;
+	
+	private long misses;
+	
+	private long evictions;
+	
+	/**
+	 * Holds at most {@code maxEntries} entries
+	 */
+	public ResultCache(final long maxEntries)
+	{
+		this(maxEntries, null);
+	}
+	
+	/**
+	 * @param weigher Weighs every value, {@code null} for a weight of 1 each
+	 */
+	public ResultCache(final long maxWeight, final Weigher<? super V> weigher)
+	{
+		Validate.isTrue(maxWeight > 0, "Max weight must be positive");
+		
+		this.maxWeight = maxWeight;
+		this.weigher   = weigher;
+	}
+	
+	/**
+	 * @return The cached value or {@code null}, counted as a hit or a miss
+	 */
+	public synchronized V get (final K key)
+	{
+		final Entry<V> entry = entries.get(key);
+		
+		if (entry == null)
+		{
+			misses++;
+			return null;
+		}
+		
+		hits++;
+		return entry.value;
+	}
+	
+	/**
+	 * Caches {@code value}, evicting least recently used entries as needed. A value heavier 
+	 * than the whole cache is not cached.
+	 */
+	public synchronized void put (final K key, final V value)
+	{
+		Validate.notNull(value, "Value cannot be null");
+		
+		final int w = (weigher == null) ? 1 : weigher.weigh(value);
+		
+		Validate.isTrue(w > 0, "Weight must be positive");
+		
+		final Entry<V> previous = entries.remove(key);
+		
+		if (previous != null)
+		{
+			weight -= previous.weight;
+		}
+		
+		if (w > maxWeight)
+		{
+			return;
+		}
+		
+		entries.put(key, new Entry<V>(value, w));
+		weight += w;
+		
+		final Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+		
+		while (weight > maxWeight)
+		{
+			final Map.Entry<K, Entry<V>> evicted = eldest.next();
+			
+			weight -= evicted.getValue().weight;
+			eldest.remove();
+			evictions++;
+			
+			if (evictionListener != null)
+			{
+				evictionListener.onEviction(evicted.getKey());
+			}
+		}
+	}
+	
+	/**
+	 * @param listener Told about every entry evicted from now on, {@code null} for none
+	 */
+	public synchronized void setEvictionListener (final EvictionListener<? super K> listener)
+	{
+		this.evictionListener = listener;
+	}
+	
+	public synchronized void invalidate (final K key)
+	{
+		final Entry<V> entry = entries.remove(key);
+		
+		if (entry != null)
+		{
+			weight -= entry.weight;
+		}
+	}
+	
+	public synchronized void invalidateAll ()
+	{
+		entries.clear();
+		weight = 0;
+	}
+	
+	public synchronized int size ()
+	{
+		return entries.size();
+	}
+	
+	public synchronized CacheStats getStats ()
+	{
+		return new CacheStats(hits, misses, evictions, entries.size(), weight);
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return "ResultCache[maxWeight=" + maxWeight + ", " + getStats() + "]";
+	}
+}
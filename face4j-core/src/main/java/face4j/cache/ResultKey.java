@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Identifies an upload to the API: the endpoint, the digest of the image and the request 
+ * parameters that change the result, such as {@code uids} and {@code detector}
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class ResultKey
+{
+	private final String endpoint;
+	
+	private final ContentDigest digest;
+	
+	/**
+	 * Parameters sorted by name, so the key does not depend on the order they were set in
+	 */
+	private final String params;
+	
+	private final int hash;
+	
+	public ResultKey(final String endpoint, final ContentDigest digest, final Map<String, String> params)
+	{
+		this(endpoint, digest, new TreeMap<String, String>(params).toString());
+	}
+	
+	/**
+	 * Restores a key from its parts as returned by {@link #getParams()}
+	 */
+	ResultKey(final String endpoint, final ContentDigest digest, final String params)
+	{
+		Validate.notNull(endpoint, "Endpoint cannot be null");
+		Validate.notNull(digest, "Digest cannot be null");
+		
+		this.endpoint = endpoint;
+		this.digest   = digest;
+		this.params   = params;
+		this.hash     = 31 * (31 * endpoint.hashCode() + digest.hashCode()) + params.hashCode();
+	}
+	
+	public String getEndpoint ()
+	{
+		return endpoint;
+	}
+	
+	public ContentDigest getDigest ()
+	{
+		return digest;
+	}
+	
+	String getParams ()
+	{
+		return params;
+	}
+	
+	@Override
+	public int hashCode ()
+	{
+		return hash;
+	}
+	
+	@Override
+	public boolean equals (final Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		
+		if (!(obj instanceof ResultKey))
+		{
+			return false;
+		}
+		
+		final ResultKey other = (ResultKey) obj;
+		
+		return hash == other.hash && endpoint.equals(other.endpoint) && digest.equals(other.digest) 
+			&& params.equals(other.params);
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return "ResultKey[" + endpoint + ", " + digest + ", " + params + "]";
+	}
+}
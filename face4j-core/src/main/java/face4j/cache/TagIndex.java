@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import face4j.model.Face;
+import face4j.model.Photo;
+
+/**
+ * Local index of tagged faces by user and by tag id, filled from {@code getTags} 
+ * responses. A face is indexed under every uid it carries. Thread safe.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class TagIndex
+{
+	private final Map<String, List<Face>> byUser = new HashMap<String, List<Face>>();
+	
+	private final Map<String, Photo> byTag = new HashMap<String, Photo>();
+	
+	/**
+	 * Indexes the faces of {@code photos}, replacing tags indexed before
+	 */
+	public synchronized void addAll (final List<Photo> photos)
+	{
+		for (Photo photo : photos)
+		{
+			add(photo);
+		}
+	}
+	
+	public synchronized void add (final Photo photo)
+	{
+		for (Face face : photo.getFaces())
+		{
+			final String tid = face.getTID();
+			
+			if (tid == null || byTag.put(tid, photo) != null)
+			{
+				// Untagged, or seen in an earlier page
+				continue;
+			}
+			
+			for (int rank = 0; rank < face.getGuessCount(); rank++)
+			{
+				final String uid = face.getGuessUID(rank);
+				List<Face> faces = byUser.get(uid);
+				
+				if (faces == null)
+				{
+					faces = new ArrayList<Face>();
+					byUser.put(uid, faces);
+				}
+				
+				faces.add(face);
+			}
+		}
+	}
+	
+	/**
+	 * @return The indexed faces tagged with {@code uid}
+	 */
+	public synchronized List<Face> getFaces (final String uid)
+	{
+		final List<Face> faces = byUser.get(uid);
+		
+		return (faces == null) ? Collections.<Face>emptyList() : Collections.unmodifiableList(new ArrayList<Face>(faces));
+	}
+	
+	/**
+	 * @return The photo of the tag {@code tid} or {@code null}
+	 */
+	public synchronized Photo getPhoto (final String tid)
+	{
+		return byTag.get(tid);
+	}
+	
+	/**
+	 * @return The number of users with indexed faces
+	 */
+	public synchronized int getUserCount ()
+	{
+		return byUser.size();
+	}
+	
+	/**
+	 * @return The number of indexed tags
+	 */
+	public synchronized int size ()
+	{
+		return byTag.size();
+	}
+	
+	public synchronized void clear ()
+	{
+		byUser.clear();
+		byTag.clear();
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts the trainings of every namespace. Recognition results are cached under the 
+ * epochs of the namespaces they were recognized in, so a training makes them unreachable 
+ * even before they are evicted. Results kept across restarts need the epochs to be kept 
+ * too, see {@link #persistTo(File)}. Only trainings through this process are counted.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class TrainingEpochs
+{
+	private static final Logger logger = LoggerFactory.getLogger(TrainingEpochs.class);
+	
+	private final ConcurrentMap<String, AtomicLong> epochs = new ConcurrentHashMap<String, AtomicLong>();
+	
+	/**
+	 * Where the epochs are saved, {@code null} if they aren't
+	 */
+	private volatile File file;
+	
+	/**
+	 * Loads the epochs saved in {@code file}, if it exists, keeping the later of every 
+	 * namespace's saved and current epoch. From then on the epochs are saved to it at 
+	 * every {@link #advance(String)}.
+	 */
+	public synchronized void persistTo (final File file) throws IOException
+	{
+		if (file.exists())
+		{
+			final BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+			
+			try
+			{
+				String line;
+				
+				while ((line = in.readLine()) != null)
+				{
+					final int tab = line.lastIndexOf('\t');
+					
+					if (tab > 0)
+					{
+						raise(line.substring(0, tab), Long.parseLong(line.substring(tab + 1)));
+					}
+				}
+			}
+			
+			catch (NumberFormatException nfe)
+			{
+				throw new IOException("Corrupt epochs file " + file + ": " + nfe.getMessage());
+			}
+			
+			finally
+			{
+				in.close();
+			}
+		}
+		
+		this.file = file;
+		save();
+	}
+	
+	/**
+	 * @return The number of trainings of {@code namespace} seen so far
+	 */
+	public long get (final String namespace)
+	{
+		final AtomicLong epoch = epochs.get(namespace);
+		
+		return (epoch == null) ? 0 : epoch.get();
+	}
+	
+	/**
+	 * Starts a new epoch of {@code namespace}
+	 * 
+	 * @return The new epoch
+	 */
+	public long advance (final String namespace)
+	{
+		final long advanced = epoch(namespace).incrementAndGet();
+		
+		if (file != null)
+		{
+			try
+			{
+				save();
+			}
+			
+			catch (IOException ioe)
+			{
+				logger.error("Error saving training epochs to " + file, ioe);
+			}
+		}
+		
+		return advanced;
+	}
+	
+	private AtomicLong epoch (final String namespace)
+	{
+		final AtomicLong epoch = epochs.get(namespace);
+		
+		if (epoch != null)
+		{
+			return epoch;
+		}
+		
+		final AtomicLong created = new AtomicLong();
+		final AtomicLong raced = epochs.putIfAbsent(namespace, created);
+		
+		return (raced == null) ? created : raced;
+	}
+	
+	/**
+	 * Moves the epoch of {@code namespace} forward to {@code atLeast}
+	 */
+	private void raise (final String namespace, final long atLeast)
+	{
+		final AtomicLong epoch = epoch(namespace);
+		long current;
+		
+		while ((current = epoch.get()) < atLeast && !epoch.compareAndSet(current, atLeast))
+		{
+			// Retry
+		}
+	}
+	
+	/**
+	 * Writes every epoch to a temporary file which then replaces {@link #file}
+	 */
+	private synchronized void save () throws IOException
+	{
+		final File temp = new File(file.getPath() + ".tmp");
+		final Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), "UTF-8"));
+		
+		try
+		{
+			for (Map.Entry<String, AtomicLong> entry : new TreeMap<String, AtomicLong>(epochs).entrySet())
+			{
+				out.write(entry.getKey());
+				out.write('\t');
+				out.write(Long.toString(entry.getValue().get()));
+				out.write('\n');
+			}
+		}
+		
+		finally
+		{
+			out.close();
+		}
+		
+		// Not atomic where renaming onto an existing file fails
+		if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file)))
+		{
+			throw new IOException("Could not replace " + file);
+		}
+	}
+	
+	/**
+	 * @return The epochs of {@code namespaces} as {@code {a=1, b=0}}, sorted by namespace
+	 */
+	public String describe (final Collection<String> namespaces)
+	{
+		final TreeMap<String, Long> described = new TreeMap<String, Long>();
+		
+		for (String namespace : namespaces)
+		{
+			described.put(namespace, get(namespace));
+		}
+		
+		return described.toString();
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.cache;
+
+/**
+ * Snapshot of a {@link CacheWarmer} run
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class WarmUpProgress
+{
+	private final String namespace;
+	
+	private final int users;
+	
+	private final int totalUsers;
+	
+	private final int pages;
+	
+	private final int photos;
+	
+	private final long elapsed;
+	
+	private final boolean complete;
+	
+	WarmUpProgress(final String namespace, final int users, final int totalUsers, final int pages, final int photos, 
+		final long elapsed, final boolean complete)
+	{
+		this.namespace  = namespace;
+		this.users      = users;
+		this.totalUsers = totalUsers;
+		this.pages      = pages;
+		this.photos     = photos;
+		this.elapsed    = elapsed;
+		this.complete   = complete;
+	}
+	
+	/**
+	 * @return The namespace being warmed, {@code null} once the run is over
+	 */
+	public String getNamespace ()
+	{
+		return namespace;
+	}
+	
+	/**
+	 * @return Users whose tags were fetched so far, across namespaces
+	 */
+	public int getUsers ()
+	{
+		return users;
+	}
+	
+	/**
+	 * @return Users of the namespaces listed so far
+	 */
+	public int getTotalUsers ()
+	{
+		return totalUsers;
+	}
+	
+	public int getPages ()
+	{
+		return pages;
+	}
+	
+	public int getPhotos ()
+	{
+		return photos;
+	}
+	
+	/**
+	 * @return Milliseconds since the run started
+	 */
+	public long getElapsed ()
+	{
+		return elapsed;
+	}
+	
+	/**
+	 * @return {@code true} if every user of every namespace was fetched within the time budget
+	 */
+	public boolean isComplete ()
+	{
+		return complete;
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return "WarmUpProgress[namespace=" + namespace + ", users=" + users + "/" + totalUsers + ", pages=" + pages 
+			+ ", photos=" + photos + ", elapsed=" + elapsed + "ms, complete=" + complete + "]";
+	}
+}
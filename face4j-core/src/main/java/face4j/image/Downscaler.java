@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.image;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Uploads images larger than a maximum dimension as smaller JPEG copies. The image is 
+ * decoded with source subsampling, so only every n-th pixel of a large image is ever 
+ * decoded, and the remainder scaled down with bilinear filtering. Images in formats other 
+ * than JPEG, PNG and GIF are converted to JPEG whatever their size.
+ * <p>
+ * Whether an image needs either is decided by {@link ImageProbe} from its header, so 
+ * JPEG, PNG and GIF images within the maximum are never decoded. These, and images no 
+ * smaller when re-encoded, are uploaded as they are. The EXIF orientation is not applied, 
+ * the copy has the pixels of the original in the same order.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public class Downscaler implements UploadPreprocessor
+{
+	private static final Logger logger = LoggerFactory.getLogger(Downscaler.class);
+	
+	private final int maxDimension;
+	
+	private final float quality;
+	
+	/**
+	 * Downscales to at most 1024 pixels with JPEG quality 0.85
+	 */
+	public Downscaler()
+	{
+		this(1024, 0.85f);
+	}
+	
+	/**
+	 * @param maxDimension Largest width or height uploaded
+	 * @param quality JPEG quality of the copies, from 0 to 1
+	 */
+	public Downscaler(final int maxDimension, final float quality)
+	{
+		Validate.isTrue(maxDimension > 0, "Max dimension must be positive");
+		Validate.isTrue(quality > 0 && quality <= 1, "Quality must be in (0, 1]");
+		
+		this.maxDimension = maxDimension;
+		this.quality      = quality;
+	}
+	
+	public int getMaxDimension ()
+	{
+		return maxDimension;
+	}
+	
+	public Upload prepare (final File image) throws IOException
+	{
+		final ImageInfo info = ImageProbe.probe(image);
+		
+		if (info != null && Math.max(info.getWidth(), info.getHeight()) <= maxDimension)
+		{
+			return Upload.of(image);
+		}
+		
+		final ImageInputStream in = ImageIO.createImageInputStream(image);
+		
+		if (in == null)
+		{
+			return Upload.of(image);
+		}
+		
+		try
+		{
+			final ImageReader reader = Jpeg.reader(in);
+			
+			if (reader == null)
+			{
+				return Upload.of(image);
+			}
+			
+			try
+			{
+				final int width  = reader.getWidth(0);
+				final int height = reader.getHeight(0);
+				
+				final BufferedImage scaled = scale(decode(reader, width, height), width, height);
+				final File copy = Jpeg.write(scaled, quality);
+				
+				// Conversions are uploaded even if larger, the API may not read the original
+				if (info != null && copy.length() >= image.length())
+				{
+					Jpeg.delete(copy);
+					return Upload.of(image);
+				}
+				
+				if (logger.isDebugEnabled())
+				{
+					logger.debug("Downscaled {} from {} to {} bytes", new Object[] {image, image.length(), copy.length()});
+				}
+				
+				return new Upload(copy, width, height);
+			}
+			
+			finally
+			{
+				reader.dispose();
+			}
+		}
+		
+		finally
+		{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Decodes the image subsampled by the largest factor that keeps it at least 
+	 * {@link #maxDimension} pixels
+	 */
+	private BufferedImage decode (final ImageReader reader, final int width, final int height) throws IOException
+	{
+		final int step = Math.max(1, Math.max(width, height) / maxDimension);
+		final ImageReadParam param = reader.getDefaultReadParam();
+		
+		param.setSourceSubsampling(step, step, 0, 0);
+		
+		return reader.read(0, param);
+	}
+	
+	/**
+	 * Scales {@code image} to fit {@link #maxDimension}, if larger, at the aspect ratio of 
+	 * the original
+	 */
+	private BufferedImage scale (final BufferedImage image, final int width, final int height)
+	{
+		final float ratio = Math.min(1f, (float) maxDimension / Math.max(width, height));
+		final int w = Math.max(1, Math.round(width * ratio));
+		final int h = Math.max(1, Math.round(height * ratio));
+		
+		// JPEG has no alpha, draw everything onto RGB
+		final BufferedImage scaled = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = scaled.createGraphics();
+		
+		try
+		{
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.drawImage(image, 0, 0, w, h, null);
+		}
+		
+		finally
+		{
+			g.dispose();
+		}
+		
+		return scaled;
+	}
+}
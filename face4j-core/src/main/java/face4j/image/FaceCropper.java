@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.image;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.commons.lang.Validate;
+
+import face4j.model.Face;
+import face4j.model.Photo;
+import face4j.model.Rect;
+
+/**
+ * Cuts the faces found in an image, with a margin of context around each, into a 
+ * {@link Sheet}. Only the face regions are decoded, through 
+ * {@link ImageReadParam#setSourceRegion(Rectangle)}, and the tile sources are the indexes 
+ * of the faces in the detected photo.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public class FaceCropper
+{
+	private final float margin;
+	
+	private final int guard;
+	
+	private final float quality;
+	
+	/**
+	 * Crops with half a face of margin on every side, 16 pixels apart, at JPEG quality 0.9
+	 */
+	public FaceCropper()
+	{
+		this(0.5f, 16, 0.9f);
+	}
+	
+	/**
+	 * @param margin Context added on every side, as a fraction of the face size
+	 * @param guard Pixels between crops on the sheet
+	 * @param quality JPEG quality of the sheet, from 0 to 1
+	 */
+	public FaceCropper(final float margin, final int guard, final float quality)
+	{
+		Validate.isTrue(margin >= 0, "Margin cannot be negative");
+		Validate.isTrue(guard >= 0, "Guard cannot be negative");
+		Validate.isTrue(quality > 0 && quality <= 1, "Quality must be in (0, 1]");
+		
+		this.margin  = margin;
+		this.guard   = guard;
+		this.quality = quality;
+	}
+	
+	/**
+	 * @param detected The faces of {@code image}, in percent as returned by the API
+	 * 
+	 * @return The sheet of face crops, which has to be {@link Sheet#release() released}
+	 * 
+	 * @throws IOException if {@code image} cannot be read by {@code javax.imageio}
+	 */
+	public Sheet crop (final File image, final Photo detected) throws IOException
+	{
+		Validate.isTrue(detected.getFaceCount() > 0, "Detected photo has no faces");
+		
+		final ImageInputStream in = ImageIO.createImageInputStream(image);
+		final ImageReader reader = (in == null) ? null : Jpeg.reader(in);
+		
+		if (reader == null)
+		{
+			if (in != null)
+			{
+				in.close();
+			}
+			
+			throw new IOException("No image reader for " + image);
+		}
+		
+		try
+		{
+			final int width  = reader.getWidth(0);
+			final int height = reader.getHeight(0);
+			
+			final List<Tile> tiles = new ArrayList<Tile>(detected.getFaceCount());
+			final List<BufferedImage> crops = new ArrayList<BufferedImage>(detected.getFaceCount());
+			
+			for (int i = 0; i < detected.getFaceCount(); i++)
+			{
+				final Rectangle region = region(detected.getFaces().get(i), width, height);
+				
+				if (region.isEmpty())
+				{
+					continue;
+				}
+				
+				final ImageReadParam param = reader.getDefaultReadParam();
+				
+				param.setSourceRegion(region);
+				
+				tiles.add(new Tile(i, width, height, region.x, region.y, region.width, region.height, 0, 0, 
+					region.width, region.height));
+				crops.add(reader.read(0, param));
+			}
+			
+			if (tiles.isEmpty())
+			{
+				throw new IOException("No face of " + image + " is within the image");
+			}
+			
+			return Sheet.draw(tiles, crops, guard, quality);
+		}
+		
+		finally
+		{
+			reader.dispose();
+			in.close();
+		}
+	}
+	
+	/**
+	 * @return The pixels of {@code face} and its margin within the image
+	 */
+	private Rectangle region (final Face face, final int width, final int height)
+	{
+		final Rect rect = face.getRectangle();
+		
+		final float left   = rect.left * width / 100f;
+		final float top    = rect.top * height / 100f;
+		final float right  = rect.right * width / 100f;
+		final float bottom = rect.bottom * height / 100f;
+		
+		final float mx = (right - left) * margin;
+		final float my = (bottom - top) * margin;
+		
+		final int x0 = Math.max(0, (int) Math.floor(left - mx));
+		final int y0 = Math.max(0, (int) Math.floor(top - my));
+		final int x1 = Math.min(width, (int) Math.ceil(right + mx));
+		final int y1 = Math.min(height, (int) Math.ceil(bottom + my));
+		
+		return new Rectangle(x0, y0, Math.max(0, x1 - x0), Math.max(0, y1 - y0));
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.image;
+
+/**
+ * Size, format and orientation of an image as read from its header by {@link ImageProbe}
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class ImageInfo
+{
+	private final String format;
+	
+	private final int width;
+	
+	private final int height;
+	
+	private final int orientation;
+	
+	public ImageInfo(final String format, final int width, final int height, final int orientation)
+	{
+		this.format      = format;
+		this.width       = width;
+		this.height      = height;
+		this.orientation = orientation;
+	}
+	
+	/**
+	 * @return The {@code javax.imageio} format name, one of {@code jpeg}, {@code png} and {@code gif}
+	 */
+	public String getFormat ()
+	{
+		return format;
+	}
+	
+	/**
+	 * @return Width of the stored pixels, before orientation
+	 */
+	public int getWidth ()
+	{
+		return width;
+	}
+	
+	public int getHeight ()
+	{
+		return height;
+	}
+	
+	/**
+	 * @return The EXIF orientation from 1 to 8, 1 when there is none
+	 */
+	public int getOrientation ()
+	{
+		return orientation;
+	}
+	
+	/**
+	 * @return {@code true} if a viewer honouring the EXIF orientation swaps width and height
+	 */
+	public boolean isTransposed ()
+	{
+		return orientation >= 5 && orientation <= 8;
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return "ImageInfo[format=" + format + ", width=" + width + ", height=" + height 
+			+ ", orientation=" + orientation + "]";
+	}
+}
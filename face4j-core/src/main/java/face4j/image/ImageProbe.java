@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.image;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the size, format and EXIF orientation of JPEG, PNG and GIF images from their 
+ * headers without decoding any pixels. JPEG markers are scanned up to the first frame 
+ * header, which usually is within the first few kilobytes.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class ImageProbe
+{
+	private static final int EXIF_ORIENTATION = 0x0112;
+	
+	private static final int TYPE_SHORT = 3;
+	
+	private ImageProbe()
+	{
+		// Static helpers only
+	}
+	
+	/**
+	 * @return The header of {@code file} or {@code null} if it isn't a JPEG, PNG or GIF 
+	 * image or the header is damaged
+	 */
+	public static ImageInfo probe (final File file) throws IOException
+	{
+		final InputStream in = new BufferedInputStream(new FileInputStream(file), 4096);
+		
+		try
+		{
+			return probe(in);
+		}
+		
+		finally
+		{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Same as {@link #probe(File)}, reading only as much of {@code in} as needed. The 
+	 * stream is not closed.
+	 */
+	public static ImageInfo probe (final InputStream in) throws IOException
+	{
+		final DataInputStream data = new DataInputStream(in);
+		
+		try
+		{
+			final int magic = data.readUnsignedShort();
+			
+			switch (magic)
+			{
+				case 0xFFD8:
+					return probeJpeg(data);
+				
+				case 0x8950:
+					return probePng(data);
+				
+				case 0x4749:
+					return probeGif(data);
+				
+				default:
+					return null;
+			}
+		}
+		
+		catch (EOFException eofe)
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * Walks the JPEG segments from after the start of image marker to the frame header
+	 */
+	private static ImageInfo probeJpeg (final DataInputStream in) throws IOException
+	{
+		int orientation = 1;
+		
+		while (true)
+		{
+			int marker = in.readUnsignedByte();
+			
+			if (marker != 0xFF)
+			{
+				return null;
+			}
+			
+			// Markers may be preceded by any number of fill bytes
+			while (marker == 0xFF)
+			{
+				marker = in.readUnsignedByte();
+			}
+			
+			if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7))
+			{
+				// Standalone, no length
+				continue;
+			}
+			
+			if (marker == 0xD9 || marker == 0xDA)
+			{
+				// End of image or start of scan without a frame header
+				return null;
+			}
+			
+			final int length = in.readUnsignedShort() - 2;
+			
+			if (length < 0)
+			{
+				return null;
+			}
+			
+			if (isStartOfFrame(marker))
+			{
+				in.readUnsignedByte();
+				
+				final int height = in.readUnsignedShort();
+				final int width  = in.readUnsignedShort();
+				
+				return new ImageInfo("jpeg", width, height, orientation);
+			}
+			
+			if (marker == 0xE1)
+			{
+				final byte[] segment = new byte[length];
+				
+				in.readFully(segment);
+				orientation = exifOrientation(segment, orientation);
+			}
+			
+			else
+			{
+				skip(in, length);
+			}
+		}
+	}
+	
+	/**
+	 * SOF0 to SOF15, except DHT, JPG and DAC which share the range
+	 */
+	private static boolean isStartOfFrame (final int marker)
+	{
+		return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+	}
+	
+	/**
+	 * @return The orientation tag of the first IFD of an APP1 segment, {@code fallback} if 
+	 * it isn't an EXIF segment or has no orientation
+	 */
+	private static int exifOrientation (final byte[] segment, final int fallback)
+	{
+		if (segment.length < 14 || segment[0] != 'E' || segment[1] != 'x' || segment[2] != 'i' || segment[3] != 'f')
+		{
+			return fallback;
+		}
+		
+		final int tiff = 6;
+		final boolean little;
+		
+		if (segment[tiff] == 'I' && segment[tiff + 1] == 'I')
+		{
+			little = true;
+		}
+		
+		else if (segment[tiff] == 'M' && segment[tiff + 1] == 'M')
+		{
+			little = false;
+		}
+		
+		else
+		{
+			return fallback;
+		}
+		
+		final int ifd = tiff + readInt(segment, tiff + 4, little);
+		
+		if (ifd < tiff || ifd + 2 > segment.length)
+		{
+			return fallback;
+		}
+		
+		final int entries = readShort(segment, ifd, little);
+		
+		for (int i = 0; i < entries; i++)
+		{
+			final int entry = ifd + 2 + i * 12;
+			
+			if (entry + 12 > segment.length)
+			{
+				break;
+			}
+			
+			if (readShort(segment, entry, little) == EXIF_ORIENTATION && readShort(segment, entry + 2, little) == TYPE_SHORT)
+			{
+				final int orientation = readShort(segment, entry + 8, little);
+				
+				return (orientation >= 1 && orientation <= 8) ? orientation : fallback;
+			}
+		}
+		
+		return fallback;
+	}
+	
+	private static ImageInfo probePng (final DataInputStream in) throws IOException
+	{
+		// Rest of the signature, then the IHDR chunk which must come first
+		if (in.readInt() != 0x4E470D0A || in.readUnsignedShort() != 0x1A0A)
+		{
+			return null;
+		}
+		
+		in.readInt();
+		
+		if (in.readInt() != 0x49484452)
+		{
+			return null;
+		}
+		
+		final int width  = in.readInt();
+		final int height = in.readInt();
+		
+		return new ImageInfo("png", width, height, 1);
+	}
+	
+	private static ImageInfo probeGif (final DataInputStream in) throws IOException
+	{
+		// "GIF87a" or "GIF89a"
+		if (in.readUnsignedByte() != 'F' || in.readUnsignedByte() != '8')
+		{
+			return null;
+		}
+		
+		in.readUnsignedShort();
+		
+		// Logical screen size, little endian
+		final int width  = in.readUnsignedByte() | (in.readUnsignedByte() << 8);
+		final int height = in.readUnsignedByte() | (in.readUnsignedByte() << 8);
+		
+		return new ImageInfo("gif", width, height, 1);
+	}
+	
+	private static int readShort (final byte[] b, final int at, final boolean little)
+	{
+		final int b0 = b[at] & 0xFF;
+		final int b1 = b[at + 1] & 0xFF;
+		
+		return little ? (b1 << 8) | b0 : (b0 << 8) | b1;
+	}
+	
+	private static int readInt (final byte[] b, final int at, final boolean little)
+	{
+		final int hi = readShort(b, little ? at + 2 : at, little);
+		final int lo = readShort(b, little ? at : at + 2, little);
+		
+		return (hi << 16) | lo;
+	}
+	
+	private static void skip (final DataInputStream in, final int n) throws IOException
+	{
+		int left = n;
+		
+		while (left > 0)
+		{
+			final int skipped = in.skipBytes(left);
+			
+			if (skipped <= 0)
+			{
+				throw new EOFException();
+			}
+			
+			left -= skipped;
+		}
+	}
+}
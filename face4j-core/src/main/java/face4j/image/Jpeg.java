@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.image;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Image I/O shared by the preprocessors
+ * 
+ * @author Marlon Hendred
+ *
+ */
+final class Jpeg
+{
+	private static final Logger logger = LoggerFactory.getLogger(Jpeg.class);
+	
+	private Jpeg()
+	{
+		// Static helpers only
+	}
+	
+	/**
+	 * @return A reader over {@code in} or {@code null} if no reader handles its format. The 
+	 * reader has to be disposed.
+	 */
+	static ImageReader reader (final ImageInputStream in)
+	{
+		final Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+		
+		if (!readers.hasNext())
+		{
+			return null;
+		}
+		
+		final ImageReader reader = readers.next();
+		
+		reader.setInput(in, true, true);
+		
+		return reader;
+	}
+	
+	/**
+	 * Writes {@code image} to a temporary JPEG file
+	 */
+	static File write (final BufferedImage image, final float quality) throws IOException
+	{
+		final File copy = File.createTempFile("face4j", ".jpg");
+		final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		final ImageWriteParam param = writer.getDefaultWriteParam();
+		
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(quality);
+		
+		boolean written = false;
+		
+		try
+		{
+			final ImageOutputStream out = ImageIO.createImageOutputStream(copy);
+			
+			try
+			{
+				writer.setOutput(out);
+				writer.write(null, new IIOImage(image, null, null), param);
+				written = true;
+			}
+			
+			finally
+			{
+				out.close();
+			}
+		}
+		
+		finally
+		{
+			writer.dispose();
+			
+			if (!written)
+			{
+				delete(copy);
+			}
+		}
+		
+		return copy;
+	}
+	
+	static void delete (final File file)
+	{
+		if (!file.delete() && file.exists())
+		{
+			logger.warn("Could not delete {}", file);
+		}
+	}
+}
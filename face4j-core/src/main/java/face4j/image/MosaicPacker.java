@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.image;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Packs small images, e.g. thumbnails and avatars, into {@link Sheet}s so they are 
+ * detected in one upload each instead of one per image. Images larger than the tile size 
+ * are scaled down to it, decoded with source subsampling. The tile sources are the 
+ * indexes of the images as given, and {@link Sheet#split(face4j.model.Photo)} 
+ * demultiplexes the results.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public class MosaicPacker
+{
+	private final int maxTiles;
+	
+	private final int tileSize;
+	
+	private final int guard;
+	
+	private final float quality;
+	
+	/**
+	 * Packs up to 16 images of at most 256 pixels, 32 pixels apart, at JPEG quality 0.9
+	 */
+	public MosaicPacker()
+	{
+		this(16, 256, 32, 0.9f);
+	}
+	
+	/**
+	 * @param maxTiles Images per sheet
+	 * @param tileSize Largest width or height of an image on the sheet
+	 * @param guard Pixels between images on the sheet
+	 * @param quality JPEG quality of the sheets, from 0 to 1
+	 */
+	public MosaicPacker(final int maxTiles, final int tileSize, final int guard, final float quality)
+	{
+		Validate.isTrue(maxTiles > 0, "Max tiles must be positive");
+		Validate.isTrue(tileSize > 0, "Tile size must be positive");
+		Validate.isTrue(guard >= 0, "Guard cannot be negative");
+		Validate.isTrue(quality > 0 && quality <= 1, "Quality must be in (0, 1]");
+		
+		this.maxTiles = maxTiles;
+		this.tileSize = tileSize;
+		this.guard    = guard;
+		this.quality  = quality;
+	}
+	
+	public int getMaxTiles ()
+	{
+		return maxTiles;
+	}
+	
+	/**
+	 * @return Sheets of up to {@link #getMaxTiles()} images each, in order, which have to be 
+	 * {@link Sheet#release() released}
+	 * 
+	 * @throws IOException if an image cannot be read by {@code javax.imageio}
+	 */
+	public List<Sheet> pack (final List<File> images) throws IOException
+	{
+		final List<Sheet> sheets = new ArrayList<Sheet>((images.size() + maxTiles - 1) / maxTiles);
+		
+		try
+		{
+			for (int from = 0; from < images.size(); from += maxTiles)
+			{
+				final int to = Math.min(images.size(), from + maxTiles);
+				final List<Tile> tiles = new ArrayList<Tile>(to - from);
+				final List<BufferedImage> decoded = new ArrayList<BufferedImage>(to - from);
+				
+				for (int i = from; i < to; i++)
+				{
+					decode(i, images.get(i), tiles, decoded);
+				}
+				
+				sheets.add(Sheet.draw(tiles, decoded, guard, quality));
+			}
+		}
+		
+		catch (IOException ioe)
+		{
+			for (Sheet sheet : sheets)
+			{
+				sheet.release();
+			}
+			
+			throw ioe;
+		}
+		
+		return sheets;
+	}
+	
+	/**
+	 * Decodes image {@code index}, subsampled if it is more than twice the tile size, and 
+	 * adds it and its tile
+	 */
+	private void decode (final int index, final File image, final List<Tile> tiles, final List<BufferedImage> decoded) 
+		throws IOException
+	{
+		final ImageInputStream in = ImageIO.createImageInputStream(image);
+		final ImageReader reader = (in == null) ? null : Jpeg.reader(in);
+		
+		if (reader == null)
+		{
+			if (in != null)
+			{
+				in.close();
+			}
+			
+			throw new IOException("No image reader for " + image);
+		}
+		
+		try
+		{
+			final int width  = reader.getWidth(0);
+			final int height = reader.getHeight(0);
+			final int step   = Math.max(1, Math.max(width, height) / tileSize);
+			final float ratio = Math.min(1f, (float) tileSize / Math.max(width, height));
+			final ImageReadParam param = reader.getDefaultReadParam();
+			
+			param.setSourceSubsampling(step, step, 0, 0);
+			
+			tiles.add(new Tile(index, width, height, 0, 0, width, height, 0, 0, 
+				Math.max(1, Math.round(width * ratio)), Math.max(1, Math.round(height * ratio))));
+			decoded.add(reader.read(0, param));
+		}
+		
+		finally
+		{
+			reader.dispose();
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.image;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import face4j.model.Face;
+import face4j.model.Photo;
+import face4j.model.Point;
+import face4j.model.Rect;
+
+/**
+ * A temporary JPEG of image regions laid out side by side, each a {@link Tile} separated 
+ * from the others by a guard margin. Faces found in the sheet, in percent of the sheet, 
+ * are mapped back to their source with {@link #tileOf(Face)} and {@link #toSource(Face, Tile)}.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class Sheet
+{
+	/**
+	 * Fill of the guard margins, a flat mid grey nothing is detected in
+	 */
+	private static final Color GUARD = new Color(128, 128, 128);
+	
+	private final File file;
+	
+	private final int width;
+	
+	private final int height;
+	
+	private final int guard;
+	
+	private final List<Tile> tiles;
+	
+	private Sheet(final File file, final int width, final int height, final int guard, final List<Tile> tiles)
+	{
+		this.file   = file;
+		this.width  = width;
+		this.height = height;
+		this.guard  = guard;
+		this.tiles  = Collections.unmodifiableList(tiles);
+	}
+	
+	/**
+	 * Lays {@code tiles} out on shelves of a roughly square sheet, tallest first, and draws 
+	 * {@code images}, one per tile, at their places
+	 */
+	static Sheet draw (final List<Tile> tiles, final List<BufferedImage> images, final int guard, final float quality) 
+		throws IOException
+	{
+		final List<Tile> placed = layout(tiles, guard);
+		
+		int width = 0;
+		int height = 0;
+		
+		for (Tile tile : placed)
+		{
+			width  = Math.max(width, tile.getX() + tile.getWidth() + guard);
+			height = Math.max(height, tile.getY() + tile.getHeight() + guard);
+		}
+		
+		final BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = canvas.createGraphics();
+		
+		try
+		{
+			g.setColor(GUARD);
+			g.fillRect(0, 0, width, height);
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			
+			for (int i = 0; i < placed.size(); i++)
+			{
+				final Tile tile = placed.get(i);
+				
+				g.drawImage(images.get(i), tile.getX(), tile.getY(), tile.getWidth(), tile.getHeight(), null);
+			}
+		}
+		
+		finally
+		{
+			g.dispose();
+		}
+		
+		return new Sheet(Jpeg.write(canvas, quality), width, height, guard, placed);
+	}
+	
+	/**
+	 * @return {@code tiles} in the same order, moved to their places on the sheet
+	 */
+	private static List<Tile> layout (final List<Tile> tiles, final int guard)
+	{
+		final Integer[] order = new Integer[tiles.size()];
+		long area = 0;
+		int widest = 0;
+		
+		for (int i = 0; i < order.length; i++)
+		{
+			final Tile tile = tiles.get(i);
+			
+			order[i] = i;
+			area    += (long) (tile.getWidth() + guard) * (tile.getHeight() + guard);
+			widest   = Math.max(widest, tile.getWidth());
+		}
+		
+		Arrays.sort(order, new Comparator<Integer>()
+		{
+			public int compare(final Integer a, final Integer b)
+			{
+				return tiles.get(b).getHeight() - tiles.get(a).getHeight();
+			}
+		});
+		
+		final int rowWidth = Math.max(widest, (int) Math.ceil(Math.sqrt(area)));
+		final List<Tile> placed = new ArrayList<Tile>(Collections.<Tile>nCopies(order.length, null));
+		
+		int x = guard;
+		int y = guard;
+		int rowHeight = 0;
+		
+		for (int i : order)
+		{
+			final Tile tile = tiles.get(i);
+			
+			if (x > guard && x + tile.getWidth() > rowWidth + guard)
+			{
+				x = guard;
+				y += rowHeight + guard;
+				rowHeight = 0;
+			}
+			
+			placed.set(i, tile.moveTo(x, y));
+			
+			x += tile.getWidth() + guard;
+			rowHeight = Math.max(rowHeight, tile.getHeight());
+		}
+		
+		return placed;
+	}
+	
+	public File getFile ()
+	{
+		return file;
+	}
+	
+	public int getWidth ()
+	{
+		return width;
+	}
+	
+	public int getHeight ()
+	{
+		return height;
+	}
+	
+	/**
+	 * @return The tiles, in the order their regions were given
+	 */
+	public List<Tile> getTiles ()
+	{
+		return tiles;
+	}
+	
+	/**
+	 * @return The tile {@code face}, in percent of the sheet, was found in or {@code null} if 
+	 * its center is in a guard margin or its rectangle reaches into another tile
+	 */
+	public Tile tileOf (final Face face)
+	{
+		final Point center = face.getCenter();
+		final Rect rect = face.getRectangle();
+		
+		final float x = center.x * width / 100f;
+		final float y = center.y * height / 100f;
+		
+		for (Tile tile : tiles)
+		{
+			if (x >= tile.getX() && x < tile.getX() + tile.getWidth() && y >= tile.getY() && y < tile.getY() + tile.getHeight())
+			{
+				// Within the guard margins around the tile
+				final boolean inside = rect.left * width / 100f >= tile.getX() - guard
+					&& rect.top * height / 100f >= tile.getY() - guard
+					&& rect.right * width / 100f <= tile.getX() + tile.getWidth() + guard
+					&& rect.bottom * height / 100f <= tile.getY() + tile.getHeight() + guard;
+				
+				return inside ? tile : null;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * @return {@code face}, in percent of the sheet, in percent of the source image of {@code tile}
+	 */
+	public Face toSource (final Face face, final Tile tile)
+	{
+		// Sheet percent to sheet pixels, to region pixels, to source pixels, to source percent
+		final float rx = (float) tile.getRegionWidth() / tile.getWidth();
+		final float ry = (float) tile.getRegionHeight() / tile.getHeight();
+		
+		final float sx = width * rx / tile.getSourceWidth();
+		final float sy = height * ry / tile.getSourceHeight();
+		final float dx = (tile.getSourceX() - tile.getX() * rx) * 100f / tile.getSourceWidth();
+		final float dy = (tile.getSourceY() - tile.getY() * ry) * 100f / tile.getSourceHeight();
+		
+		return face.transform(sx, sy, dx, dy);
+	}
+	
+	/**
+	 * @return {@code face}, in percent of the source image of {@code tile}, in percent of 
+	 * the sheet, the inverse of {@link #toSource(Face, Tile)}
+	 */
+	public Face fromSource (final Face face, final Tile tile)
+	{
+		final float rx = (float) tile.getWidth() / tile.getRegionWidth();
+		final float ry = (float) tile.getHeight() / tile.getRegionHeight();
+		
+		final float sx = tile.getSourceWidth() * rx / width;
+		final float sy = tile.getSourceHeight() * ry / height;
+		final float dx = (tile.getX() - tile.getSourceX() * rx) * 100f / width;
+		final float dy = (tile.getY() - tile.getSourceY() * ry) * 100f / height;
+		
+		return face.transform(sx, sy, dx, dy);
+	}
+	
+	/**
+	 * Splits {@code photo}, the API's result for this sheet, into a photo per tile with the 
+	 * faces of the tile in percent of its source image. Faces in guard margins or across 
+	 * tiles are dropped. The photos have the size of their sources and, as the sheet's would 
+	 * tag the sheet, no pid, url or tids.
+	 * 
+	 * @return A photo per tile, in the order of {@link #getTiles()}
+	 */
+	public List<Photo> split (final Photo photo)
+	{
+		final List<List<Face>> faces = new ArrayList<List<Face>>(tiles.size());
+		
+		for (int i = 0; i < tiles.size(); i++)
+		{
+			faces.add(new ArrayList<Face>());
+		}
+		
+		for (Face face : photo.getFaces())
+		{
+			final Tile tile = tileOf(face);
+			
+			if (tile != null)
+			{
+				faces.get(tiles.indexOf(tile)).add(toSource(face, tile).withTID(null));
+			}
+		}
+		
+		final List<Photo> photos = new ArrayList<Photo>(tiles.size());
+		final Photo untagged = photo.withSource(null, null);
+		
+		for (int i = 0; i < tiles.size(); i++)
+		{
+			final Tile tile = tiles.get(i);
+			
+			photos.add(untagged.withSize(tile.getSourceWidth(), tile.getSourceHeight()).withFaces(faces.get(i)));
+		}
+		
+		return photos;
+	}
+	
+	/**
+	 * Deletes the file
+	 */
+	public void release ()
+	{
+		Jpeg.delete(file);
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.image;
+
+/**
+ * A region of a source image placed on a {@link Sheet}, possibly scaled
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class Tile
+{
+	private final int source;
+	
+	private final int sourceWidth;
+	
+	private final int sourceHeight;
+	
+	private final int sourceX;
+	
+	private final int sourceY;
+	
+	private final int regionWidth;
+	
+	private final int regionHeight;
+	
+	private final int x;
+	
+	private final int y;
+	
+	private final int width;
+	
+	private final int height;
+	
+	/**
+	 * @param source Index of what the region was taken from
+	 * @param sourceWidth Width of the whole source image
+	 * @param sourceHeight Height of the whole source image
+	 * @param sourceX Left of the region in the source
+	 * @param sourceY Top of the region in the source
+	 * @param regionWidth Width of the region in the source
+	 * @param regionHeight Height of the region in the source
+	 * @param width Width of the region on the sheet
+	 * @param height Height of the region on the sheet
+	 */
+	Tile(final int source, final int sourceWidth, final int sourceHeight, final int sourceX, final int sourceY, 
+		final int regionWidth, final int regionHeight, final int x, final int y, final int width, final int height)
+	{
+		this.source       = source;
+		this.sourceWidth  = sourceWidth;
+		this.sourceHeight = sourceHeight;
+		this.sourceX      = sourceX;
+		this.sourceY      = sourceY;
+		this.regionWidth  = regionWidth;
+		this.regionHeight = regionHeight;
+		this.x            = x;
+		this.y            = y;
+		this.width        = width;
+		this.height       = height;
+	}
+	
+	/**
+	 * @return The same region at {@code x}, {@code y} on the sheet
+	 */
+	Tile moveTo (final int x, final int y)
+	{
+		return new Tile(source, sourceWidth, sourceHeight, sourceX, sourceY, regionWidth, regionHeight, x, y, width, height);
+	}
+	
+	/**
+	 * @return Index of what the region was taken from, e.g. the image or the face, in the 
+	 * order given
+	 */
+	public int getSource ()
+	{
+		return source;
+	}
+	
+	public int getSourceWidth ()
+	{
+		return sourceWidth;
+	}
+	
+	public int getSourceHeight ()
+	{
+		return sourceHeight;
+	}
+	
+	public int getSourceX ()
+	{
+		return sourceX;
+	}
+	
+	public int getSourceY ()
+	{
+		return sourceY;
+	}
+	
+	public int getRegionWidth ()
+	{
+		return regionWidth;
+	}
+	
+	public int getRegionHeight ()
+	{
+		return regionHeight;
+	}
+	
+	/**
+	 * @return Left of the tile on the sheet
+	 */
+	public int getX ()
+	{
+		return x;
+	}
+	
+	/**
+	 * @return Top of the tile on the sheet
+	 */
+	public int getY ()
+	{
+		return y;
+	}
+	
+	public int getWidth ()
+	{
+		return width;
+	}
+	
+	public int getHeight ()
+	{
+		return height;
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return "Tile[source=" + source + ", region=" + regionWidth + "x" + regionHeight + "+" + sourceX + "+" + sourceY 
+			+ ", at=" + width + "x" + height + "+" + x + "+" + y + "]";
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.image;
+
+import java.io.File;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * A file to upload and the size of the image it stands for
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class Upload
+{
+	private final File file;
+	
+	private final int width;
+	
+	private final int height;
+	
+	private final boolean temporary;
+	
+	/**
+	 * @param file A temporary file deleted by {@link #release()}
+	 * @param width Width of the original image
+	 * @param height Height of the original image
+	 */
+	public Upload(final File file, final int width, final int height)
+	{
+		this(file, width, height, true);
+	}
+	
+	private Upload(final File file, final int width, final int height, final boolean temporary)
+	{
+		Validate.notNull(file, "File cannot be null");
+		
+		this.file      = file;
+		this.width     = width;
+		this.height    = height;
+		this.temporary = temporary;
+	}
+	
+	/**
+	 * @return An upload of {@code image} unchanged
+	 */
+	public static Upload of (final File image)
+	{
+		return new Upload(image, 0, 0, false);
+	}
+	
+	public File getFile ()
+	{
+		return file;
+	}
+	
+	/**
+	 * @return Width of the original image, 0 if {@link #isTransformed() unchanged}
+	 */
+	public int getWidth ()
+	{
+		return width;
+	}
+	
+	/**
+	 * @return Height of the original image, 0 if {@link #isTransformed() unchanged}
+	 */
+	public int getHeight ()
+	{
+		return height;
+	}
+	
+	/**
+	 * @return {@code true} if the file is a copy of the image, which the API sees at a 
+	 * different size
+	 */
+	public boolean isTransformed ()
+	{
+		return temporary;
+	}
+	
+	/**
+	 * Deletes the file if it is a temporary copy
+	 */
+	public void release ()
+	{
+		if (temporary)
+		{
+			Jpeg.delete(file);
+		}
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return "Upload[file=" + file + ", width=" + width + ", height=" + height + "]";
+	}
+}
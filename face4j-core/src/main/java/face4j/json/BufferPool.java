@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.json;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * Per thread recycling of the byte and char buffers used while decoding responses.
+ * Each thread keeps at most one buffer of each kind; a buffer that is taken and not
+ * given back is simply garbage collected.
+ *
+ * @author Marlon Hendred
+ *
+ */
+final class BufferPool
+{
+	static final int BYTE_BUFFER_SIZE = 8192;
+
+	static final int CHAR_BUFFER_SIZE = 256;
+
+	private static final ThreadLocal<SoftReference<byte[]>> bytes = new ThreadLocal<SoftReference<byte[]>>();
+
+	private static final ThreadLocal<SoftReference<char[]>> chars = new ThreadLocal<SoftReference<char[]>>();
+
+	// No Instances
+	private BufferPool ()
+	{
+		throw new AssertionError();
+	}
+
+	static byte[] takeBytes ()
+	{
+		final SoftReference<byte[]> ref = bytes.get();
+		final byte[] buf = (ref == null) ? null : ref.get();
+
+		if (buf == null)
+		{
+			return new byte[BYTE_BUFFER_SIZE];
+		}
+
+		bytes.set(null);
+		return buf;
+	}
+
+	static void giveBytes (final byte[] buf)
+	{
+		bytes.set(new SoftReference<byte[]>(buf));
+	}
+
+	static char[] takeChars ()
+	{
+		final SoftReference<char[]> ref = chars.get();
+		final char[] buf = (ref == null) ? null : ref.get();
+
+		if (buf == null)
+		{
+			return new char[CHAR_BUFFER_SIZE];
+		}
+
+		chars.set(null);
+		return buf;
+	}
+
+	static void giveChars (final char[] buf)
+	{
+		chars.set(new SoftReference<char[]>(buf));
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflated copy of a raw response body. Response bodies are highly repetitive, so the
+ * copy is typically a small fraction of both the body and the tree {@code org.json}
+ * would have built from it.
+ *
+ * @author Marlon Hendred
+ *
+ * @see JsonReader#captureRaw()
+ */
+public final class CompressedPayload
+{
+	private final byte[] deflated;
+
+	private final int length;
+
+	CompressedPayload(final byte[] deflated, final int length)
+	{
+		this.deflated = deflated;
+		this.length   = length;
+	}
+
+	/**
+	 * @return Size of the uncompressed body in bytes
+	 */
+	public int getLength ()
+	{
+		return length;
+	}
+
+	/**
+	 * @return Size of the retained copy in bytes
+	 */
+	public int getCompressedLength ()
+	{
+		return deflated.length;
+	}
+
+	/**
+	 * Inflates the body, meant for logging and debugging
+	 */
+	public String toJson ()
+	{
+		final Inflater inflater = new Inflater();
+
+		try
+		{
+			final byte[] body = new byte[length];
+			inflater.setInput(deflated);
+
+			int n = 0;
+
+			while (n < length && !inflater.finished())
+			{
+				n += inflater.inflate(body, n, length - n);
+			}
+
+			return new String(body, 0, n, "UTF-8");
+		}
+
+		catch (DataFormatException dfe)
+		{
+			throw new IllegalStateException("Corrupt payload", dfe);
+		}
+
+		catch (UnsupportedEncodingException uee)
+		{
+			throw new AssertionError(uee);
+		}
+
+		finally
+		{
+			inflater.end();
+		}
+	}
+
+	public String toString ()
+	{
+		return toJson();
+	}
+
+	/**
+	 * Accumulates a {@link CompressedPayload} from consecutive chunks of a body
+	 */
+	static final class Builder
+	{
+		private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+
+		private final byte[] chunk = new byte[512];
+
+		private int length;
+
+		void append (final byte[] bytes, final int offset, final int count)
+		{
+			if (count == 0)
+			{
+				return;
+			}
+
+			deflater.setInput(bytes, offset, count);
+			length += count;
+
+			while (!deflater.needsInput())
+			{
+				drain();
+			}
+		}
+
+		CompressedPayload build ()
+		{
+			try
+			{
+				deflater.finish();
+
+				while (!deflater.finished())
+				{
+					drain();
+				}
+
+				return new CompressedPayload(out.toByteArray(), length);
+			}
+
+			finally
+			{
+				deflater.end();
+			}
+		}
+
+		void discard ()
+		{
+			deflater.end();
+		}
+
+		private void drain ()
+		{
+			final int n = deflater.deflate(chunk);
+			out.write(chunk, 0, n);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.json;
+
+/**
+ * The elements of a JSON array, located but not yet decoded. Each element can be read with
+ * its own {@link JsonReader}, so elements may be decoded independently and on
+ * different threads.
+ *
+ * @author Marlon Hendred
+ *
+ * @see JsonReader#nextArraySlices()
+ */
+public final class JsonArraySlices
+{
+	private final byte[] bytes;
+
+	private final int[] starts;
+
+	private final int[] ends;
+
+	private final int size;
+
+	private final int length;
+
+	JsonArraySlices(final byte[] bytes, final int[] starts, final int[] ends, final int size, final int length)
+	{
+		this.bytes  = bytes;
+		this.starts = starts;
+		this.ends   = ends;
+		this.size   = size;
+		this.length = length;
+	}
+
+	/**
+	 * @return Number of elements
+	 */
+	public int size ()
+	{
+		return size;
+	}
+
+	/**
+	 * @return Length of the array in bytes
+	 */
+	public int length ()
+	{
+		return length;
+	}
+
+	/**
+	 * @return A new reader positioned before element {@code index}. Safe to call from any
+	 * thread; the reader itself is not.
+	 */
+	public JsonReader reader (final int index)
+	{
+		if (index < 0 || index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+
+		return new Utf8JsonReader(bytes, starts[index], ends[index] - starts[index]);
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Service provider interface for the JSON parser responses are decoded with. face4j ships
+ * {@link Utf8JsonCodec}, the default, and {@link OrgJsonCodec}. Others can be plugged in
+ * through {@code java.util.ServiceLoader}, the {@code face4j.json.codec} system property or
+ * {@code DefaultFaceClient#setJsonCodec}, see {@link JsonCodecs#getDefault()}.
+ * <p>
+ * Implementations must be thread safe and have a public no-arg constructor.
+ *
+ * @author Marlon Hendred
+ *
+ */
+public interface JsonCodec
+{
+	/**
+	 * @param in Stream of {@code UTF-8} encoded JSON, closed along with the returned reader
+	 */
+	public JsonReader newReader (InputStream in) throws IOException;
+
+	/**
+	 * @param bytes Array holding {@code UTF-8} encoded JSON, which must not be modified while
+	 *              the reader is in use
+	 */
+	public JsonReader newReader (byte[] bytes, int offset, int length) throws IOException;
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.json;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds the {@link JsonCodec} to use when none is configured explicitly
+ *
+ * @author Marlon Hendred
+ *
+ */
+public final class JsonCodecs
+{
+	/**
+	 * System property naming the codec class, or {@code utf8} or {@code org.json}
+	 */
+	public static final String CODEC_PROPERTY = "face4j.json.codec";
+
+	private static final Logger logger = LoggerFactory.getLogger(JsonCodecs.class);
+
+	// No Instances
+	private JsonCodecs ()
+	{
+		throw new AssertionError();
+	}
+
+	/**
+	 * The codec named by the {@value #CODEC_PROPERTY} system property if set, otherwise the
+	 * first one registered with {@code ServiceLoader} as a {@code face4j.json.JsonCodec}
+	 * provider, otherwise {@link Utf8JsonCodec}. Looked up once.
+	 */
+	public static JsonCodec getDefault ()
+	{
+		return Default.CODEC;
+	}
+
+	/**
+	 * @param name Class name of a {@link JsonCodec}, or {@code utf8} or {@code org.json}
+	 *
+	 * @throws IllegalArgumentException if there is no such codec
+	 */
+	public static JsonCodec forName (final String name)
+	{
+		if ("utf8".equalsIgnoreCase(name))
+		{
+			return new Utf8JsonCodec();
+		}
+
+		if ("org.json".equalsIgnoreCase(name))
+		{
+			return new OrgJsonCodec();
+		}
+
+		try
+		{
+			return (JsonCodec) Class.forName(name).newInstance();
+		}
+
+		catch (Exception e)
+		{
+			throw new IllegalArgumentException("No such JSON codec: " + name, e);
+		}
+	}
+
+	private static JsonCodec lookup ()
+	{
+		final String name = System.getProperty(CODEC_PROPERTY);
+
+		if (name != null && name.trim().length() > 0)
+		{
+			return forName(name.trim());
+		}
+
+		final Iterator<JsonCodec> providers = ServiceLoader.load(JsonCodec.class).iterator();
+
+		if (providers.hasNext())
+		{
+			return providers.next();
+		}
+
+		return new Utf8JsonCodec();
+	}
+
+	private static final class Default
+	{
+		static final JsonCodec CODEC = lookup();
+
+		static
+		{
+			logger.info("Using JSON codec {}", CODEC);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull parser over one JSON document, the contract between the response layer and a
+ * {@link JsonCodec}. Implementations must be lenient in the places the face.com API is
+ * inconsistent: numbers may be quoted and booleans may be given as the strings
+ * {@code "true"} and {@code "false"}.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author Marlon Hendred
+ *
+ */
+public interface JsonReader extends Closeable
+{
+	/**
+	 * @return The type of the next token without consuming it
+	 */
+	public JsonToken peek () throws IOException;
+
+	public void beginObject () throws IOException;
+
+	public void endObject () throws IOException;
+
+	public void beginArray () throws IOException;
+
+	public void endArray () throws IOException;
+
+	/**
+	 * @return {@code true} if the current object or array has another element
+	 */
+	public boolean hasNext () throws IOException;
+
+	public String nextName () throws IOException;
+
+	/**
+	 * @return The next value as a {@code String}, numbers and booleans are returned as text
+	 * 		   and {@code null} is returned for a JSON {@code null}
+	 */
+	public String nextString () throws IOException;
+
+	public boolean nextBoolean () throws IOException;
+
+	public void nextNull () throws IOException;
+
+	public double nextDouble () throws IOException;
+
+	public long nextLong () throws IOException;
+
+	public int nextInt () throws IOException;
+
+	/**
+	 * Like {@link #nextInt()} but returns {@code fallback} for a {@code null} or non numeric
+	 * value, mirroring {@code JSONObject.optInt}
+	 */
+	public int optInt (int fallback) throws IOException;
+
+	/**
+	 * Skips the next value, including all nested values of an object or array
+	 */
+	public void skipValue () throws IOException;
+
+	/**
+	 * Consumes the next value, which must be an array, and returns its elements undecoded so
+	 * they can be decoded independently
+	 */
+	public JsonArraySlices nextArraySlices () throws IOException;
+
+	/**
+	 * Keeps a deflated copy of the document, available from {@link #getRaw()} once the
+	 * reader is closed. Must be called before the first token is read.
+	 */
+	public void captureRaw ();
+
+	/**
+	 * @return The copy made by {@link #captureRaw()} or {@code null} if none was made or the
+	 * reader is still open
+	 */
+	public CompressedPayload getRaw ();
+
+	/**
+	 * Releases the resources of the reader, including the underlying stream
+	 */
+	public void close () throws IOException;
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.json;
+
+/**
+ * Canonical instances for object member names. The face.com API only ever uses a few
+ * dozen distinct names, so after warm up {@link Utf8JsonReader#nextName()} never
+ * allocates. The table is shared by all threads without locking: slots only ever hold
+ * complete immutable {@code String}s and a lost update just costs a later miss.
+ *
+ * @author Marlon Hendred
+ *
+ */
+final class NameTable
+{
+	private static final int SIZE = 1024;
+
+	private static final String[] names = new String[SIZE];
+
+	// No Instances
+	private NameTable ()
+	{
+		throw new AssertionError();
+	}
+
+	static String canonical (final char[] chars, final int length)
+	{
+		int hash = 0;
+
+		for (int i = 0; i < length; i++)
+		{
+			hash = 31 * hash + chars[i];
+		}
+
+		final int slot = (hash ^ (hash >>> 16)) & (SIZE - 1);
+		final String name = names[slot];
+
+		if (name != null && matches(name, chars, length))
+		{
+			return name;
+		}
+
+		final String created = new String(chars, 0, length);
+		names[slot] = created;
+
+		return created;
+	}
+
+	private static boolean matches (final String name, final char[] chars, final int length)
+	{
+		if (name.length() != length)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < length; i++)
+		{
+			if (name.charAt(i) != chars[i])
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
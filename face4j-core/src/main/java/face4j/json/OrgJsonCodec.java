@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link JsonCodec} that parses with {@code org.json}, the way face4j always has, and walks
+ * the resulting tree. Slower and far more allocation heavy than {@link Utf8JsonCodec}, it is
+ * there for compatibility and for comparing the two.
+ *
+ * @author Marlon Hendred
+ *
+ */
+public final class OrgJsonCodec implements JsonCodec
+{
+	public JsonReader newReader (final InputStream in) throws IOException
+	{
+		try
+		{
+			final ByteArrayOutputStream body = new ByteArrayOutputStream();
+			final byte[] chunk = new byte[4096];
+
+			int n;
+
+			while ((n = in.read(chunk)) != -1)
+			{
+				body.write(chunk, 0, n);
+			}
+
+			final byte[] bytes = body.toByteArray();
+
+			return new OrgJsonReader(bytes, 0, bytes.length);
+		}
+
+		finally
+		{
+			in.close();
+		}
+	}
+
+	public JsonReader newReader (final byte[] bytes, final int offset, final int length) throws IOException
+	{
+		return new OrgJsonReader(bytes, offset, length);
+	}
+
+	public String toString ()
+	{
+		return "OrgJsonCodec";
+	}
+}
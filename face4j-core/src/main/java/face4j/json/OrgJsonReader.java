@@ -0,0 +1,505 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * {@link JsonReader} over a document parsed by {@code org.json}
+ *
+ * @author Marlon Hendred
+ *
+ */
+final class OrgJsonReader implements JsonReader
+{
+	/**
+	 * Marks that the next value has not been fetched from the enclosing container yet
+	 */
+	private static final Object NONE = new Object();
+
+	private final byte[] bytes;
+
+	private final int offset;
+
+	private final int length;
+
+	private Frame[] stack = new Frame[8];
+
+	private int depth;
+
+	/**
+	 * The value at the front of the reader, {@link #NONE} or {@code null} once the document
+	 * has been consumed
+	 */
+	private Object next;
+
+	private boolean captureRaw;
+
+	private CompressedPayload raw;
+
+	private boolean closed;
+
+	OrgJsonReader(final byte[] bytes, final int offset, final int length) throws IOException
+	{
+		this.bytes  = bytes;
+		this.offset = offset;
+		this.length = length;
+
+		try
+		{
+			next = new JSONTokener(new String(bytes, offset, length, "UTF-8")).nextValue();
+		}
+
+		catch (JSONException jex)
+		{
+			throw new MalformedJsonException(jex.getMessage());
+		}
+	}
+
+	public JsonToken peek () throws IOException
+	{
+		checkOpen();
+
+		if (next == NONE && depth == 0)
+		{
+			next = null;
+		}
+
+		if (next == NONE)
+		{
+			final Frame frame = stack[depth - 1];
+
+			if (frame.object != null)
+			{
+				if (frame.name != null)
+				{
+					return JsonToken.NAME;
+				}
+
+				if (!frame.keys.hasNext())
+				{
+					return JsonToken.END_OBJECT;
+				}
+
+				frame.name = (String) frame.keys.next();
+				return JsonToken.NAME;
+			}
+
+			if (frame.index == frame.array.length())
+			{
+				return JsonToken.END_ARRAY;
+			}
+
+			next = frame.array.opt(frame.index++);
+		}
+
+		return tokenOf(next);
+	}
+
+	private static JsonToken tokenOf (final Object value)
+	{
+		if (value == null)
+		{
+			return JsonToken.END_DOCUMENT;
+		}
+
+		if (value instanceof JSONObject)
+		{
+			return JsonToken.BEGIN_OBJECT;
+		}
+
+		if (value instanceof JSONArray)
+		{
+			return JsonToken.BEGIN_ARRAY;
+		}
+
+		if (value instanceof Number)
+		{
+			return JsonToken.NUMBER;
+		}
+
+		if (value instanceof Boolean)
+		{
+			return JsonToken.BOOLEAN;
+		}
+
+		if (value == JSONObject.NULL)
+		{
+			return JsonToken.NULL;
+		}
+
+		return JsonToken.STRING;
+	}
+
+	public void beginObject () throws IOException
+	{
+		expect(JsonToken.BEGIN_OBJECT);
+
+		final Frame frame = push();
+		frame.object = (JSONObject) next;
+		frame.keys   = frame.object.keys();
+
+		next = NONE;
+	}
+
+	public void endObject () throws IOException
+	{
+		expect(JsonToken.END_OBJECT);
+		pop();
+	}
+
+	public void beginArray () throws IOException
+	{
+		expect(JsonToken.BEGIN_ARRAY);
+
+		final Frame frame = push();
+		frame.array = (JSONArray) next;
+
+		next = NONE;
+	}
+
+	public void endArray () throws IOException
+	{
+		expect(JsonToken.END_ARRAY);
+		pop();
+	}
+
+	public boolean hasNext () throws IOException
+	{
+		final JsonToken token = peek();
+
+		return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+	}
+
+	public String nextName () throws IOException
+	{
+		expect(JsonToken.NAME);
+
+		final Frame frame = stack[depth - 1];
+		final String name = frame.name;
+
+		frame.name = null;
+		next = frame.object.opt(name);
+
+		return name;
+	}
+
+	public String nextString () throws IOException
+	{
+		final JsonToken token = peek();
+
+		if (token == JsonToken.NULL)
+		{
+			next = NONE;
+			return null;
+		}
+
+		if (token != JsonToken.STRING && token != JsonToken.NUMBER && token != JsonToken.BOOLEAN)
+		{
+			throw unexpected("STRING", token);
+		}
+
+		final Object value = next;
+		next = NONE;
+
+		return value.toString();
+	}
+
+	public boolean nextBoolean () throws IOException
+	{
+		final JsonToken token = peek();
+
+		if (token == JsonToken.BOOLEAN)
+		{
+			final boolean value = (Boolean) next;
+			next = NONE;
+
+			return value;
+		}
+
+		if (token == JsonToken.STRING)
+		{
+			final String value = nextString();
+
+			if (value.equalsIgnoreCase("true"))
+			{
+				return true;
+			}
+
+			if (value.equalsIgnoreCase("false"))
+			{
+				return false;
+			}
+
+			throw new MalformedJsonException("Expected a boolean but was \"" + value + "\"");
+		}
+
+		throw unexpected("BOOLEAN", token);
+	}
+
+	public void nextNull () throws IOException
+	{
+		expect(JsonToken.NULL);
+		next = NONE;
+	}
+
+	public double nextDouble () throws IOException
+	{
+		final JsonToken token = peek();
+
+		if (token == JsonToken.NUMBER)
+		{
+			final double value = ((Number) next).doubleValue();
+			next = NONE;
+
+			return value;
+		}
+
+		if (token == JsonToken.STRING)
+		{
+			final String value = nextString();
+
+			try
+			{
+				return Double.parseDouble(value.trim());
+			}
+
+			catch (NumberFormatException nfe)
+			{
+				throw new MalformedJsonException("Expected a number but was \"" + value + "\"");
+			}
+		}
+
+		throw unexpected("NUMBER", token);
+	}
+
+	public long nextLong () throws IOException
+	{
+		if (peek() == JsonToken.NUMBER && !(next instanceof Double))
+		{
+			final long value = ((Number) next).longValue();
+			next = NONE;
+
+			return value;
+		}
+
+		return (long) nextDouble();
+	}
+
+	public int nextInt () throws IOException
+	{
+		return (int) nextLong();
+	}
+
+	public int optInt (final int fallback) throws IOException
+	{
+		final JsonToken token = peek();
+
+		if (token == JsonToken.NUMBER)
+		{
+			return nextInt();
+		}
+
+		if (token == JsonToken.STRING)
+		{
+			try
+			{
+				return (int) Double.parseDouble(nextString().trim());
+			}
+
+			catch (NumberFormatException nfe)
+			{
+				return fallback;
+			}
+		}
+
+		skipValue();
+		return fallback;
+	}
+
+	public void skipValue () throws IOException
+	{
+		final JsonToken token = peek();
+
+		if (token == JsonToken.NAME)
+		{
+			nextName();
+		}
+
+		else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY || token == JsonToken.END_DOCUMENT)
+		{
+			throw unexpected("a value", token);
+		}
+
+		next = NONE;
+	}
+
+	public JsonArraySlices nextArraySlices () throws IOException
+	{
+		expect(JsonToken.BEGIN_ARRAY);
+
+		final JSONArray array = (JSONArray) next;
+		final int size = array.length();
+		final int[] starts = new int[size];
+		final int[] ends = new int[size];
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try
+		{
+			for (int i = 0; i < size; i++)
+			{
+				final byte[] element = toJson(array.opt(i)).getBytes("UTF-8");
+
+				starts[i] = out.size();
+				out.write(element, 0, element.length);
+				ends[i] = out.size();
+			}
+		}
+
+		catch (JSONException jex)
+		{
+			throw new MalformedJsonException(jex.getMessage());
+		}
+
+		next = NONE;
+
+		return new JsonArraySlices(out.toByteArray(), starts, ends, size, out.size());
+	}
+
+	private static String toJson (final Object value) throws JSONException
+	{
+		if (value instanceof String)
+		{
+			return JSONObject.quote((String) value);
+		}
+
+		if (value instanceof Number)
+		{
+			return JSONObject.numberToString((Number) value);
+		}
+
+		return String.valueOf(value);
+	}
+
+	public void captureRaw ()
+	{
+		if (closed || depth != 0 || next == NONE || next == null)
+		{
+			throw new IllegalStateException("Reading has already started");
+		}
+
+		captureRaw = true;
+	}
+
+	public CompressedPayload getRaw ()
+	{
+		return raw;
+	}
+
+	public void close ()
+	{
+		if (closed)
+		{
+			return;
+		}
+
+		closed = true;
+
+		if (captureRaw)
+		{
+			final CompressedPayload.Builder builder = new CompressedPayload.Builder();
+
+			builder.append(bytes, offset, length);
+			raw = builder.build();
+		}
+
+		Arrays.fill(stack, 0, depth, null);
+		next = null;
+	}
+
+	private void checkOpen ()
+	{
+		if (closed)
+		{
+			throw new IllegalStateException("Reader is closed");
+		}
+	}
+
+	private void expect (final JsonToken expected) throws IOException
+	{
+		final JsonToken token = peek();
+
+		if (token != expected)
+		{
+			throw unexpected(expected.name(), token);
+		}
+	}
+
+	private static MalformedJsonException unexpected (final String expected, final JsonToken token)
+	{
+		return new MalformedJsonException("Expected " + expected + " but was " + token);
+	}
+
+	private Frame push ()
+	{
+		if (depth == stack.length)
+		{
+			stack = Arrays.copyOf(stack, depth * 2);
+		}
+
+		final Frame frame = new Frame();
+		stack[depth++] = frame;
+
+		return frame;
+	}
+
+	private void pop ()
+	{
+		stack[--depth] = null;
+		next = (depth == 0) ? null : NONE;
+	}
+
+	/**
+	 * An object or array being read
+	 */
+	private static final class Frame
+	{
+		JSONObject object;
+
+		Iterator<?> keys;
+
+		String name;
+
+		JSONArray array;
+
+		int index;
+	}
+}
@@ -0,0 +1,1295 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Pull parser that decodes JSON straight from {@code UTF-8} bytes. The response body is
+ * read from the socket into a recycled {@code byte[]} and tokenized in place, so the
+ * document is never materialized as a {@code String}. Member names are canonicalized and
+ * do not allocate; a {@code String} is only created when a value is asked for with
+ * {@link #nextString()}, numbers and booleans are decoded directly from the bytes.
+ * <p>
+ * To stay compatible with the {@code org.json} based model constructors the reader is
+ * lenient in the same places: numbers may be quoted and booleans may be given as the
+ * strings {@code "true"} and {@code "false"}.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @author Marlon Hendred
+ *
+ */
+public final class Utf8JsonReader implements JsonReader
+{
+	private static final int PEEKED_NONE         = 0;
+	private static final int PEEKED_BEGIN_OBJECT = 1;
+	private static final int PEEKED_END_OBJECT   = 2;
+	private static final int PEEKED_BEGIN_ARRAY  = 3;
+	private static final int PEEKED_END_ARRAY    = 4;
+	private static final int PEEKED_TRUE         = 5;
+	private static final int PEEKED_FALSE        = 6;
+	private static final int PEEKED_NULL         = 7;
+	private static final int PEEKED_STRING       = 8;
+	private static final int PEEKED_NAME         = 9;
+	private static final int PEEKED_NUMBER       = 10;
+	private static final int PEEKED_EOF          = 11;
+
+	private static final int EMPTY_ARRAY       = 1;
+	private static final int NONEMPTY_ARRAY    = 2;
+	private static final int EMPTY_OBJECT      = 3;
+	private static final int DANGLING_NAME     = 4;
+	private static final int NONEMPTY_OBJECT   = 5;
+	private static final int EMPTY_DOCUMENT    = 6;
+	private static final int NONEMPTY_DOCUMENT = 7;
+
+	/**
+	 * Powers of ten that are exactly representable as a {@code double}
+	 */
+	private static final double[] POW10 = {
+		1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/**
+	 * Source of the bytes or {@code null} when reading from an array
+	 */
+	private final InputStream in;
+
+	/**
+	 * Whether {@link #buf} came from the {@link BufferPool}
+	 */
+	private final boolean pooled;
+
+	private byte[] buf;
+
+	private int pos;
+
+	private int limit;
+
+	/**
+	 * Offset of {@code buf[0]} in the whole document, for error messages
+	 */
+	private int base;
+
+	/**
+	 * Scratch space for decoding strings
+	 */
+	private char[] chars;
+
+	private int[] stack;
+
+	private int depth;
+
+	private int peeked;
+
+	private boolean closed;
+
+	/**
+	 * Collects a copy of the document while {@link #captureRaw()} is in effect
+	 */
+	private CompressedPayload.Builder capture;
+
+	private CompressedPayload raw;
+
+	/**
+	 * Reads a document from {@code in}, which is closed along with this reader
+	 *
+	 * @param in Stream of {@code UTF-8} encoded JSON
+	 */
+	public Utf8JsonReader(final InputStream in)
+	{
+		Validate.notNull(in, "Input stream is null");
+
+		this.in     = in;
+		this.pooled = true;
+		this.buf    = BufferPool.takeBytes();
+		this.pos    = 0;
+		this.limit  = 0;
+
+		init();
+	}
+
+	/**
+	 * Reads a document held entirely in memory
+	 *
+	 * @param bytes {@code UTF-8} encoded JSON
+	 */
+	public Utf8JsonReader(final byte[] bytes)
+	{
+		this(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Reads a document from a region of an array. The array is not copied.
+	 *
+	 * @param bytes {@code UTF-8} encoded JSON
+	 * @param offset Index of the first byte of the document
+	 * @param length Length of the document in bytes
+	 */
+	public Utf8JsonReader(final byte[] bytes, final int offset, final int length)
+	{
+		Validate.notNull(bytes, "Bytes are null");
+		Validate.isTrue(offset >= 0 && length >= 0 && offset + length <= bytes.length, "Bad offset/length");
+
+		this.in     = null;
+		this.pooled = false;
+		this.buf    = bytes;
+		this.pos    = offset;
+		this.limit  = offset + length;
+
+		init();
+	}
+
+	private void init ()
+	{
+		this.chars  = BufferPool.takeChars();
+		this.stack  = new int[16];
+		this.depth  = 0;
+		this.peeked = PEEKED_NONE;
+
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * Keeps a deflated copy of the document as it is read, available from {@link #getRaw()}
+	 * once the reader is closed. Must be called before the first token is read.
+	 */
+	public void captureRaw ()
+	{
+		if (closed || peeked != PEEKED_NONE || depth != 1 || stack[0] != EMPTY_DOCUMENT)
+		{
+			throw new IllegalStateException("Reading has already started");
+		}
+
+		if (capture == null)
+		{
+			capture = new CompressedPayload.Builder();
+			capture.append(buf, pos, limit - pos);
+		}
+	}
+
+	/**
+	 * @return The copy made by {@link #captureRaw()} or {@code null} if none was made or the
+	 * reader is still open
+	 */
+	public CompressedPayload getRaw ()
+	{
+		return raw;
+	}
+
+	/**
+	 * @return The type of the next token without consuming it
+	 */
+	public JsonToken peek () throws IOException
+	{
+		switch (peeked())
+		{
+			case PEEKED_BEGIN_OBJECT:
+				return JsonToken.BEGIN_OBJECT;
+			case PEEKED_END_OBJECT:
+				return JsonToken.END_OBJECT;
+			case PEEKED_BEGIN_ARRAY:
+				return JsonToken.BEGIN_ARRAY;
+			case PEEKED_END_ARRAY:
+				return JsonToken.END_ARRAY;
+			case PEEKED_NAME:
+				return JsonToken.NAME;
+			case PEEKED_TRUE:
+			case PEEKED_FALSE:
+				return JsonToken.BOOLEAN;
+			case PEEKED_NULL:
+				return JsonToken.NULL;
+			case PEEKED_STRING:
+				return JsonToken.STRING;
+			case PEEKED_NUMBER:
+				return JsonToken.NUMBER;
+			default:
+				return JsonToken.END_DOCUMENT;
+		}
+	}
+
+	public void beginObject () throws IOException
+	{
+		expect(PEEKED_BEGIN_OBJECT, "BEGIN_OBJECT");
+		push(EMPTY_OBJECT);
+	}
+
+	public void endObject () throws IOException
+	{
+		expect(PEEKED_END_OBJECT, "END_OBJECT");
+		depth--;
+	}
+
+	public void beginArray () throws IOException
+	{
+		expect(PEEKED_BEGIN_ARRAY, "BEGIN_ARRAY");
+		push(EMPTY_ARRAY);
+	}
+
+	public void endArray () throws IOException
+	{
+		expect(PEEKED_END_ARRAY, "END_ARRAY");
+		depth--;
+	}
+
+	/**
+	 * @return {@code true} if the current object or array has another element
+	 */
+	public boolean hasNext () throws IOException
+	{
+		final int p = peeked();
+
+		return p != PEEKED_END_OBJECT && p != PEEKED_END_ARRAY && p != PEEKED_EOF;
+	}
+
+	/**
+	 * @return The next member name. Names are canonical instances and may be compared
+	 * 		   with {@code equals} cheaply.
+	 */
+	public String nextName () throws IOException
+	{
+		expect(PEEKED_NAME, "NAME");
+
+		final int length = decodeString();
+
+		return NameTable.canonical(chars, length);
+	}
+
+	/**
+	 * @return The next value as a {@code String}, numbers and booleans are returned as their
+	 * 		   literal text and {@code null} is returned for a JSON {@code null}
+	 */
+	public String nextString () throws IOException
+	{
+		final int p = peeked();
+
+		switch (p)
+		{
+			case PEEKED_STRING:
+				peeked = PEEKED_NONE;
+				return new String(chars, 0, decodeString());
+
+			case PEEKED_NUMBER:
+				peeked = PEEKED_NONE;
+				final int end = numberEnd();
+				final int start = pos;
+				pos = end;
+				return ascii(start, end);
+
+			case PEEKED_TRUE:
+				peeked = PEEKED_NONE;
+				return "true";
+
+			case PEEKED_FALSE:
+				peeked = PEEKED_NONE;
+				return "false";
+
+			case PEEKED_NULL:
+				peeked = PEEKED_NONE;
+				return null;
+
+			default:
+				throw unexpected("STRING");
+		}
+	}
+
+	public boolean nextBoolean () throws IOException
+	{
+		final int p = peeked();
+
+		if (p == PEEKED_TRUE || p == PEEKED_FALSE)
+		{
+			peeked = PEEKED_NONE;
+			return p == PEEKED_TRUE;
+		}
+
+		if (p == PEEKED_STRING)
+		{
+			final String value = nextString();
+
+			if (value.equalsIgnoreCase("true"))
+			{
+				return true;
+			}
+
+			if (value.equalsIgnoreCase("false"))
+			{
+				return false;
+			}
+
+			throw syntaxError("Expected a boolean but was \"" + value + "\"");
+		}
+
+		throw unexpected("BOOLEAN");
+	}
+
+	public void nextNull () throws IOException
+	{
+		expect(PEEKED_NULL, "NULL");
+	}
+
+	public double nextDouble () throws IOException
+	{
+		final int p = peeked();
+
+		if (p == PEEKED_NUMBER)
+		{
+			peeked = PEEKED_NONE;
+
+			final int end = numberEnd();
+			final int start = pos;
+			final double value = parseDouble(start, end);
+			pos = end;
+
+			return value;
+		}
+
+		if (p == PEEKED_STRING)
+		{
+			return parseDouble(nextString());
+		}
+
+		throw unexpected("NUMBER");
+	}
+
+	public long nextLong () throws IOException
+	{
+		final int p = peeked();
+
+		if (p == PEEKED_NUMBER)
+		{
+			peeked = PEEKED_NONE;
+
+			final int end = numberEnd();
+			final int start = pos;
+			final long value = parseLong(start, end);
+			pos = end;
+
+			return value;
+		}
+
+		if (p == PEEKED_STRING)
+		{
+			return (long) parseDouble(nextString());
+		}
+
+		throw unexpected("NUMBER");
+	}
+
+	public int nextInt () throws IOException
+	{
+		return (int) nextLong();
+	}
+
+	/**
+	 * Like {@link #nextInt()} but returns {@code fallback} for a {@code null} or non numeric
+	 * value, mirroring {@code JSONObject.optInt}
+	 */
+	public int optInt (final int fallback) throws IOException
+	{
+		final int p = peeked();
+
+		if (p == PEEKED_NUMBER)
+		{
+			return nextInt();
+		}
+
+		if (p == PEEKED_STRING)
+		{
+			try
+			{
+				return (int) Double.parseDouble(nextString().trim());
+			}
+
+			catch (NumberFormatException nfe)
+			{
+				return fallback;
+			}
+		}
+
+		skipValue();
+		return fallback;
+	}
+
+	/**
+	 * Skips the next value, including all nested values of an object or array
+	 */
+	public void skipValue () throws IOException
+	{
+		int count = 0;
+
+		do
+		{
+			final int p = peeked();
+
+			switch (p)
+			{
+				case PEEKED_BEGIN_ARRAY:
+					push(EMPTY_ARRAY);
+					count++;
+					break;
+
+				case PEEKED_BEGIN_OBJECT:
+					push(EMPTY_OBJECT);
+					count++;
+					break;
+
+				case PEEKED_END_ARRAY:
+				case PEEKED_END_OBJECT:
+					if (count == 0)
+					{
+						throw unexpected("a value");
+					}
+
+					depth--;
+					count--;
+					break;
+
+				case PEEKED_STRING:
+				case PEEKED_NAME:
+					skipString();
+					break;
+
+				case PEEKED_NUMBER:
+					pos = numberEnd();
+					break;
+
+				case PEEKED_EOF:
+					throw unexpected("a value");
+
+				default:
+					break;
+			}
+
+			peeked = PEEKED_NONE;
+		}
+		while (count != 0);
+	}
+
+	/**
+	 * Consumes the next value, which must be an array, by only locating the boundaries of
+	 * its elements. This is a fraction of the work of decoding them, and lets the caller
+	 * decode the elements independently afterwards. When reading from a stream the whole
+	 * array is buffered and copied.
+	 */
+	public JsonArraySlices nextArraySlices () throws IOException
+	{
+		expect(PEEKED_BEGIN_ARRAY, "BEGIN_ARRAY");
+
+		int[] starts = new int[16];
+		int[] ends = new int[16];
+		int size = 0;
+
+		int nesting = 0;
+		int elementStart = -1;
+		int lastByte = -1;
+		boolean inString = false;
+
+		// Offsets are relative to pos, which survives compaction in fill()
+		int i = 0;
+
+		while (true)
+		{
+			if (pos + i == limit && !fill(i + 1))
+			{
+				throw syntaxError("Unterminated array");
+			}
+
+			final int c = buf[pos + i];
+
+			if (inString)
+			{
+				if (c == '\\')
+				{
+					i++;
+
+					if (pos + i == limit && !fill(i + 1))
+					{
+						throw syntaxError("Unterminated string");
+					}
+				}
+
+				else if (c == '"')
+				{
+					inString = false;
+				}
+
+				lastByte = i++;
+				continue;
+			}
+
+			if (c == ' ' || c == '\n' || c == '\r' || c == '\t')
+			{
+				i++;
+				continue;
+			}
+
+			if (nesting == 0 && (c == ',' || c == ']'))
+			{
+				if (elementStart != -1)
+				{
+					if (size == starts.length)
+					{
+						starts = Arrays.copyOf(starts, size * 2);
+						ends   = Arrays.copyOf(ends, size * 2);
+					}
+
+					starts[size] = elementStart;
+					ends[size]   = lastByte + 1;
+					size++;
+				}
+
+				else if (c == ',' || size > 0)
+				{
+					throw syntaxError("Expected value");
+				}
+
+				elementStart = -1;
+
+				if (c == ']')
+				{
+					break;
+				}
+
+				i++;
+				continue;
+			}
+
+			if (elementStart == -1)
+			{
+				elementStart = i;
+			}
+
+			if (c == '"')
+			{
+				inString = true;
+			}
+
+			else if (c == '{' || c == '[')
+			{
+				nesting++;
+			}
+
+			else if (c == '}' || c == ']')
+			{
+				nesting--;
+			}
+
+			lastByte = i++;
+		}
+
+		final byte[] bytes;
+		final int origin;
+
+		if (in == null)
+		{
+			bytes  = buf;
+			origin = pos;
+		}
+
+		else
+		{
+			bytes  = Arrays.copyOfRange(buf, pos, pos + i);
+			origin = 0;
+		}
+
+		if (origin != 0)
+		{
+			for (int e = 0; e < size; e++)
+			{
+				starts[e] += origin;
+				ends[e]   += origin;
+			}
+		}
+
+		pos += i + 1;
+
+		return new JsonArraySlices(bytes, starts, ends, size, i + 1);
+	}
+
+	/**
+	 * Gives the buffers back to the pool and closes the underlying stream, if any
+	 */
+	public void close () throws IOException
+	{
+		if (closed)
+		{
+			return;
+		}
+
+		closed = true;
+		peeked = PEEKED_EOF;
+
+		if (capture != null)
+		{
+			raw = capture.build();
+			capture = null;
+		}
+
+		BufferPool.giveChars(chars);
+
+		if (pooled)
+		{
+			BufferPool.giveBytes(buf);
+		}
+
+		chars = null;
+		buf   = null;
+
+		if (in != null)
+		{
+			in.close();
+		}
+	}
+
+	private int peeked () throws IOException
+	{
+		if (closed)
+		{
+			throw new IllegalStateException("Reader is closed");
+		}
+
+		final int p = peeked;
+
+		return (p == PEEKED_NONE) ? doPeek() : p;
+	}
+
+	private void expect (final int token, final String name) throws IOException
+	{
+		if (peeked() != token)
+		{
+			throw unexpected(name);
+		}
+
+		peeked = PEEKED_NONE;
+	}
+
+	private int doPeek () throws IOException
+	{
+		final int scope = stack[depth - 1];
+
+		if (scope == EMPTY_ARRAY)
+		{
+			stack[depth - 1] = NONEMPTY_ARRAY;
+		}
+
+		else if (scope == NONEMPTY_ARRAY)
+		{
+			final int c = nextNonWhitespace(true);
+
+			if (c == ']')
+			{
+				return peeked = PEEKED_END_ARRAY;
+			}
+
+			if (c != ',')
+			{
+				throw syntaxError("Unterminated array");
+			}
+		}
+
+		else if (scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT)
+		{
+			stack[depth - 1] = DANGLING_NAME;
+
+			if (scope == NONEMPTY_OBJECT)
+			{
+				final int c = nextNonWhitespace(true);
+
+				if (c == '}')
+				{
+					return peeked = PEEKED_END_OBJECT;
+				}
+
+				if (c != ',')
+				{
+					throw syntaxError("Unterminated object");
+				}
+			}
+
+			final int c = nextNonWhitespace(true);
+
+			if (c == '"')
+			{
+				return peeked = PEEKED_NAME;
+			}
+
+			if (c == '}' && scope == EMPTY_OBJECT)
+			{
+				return peeked = PEEKED_END_OBJECT;
+			}
+
+			throw syntaxError("Expected name");
+		}
+
+		else if (scope == DANGLING_NAME)
+		{
+			stack[depth - 1] = NONEMPTY_OBJECT;
+
+			if (nextNonWhitespace(true) != ':')
+			{
+				throw syntaxError("Expected ':'");
+			}
+		}
+
+		else if (scope == EMPTY_DOCUMENT)
+		{
+			stack[depth - 1] = NONEMPTY_DOCUMENT;
+		}
+
+		else
+		{
+			if (nextNonWhitespace(false) == -1)
+			{
+				return peeked = PEEKED_EOF;
+			}
+
+			throw syntaxError("Expected end of document");
+		}
+
+		final int c = nextNonWhitespace(true);
+
+		switch (c)
+		{
+			case ']':
+				if (scope == EMPTY_ARRAY)
+				{
+					return peeked = PEEKED_END_ARRAY;
+				}
+
+				throw syntaxError("Expected value");
+
+			case '{':
+				return peeked = PEEKED_BEGIN_OBJECT;
+
+			case '[':
+				return peeked = PEEKED_BEGIN_ARRAY;
+
+			case '"':
+				return peeked = PEEKED_STRING;
+
+			case 't':
+				expectLiteral("rue");
+				return peeked = PEEKED_TRUE;
+
+			case 'f':
+				expectLiteral("alse");
+				return peeked = PEEKED_FALSE;
+
+			case 'n':
+				expectLiteral("ull");
+				return peeked = PEEKED_NULL;
+
+			default:
+				if (c == '-' || (c >= '0' && c <= '9'))
+				{
+					pos--;
+					return peeked = PEEKED_NUMBER;
+				}
+
+				throw syntaxError("Unexpected character '" + (char) c + "'");
+		}
+	}
+
+	private void push (final int scope)
+	{
+		if (depth == stack.length)
+		{
+			stack = Arrays.copyOf(stack, depth * 2);
+		}
+
+		stack[depth++] = scope;
+	}
+
+	/**
+	 * Makes sure at least {@code minimum} unread bytes are buffered, compacting the buffer
+	 * first. Only ever called when fewer than {@code minimum} bytes are available.
+	 *
+	 * @return {@code false} if the input is exhausted
+	 */
+	private boolean fill (final int minimum) throws IOException
+	{
+		if (in == null)
+		{
+			return false;
+		}
+
+		if (pos > 0)
+		{
+			final int remaining = limit - pos;
+
+			System.arraycopy(buf, pos, buf, 0, remaining);
+
+			base += pos;
+			limit = remaining;
+			pos   = 0;
+		}
+
+		if (buf.length < minimum)
+		{
+			buf = Arrays.copyOf(buf, Math.max(minimum, buf.length * 2));
+		}
+
+		while (limit < minimum)
+		{
+			final int read = in.read(buf, limit, buf.length - limit);
+
+			if (read == -1)
+			{
+				return false;
+			}
+
+			if (capture != null)
+			{
+				capture.append(buf, limit, read);
+			}
+
+			limit += read;
+		}
+
+		return true;
+	}
+
+	private int nextNonWhitespace (final boolean throwOnEof) throws IOException
+	{
+		while (true)
+		{
+			if (pos == limit && !fill(1))
+			{
+				if (throwOnEof)
+				{
+					throw syntaxError("Unexpected end of input");
+				}
+
+				return -1;
+			}
+
+			final int c = buf[pos++];
+
+			if (c != ' ' && c != '\n' && c != '\r' && c != '\t')
+			{
+				return c;
+			}
+		}
+	}
+
+	private void expectLiteral (final String rest) throws IOException
+	{
+		for (int i = 0; i < rest.length(); i++)
+		{
+			if (pos == limit && !fill(1))
+			{
+				throw syntaxError("Unexpected end of input");
+			}
+
+			if (buf[pos++] != rest.charAt(i))
+			{
+				throw syntaxError("Unexpected literal");
+			}
+		}
+	}
+
+	/**
+	 * Buffers the whole number starting at {@link #pos}, which may move it
+	 *
+	 * @return Index one past the last byte of the number
+	 */
+	private int numberEnd () throws IOException
+	{
+		int i = pos;
+
+		while (true)
+		{
+			if (i == limit)
+			{
+				final int offset = i - pos;
+				final boolean more = fill(offset + 1);
+
+				i = pos + offset;
+
+				if (!more)
+				{
+					return i;
+				}
+			}
+
+			final int c = buf[i];
+
+			if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E')
+			{
+				i++;
+			}
+
+			else
+			{
+				return i;
+			}
+		}
+	}
+
+	private long parseLong (final int start, final int end) throws IOException
+	{
+		int p = start;
+		final boolean negative = (p < end && buf[p] == '-');
+
+		if (negative)
+		{
+			p++;
+		}
+
+		long value = 0;
+		int digits = 0;
+
+		while (p < end && digits < 18)
+		{
+			final int c = buf[p];
+
+			if (c < '0' || c > '9')
+			{
+				break;
+			}
+
+			value = value * 10 + (c - '0');
+			digits++;
+			p++;
+		}
+
+		if (p == end && digits > 0)
+		{
+			return negative ? -value : value;
+		}
+
+		// Fraction, exponent or too many digits
+		return (long) parseDouble(start, end);
+	}
+
+	/**
+	 * Decodes a number without creating a {@code String}. Values with at most 18 significant
+	 * digits and 22 fraction digits are computed with a single correctly rounded division,
+	 * which gives the same result as {@link Double#parseDouble(String)}.
+	 */
+	private double parseDouble (final int start, final int end) throws IOException
+	{
+		int p = start;
+		final boolean negative = (p < end && buf[p] == '-');
+
+		if (negative)
+		{
+			p++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean fast = true;
+
+		while (p < end && buf[p] >= '0' && buf[p] <= '9')
+		{
+			mantissa = mantissa * 10 + (buf[p++] - '0');
+			digits++;
+		}
+
+		if (p < end && buf[p] == '.')
+		{
+			p++;
+
+			while (p < end && buf[p] >= '0' && buf[p] <= '9')
+			{
+				mantissa = mantissa * 10 + (buf[p++] - '0');
+				digits++;
+				scale++;
+			}
+		}
+
+		if (p != end || digits == 0 || digits > 18 || scale >= POW10.length || mantissa >= (1L << 53))
+		{
+			fast = false;
+		}
+
+		if (fast)
+		{
+			final double value = (scale == 0) ? mantissa : mantissa / POW10[scale];
+
+			return negative ? -value : value;
+		}
+
+		return parseDouble(ascii(start, end));
+	}
+
+	private double parseDouble (final String text) throws IOException
+	{
+		try
+		{
+			return Double.parseDouble(text.trim());
+		}
+
+		catch (NumberFormatException nfe)
+		{
+			throw syntaxError("Expected a number but was \"" + text + "\"");
+		}
+	}
+
+	private String ascii (final int start, final int end)
+	{
+		final char[] cs = new char[end - start];
+
+		for (int i = start; i < end; i++)
+		{
+			cs[i - start] = (char) buf[i];
+		}
+
+		return new String(cs);
+	}
+
+	/**
+	 * Decodes the string whose opening quote has been consumed into {@link #chars}
+	 *
+	 * @return The number of decoded chars
+	 */
+	private int decodeString () throws IOException
+	{
+		char[] cs = chars;
+		int n = 0;
+
+		while (true)
+		{
+			if (pos == limit && !fill(1))
+			{
+				throw syntaxError("Unterminated string");
+			}
+
+			// Plain ASCII run, the common case
+			final byte[] b = buf;
+			final int l = limit;
+			int p = pos;
+
+			while (p < l)
+			{
+				final int c = b[p];
+
+				if (c == '"' || c == '\\' || c < 0)
+				{
+					break;
+				}
+
+				if (n == cs.length)
+				{
+					cs = chars = Arrays.copyOf(cs, n * 2);
+				}
+
+				cs[n++] = (char) c;
+				p++;
+			}
+
+			pos = p;
+
+			if (p == l)
+			{
+				continue;
+			}
+
+			final int c = b[pos++];
+
+			if (c == '"')
+			{
+				return n;
+			}
+
+			if (n + 2 > cs.length)
+			{
+				cs = chars = Arrays.copyOf(cs, cs.length * 2 + 2);
+			}
+
+			n = (c == '\\') ? decodeEscape(cs, n) : decodeMultiByte(c & 0xFF, cs, n);
+		}
+	}
+
+	private int decodeEscape (final char[] cs, int n) throws IOException
+	{
+		if (pos == limit && !fill(1))
+		{
+			throw syntaxError("Unterminated escape sequence");
+		}
+
+		final int c = buf[pos++];
+
+		switch (c)
+		{
+			case 'u':
+				if (limit - pos < 4 && !fill(4))
+				{
+					throw syntaxError("Unterminated escape sequence");
+				}
+
+				int value = 0;
+
+				for (int i = 0; i < 4; i++)
+				{
+					final int h = buf[pos++];
+					final int digit = Character.digit((char) h, 16);
+
+					if (h < 0 || digit == -1)
+					{
+						throw syntaxError("Malformed \\u escape");
+					}
+
+					value = (value << 4) | digit;
+				}
+
+				cs[n++] = (char) value;
+				return n;
+
+			case 'b':
+				cs[n++] = '\b';
+				return n;
+
+			case 'f':
+				cs[n++] = '\f';
+				return n;
+
+			case 'n':
+				cs[n++] = '\n';
+				return n;
+
+			case 'r':
+				cs[n++] = '\r';
+				return n;
+
+			case 't':
+				cs[n++] = '\t';
+				return n;
+
+			case '"':
+			case '\\':
+			case '/':
+				cs[n++] = (char) c;
+				return n;
+
+			default:
+				throw syntaxError("Invalid escape sequence");
+		}
+	}
+
+	private int decodeMultiByte (final int lead, final char[] cs, int n) throws IOException
+	{
+		final int needed;
+		int codePoint;
+
+		if ((lead & 0xE0) == 0xC0)
+		{
+			needed = 1;
+			codePoint = lead & 0x1F;
+		}
+
+		else if ((lead & 0xF0) == 0xE0)
+		{
+			needed = 2;
+			codePoint = lead & 0x0F;
+		}
+
+		else if ((lead & 0xF8) == 0xF0)
+		{
+			needed = 3;
+			codePoint = lead & 0x07;
+		}
+
+		else
+		{
+			throw syntaxError("Malformed UTF-8");
+		}
+
+		if (limit - pos < needed && !fill(needed))
+		{
+			throw syntaxError("Malformed UTF-8");
+		}
+
+		for (int i = 0; i < needed; i++)
+		{
+			final int b = buf[pos++];
+
+			if ((b & 0xC0) != 0x80)
+			{
+				throw syntaxError("Malformed UTF-8");
+			}
+
+			codePoint = (codePoint << 6) | (b & 0x3F);
+		}
+
+		if (codePoint >= 0x10000)
+		{
+			codePoint -= 0x10000;
+			cs[n++] = (char) (0xD800 + (codePoint >>> 10));
+			cs[n++] = (char) (0xDC00 + (codePoint & 0x3FF));
+		}
+
+		else
+		{
+			cs[n++] = (char) codePoint;
+		}
+
+		return n;
+	}
+
+	private void skipString () throws IOException
+	{
+		while (true)
+		{
+			if (pos == limit && !fill(1))
+			{
+				throw syntaxError("Unterminated string");
+			}
+
+			final int c = buf[pos++];
+
+			if (c == '"')
+			{
+				return;
+			}
+
+			if (c == '\\')
+			{
+				if (pos == limit && !fill(1))
+				{
+					throw syntaxError("Unterminated string");
+				}
+
+				pos++;
+			}
+		}
+	}
+
+	private MalformedJsonException unexpected (final String expected) throws IOException
+	{
+		return syntaxError("Expected " + expected + " but was " + peek());
+	}
+
+	private MalformedJsonException syntaxError (final String message)
+	{
+		return new MalformedJsonException(message + " at byte " + (base + pos));
+	}
+}
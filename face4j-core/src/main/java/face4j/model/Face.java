@@ -22,19 +22,16 @@
 
 package face4j.model;
 
-import static face4j.model.Point.fromJson;
-
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.NoSuchElementException;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
- * Holds "Tag" JSON object
+ * Holds "Tag" JSON object. Coordinate conversions and {@link #withLabel(String)} return new 
+ * faces, which can be shared between threads. The deprecated {@link #setLabel(String)} and 
+ * {@link Photo#scaleFaceRects(float, float)} still change a face in place.
  *
  * @author mhendred
  *
@@ -43,7 +40,12 @@ public class Face
 {
 	private final String tid;
 
-	private String label;
+	private final String label;
+
+	/**
+	 * Label set by the deprecated {@link #setLabel(String)}, {@code null} until then
+	 */
+	private volatile String relabelled;
 
 	private final boolean confirmed;
 
@@ -55,51 +57,66 @@ public class Face
 
 	private final int faceConfidence;
 
-	private boolean smiling;
-
-    private int smilingConfidence;
-
-	private boolean glasses;
-
-    private int glassesConfidence;
+	private final boolean smiling;
 
-	private Gender gender;
+    private final int smilingConfidence;
 
-    private int genderConfidence;
+	private final boolean glasses;
 
-	private List<Guess> guesses;
+    private final int glassesConfidence;
 
-	private Point center;
+	private final Gender gender;
 
-	private Point leftEye;
+    private final int genderConfidence;
 
-	private Point rightEye;
+	private static final String[] NO_UIDS = new String[0];
 
-	private Point mouthLeft;
+	private static final int[] NO_CONFIDENCES = new int[0];
 
-	private Point mouthRight;
+	/**
+	 * Guessed uids and their confidences, sorted by descending confidence when the face is
+	 * built. Shared, never changed, by the faces derived from this one.
+	 */
+	private final String[] guessUIDs;
 
-	private Point mouthCenter;
+	private final int[] guessConfidences;
 
-	private Point leftEar;
+	/**
+	 * {@link SymbolTable} ids of {@link #guessUIDs}, {@code null} without a table
+	 */
+	private final int[] guessSymbols;
 
-	private Point rightEar;
+	/**
+	 * {@code Guess} view of the arrays, built on first use
+	 */
+	private volatile List<Guess> guesses;
 
-	private Point chin;
+	/**
+	 * Index of the face rectangle in {@link #geometry}, which follows the landmarks
+	 */
+	private static final int RECT = FaceData.LANDMARKS * 2;
 
-	private Point nose;
+	/**
+	 * x and y of every landmark, indexed by the {@link FaceData} landmark constants, followed
+	 * by left, top, right and bottom of the face rectangle. {@code Point}s and {@code Rect}s are
+	 * only created by the getters.
+	 */
+	private final float[] geometry = new float[RECT + 4];
 
-	private Rect faceRect;
+	/**
+	 * Bit {@code 1 << landmark} is set for every landmark present
+	 */
+	private final int landmarks;
 
-	private int threshold;
+	private final int threshold;
 
-	private float yaw;
+	private final float yaw;
 
-	private float roll;
+	private final float roll;
 
-	private float pitch;
+	private final float pitch;
 
-    private boolean recognizable;
+    private final boolean recognizable;
 
 	public Face(JSONObject jObj) throws JSONException
 	{
@@ -118,47 +135,275 @@ public class Face
 
 		threshold = jObj.optInt("threshold");
 
-		center = fromJson(jObj.optJSONObject("center"));
+		int mask = setPoint(FaceData.CENTER, jObj.optJSONObject("center"));
+
+		mask |= setPoint(FaceData.EYE_LEFT,  jObj.optJSONObject("eye_left"));
+		mask |= setPoint(FaceData.EYE_RIGHT, jObj.optJSONObject("eye_right"));
+
+		mask |= setPoint(FaceData.EAR_LEFT,  jObj.optJSONObject("ear_left"));
+		mask |= setPoint(FaceData.EAR_RIGHT, jObj.optJSONObject("ear_right"));
 
-		leftEye  = fromJson(jObj.optJSONObject("eye_left"));
-		rightEye = fromJson(jObj.optJSONObject("eye_right"));
+		mask |= setPoint(FaceData.CHIN, jObj.optJSONObject("chin"));
 
-		leftEar  = fromJson(jObj.optJSONObject("ear_left"));
-		rightEar = fromJson(jObj.optJSONObject("ear_right"));
+		mask |= setPoint(FaceData.MOUTH_CENTER, jObj.optJSONObject("mouth_center"));
+		mask |= setPoint(FaceData.MOUTH_RIGHT,  jObj.optJSONObject("mouth_right"));
+		mask |= setPoint(FaceData.MOUTH_LEFT,   jObj.optJSONObject("mouth_left"));
 
-		chin = fromJson(jObj.optJSONObject("chin"));
+		mask |= setPoint(FaceData.NOSE, jObj.optJSONObject("nose"));
 
-		mouthCenter = fromJson(jObj.optJSONObject("mouth_center"));
-		mouthRight  = fromJson(jObj.optJSONObject("mouth_right"));
-		mouthLeft   = fromJson(jObj.optJSONObject("mouth_left"));
+		landmarks = mask;
+
+		final JSONArray uids = jObj.optJSONArray("uids");
+
+		if (uids != null && uids.length() > 0)
+		{
+			guessUIDs        = new String[uids.length()];
+			guessConfidences = new int[uids.length()];
 
-		nose = fromJson(jObj.optJSONObject("nose"));
+			for (int i = 0; i < guessUIDs.length; i++)
+			{
+				final JSONObject guess = uids.getJSONObject(i);
+
+				guessUIDs[i]        = guess.getString("uid");
+				guessConfidences[i] = guess.getInt("confidence");
+			}
+
+			sortGuesses(guessUIDs, guessConfidences);
+		}
+
+		else
+		{
+			guessUIDs        = NO_UIDS;
+			guessConfidences = NO_CONFIDENCES;
+		}
 
-		guesses = Guess.fromJsonArray(jObj.optJSONArray("uids"));
+		guessSymbols = null;
 
         recognizable = jObj.getBoolean("recognizable");
 
 		// Attributes
 		jObj = jObj.getJSONObject("attributes");
 
-		if (jObj.has("smiling")){
-			smiling = jObj.getJSONObject("smiling").getBoolean("value");
-            smilingConfidence = jObj.getJSONObject("smiling").getInt("confidence");
-        }
+		final JSONObject smile = jObj.optJSONObject("smiling");
+		smiling           = (smile != null) && smile.getBoolean("value");
+		smilingConfidence = (smile == null) ? 0 : smile.getInt("confidence");
 
-		if (jObj.has("glasses")){
-			glasses = jObj.getJSONObject("glasses").getBoolean("value");
-            glassesConfidence = jObj.getJSONObject("glasses").getInt("confidence");
-        }
+		final JSONObject glass = jObj.optJSONObject("glasses");
+		glasses           = (glass != null) && glass.getBoolean("value");
+		glassesConfidence = (glass == null) ? 0 : glass.getInt("confidence");
 
-		if (jObj.has("gender")){
-			gender = Gender.valueOf(jObj.getJSONObject("gender").getString("value"));
-            genderConfidence = jObj.getJSONObject("gender").getInt("confidence");
-        }
+		final JSONObject sex = jObj.optJSONObject("gender");
+		gender           = (sex == null) ? null : Gender.valueOf(sex.getString("value"));
+		genderConfidence = (sex == null) ? 0 : sex.getInt("confidence");
 
 		faceConfidence = jObj.getJSONObject("face").getInt("confidence");
 
-		faceRect = new Rect(center, width, height);
+		if (!hasLandmark(FaceData.CENTER))
+		{
+			throw new JSONException("JSONObject[\"center\"] not found.");
+		}
+
+		setRect();
+	}
+
+	/**
+	 * Copies a face decoded for a {@link FaceVisitor}
+	 */
+	public Face(final FaceData data)
+	{
+		this(data, null);
+	}
+
+	/**
+	 * Copies a face decoded for a {@link FaceVisitor}, interning the guessed uids in
+	 * {@code symbols} if it isn't {@code null}
+	 */
+	public Face(final FaceData data, final SymbolTable symbols)
+	{
+		tid   = data.getTID();
+		label = data.getLabel();
+
+		confirmed    = data.isConfirmed();
+		manual       = data.isManual();
+		recognizable = data.isRecognizable();
+
+		width  = data.getWidth();
+		height = data.getHeight();
+
+		yaw   = data.getYaw();
+		roll  = data.getRoll();
+		pitch = data.getPitch();
+
+		threshold = data.getThreshold();
+
+		landmarks = data.getLandmarkMask();
+
+		for (int i = 0; i < FaceData.LANDMARKS; i++)
+		{
+			geometry[i * 2]     = data.getX(i);
+			geometry[i * 2 + 1] = data.getY(i);
+		}
+
+		final int guessCount = data.getGuessCount();
+
+		guessUIDs        = (guessCount == 0) ? NO_UIDS : new String[guessCount];
+		guessConfidences = (guessCount == 0) ? NO_CONFIDENCES : new int[guessCount];
+		guessSymbols     = (guessCount == 0 || symbols == null) ? null : new int[guessCount];
+
+		for (int i = 0; i < guessCount; i++)
+		{
+			guessUIDs[i]        = data.getGuessUID(i);
+			guessConfidences[i] = data.getGuessConfidence(i);
+		}
+
+		sortGuesses(guessUIDs, guessConfidences);
+
+		if (guessSymbols != null)
+		{
+			for (int i = 0; i < guessCount; i++)
+			{
+				guessSymbols[i] = symbols.id(guessUIDs[i]);
+
+				if (guessSymbols[i] != SymbolTable.NONE)
+				{
+					guessUIDs[i] = symbols.get(guessSymbols[i]);
+				}
+			}
+		}
+
+		smiling           = data.isSmiling();
+		smilingConfidence = data.getSmilingConfidence();
+
+		glasses           = data.isWearingGlasses();
+		glassesConfidence = data.getGlassesConfidence();
+
+		gender           = data.getGender();
+		genderConfidence = data.getGenderConfidence();
+
+		faceConfidence = data.getFaceConfidence();
+
+		if (hasLandmark(FaceData.CENTER))
+		{
+			setRect();
+		}
+	}
+
+	/**
+	 * Copies {@code source} with {@code tid}, {@code label} and its geometry mapped by 
+	 * {@code x * sx + dx} and {@code y * sy + dy}. Everything else is shared with {@code source}.
+	 */
+	private Face(final Face source, final String tid, final String label, final float sx, final float sy, 
+		final float dx, final float dy)
+	{
+		this.tid   = tid;
+		this.label = label;
+
+		confirmed    = source.confirmed;
+		manual       = source.manual;
+		recognizable = source.recognizable;
+
+		width  = source.width * sx;
+		height = source.height * sy;
+
+		yaw   = source.yaw;
+		roll  = source.roll;
+		pitch = source.pitch;
+
+		threshold = source.threshold;
+		landmarks = source.landmarks;
+
+		for (int i = 0; i < geometry.length; i += 2)
+		{
+			geometry[i]     = source.geometry[i] * sx + dx;
+			geometry[i + 1] = source.geometry[i + 1] * sy + dy;
+		}
+
+		guessUIDs        = source.guessUIDs;
+		guessConfidences = source.guessConfidences;
+		guessSymbols     = source.guessSymbols;
+		guesses          = source.guesses;
+
+		smiling           = source.smiling;
+		smilingConfidence = source.smilingConfidence;
+
+		glasses           = source.glasses;
+		glassesConfidence = source.glassesConfidence;
+
+		gender           = source.gender;
+		genderConfidence = source.genderConfidence;
+
+		faceConfidence = source.faceConfidence;
+	}
+
+	/**
+	 * @return The bit of {@code landmark} if {@code point} is present, otherwise 0
+	 */
+	private int setPoint (final int landmark, final JSONObject point) throws JSONException
+	{
+		if (point == null)
+		{
+			return 0;
+		}
+
+		geometry[landmark * 2]     = (float) point.getDouble("x");
+		geometry[landmark * 2 + 1] = (float) point.getDouble("y");
+
+		return 1 << landmark;
+	}
+
+	/**
+	 * Stable insertion sort by descending confidence, so ties keep the order of the response.
+	 * There are only ever a handful of guesses.
+	 */
+	private static void sortGuesses (final String[] guessUIDs, final int[] guessConfidences)
+	{
+		for (int i = 1; i < guessUIDs.length; i++)
+		{
+			final String uid = guessUIDs[i];
+			final int confidence = guessConfidences[i];
+
+			int j = i - 1;
+
+			while (j >= 0 && guessConfidences[j] < confidence)
+			{
+				guessUIDs[j + 1]        = guessUIDs[j];
+				guessConfidences[j + 1] = guessConfidences[j];
+				j--;
+			}
+
+			guessUIDs[j + 1]        = uid;
+			guessConfidences[j + 1] = confidence;
+		}
+	}
+
+	/**
+	 * Derives the face rectangle from the center and size
+	 */
+	private void setRect ()
+	{
+		final float x = geometry[FaceData.CENTER * 2];
+		final float y = geometry[FaceData.CENTER * 2 + 1];
+
+		geometry[RECT]     = x - (width / 2f);
+		geometry[RECT + 1] = y - (height / 2f);
+		geometry[RECT + 2] = x + (width / 2f);
+		geometry[RECT + 3] = y + (height / 2f);
+	}
+
+	/**
+	 * @param landmark One of the {@link FaceData} landmark constants
+	 */
+	public boolean hasLandmark (final int landmark)
+	{
+		return (landmarks & (1 << landmark)) != 0;
+	}
+
+	/**
+	 * @return A new {@code Point} for {@code landmark} or {@code null} if it is absent
+	 */
+	public Point getLandmark (final int landmark)
+	{
+		return hasLandmark(landmark) ? new Point(geometry[landmark * 2], geometry[landmark * 2 + 1]) : null;
 	}
 
 	/*
@@ -168,20 +413,72 @@ public class Face
 	 */
 	public List<Guess> getGuesses ()
 	{
+		if (guesses == null)
+		{
+			final Guess[] list = new Guess[guessUIDs.length];
+
+			for (int i = 0; i < list.length; i++)
+			{
+				list[i] = new Guess(guessUIDs[i], guessConfidences[i], getGuessSymbol(i));
+			}
+
+			guesses = ImmutableArrayList.wrap(list);
+		}
+
 		return guesses;
 	}
 
+	/**
+	 * @return The most confident guess or {@code null} if there are none
+	 */
 	public Guess getGuess ()
 	{
-		try
-		{
-			return Collections.max(guesses);
-		}
+		return (guessUIDs.length == 0) ? null : getGuesses().get(0);
+	}
 
-		catch (NoSuchElementException nsee)
-		{
-			return null;
-		}
+	public int getGuessCount ()
+	{
+		return guessUIDs.length;
+	}
+
+	/**
+	 * @param rank 0 for the most confident guess
+	 */
+	public String getGuessUID (final int rank)
+	{
+		return guessUIDs[rank];
+	}
+
+	/**
+	 * @param rank 0 for the most confident guess
+	 */
+	public int getGuessConfidence (final int rank)
+	{
+		return guessConfidences[rank];
+	}
+
+	/**
+	 * @param rank 0 for the most confident guess
+	 * @return The {@link SymbolTable} id of the uid or {@link SymbolTable#NONE}
+	 */
+	public int getGuessSymbol (final int rank)
+	{
+		return (guessSymbols == null) ? SymbolTable.NONE : guessSymbols[rank];
+	}
+
+	/**
+	 * Copies the {@code k} most confident guesses into the given arrays without allocating
+	 *
+	 * @return Number of guesses copied, less than {@code k} if the face has fewer
+	 */
+	public int getTopGuesses (final int k, final String[] uids, final int[] confidences)
+	{
+		final int n = Math.min(k, guessUIDs.length);
+
+		System.arraycopy(guessUIDs, 0, uids, 0, n);
+		System.arraycopy(guessConfidences, 0, confidences, 0, n);
+
+		return n;
 	}
 
 	/*
@@ -211,7 +508,9 @@ public class Face
 	 */
 	public String getLabel ()
 	{
-		return label;
+		final String relabel = relabelled;
+
+		return (relabel != null) ? relabel : label;
 	}
 
 	/*
@@ -261,7 +560,7 @@ public class Face
 	 */
 	public Point getCenter ()
 	{
-		return center;
+		return getLandmark(FaceData.CENTER);
 	}
 
 	/*
@@ -271,22 +570,22 @@ public class Face
 	 */
 	public Point getLeftEye ()
 	{
-		return leftEye;
+		return getLandmark(FaceData.EYE_LEFT);
 	}
 
 	public Point getLeftEar ()
 	{
-		return leftEar;
+		return getLandmark(FaceData.EAR_LEFT);
 	}
 
 	public Point getRightEar ()
 	{
-		return rightEar;
+		return getLandmark(FaceData.EAR_RIGHT);
 	}
 
 	public Point getChin ()
 	{
-		return chin;
+		return getLandmark(FaceData.CHIN);
 	}
 
 	/*
@@ -296,7 +595,7 @@ public class Face
 	 */
 	public Point getRightEye ()
 	{
-		return rightEye;
+		return getLandmark(FaceData.EYE_RIGHT);
 	}
 
 	/*
@@ -306,7 +605,7 @@ public class Face
 	 */
 	public Point getMouthCenter ()
 	{
-		return mouthCenter;
+		return getLandmark(FaceData.MOUTH_CENTER);
 	}
 
 	/*
@@ -316,7 +615,7 @@ public class Face
 	 */
 	public Point getMouthRight ()
 	{
-		return mouthRight;
+		return getLandmark(FaceData.MOUTH_RIGHT);
 	}
 
 	/*
@@ -326,7 +625,7 @@ public class Face
 	 */
 	public Point getMouthLeft ()
 	{
-		return mouthLeft;
+		return getLandmark(FaceData.MOUTH_LEFT);
 	}
 
 	/*
@@ -403,17 +702,90 @@ public class Face
 	 */
 	public Point getNose ()
 	{
-		return nose;
+		return getLandmark(FaceData.NOSE);
 	}
 
+	/**
+	 * @return A copy of the face rectangle, changing it does not affect this face
+	 */
 	public Rect getRectangle ()
 	{
-		return faceRect;
+		return new Rect(geometry[RECT], geometry[RECT + 1], geometry[RECT + 2], geometry[RECT + 3]);
 	}
 
+	/**
+	 * Writes left, top, right and bottom of the face rectangle into {@code dst} at {@code off}
+	 */
+	public void getRectangle (final float[] dst, final int off)
+	{
+		System.arraycopy(geometry, RECT, dst, off, 4);
+	}
+
+	/**
+	 * Scales the face rectangle in place, see {@link Photo#scaleFaceRects(float, float)}
+	 */
+	void scaleRectangle (final float sx, final float sy)
+	{
+		geometry[RECT]     *= sx;
+		geometry[RECT + 1] *= sy;
+		geometry[RECT + 2] *= sx;
+		geometry[RECT + 3] *= sy;
+	}
+
+	/**
+	 * @return A face with every point, the rectangle and the size mapped by
+	 * {@code x * sx + dx} and {@code y * sy + dy}; this face is unchanged
+	 */
+	public Face transform (final float sx, final float sy, final float dx, final float dy)
+	{
+		return new Face(this, tid, getLabel(), sx, sy, dx, dy);
+	}
+
+	/**
+	 * Converts the percent coordinates of the response to pixels of a photo of the given size
+	 *
+	 * @return A new face, this face is unchanged
+	 */
+	public Face toPixels (final float photoWidth, final float photoHeight)
+	{
+		return transform(photoWidth / 100f, photoHeight / 100f, 0, 0);
+	}
+
+	/**
+	 * Moves every point by an offset, e.g. from a crop back into the full photo
+	 *
+	 * @return A new face, this face is unchanged
+	 */
+	public Face translate (final float dx, final float dy)
+	{
+		return transform(1, 1, dx, dy);
+	}
+
+	/**
+	 * @return A face with the given label, this face is unchanged
+	 */
+	public Face withLabel (final String label)
+	{
+		return new Face(this, tid, label, 1, 1, 0, 0);
+	}
+
+	/**
+	 * @return A face with the given tag id, {@code null} for a face that no tag of an 
+	 * uploaded photo stands for; this face is unchanged
+	 */
+	public Face withTID (final String tid)
+	{
+		return new Face(this, tid, getLabel(), 1, 1, 0, 0);
+	}
+
+	/**
+	 * @deprecated Changes this face for every holder of it, including later hits on the 
+	 * result caches, use {@link #withLabel(String)}
+	 */
+	@Deprecated
 	public void setLabel (final String label)
 	{
-		this.label = label;
+		this.relabelled = label;
 	}
 
         public int getFaceConfidence(){
@@ -426,42 +798,42 @@ public class Face
 
 	static List<Face> fromJsonArray (JSONArray jArr) throws JSONException
 	{
-		final List<Face> faces = new LinkedList<Face>();
+		final Face[] faces = new Face[jArr.length()];
 
-		for (int i = 0; i < jArr.length(); i++)
+		for (int i = 0; i < faces.length; i++)
 		{
-			faces.add(new Face(jArr.getJSONObject(i)));
+			faces[i] = new Face(jArr.getJSONObject(i));
 		}
 
-		return faces;
+		return ImmutableArrayList.wrap(faces);
 	}
 
 	@Override
 	public String toString ()
 	{
 		StringBuilder builder = new StringBuilder();
-		builder.append("Face [center=").append(center)
-			   .append(", chin=").append(chin)
+		builder.append("Face [center=").append(getCenter())
+			   .append(", chin=").append(getChin())
 			   .append(", confirmed=").append(confirmed)
 			   .append(", faceConfidence=").append(faceConfidence)
-			   .append(", faceRect=").append(faceRect)
+			   .append(", faceRect=").append(getRectangle())
 			   .append(", gender=").append(gender)
                            .append(", genderConfidence=").append(genderConfidence)
 			   .append(", glasses=").append(glasses)
                            .append(", glassesConfidence=").append(glassesConfidence)
-			   .append(", guesses=").append(guesses)
+			   .append(", guesses=").append(getGuesses())
 			   .append(", height=").append(height)
-			   .append(", label=").append(label)
-			   .append(", leftEar=").append(leftEar)
-			   .append(", leftEye=").append(leftEye)
+			   .append(", label=").append(getLabel())
+			   .append(", leftEar=").append(getLeftEar())
+			   .append(", leftEye=").append(getLeftEye())
 			   .append(", manual=").append(manual)
-			   .append(", mouthCenter=").append(mouthCenter)
-			   .append(", mouthLeft=").append(mouthLeft)
-			   .append(", mouthRight=").append(mouthRight)
-			   .append(", nose=").append(nose)
+			   .append(", mouthCenter=").append(getMouthCenter())
+			   .append(", mouthLeft=").append(getMouthLeft())
+			   .append(", mouthRight=").append(getMouthRight())
+			   .append(", nose=").append(getNose())
 			   .append(", pitch=").append(pitch)
-			   .append(", rightEar=").append(rightEar)
-			   .append(", rightEye=").append(rightEye)
+			   .append(", rightEar=").append(getRightEar())
+			   .append(", rightEye=").append(getRightEye())
 			   .append(", roll=").append(roll)
 			   .append(", smiling=").append(smiling)
                            .append(", smilingConfidence=").append(smilingConfidence)
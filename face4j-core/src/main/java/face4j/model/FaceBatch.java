@@ -0,0 +1,575 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column oriented store of faces for analytics over very many results. Every attribute is 
+ * kept in its own primitive array (flags in bitsets, {@link Gender} as a byte code) so scans 
+ * such as {@link #histogram(FloatColumn, float, float, int)} or {@link #count(Flag)} run over 
+ * contiguous memory without touching any objects.
+ * <p>
+ * A batch is appended to incrementally, from built {@link Photo}s or directly as a 
+ * {@link FaceVisitor} so no model objects are created at all. Not thread safe.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class FaceBatch implements FaceVisitor
+{
+	public enum FloatColumn
+	{
+		WIDTH, HEIGHT, YAW, ROLL, PITCH
+	}
+	
+	public enum IntColumn
+	{
+		FACE_CONFIDENCE, SMILING_CONFIDENCE, GLASSES_CONFIDENCE, GENDER_CONFIDENCE, THRESHOLD
+	}
+	
+	public enum Flag
+	{
+		SMILING, GLASSES, CONFIRMED, MANUAL, RECOGNIZABLE
+	}
+	
+	private static final Gender[] GENDERS = Gender.values();
+	
+	private static final int LANDMARK_FLOATS = FaceData.LANDMARKS * 2;
+	
+	private int size;
+	
+	private int capacity;
+	
+	private final float[][] floats = new float[FloatColumn.values().length][];
+	
+	private final int[][] ints = new int[IntColumn.values().length][];
+	
+	private final long[][] flags = new long[Flag.values().length][];
+	
+	/**
+	 * {@code Gender} ordinal + 1, 0 when unknown to the response
+	 */
+	private byte[] genders;
+	
+	private float[] landmarks;
+	
+	private int[] landmarkMasks;
+	
+	private String[] tids;
+	
+	private String[] labels;
+	
+	private String[] topGuessUIDs;
+	
+	private int[] topGuessConfidences;
+	
+	private int[] photoIndexes;
+	
+	private String[] pids = new String[16];
+	
+	private int photoCount;
+	
+	public FaceBatch()
+	{
+		this(1024);
+	}
+	
+	public FaceBatch(final int initialCapacity)
+	{
+		allocate(Math.max(initialCapacity, 16));
+	}
+	
+	private void allocate (final int newCapacity)
+	{
+		for (int c = 0; c < floats.length; c++)
+		{
+			floats[c] = grow(floats[c], newCapacity);
+		}
+		
+		for (int c = 0; c < ints.length; c++)
+		{
+			ints[c] = grow(ints[c], newCapacity);
+		}
+		
+		for (int c = 0; c < flags.length; c++)
+		{
+			flags[c] = (flags[c] == null) ? new long[(newCapacity + 63) >>> 6] : Arrays.copyOf(flags[c], (newCapacity + 63) >>> 6);
+		}
+		
+		genders             = (genders == null) ? new byte[newCapacity] : Arrays.copyOf(genders, newCapacity);
+		landmarks           = grow(landmarks, newCapacity * LANDMARK_FLOATS);
+		landmarkMasks       = grow(landmarkMasks, newCapacity);
+		tids                = (tids == null) ? new String[newCapacity] : Arrays.copyOf(tids, newCapacity);
+		labels              = (labels == null) ? new String[newCapacity] : Arrays.copyOf(labels, newCapacity);
+		topGuessUIDs        = (topGuessUIDs == null) ? new String[newCapacity] : Arrays.copyOf(topGuessUIDs, newCapacity);
+		topGuessConfidences = grow(topGuessConfidences, newCapacity);
+		photoIndexes        = grow(photoIndexes, newCapacity);
+		
+		capacity = newCapacity;
+	}
+	
+	private static float[] grow (final float[] column, final int length)
+	{
+		return (column == null) ? new float[length] : Arrays.copyOf(column, length);
+	}
+	
+	private static int[] grow (final int[] column, final int length)
+	{
+		return (column == null) ? new int[length] : Arrays.copyOf(column, length);
+	}
+	
+	/**
+	 * Makes room for one more face and returns its row
+	 */
+	private int nextRow ()
+	{
+		if (size == capacity)
+		{
+			allocate(capacity * 2);
+		}
+		
+		return size++;
+	}
+	
+	private void setFlag (final Flag flag, final int row, final boolean value)
+	{
+		if (value)
+		{
+			flags[flag.ordinal()][row >>> 6] |= 1L << row;
+		}
+	}
+	
+	/**
+	 * Appends every face of {@code photos}
+	 */
+	public void addAll (final List<Photo> photos)
+	{
+		for (Photo photo : photos)
+		{
+			add(photo);
+		}
+	}
+	
+	/**
+	 * Appends every face of {@code photo}
+	 */
+	public void add (final Photo photo)
+	{
+		for (Face face : photo.getFaces())
+		{
+			addFace(face);
+		}
+		
+		endPhoto(photo.getPID());
+	}
+	
+	private void addFace (final Face face)
+	{
+		final int row = nextRow();
+		
+		floats[FloatColumn.WIDTH.ordinal()][row]  = (float) face.getWidth();
+		floats[FloatColumn.HEIGHT.ordinal()][row] = (float) face.getHeight();
+		floats[FloatColumn.YAW.ordinal()][row]    = face.getYaw();
+		floats[FloatColumn.ROLL.ordinal()][row]   = face.getRoll();
+		floats[FloatColumn.PITCH.ordinal()][row]  = face.getPitch();
+		
+		ints[IntColumn.FACE_CONFIDENCE.ordinal()][row]    = face.getFaceConfidence();
+		ints[IntColumn.SMILING_CONFIDENCE.ordinal()][row] = face.getSmilingConfidence();
+		ints[IntColumn.GLASSES_CONFIDENCE.ordinal()][row] = face.getGlassesConfidence();
+		ints[IntColumn.GENDER_CONFIDENCE.ordinal()][row]  = face.getGenderConfidence();
+		ints[IntColumn.THRESHOLD.ordinal()][row]          = face.getThreshHold();
+		
+		setFlag(Flag.SMILING, row, face.isSmiling());
+		setFlag(Flag.GLASSES, row, face.isWearingGlasses());
+		setFlag(Flag.CONFIRMED, row, face.isConfirmed());
+		setFlag(Flag.MANUAL, row, face.isManual());
+		setFlag(Flag.RECOGNIZABLE, row, face.IsRecognizable());
+		
+		genders[row] = (face.getGender() == null) ? 0 : (byte) (face.getGender().ordinal() + 1);
+		
+		int mask = 0;
+		
+		for (int i = 0; i < FaceData.LANDMARKS; i++)
+		{
+			final Point p = face.getLandmark(i);
+			
+			if (p != null)
+			{
+				landmarks[row * LANDMARK_FLOATS + i * 2]     = p.x;
+				landmarks[row * LANDMARK_FLOATS + i * 2 + 1] = p.y;
+				mask |= 1 << i;
+			}
+		}
+		
+		landmarkMasks[row] = mask;
+		
+		tids[row]   = face.getTID();
+		labels[row] = face.getLabel();
+		
+		if (face.getGuessCount() > 0)
+		{
+			topGuessUIDs[row]        = face.getGuessUID(0);
+			topGuessConfidences[row] = face.getGuessConfidence(0);
+		}
+		
+		photoIndexes[row] = photoCount;
+	}
+	
+	/**
+	 * Appends a face straight from the decoder
+	 */
+	public void onFace (final FaceData face)
+	{
+		final int row = nextRow();
+		
+		floats[FloatColumn.WIDTH.ordinal()][row]  = face.getWidth();
+		floats[FloatColumn.HEIGHT.ordinal()][row] = face.getHeight();
+		floats[FloatColumn.YAW.ordinal()][row]    = face.getYaw();
+		floats[FloatColumn.ROLL.ordinal()][row]   = face.getRoll();
+		floats[FloatColumn.PITCH.ordinal()][row]  = face.getPitch();
+		
+		ints[IntColumn.FACE_CONFIDENCE.ordinal()][row]    = face.getFaceConfidence();
+		ints[IntColumn.SMILING_CONFIDENCE.ordinal()][row] = face.getSmilingConfidence();
+		ints[IntColumn.GLASSES_CONFIDENCE.ordinal()][row] = face.getGlassesConfidence();
+		ints[IntColumn.GENDER_CONFIDENCE.ordinal()][row]  = face.getGenderConfidence();
+		ints[IntColumn.THRESHOLD.ordinal()][row]          = face.getThreshold();
+		
+		setFlag(Flag.SMILING, row, face.isSmiling());
+		setFlag(Flag.GLASSES, row, face.isWearingGlasses());
+		setFlag(Flag.CONFIRMED, row, face.isConfirmed());
+		setFlag(Flag.MANUAL, row, face.isManual());
+		setFlag(Flag.RECOGNIZABLE, row, face.isRecognizable());
+		
+		genders[row] = (face.getGender() == null) ? 0 : (byte) (face.getGender().ordinal() + 1);
+		
+		for (int i = 0; i < FaceData.LANDMARKS; i++)
+		{
+			landmarks[row * LANDMARK_FLOATS + i * 2]     = face.getX(i);
+			landmarks[row * LANDMARK_FLOATS + i * 2 + 1] = face.getY(i);
+		}
+		
+		landmarkMasks[row] = face.getLandmarkMask();
+		
+		tids[row]   = face.getTID();
+		labels[row] = face.getLabel();
+		
+		int best = -1;
+		
+		for (int g = 0; g < face.getGuessCount(); g++)
+		{
+			if (best == -1 || face.getGuessConfidence(g) > face.getGuessConfidence(best))
+			{
+				best = g;
+			}
+		}
+		
+		if (best != -1)
+		{
+			topGuessUIDs[row]        = face.getGuessUID(best);
+			topGuessConfidences[row] = face.getGuessConfidence(best);
+		}
+		
+		photoIndexes[row] = photoCount;
+	}
+	
+	public void onPhoto (final String pid, final String url, final int width, final int height, final int faceCount)
+	{
+		endPhoto(pid);
+	}
+	
+	private void endPhoto (final String pid)
+	{
+		if (photoCount == pids.length)
+		{
+			pids = Arrays.copyOf(pids, photoCount * 2);
+		}
+		
+		pids[photoCount++] = pid;
+	}
+	
+	/**
+	 * @return Number of faces
+	 */
+	public int size ()
+	{
+		return size;
+	}
+	
+	/**
+	 * @return Number of photos the faces came from
+	 */
+	public int getPhotoCount ()
+	{
+		return photoCount;
+	}
+	
+	public float get (final FloatColumn column, final int row)
+	{
+		checkRow(row);
+		return floats[column.ordinal()][row];
+	}
+	
+	public int get (final IntColumn column, final int row)
+	{
+		checkRow(row);
+		return ints[column.ordinal()][row];
+	}
+	
+	public boolean is (final Flag flag, final int row)
+	{
+		checkRow(row);
+		return (flags[flag.ordinal()][row >>> 6] & (1L << row)) != 0;
+	}
+	
+	/**
+	 * @return The gender or {@code null} if the response had none
+	 */
+	public Gender getGender (final int row)
+	{
+		checkRow(row);
+		return (genders[row] == 0) ? null : GENDERS[genders[row] - 1];
+	}
+	
+	public boolean hasLandmark (final int row, final int landmark)
+	{
+		checkRow(row);
+		return (landmarkMasks[row] & (1 << landmark)) != 0;
+	}
+	
+	public float getLandmarkX (final int row, final int landmark)
+	{
+		checkRow(row);
+		return landmarks[row * LANDMARK_FLOATS + landmark * 2];
+	}
+	
+	public float getLandmarkY (final int row, final int landmark)
+	{
+		checkRow(row);
+		return landmarks[row * LANDMARK_FLOATS + landmark * 2 + 1];
+	}
+	
+	public String getTID (final int row)
+	{
+		checkRow(row);
+		return tids[row];
+	}
+	
+	public String getLabel (final int row)
+	{
+		checkRow(row);
+		return labels[row];
+	}
+	
+	/**
+	 * @return The uid of the most confident guess or {@code null} if there was none
+	 */
+	public String getTopGuessUID (final int row)
+	{
+		checkRow(row);
+		return topGuessUIDs[row];
+	}
+	
+	public int getTopGuessConfidence (final int row)
+	{
+		checkRow(row);
+		return topGuessConfidences[row];
+	}
+	
+	/**
+	 * @return The pid of the photo face {@code row} was found in
+	 */
+	public String getPID (final int row)
+	{
+		checkRow(row);
+		
+		final int photo = photoIndexes[row];
+		
+		return (photo < photoCount) ? pids[photo] : null;
+	}
+	
+	/**
+	 * Copies {@code length} values of {@code column} starting at {@code row} into {@code dest}
+	 */
+	public void copy (final FloatColumn column, final int row, final float[] dest, final int destPos, final int length)
+	{
+		checkRange(row, length);
+		System.arraycopy(floats[column.ordinal()], row, dest, destPos, length);
+	}
+	
+	/**
+	 * Copies {@code length} values of {@code column} starting at {@code row} into {@code dest}
+	 */
+	public void copy (final IntColumn column, final int row, final int[] dest, final int destPos, final int length)
+	{
+		checkRange(row, length);
+		System.arraycopy(ints[column.ordinal()], row, dest, destPos, length);
+	}
+	
+	/**
+	 * @return Number of faces with {@code flag} set
+	 */
+	public int count (final Flag flag)
+	{
+		final long[] bits = flags[flag.ordinal()];
+		final int words = (size + 63) >>> 6;
+		
+		int count = 0;
+		
+		for (int w = 0; w < words; w++)
+		{
+			count += Long.bitCount(bits[w]);
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * @return Fraction of faces with {@code flag} set, {@code NaN} for an empty batch
+	 */
+	public double ratio (final Flag flag)
+	{
+		return (double) count(flag) / size;
+	}
+	
+	/**
+	 * @return Face counts indexed by {@link Gender#ordinal()}, faces without a gender are not counted
+	 */
+	public int[] countGenders ()
+	{
+		final int[] counts = new int[GENDERS.length + 1];
+		final byte[] codes = genders;
+		
+		for (int row = 0; row < size; row++)
+		{
+			counts[codes[row]]++;
+		}
+		
+		return Arrays.copyOfRange(counts, 1, counts.length);
+	}
+	
+	public double mean (final FloatColumn column)
+	{
+		final float[] values = floats[column.ordinal()];
+		
+		double sum = 0;
+		
+		for (int row = 0; row < size; row++)
+		{
+			sum += values[row];
+		}
+		
+		return sum / size;
+	}
+	
+	public double mean (final IntColumn column)
+	{
+		final int[] values = ints[column.ordinal()];
+		
+		long sum = 0;
+		
+		for (int row = 0; row < size; row++)
+		{
+			sum += values[row];
+		}
+		
+		return (double) sum / size;
+	}
+	
+	/**
+	 * Counts values in {@code bins} equal width bins over [{@code min}, {@code max}). Values 
+	 * outside the range are clamped into the first or last bin.
+	 */
+	public int[] histogram (final FloatColumn column, final float min, final float max, final int bins)
+	{
+		checkBins(min, max, bins);
+		
+		final float[] values = floats[column.ordinal()];
+		final int[] counts = new int[bins];
+		final float scale = bins / (max - min);
+		final int last = bins - 1;
+		
+		for (int row = 0; row < size; row++)
+		{
+			int bin = (int) ((values[row] - min) * scale);
+			
+			bin = (bin < 0) ? 0 : (bin > last ? last : bin);
+			counts[bin]++;
+		}
+		
+		return counts;
+	}
+	
+	/**
+	 * Same as {@link #histogram(FloatColumn, float, float, int)} for an integer column
+	 */
+	public int[] histogram (final IntColumn column, final int min, final int max, final int bins)
+	{
+		checkBins(min, max, bins);
+		
+		final int[] values = ints[column.ordinal()];
+		final int[] counts = new int[bins];
+		final float scale = (float) bins / (max - min);
+		final int last = bins - 1;
+		
+		for (int row = 0; row < size; row++)
+		{
+			int bin = (int) ((values[row] - min) * scale);
+			
+			bin = (bin < 0) ? 0 : (bin > last ? last : bin);
+			counts[bin]++;
+		}
+		
+		return counts;
+	}
+	
+	private static void checkBins (final float min, final float max, final int bins)
+	{
+		if (bins <= 0 || !(max > min))
+		{
+			throw new IllegalArgumentException("Need at least one bin and min < max");
+		}
+	}
+	
+	private void checkRow (final int row)
+	{
+		if (row < 0 || row >= size)
+		{
+			throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+		}
+	}
+	
+	private void checkRange (final int row, final int length)
+	{
+		if (row < 0 || length < 0 || row + length > size)
+		{
+			throw new IndexOutOfBoundsException("Rows: " + row + ".." + (row + length) + ", Size: " + size);
+		}
+	}
+	
+	public String toString ()
+	{
+		return "FaceBatch[faces=" + size + ", photos=" + photoCount + "]";
+	}
+}
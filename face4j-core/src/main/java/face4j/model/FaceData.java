@@ -0,0 +1,719 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import face4j.json.JsonReader;
+import face4j.json.JsonToken;
+
+/**
+ * One decoded "tag" object, handed to a {@link FaceVisitor}. Every value is available as a 
+ * primitive or a {@code String} and the same instance is reused for all faces of a 
+ * response, so visiting allocates nothing per face beyond the strings. Visitors must copy 
+ * what they need before returning from {@link FaceVisitor#onFace(FaceData)}.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class FaceData
+{
+	public static final int CENTER       = 0;
+	public static final int EYE_LEFT     = 1;
+	public static final int EYE_RIGHT    = 2;
+	public static final int MOUTH_LEFT   = 3;
+	public static final int MOUTH_RIGHT  = 4;
+	public static final int MOUTH_CENTER = 5;
+	public static final int EAR_LEFT     = 6;
+	public static final int EAR_RIGHT    = 7;
+	public static final int CHIN         = 8;
+	public static final int NOSE         = 9;
+	
+	/**
+	 * Number of landmarks, {@link #CENTER} included
+	 */
+	public static final int LANDMARKS = 10;
+	
+	private static final int CONFIRMED_FLAG    = 1;
+	private static final int MANUAL_FLAG       = 1 << 1;
+	private static final int RECOGNIZABLE_FLAG = 1 << 2;
+	private static final int SMILING_FLAG      = 1 << 3;
+	private static final int GLASSES_FLAG      = 1 << 4;
+	
+	private static final Gender[] GENDERS = Gender.values();
+	
+	private static final String[] LANDMARK_NAMES = {
+		"center", "eye_left", "eye_right", "mouth_left", "mouth_right", 
+		"mouth_center", "ear_left", "ear_right", "chin", "nose"
+	};
+	
+	private String tid;
+	
+	private String label;
+	
+	private boolean confirmed;
+	
+	private boolean manual;
+	
+	private boolean recognizable;
+	
+	private float width;
+	
+	private float height;
+	
+	private float yaw;
+	
+	private float roll;
+	
+	private float pitch;
+	
+	private int threshold;
+	
+	/**
+	 * x and y of every landmark, in percent of the photo
+	 */
+	private final float[] points = new float[LANDMARKS * 2];
+	
+	/**
+	 * Bit per landmark that was present in the response
+	 */
+	private int present;
+	
+	private int faceConfidence;
+	
+	private boolean smiling;
+	
+	private int smilingConfidence;
+	
+	private boolean glasses;
+	
+	private int glassesConfidence;
+	
+	private Gender gender;
+	
+	private int genderConfidence;
+	
+	private String[] guessUIDs = new String[4];
+	
+	private int[] guessConfidences = new int[4];
+	
+	private int guessCount;
+	
+	/**
+	 * Reads the next "tag" object into this instance, replacing its previous contents
+	 */
+	public FaceData read (final JsonReader reader) throws IOException
+	{
+		clear();
+		
+		reader.beginObject();
+		
+		while (reader.hasNext())
+		{
+			final String name = reader.nextName();
+			
+			if ("tid".equals(name))
+			{
+				tid = reader.nextString();
+			}
+			
+			else if ("label".equals(name))
+			{
+				final String value = reader.nextString();
+				label = (value == null) ? "" : value;
+			}
+			
+			else if ("confirmed".equals(name))
+			{
+				confirmed = reader.nextBoolean();
+			}
+			
+			else if ("manual".equals(name))
+			{
+				manual = reader.nextBoolean();
+			}
+			
+			else if ("width".equals(name))
+			{
+				width = (float) reader.nextDouble();
+			}
+			
+			else if ("height".equals(name))
+			{
+				height = (float) reader.nextDouble();
+			}
+			
+			else if ("yaw".equals(name))
+			{
+				yaw = (float) reader.nextDouble();
+			}
+			
+			else if ("roll".equals(name))
+			{
+				roll = (float) reader.nextDouble();
+			}
+			
+			else if ("pitch".equals(name))
+			{
+				pitch = (float) reader.nextDouble();
+			}
+			
+			else if ("threshold".equals(name))
+			{
+				threshold = reader.optInt(0);
+			}
+			
+			else if ("uids".equals(name))
+			{
+				readGuesses(reader);
+			}
+			
+			else if ("recognizable".equals(name))
+			{
+				recognizable = reader.nextBoolean();
+			}
+			
+			else if ("attributes".equals(name))
+			{
+				readAttributes(reader);
+			}
+			
+			else
+			{
+				final int landmark = landmark(name);
+				
+				if (landmark == -1)
+				{
+					reader.skipValue();
+				}
+				
+				else
+				{
+					readPoint(reader, landmark);
+				}
+			}
+		}
+		
+		reader.endObject();
+		
+		return this;
+	}
+	
+	/**
+	 * Reads a face written by {@link #write(Face, DataOutput)} into this instance, replacing 
+	 * its previous contents
+	 */
+	public FaceData read (final DataInput in) throws IOException
+	{
+		clear();
+		
+		tid   = readString(in);
+		label = readString(in);
+		
+		final int flags = in.readUnsignedByte();
+		
+		confirmed    = (flags & CONFIRMED_FLAG) != 0;
+		manual       = (flags & MANUAL_FLAG) != 0;
+		recognizable = (flags & RECOGNIZABLE_FLAG) != 0;
+		smiling      = (flags & SMILING_FLAG) != 0;
+		glasses      = (flags & GLASSES_FLAG) != 0;
+		
+		width     = in.readFloat();
+		height    = in.readFloat();
+		yaw       = in.readFloat();
+		roll      = in.readFloat();
+		pitch     = in.readFloat();
+		threshold = in.readInt();
+		
+		present = in.readUnsignedShort();
+		
+		for (int i = 0; i < LANDMARKS; i++)
+		{
+			if (has(i))
+			{
+				points[i * 2]     = in.readFloat();
+				points[i * 2 + 1] = in.readFloat();
+			}
+		}
+		
+		faceConfidence    = in.readUnsignedByte();
+		smilingConfidence = in.readUnsignedByte();
+		glassesConfidence = in.readUnsignedByte();
+		genderConfidence  = in.readUnsignedByte();
+		
+		final int code = in.readByte();
+		
+		gender = (code < 0) ? null : GENDERS[code];
+		
+		final int count = in.readUnsignedShort();
+		
+		if (count > guessUIDs.length)
+		{
+			guessUIDs        = new String[count];
+			guessConfidences = new int[count];
+		}
+		
+		for (int i = 0; i < count; i++)
+		{
+			guessUIDs[i]        = readString(in);
+			guessConfidences[i] = in.readUnsignedByte();
+		}
+		
+		guessCount = count;
+		
+		return this;
+	}
+	
+	/**
+	 * Writes {@code face} in a compact binary form, read back by {@link #read(DataInput)}. 
+	 * Confidences are stored in a byte each, as the API reports them in percent.
+	 */
+	public static void write (final Face face, final DataOutput out) throws IOException
+	{
+		writeString(out, face.getTID());
+		writeString(out, face.getLabel());
+		
+		int flags = 0;
+		
+		flags |= face.isConfirmed() ? CONFIRMED_FLAG : 0;
+		flags |= face.isManual() ? MANUAL_FLAG : 0;
+		flags |= face.IsRecognizable() ? RECOGNIZABLE_FLAG : 0;
+		flags |= face.isSmiling() ? SMILING_FLAG : 0;
+		flags |= face.isWearingGlasses() ? GLASSES_FLAG : 0;
+		
+		out.writeByte(flags);
+		
+		out.writeFloat((float) face.getWidth());
+		out.writeFloat((float) face.getHeight());
+		out.writeFloat(face.getYaw());
+		out.writeFloat(face.getRoll());
+		out.writeFloat(face.getPitch());
+		out.writeInt(face.getThreshHold());
+		
+		int mask = 0;
+		
+		for (int i = 0; i < LANDMARKS; i++)
+		{
+			mask |= face.hasLandmark(i) ? (1 << i) : 0;
+		}
+		
+		out.writeShort(mask);
+		
+		for (int i = 0; i < LANDMARKS; i++)
+		{
+			if (face.hasLandmark(i))
+			{
+				final Point p = face.getLandmark(i);
+				
+				out.writeFloat(p.x);
+				out.writeFloat(p.y);
+			}
+		}
+		
+		out.writeByte(face.getFaceConfidence());
+		out.writeByte(face.getSmilingConfidence());
+		out.writeByte(face.getGlassesConfidence());
+		out.writeByte(face.getGenderConfidence());
+		
+		out.writeByte((face.getGender() == null) ? -1 : face.getGender().ordinal());
+		
+		final int count = face.getGuessCount();
+		
+		out.writeShort(count);
+		
+		for (int i = 0; i < count; i++)
+		{
+			writeString(out, face.getGuessUID(i));
+			out.writeByte(face.getGuessConfidence(i));
+		}
+	}
+	
+	/**
+	 * Reads a string written by {@link #writeString(DataOutput, String)}
+	 */
+	static String readString (final DataInput in) throws IOException
+	{
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+	
+	/**
+	 * Writes a presence flag followed by the modified UTF-8 of {@code value}, if not {@code null}
+	 */
+	static void writeString (final DataOutput out, final String value) throws IOException
+	{
+		out.writeBoolean(value != null);
+		
+		if (value != null)
+		{
+			out.writeUTF(value);
+		}
+	}
+	
+	private void clear ()
+	{
+		tid = null;
+		label = "";
+		confirmed = false;
+		manual = false;
+		recognizable = false;
+		width = 0;
+		height = 0;
+		yaw = 0;
+		roll = 0;
+		pitch = 0;
+		threshold = 0;
+		present = 0;
+		faceConfidence = 0;
+		smiling = false;
+		smilingConfidence = 0;
+		glasses = false;
+		glassesConfidence = 0;
+		gender = null;
+		genderConfidence = 0;
+		
+		Arrays.fill(guessUIDs, 0, guessCount, null);
+		guessCount = 0;
+	}
+	
+	private static int landmark (final String name)
+	{
+		for (int i = 0; i < LANDMARKS; i++)
+		{
+			// Names are canonical instances
+			if (LANDMARK_NAMES[i] == name || LANDMARK_NAMES[i].equals(name))
+			{
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	private void readPoint (final JsonReader reader, final int landmark) throws IOException
+	{
+		if (reader.peek() == JsonToken.NULL)
+		{
+			reader.nextNull();
+			return;
+		}
+		
+		float x = 0;
+		float y = 0;
+		
+		reader.beginObject();
+		
+		while (reader.hasNext())
+		{
+			final String name = reader.nextName();
+			
+			if ("x".equals(name))
+			{
+				x = (float) reader.nextDouble();
+			}
+			
+			else if ("y".equals(name))
+			{
+				y = (float) reader.nextDouble();
+			}
+			
+			else
+			{
+				reader.skipValue();
+			}
+		}
+		
+		reader.endObject();
+		
+		points[landmark * 2]     = x;
+		points[landmark * 2 + 1] = y;
+		present |= 1 << landmark;
+	}
+	
+	private void readGuesses (final JsonReader reader) throws IOException
+	{
+		if (reader.peek() == JsonToken.NULL)
+		{
+			reader.nextNull();
+			return;
+		}
+		
+		reader.beginArray();
+		
+		while (reader.hasNext())
+		{
+			String uid = null;
+			int confidence = 0;
+			
+			reader.beginObject();
+			
+			while (reader.hasNext())
+			{
+				final String name = reader.nextName();
+				
+				if ("uid".equals(name))
+				{
+					uid = reader.nextString();
+				}
+				
+				else if ("confidence".equals(name))
+				{
+					confidence = reader.nextInt();
+				}
+				
+				else
+				{
+					reader.skipValue();
+				}
+			}
+			
+			reader.endObject();
+			
+			if (guessCount == guessUIDs.length)
+			{
+				guessUIDs        = Arrays.copyOf(guessUIDs, guessCount * 2);
+				guessConfidences = Arrays.copyOf(guessConfidences, guessCount * 2);
+			}
+			
+			guessUIDs[guessCount]        = uid;
+			guessConfidences[guessCount] = confidence;
+			guessCount++;
+		}
+		
+		reader.endArray();
+	}
+	
+	private void readAttributes (final JsonReader reader) throws IOException
+	{
+		reader.beginObject();
+		
+		while (reader.hasNext())
+		{
+			final String attribute = reader.nextName();
+			
+			String value = null;
+			int confidence = 0;
+			
+			reader.beginObject();
+			
+			while (reader.hasNext())
+			{
+				final String name = reader.nextName();
+				
+				if ("value".equals(name))
+				{
+					value = reader.nextString();
+				}
+				
+				else if ("confidence".equals(name))
+				{
+					confidence = reader.nextInt();
+				}
+				
+				else
+				{
+					reader.skipValue();
+				}
+			}
+			
+			reader.endObject();
+			
+			if ("face".equals(attribute))
+			{
+				faceConfidence = confidence;
+			}
+			
+			else if ("smiling".equals(attribute))
+			{
+				smiling = Boolean.parseBoolean(value);
+				smilingConfidence = confidence;
+			}
+			
+			else if ("glasses".equals(attribute))
+			{
+				glasses = Boolean.parseBoolean(value);
+				glassesConfidence = confidence;
+			}
+			
+			else if ("gender".equals(attribute) && value != null)
+			{
+				gender = Gender.getValue(value);
+				genderConfidence = confidence;
+			}
+		}
+		
+		reader.endObject();
+	}
+	
+	public String getTID ()
+	{
+		return tid;
+	}
+	
+	public String getLabel ()
+	{
+		return label;
+	}
+	
+	public boolean isConfirmed ()
+	{
+		return confirmed;
+	}
+	
+	public boolean isManual ()
+	{
+		return manual;
+	}
+	
+	public boolean isRecognizable ()
+	{
+		return recognizable;
+	}
+	
+	public float getWidth ()
+	{
+		return width;
+	}
+	
+	public float getHeight ()
+	{
+		return height;
+	}
+	
+	public float getYaw ()
+	{
+		return yaw;
+	}
+	
+	public float getRoll ()
+	{
+		return roll;
+	}
+	
+	public float getPitch ()
+	{
+		return pitch;
+	}
+	
+	public int getThreshold ()
+	{
+		return threshold;
+	}
+	
+	/**
+	 * @param landmark One of {@link #CENTER} .. {@link #NOSE}
+	 */
+	public boolean has (final int landmark)
+	{
+		return (present & (1 << landmark)) != 0;
+	}
+	
+	/**
+	 * @return The x coordinate of {@code landmark} or 0 if it is absent
+	 */
+	public float getX (final int landmark)
+	{
+		return points[landmark * 2];
+	}
+	
+	/**
+	 * @return The y coordinate of {@code landmark} or 0 if it is absent
+	 */
+	public float getY (final int landmark)
+	{
+		return points[landmark * 2 + 1];
+	}
+	
+	/**
+	 * @return Bit {@code 1 << landmark} is set for every landmark present
+	 */
+	public int getLandmarkMask ()
+	{
+		return present;
+	}
+	
+	public int getFaceConfidence ()
+	{
+		return faceConfidence;
+	}
+	
+	public boolean isSmiling ()
+	{
+		return smiling;
+	}
+	
+	public int getSmilingConfidence ()
+	{
+		return smilingConfidence;
+	}
+	
+	public boolean isWearingGlasses ()
+	{
+		return glasses;
+	}
+	
+	public int getGlassesConfidence ()
+	{
+		return glassesConfidence;
+	}
+	
+	/**
+	 * @return The gender or {@code null} if the response had none
+	 */
+	public Gender getGender ()
+	{
+		return gender;
+	}
+	
+	public int getGenderConfidence ()
+	{
+		return genderConfidence;
+	}
+	
+	public int getGuessCount ()
+	{
+		return guessCount;
+	}
+	
+	public String getGuessUID (final int index)
+	{
+		checkGuess(index);
+		return guessUIDs[index];
+	}
+	
+	public int getGuessConfidence (final int index)
+	{
+		checkGuess(index);
+		return guessConfidences[index];
+	}
+	
+	private void checkGuess (final int index)
+	{
+		if (index < 0 || index >= guessCount)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + guessCount);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.model;
+
+/**
+ * Receives the photos of a response as they are decoded, without any face4j model objects 
+ * being created. Lets an application decode straight into its own structures; the face4j 
+ * model itself is built by the default visitor, {@link PhotoBuilder}.
+ * <p>
+ * For every photo {@link #onFace(FaceData)} is called once per face, followed by 
+ * {@link #onPhoto(String, String, int, int, int)}.
+ * 
+ * @author Marlon Hendred
+ *
+ * @see PhotoDecoder
+ */
+public interface FaceVisitor
+{
+	/**
+	 * @param face The decoded face. The instance is reused for the next face and must not 
+	 *             be kept.
+	 */
+	public void onFace(FaceData face);
+	
+	/**
+	 * Called after the faces of a photo
+	 * 
+	 * @param faceCount Number of {@link #onFace(FaceData)} calls made for this photo
+	 */
+	public void onPhoto(String pid, String url, int width, int height, int faceCount);
+}
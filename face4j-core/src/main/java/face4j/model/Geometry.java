@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.model;
+
+import java.util.List;
+
+/**
+ * Bulk kernels over packed coordinate arrays, for work on many faces at once (dedup, 
+ * overlays) without a {@link Point} or {@link Rect} per face.
+ * <p>
+ * Points are packed as {@code x, y} pairs and rectangles as {@code left, top, right, bottom}, 
+ * so a rectangle is also two points and every point kernel applies to rectangles. The loops 
+ * are kept branch free over plain arrays so the JIT can unroll and vectorize them.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class Geometry
+{
+	// No Instances
+	private Geometry ()
+	{
+		throw new AssertionError();
+	}
+	
+	/**
+	 * Packs the rectangles of {@code faces} into {@code rects} from index 0
+	 * 
+	 * @return {@code rects}, or a new array if it is too small or {@code null}
+	 */
+	public static float[] packRectangles (final List<Face> faces, float[] rects)
+	{
+		if (rects == null || rects.length < faces.size() * 4)
+		{
+			rects = new float[faces.size() * 4];
+		}
+		
+		int off = 0;
+		
+		for (Face face : faces)
+		{
+			face.getRectangle(rects, off);
+			off += 4;
+		}
+		
+		return rects;
+	}
+	
+	/**
+	 * Maps {@code points} {@code x, y} pairs of {@code src} by {@code x * sx + dx}, 
+	 * {@code y * sy + dy} into {@code dst}, which may be {@code src}
+	 */
+	public static void transform (final float[] src, final int srcOff, final float[] dst, final int dstOff, 
+		final int points, final float sx, final float sy, final float dx, final float dy)
+	{
+		final int n = points * 2;
+		
+		for (int i = 0; i < n; i += 2)
+		{
+			dst[dstOff + i]     = src[srcOff + i] * sx + dx;
+			dst[dstOff + i + 1] = src[srcOff + i + 1] * sy + dy;
+		}
+	}
+	
+	/**
+	 * Scales {@code points} {@code x, y} pairs in place
+	 */
+	public static void scale (final float[] coords, final int off, final int points, final float sx, final float sy)
+	{
+		transform(coords, off, coords, off, points, sx, sy, 0, 0);
+	}
+	
+	/**
+	 * Moves {@code points} {@code x, y} pairs in place
+	 */
+	public static void translate (final float[] coords, final int off, final int points, final float dx, final float dy)
+	{
+		transform(coords, off, coords, off, points, 1, 1, dx, dy);
+	}
+	
+	/**
+	 * Converts {@code rects} rectangles from percent of the photo to pixels, in place
+	 */
+	public static void toPixels (final float[] rects, final int rectCount, final float photoWidth, final float photoHeight)
+	{
+		scale(rects, 0, rectCount * 2, photoWidth / 100f, photoHeight / 100f);
+	}
+	
+	/**
+	 * @return Intersection over union of two rectangles, 0 if either is empty
+	 */
+	public static float iou (final float l1, final float t1, final float r1, final float b1, 
+		final float l2, final float t2, final float r2, final float b2)
+	{
+		final float inter = positive(min(r1, r2) - max(l1, l2)) * positive(min(b1, b2) - max(t1, t2));
+		final float union = positive(r1 - l1) * positive(b1 - t1) + positive(r2 - l2) * positive(b2 - t2) - inter;
+		
+		// union is 0 only if both are empty, and then so is inter
+		return inter / (union + Float.MIN_NORMAL);
+	}
+	
+	/**
+	 * Fills {@code out[i * bCount + j]} with the intersection over union of rectangle 
+	 * {@code i} of {@code a} and rectangle {@code j} of {@code b}
+	 * 
+	 * @return {@code out}, or a new array if it is too small or {@code null}
+	 */
+	public static float[] iou (final float[] a, final int aCount, final float[] b, final int bCount, float[] out)
+	{
+		if (out == null || out.length < aCount * bCount)
+		{
+			out = new float[aCount * bCount];
+		}
+		
+		for (int i = 0; i < aCount; i++)
+		{
+			final float l = a[i * 4];
+			final float t = a[i * 4 + 1];
+			final float r = a[i * 4 + 2];
+			final float bt = a[i * 4 + 3];
+			final float area = positive(r - l) * positive(bt - t);
+			final int row = i * bCount;
+			
+			for (int j = 0; j < bCount; j++)
+			{
+				final float l2 = b[j * 4];
+				final float t2 = b[j * 4 + 1];
+				final float r2 = b[j * 4 + 2];
+				final float b2 = b[j * 4 + 3];
+				
+				final float inter = positive(min(r, r2) - max(l, l2)) * positive(min(bt, b2) - max(t, t2));
+				final float union = area + positive(r2 - l2) * positive(b2 - t2) - inter;
+				
+				// union is 0 only if both are empty, and then so is inter
+				out[row + j] = inter / (union + Float.MIN_NORMAL);
+			}
+		}
+		
+		return out;
+	}
+	
+	/**
+	 * Pairwise intersection over union of {@code count} rectangles, row major
+	 */
+	public static float[] iou (final float[] rects, final int count, final float[] out)
+	{
+		return iou(rects, count, rects, count, out);
+	}
+	
+	/**
+	 * Sets {@code inside[i]} to whether point {@code i} of {@code points} lies in the 
+	 * rectangle, with the same edge rules as {@link Rect#contains(float, float)}
+	 * 
+	 * @return Number of points inside
+	 */
+	public static int contains (final float left, final float top, final float right, final float bottom, 
+		final float[] points, final int count, final boolean[] inside)
+	{
+		final boolean empty = !(left < right && top < bottom);
+		int n = 0;
+		
+		for (int i = 0; i < count; i++)
+		{
+			final float x = points[i * 2];
+			final float y = points[i * 2 + 1];
+			
+			final boolean in = !empty & x >= left & x < right & y >= top & y < bottom;
+			
+			inside[i] = in;
+			n += in ? 1 : 0;
+		}
+		
+		return n;
+	}
+	
+	/**
+	 * @return Index of the first of {@code count} rectangles containing the point, -1 if none does
+	 */
+	public static int indexOf (final float[] rects, final int count, final float x, final float y)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			final int o = i * 4;
+			
+			if (x >= rects[o] & x < rects[o + 2] & y >= rects[o + 1] & y < rects[o + 3])
+			{
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/*
+	 * Branch free min, max and clamping through Math.abs, which compiles to a single 
+	 * instruction. Math.min/max order NaN and -0 and float comparisons compile to branches, 
+	 * which mispredict on unsorted rectangles.
+	 */
+	
+	private static float min (final float a, final float b)
+	{
+		return (a + b - Math.abs(a - b)) * 0.5f;
+	}
+	
+	private static float max (final float a, final float b)
+	{
+		return (a + b + Math.abs(a - b)) * 0.5f;
+	}
+	
+	private static float positive (final float a)
+	{
+		return (a + Math.abs(a)) * 0.5f;
+	}
+}
@@ -1,65 +1,137 @@
-/*
- * Copyright (c) 2010 Marlon Hendred
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in
- * all copies or substantial portions of the Software.
- *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
- * THE SOFTWARE.
- */
-
-package face4j.model;
-
-import java.util.LinkedList;
-import java.util.List;
-
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-public class Group
-{
-	private final int gid;
-	
-	private final String uid;
-	
-	private final List<String> tids;
-	
-	public Group (final JSONObject jObj) throws JSONException
-	{		
-		this.gid = jObj.optInt("gid");
-		this.uid = jObj.optString("uid");
-		
-		this.tids = new LinkedList<String>();
-		
-		final JSONArray jArr = jObj.getJSONArray("tids");
-		
-		for (int i = 0; i < jArr.length(); i++)
-		{
-			tids.add(jArr.getString(i));
-		}
-	}
-	public int getGid() {
-		return gid;
-	}
-
-	public String getUid() {
-		return uid;
-	}
-
-	public List<String> getTids() {
-		return tids;
-	}
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import face4j.json.JsonReader;
+
+public class Group
+{
+	private final int gid;
+	
+	private final String uid;
+	
+	private final int uidSymbol;
+	
+	private final List<String> tids;
+	
+	public Group (final JSONObject jObj) throws JSONException
+	{		
+		this.gid = jObj.optInt("gid");
+		this.uid = jObj.optString("uid");
+		this.uidSymbol = SymbolTable.NONE;
+		
+		final JSONArray jArr = jObj.getJSONArray("tids");
+		final String[] tids = new String[jArr.length()];
+		
+		for (int i = 0; i < tids.length; i++)
+		{
+			tids[i] = jArr.getString(i);
+		}
+		
+		this.tids = ImmutableArrayList.wrap(tids);
+	}
+	
+	public Group (final JsonReader reader) throws IOException
+	{
+		this(reader, null);
+	}
+	
+	/**
+	 * @param symbols Interns the uid, may be {@code null}
+	 */
+	public Group (final JsonReader reader, final SymbolTable symbols) throws IOException
+	{
+		int gid = 0;
+		String uid = "";
+		
+		final List<String> tids = new ArrayList<String>();
+		
+		reader.beginObject();
+		
+		while (reader.hasNext())
+		{
+			final String name = reader.nextName();
+			
+			if ("gid".equals(name))
+			{
+				gid = reader.optInt(0);
+			}
+			
+			else if ("uid".equals(name))
+			{
+				final String value = reader.nextString();
+				uid = (value == null) ? "" : value;
+			}
+			
+			else if ("tids".equals(name))
+			{
+				reader.beginArray();
+				
+				while (reader.hasNext())
+				{
+					tids.add(reader.nextString());
+				}
+				
+				reader.endArray();
+			}
+			
+			else
+			{
+				reader.skipValue();
+			}
+		}
+		
+		reader.endObject();
+		
+		this.gid = gid;
+		this.tids = ImmutableArrayList.copyOf(tids);
+		this.uidSymbol = (symbols == null) ? SymbolTable.NONE : symbols.id(uid);
+		this.uid = (uidSymbol == SymbolTable.NONE) ? uid : symbols.get(uidSymbol);
+	}
+	public int getGid() {
+		return gid;
+	}
+
+	public String getUid() {
+		return uid;
+	}
+
+	/**
+	 * @return The {@link SymbolTable} id of the uid or {@link SymbolTable#NONE}
+	 */
+	public int getUidSymbol() {
+		return uidSymbol;
+	}
+
+	public List<String> getTids() {
+		return tids;
+	}
 }
\ No newline at end of file
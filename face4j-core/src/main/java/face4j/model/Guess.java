@@ -1,80 +1,91 @@
-/*
- * Copyright (c) 2010 Marlon Hendred
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in
- * all copies or substantial portions of the Software.
- *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
- * THE SOFTWARE.
- */
-
-package face4j.model;
-
-import java.util.LinkedList;
-import java.util.List;
-
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-public class Guess extends Pair<String, Integer> implements Comparable<Guess>
-{
-	public Guess(final JSONObject jObj) throws JSONException
-	{
-		super();
-		
-		this.first  = jObj.getString("uid");
-		this.second = jObj.getInt("confidence");
-	}
-
-	@Override
-	public String toString ()
-	{
-		StringBuilder builder = new StringBuilder();
-		builder.append("Guess [confidence=").append(second).append(", uid=").append(first).append("]");
-		return builder.toString();
-	}
-	
-	static List<Guess> fromJsonArray (JSONArray jArr) throws JSONException
-	{
-		final List<Guess> guesses = new LinkedList<Guess>();
-		
-		if (jArr != null)
-		{
-			for (int i = 0; i < jArr.length(); i++)
-			{
-				guesses.add(new Guess(jArr.getJSONObject(i)));
-			}
-		}
-		
-		return guesses;
-	}
-
-	@Override
-	public int compareTo (Guess that)
-	{
-		if (this.second > that.second)
-		{
-			return 1; 
-		}
-		
-		if (this.second < that.second)
-		{
-			return -1;
-		}
-		
-		return 0;
-	}
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.model;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+public class Guess extends Pair<String, Integer> implements Comparable<Guess>
+{
+	private final int symbol;
+	
+	public Guess(final JSONObject jObj) throws JSONException
+	{
+		super(jObj.getString("uid"), jObj.getInt("confidence"));
+		
+		this.symbol = SymbolTable.NONE;
+	}
+	
+	Guess(final String uid, final int confidence, final int symbol)
+	{
+		super(uid, confidence);
+		
+		this.symbol = symbol;
+	}
+	
+	/**
+	 * @return The {@link SymbolTable} id of the uid or {@link SymbolTable#NONE} if it was 
+	 * not decoded with one
+	 */
+	public int getSymbol ()
+	{
+		return symbol;
+	}
+	
+	/**
+	 * @return Whether both guesses are for the same uid, by id when both have one
+	 */
+	public boolean isSameUser (final Guess that)
+	{
+		if (this.symbol != SymbolTable.NONE && that.symbol != SymbolTable.NONE)
+		{
+			return this.symbol == that.symbol;
+		}
+		
+		return (first == null) ? that.first == null : first.equals(that.first);
+	}
+
+	@Override
+	public String toString ()
+	{
+		StringBuilder builder = new StringBuilder();
+		builder.append("Guess [confidence=").append(second).append(", uid=").append(first).append("]");
+		return builder.toString();
+	}
+	
+	@Override
+	public int compareTo (Guess that)
+	{
+		if (this.second > that.second)
+		{
+			return 1; 
+		}
+		
+		if (this.second < that.second)
+		{
+			return -1;
+		}
+		
+		return 0;
+	}
 }
\ No newline at end of file
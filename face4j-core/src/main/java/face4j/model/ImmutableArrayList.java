@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.model;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Unmodifiable list over an exactly sized array, used for the lists held by the model. 
+ * Costs one object plus the array, where a {@code LinkedList} costs a node per element.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class ImmutableArrayList<E> extends AbstractList<E> implements RandomAccess
+{
+	private static final ImmutableArrayList<Object> EMPTY = new ImmutableArrayList<Object>(new Object[0]);
+	
+	private final Object[] elements;
+	
+	private ImmutableArrayList(final Object[] elements)
+	{
+		this.elements = elements;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public static <E> List<E> of ()
+	{
+		return (List<E>) EMPTY;
+	}
+	
+	/**
+	 * @return An immutable copy of {@code elements}, the shared empty list if it is empty
+	 */
+	public static <E> List<E> copyOf (final Collection<? extends E> elements)
+	{
+		if (elements.isEmpty())
+		{
+			return of();
+		}
+		
+		if (elements instanceof ImmutableArrayList<?>)
+		{
+			@SuppressWarnings("unchecked")
+			final List<E> list = (List<E>) elements;
+			return list;
+		}
+		
+		return new ImmutableArrayList<E>(elements.toArray());
+	}
+	
+	/**
+	 * Wraps {@code elements} without copying, the caller must not change the array afterwards
+	 */
+	static <E> List<E> wrap (final E[] elements)
+	{
+		return (elements.length == 0) ? ImmutableArrayList.<E>of() : new ImmutableArrayList<E>(elements);
+	}
+	
+	@SuppressWarnings("unchecked")
+	public E get (final int index)
+	{
+		if (index < 0 || index >= elements.length)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + elements.length);
+		}
+		
+		return (E) elements[index];
+	}
+	
+	public int size ()
+	{
+		return elements.length;
+	}
+	
+	public Object[] toArray ()
+	{
+		return elements.clone();
+	}
+}
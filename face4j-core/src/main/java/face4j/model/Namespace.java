@@ -1,8 +1,12 @@
 package face4j.model;
 
+import java.io.IOException;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import face4j.json.JsonReader;
+
 public class Namespace
 {
 	private final String shareMode;
@@ -20,6 +24,53 @@ public class Namespace
 		size	  = jObj.getInt("size"); 
 		name 	  = jObj.getString("name");	
 	}
+	
+	public Namespace(JsonReader reader) throws IOException
+	{
+		String shareMode = null;
+		String name = null;
+		boolean isOwner = false;
+		int size = 0;
+		
+		reader.beginObject();
+		
+		while (reader.hasNext())
+		{
+			final String member = reader.nextName();
+			
+			if ("share_mode".equals(member))
+			{
+				shareMode = reader.nextString();
+			}
+			
+			else if ("owner".equals(member))
+			{
+				isOwner = reader.nextBoolean();
+			}
+			
+			else if ("size".equals(member))
+			{
+				size = reader.nextInt();
+			}
+			
+			else if ("name".equals(member))
+			{
+				name = reader.nextString();
+			}
+			
+			else
+			{
+				reader.skipValue();
+			}
+		}
+		
+		reader.endObject();
+		
+		this.shareMode = shareMode;
+		this.isOwner   = isOwner;
+		this.size      = size;
+		this.name      = name;
+	}
 
 	public String getShareMode ()
 	{
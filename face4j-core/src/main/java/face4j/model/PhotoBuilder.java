@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The default {@link FaceVisitor}, which builds the face4j model
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public class PhotoBuilder implements FaceVisitor
+{
+	private final List<Photo> photos = new ArrayList<Photo>();
+	
+	/**
+	 * Faces of the photo being built, reused across photos
+	 */
+	private final List<Face> faces = new ArrayList<Face>();
+	
+	private final SymbolTable symbols;
+	
+	public PhotoBuilder()
+	{
+		this(null);
+	}
+	
+	/**
+	 * @param symbols Interns the guessed uids, may be {@code null}
+	 */
+	public PhotoBuilder(final SymbolTable symbols)
+	{
+		this.symbols = symbols;
+	}
+	
+	public void onFace(final FaceData face)
+	{
+		faces.add(new Face(face, symbols));
+	}
+	
+	public void onPhoto(final String pid, final String url, final int width, final int height, final int faceCount)
+	{
+		final Photo photo = new Photo(url, pid, width, height, ImmutableArrayList.copyOf(faces));
+		
+		faces.clear();
+		
+		onPhoto(photo);
+	}
+	
+	/**
+	 * Called with every built photo, collects it by default
+	 */
+	protected void onPhoto(final Photo photo)
+	{
+		photos.add(photo);
+	}
+	
+	/**
+	 * @return The photos built so far, in response order
+	 */
+	public List<Photo> getPhotos()
+	{
+		return photos;
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+import face4j.json.JsonReader;
+import face4j.json.JsonToken;
+
+/**
+ * Drives a {@link FaceVisitor} over "photo" objects
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class PhotoDecoder
+{
+	// No Instances
+	private PhotoDecoder()
+	{
+		throw new AssertionError();
+	}
+	
+	/**
+	 * Visits every photo of a "photos" array
+	 */
+	public static void readPhotos(final JsonReader reader, final FaceVisitor visitor) throws IOException
+	{
+		final FaceData face = new FaceData();
+		
+		reader.beginArray();
+		
+		while (reader.hasNext())
+		{
+			readPhoto(reader, visitor, face);
+		}
+		
+		reader.endArray();
+	}
+	
+	/**
+	 * Visits a single "photo" object
+	 */
+	public static void readPhoto(final JsonReader reader, final FaceVisitor visitor) throws IOException
+	{
+		readPhoto(reader, visitor, new FaceData());
+	}
+	
+	private static void readPhoto(final JsonReader reader, final FaceVisitor visitor, final FaceData face) 
+		throws IOException
+	{
+		String url = null;
+		String pid = null;
+		int width = 0;
+		int height = 0;
+		int faceCount = 0;
+		
+		reader.beginObject();
+		
+		while (reader.hasNext())
+		{
+			final String name = reader.nextName();
+			
+			if ("url".equals(name))
+			{
+				url = reader.nextString();
+			}
+			
+			else if ("pid".equals(name))
+			{
+				pid = reader.nextString();
+			}
+			
+			else if ("width".equals(name))
+			{
+				width = reader.nextInt();
+			}
+			
+			else if ("height".equals(name))
+			{
+				height = reader.nextInt();
+			}
+			
+			else if ("tags".equals(name) && reader.peek() != JsonToken.NULL)
+			{
+				reader.beginArray();
+				
+				while (reader.hasNext())
+				{
+					visitor.onFace(face.read(reader));
+					faceCount++;
+				}
+				
+				reader.endArray();
+			}
+			
+			else
+			{
+				reader.skipValue();
+			}
+		}
+		
+		reader.endObject();
+		
+		visitor.onPhoto(pid, url, width, height, faceCount);
+	}
+	
+	/**
+	 * Visits a single photo written by {@link #writePhoto(Photo, DataOutput)}
+	 */
+	public static void readPhoto(final DataInput in, final FaceVisitor visitor) throws IOException
+	{
+		final String pid = FaceData.readString(in);
+		final String url = FaceData.readString(in);
+		final int width  = in.readInt();
+		final int height = in.readInt();
+		final int faceCount = in.readInt();
+		
+		final FaceData face = new FaceData();
+		
+		for (int i = 0; i < faceCount; i++)
+		{
+			visitor.onFace(face.read(in));
+		}
+		
+		visitor.onPhoto(pid, url, width, height, faceCount);
+	}
+	
+	/**
+	 * Writes {@code photo} and its faces in the compact binary form of {@link FaceData#write(Face, DataOutput)}
+	 */
+	public static void writePhoto(final Photo photo, final DataOutput out) throws IOException
+	{
+		final List<Face> faces = photo.getFaces();
+		
+		FaceData.writeString(out, photo.getPID());
+		FaceData.writeString(out, photo.getURL());
+		out.writeInt((int) photo.getWidth());
+		out.writeInt((int) photo.getHeight());
+		out.writeInt(faces.size());
+		
+		for (int i = 0; i < faces.size(); i++)
+		{
+			FaceData.write(faces.get(i), out);
+		}
+	}
+}
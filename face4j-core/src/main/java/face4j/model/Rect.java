@@ -61,6 +61,14 @@ public class Rect
 			
 	}
 
+	/**
+	 * @return Intersection over union with {@code r}, 0 if either is empty
+	 */
+	public float iou (Rect r)
+	{
+		return Geometry.iou(left, top, right, bottom, r.left, r.top, r.right, r.bottom);
+	}
+	
 	@Override
 	public int hashCode ()
 	{
@@ -1,55 +1,86 @@
-/*
- * Copyright (c) 2010 Marlon Hendred
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in
- * all copies or substantial portions of the Software.
- *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
- * THE SOFTWARE.
- */
-
-package face4j.model;
-
-import org.json.JSONException;
-import org.json.JSONObject;
-
-
-public class RemovedTag 
-{
-	private String removed_tid;
-	
-	private String detected_tid;
-	
-	public RemovedTag(final JSONObject jObj) throws JSONException
-	{
-		this.removed_tid  = jObj.getString("removed_tid");
-		this.detected_tid = jObj.getString("detected_tid");
-	}
-	/* (non-Javadoc)
-	 * @see com.face.api.client.model.RemovedTag#getRemovedTID()
-	 */
-	public String getRemovedTID()
-	{
-		return this.removed_tid;
-	}
-	
-	/* (non-Javadoc)
-	 * @see com.face.api.client.model.RemovedTag#getDetectedTID()
-	 */
-	public String getDetectedTID()
-	{
-		return this.detected_tid;
-	}
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.model;
+
+import java.io.IOException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import face4j.json.JsonReader;
+
+
+public class RemovedTag 
+{
+	private String removed_tid;
+	
+	private String detected_tid;
+	
+	public RemovedTag(final JSONObject jObj) throws JSONException
+	{
+		this.removed_tid  = jObj.getString("removed_tid");
+		this.detected_tid = jObj.getString("detected_tid");
+	}
+	
+	public RemovedTag(final JsonReader reader) throws IOException
+	{
+		reader.beginObject();
+		
+		while (reader.hasNext())
+		{
+			final String name = reader.nextName();
+			
+			if ("removed_tid".equals(name))
+			{
+				this.removed_tid = reader.nextString();
+			}
+			
+			else if ("detected_tid".equals(name))
+			{
+				this.detected_tid = reader.nextString();
+			}
+			
+			else
+			{
+				reader.skipValue();
+			}
+		}
+		
+		reader.endObject();
+	}
+	/* (non-Javadoc)
+	 * @see com.face.api.client.model.RemovedTag#getRemovedTID()
+	 */
+	public String getRemovedTID()
+	{
+		return this.removed_tid;
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.face.api.client.model.RemovedTag#getDetectedTID()
+	 */
+	public String getDetectedTID()
+	{
+		return this.detected_tid;
+	}
 }
\ No newline at end of file
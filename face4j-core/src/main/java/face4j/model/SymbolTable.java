@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Bounded, thread safe interning of the strings that repeat across responses: uids and 
+ * namespaces. Every symbol gets a dense int id and one canonical {@code String} instance, so 
+ * model objects decoded with the same table share their strings and can be compared by id.
+ * <p>
+ * Ids are never reused or evicted, which keeps them valid for the life of the table. Once 
+ * {@link #getCapacity()} symbols are held, new strings are no longer interned: 
+ * {@link #id(String)} returns {@link #NONE} and {@link #canonical(String)} its argument.
+ * <p>
+ * Set one table for a whole client with {@link face4j.response.ParseOptions#withSymbolTable(SymbolTable)}.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class SymbolTable
+{
+	/**
+	 * Id of {@code null} and of strings that did not fit in the table
+	 */
+	public static final int NONE = -1;
+	
+	private static final int PAGE_SHIFT = 12;
+	
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+	
+	private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	
+	private final int capacity;
+	
+	/**
+	 * Symbols by id, in pages so the table grows without copying. Written under the lock 
+	 * before the id is published through {@link #ids}.
+	 */
+	private volatile String[][] pages = new String[1][];
+	
+	private int size;
+	
+	public SymbolTable(final int capacity)
+	{
+		Validate.isTrue(capacity > 0, "Capacity must be positive");
+		
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * @return The id of {@code symbol}, interning it if there is room, or {@link #NONE}
+	 */
+	public int id (final String symbol)
+	{
+		if (symbol == null)
+		{
+			return NONE;
+		}
+		
+		final Integer id = ids.get(symbol);
+		
+		return (id != null) ? id : add(symbol);
+	}
+	
+	private synchronized int add (final String symbol)
+	{
+		final Integer existing = ids.get(symbol);
+		
+		if (existing != null)
+		{
+			return existing;
+		}
+		
+		if (size == capacity)
+		{
+			return NONE;
+		}
+		
+		final int id = size++;
+		final int page = id >>> PAGE_SHIFT;
+		
+		String[][] pages = this.pages;
+		
+		if (page == pages.length)
+		{
+			final String[][] grown = new String[page * 2][];
+			System.arraycopy(pages, 0, grown, 0, page);
+			pages = grown;
+		}
+		
+		if (pages[page] == null)
+		{
+			pages[page] = new String[PAGE_SIZE];
+		}
+		
+		pages[page][id & (PAGE_SIZE - 1)] = symbol;
+		
+		this.pages = pages;
+		ids.put(symbol, id);
+		
+		return id;
+	}
+	
+	/**
+	 * @return The canonical instance equal to {@code symbol}, {@code symbol} itself if it is 
+	 * new and the table is full
+	 */
+	public String canonical (final String symbol)
+	{
+		final int id = id(symbol);
+		
+		return (id == NONE) ? symbol : get(id);
+	}
+	
+	/**
+	 * @return The id of the namespace of a {@code uid@namespace} string, {@link #NONE} if it 
+	 * has none
+	 */
+	public int namespaceId (final String uid)
+	{
+		final int at = (uid == null) ? -1 : uid.lastIndexOf('@');
+		
+		return (at == -1) ? NONE : id(uid.substring(at + 1));
+	}
+	
+	/**
+	 * @return The symbol with the given id, {@code null} for {@link #NONE}
+	 */
+	public String get (final int id)
+	{
+		if (id == NONE)
+		{
+			return null;
+		}
+		
+		final String[][] pages = this.pages;
+		final int page = id >>> PAGE_SHIFT;
+		
+		if (id < 0 || page >= pages.length || pages[page] == null || pages[page][id & (PAGE_SIZE - 1)] == null)
+		{
+			throw new IllegalArgumentException("Unknown symbol id: " + id);
+		}
+		
+		return pages[page][id & (PAGE_SIZE - 1)];
+	}
+	
+	/**
+	 * @return Number of interned symbols
+	 */
+	public int size ()
+	{
+		return ids.size();
+	}
+	
+	public int getCapacity ()
+	{
+		return capacity;
+	}
+	
+	public String toString ()
+	{
+		return "SymbolTable[size=" + size() + ", capacity=" + capacity + "]";
+	}
+}
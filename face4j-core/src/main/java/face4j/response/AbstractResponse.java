@@ -1,18 +1,38 @@
 package face4j.response;
 
+import java.io.IOException;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+import face4j.json.CompressedPayload;
+import face4j.json.JsonReader;
 
 abstract class AbstractResponse
 {
 	protected static final Logger logger = LoggerFactory.getLogger(AbstractResponse.class);;
 	
+	/**
+	 * "failure" string constant
+	 */
+	private static final String FAILURE = "failure";
+	
 	protected final JSONObject response;
 	
+	/**
+	 * Deflated raw body, only kept when asked for with {@link ParseOptions#isRetainRaw()}
+	 */
+	private CompressedPayload raw;
+	
+	/**
+	 * Options of the ongoing {@link #parse(JsonReader, ParseOptions)}
+	 */
+	private ParseOptions options = ParseOptions.DEFAULT;
+	
 	protected AbstractResponse(final String json) throws FaceClientException
 	{	
 		try 
@@ -33,10 +53,165 @@ abstract class AbstractResponse
 		}
 	}
 	
+	/**
+	 * Constructor for responses decoded from a {@link JsonReader}. Subclasses set up their 
+	 * own state and then call {@link #parse(JsonReader)}.
+	 */
+	protected AbstractResponse()
+	{
+		response = null;
+	}
+	
+	/**
+	 * Reads the top level object of the response, handing each member to {@link #readField(String, JsonReader)}, 
+	 * and closes the reader. 
+	 * 
+	 * @throws FaceServerException if the response has a failure status
+	 */
+	protected final void parse(final JsonReader reader) throws FaceClientException, FaceServerException
+	{
+		parse(reader, ParseOptions.DEFAULT);
+	}
+	
+	/**
+	 * Same as {@link #parse(JsonReader)} but honoring the given {@code options}
+	 */
+	protected final void parse(final JsonReader reader, final ParseOptions options) throws FaceClientException, FaceServerException
+	{
+		this.options = options;
+		
+		if (options.isRetainRaw())
+		{
+			reader.captureRaw();
+		}
+		
+		String status = null;
+		String errorMessage = null;
+		int errorCode = 0;
+		
+		try
+		{
+			reader.beginObject();
+			
+			while (reader.hasNext())
+			{
+				final String name = reader.nextName();
+				
+				if ("status".equals(name))
+				{
+					status = reader.nextString();
+				}
+				
+				else if ("error_code".equals(name))
+				{
+					errorCode = reader.optInt(0);
+				}
+				
+				else if ("error_message".equals(name))
+				{
+					errorMessage = reader.nextString();
+				}
+				
+				else if (!readField(name, reader))
+				{
+					reader.skipValue();
+				}
+			}
+			
+			reader.endObject();
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.error("Error parsing response", ioe);
+			throw new FaceClientException(ioe);
+		}
+		
+		finally
+		{
+			closeQuietly(reader);
+			raw = reader.getRaw();
+		}
+		
+		if (FAILURE.equals(status))
+		{
+			final FaceServerException fse = new FaceServerException(errorMessage, errorCode);
+			
+			if (logger.isDebugEnabled())
+			{
+				logger.debug("Error: ", fse);
+			}
+			
+			throw fse;
+		}
+	}
+	
+	/**
+	 * Hook for reading a top level member of the response
+	 * 
+	 * @return {@code false} if the member was not consumed and should be skipped
+	 */
+	protected boolean readField(final String name, final JsonReader reader) throws IOException
+	{
+		return false;
+	}
+	
+	/**
+	 * @return The options responses are being decoded with, for {@link #readField(String, JsonReader)}
+	 */
+	protected final ParseOptions getParseOptions()
+	{
+		return options;
+	}
+	
+	/**
+	 * @throws FaceClientException if a required member was missing from the response
+	 */
+	protected static <T> T required(final T value, final String name) throws FaceClientException
+	{
+		if (value == null)
+		{
+			throw new FaceClientException("Response is missing \"" + name + "\"");
+		}
+		
+		return value;
+	}
+	
+	private static void closeQuietly(final JsonReader reader)
+	{
+		try
+		{
+			reader.close();
+		}
+		
+		catch (IOException ioe)
+		{
+			logger.debug("Error closing response", ioe);
+		}
+	}
+	
+	/**
+	 * @return The deflated raw body or {@code null} unless it was retained
+	 */
+	public CompressedPayload getRawResponse ()
+	{
+		return raw;
+	}
+	
 	public String toString ()
 	{
 		try
 		{
+			if (raw != null)
+			{
+				return new JSONObject(raw.toJson()).toString(2);
+			}
+			
+			if (response == null)
+			{
+				return getClass().getSimpleName();
+			}
+			
 			return response.toString(2);
 		}
 		
@@ -2,16 +2,19 @@ package face4j.response;
 
 import static face4j.response.ResponseHelper.toNamespaceList;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.json.JSONException;
 
 import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+import face4j.json.JsonReader;
 import face4j.model.Namespace;
 
 public class NamespaceResponseImpl extends AbstractResponse implements NamespaceResponse
 {	
-	private final List<Namespace> namespaces;
+	private List<Namespace> namespaces;
 	
 	public NamespaceResponseImpl(String json) throws FaceClientException
 	{
@@ -29,6 +32,31 @@ public class NamespaceResponseImpl extends AbstractResponse implements Namespace
 		}
 	}
 	
+	public NamespaceResponseImpl(final JsonReader reader) throws FaceClientException, FaceServerException
+	{
+		this(reader, ParseOptions.DEFAULT);
+	}
+	
+	public NamespaceResponseImpl(final JsonReader reader, final ParseOptions options) throws FaceClientException, FaceServerException
+	{
+		super();
+		parse(reader, options);
+		
+		required(namespaces, "namespaces");
+	}
+	
+	@Override
+	protected boolean readField(final String name, final JsonReader reader) throws IOException
+	{
+		if ("namespaces".equals(name))
+		{
+			namespaces = toNamespaceList(reader);
+			return true;
+		}
+		
+		return false;
+	}
+	
 	/* (non-Javadoc)
 	 * @see face4j.response.NamespaceResponse#getNamespaces()
 	 */
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import face4j.json.JsonArraySlices;
+import face4j.json.JsonReader;
+import face4j.model.Photo;
+import face4j.model.PhotoBuilder;
+import face4j.model.PhotoDecoder;
+import face4j.model.SymbolTable;
+
+/**
+ * Decodes the elements of a located array in contiguous runs, one task per run, and joins
+ * the runs in their original order.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+final class ParallelDecoder
+{
+	private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * Runs per processor, so a slow run does not hold up the whole array
+	 */
+	private static final int RUNS_PER_PROCESSOR = 4;
+	
+	// No Instances
+	private ParallelDecoder()
+	{
+		throw new AssertionError();
+	}
+	
+	/**
+	 * Lazily created pool of daemon threads, one per processor
+	 */
+	static ExecutorService sharedPool()
+	{
+		return SharedPool.INSTANCE;
+	}
+	
+	static List<Photo> toPhotoList(final JsonArraySlices slices, final ParseOptions options) throws IOException
+	{
+		final int size = slices.size();
+		
+		if (size < 2 || slices.length() < options.getParallelThreshold())
+		{
+			return decodeRun(slices, 0, size, options.getSymbolTable());
+		}
+		
+		final int runs = Math.min(size, PROCESSORS * RUNS_PER_PROCESSOR);
+		final List<Callable<List<Photo>>> tasks = new ArrayList<Callable<List<Photo>>>(runs);
+		
+		for (int r = 0; r < runs; r++)
+		{
+			final int from = (int) ((long) size * r / runs);
+			final int to   = (int) ((long) size * (r + 1) / runs);
+			
+			tasks.add(new Callable<List<Photo>>()
+			{
+				public List<Photo> call() throws IOException
+				{
+					return decodeRun(slices, from, to, options.getSymbolTable());
+				}
+			});
+		}
+		
+		try
+		{
+			final List<Photo> photos = new ArrayList<Photo>(size);
+			
+			for (Future<List<Photo>> run : options.getExecutor().invokeAll(tasks))
+			{
+				photos.addAll(run.get());
+			}
+			
+			return photos;
+		}
+		
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while decoding photos");
+		}
+		
+		catch (ExecutionException ee)
+		{
+			final Throwable cause = ee.getCause();
+			
+			if (cause instanceof IOException)
+			{
+				throw (IOException) cause;
+			}
+			
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			
+			if (cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+			
+			throw new IOException(String.valueOf(cause));
+		}
+	}
+	
+	private static List<Photo> decodeRun(final JsonArraySlices slices, final int from, final int to, 
+		final SymbolTable symbols) throws IOException
+	{
+		if (from == to)
+		{
+			return Collections.emptyList();
+		}
+		
+		final PhotoBuilder builder = new PhotoBuilder(symbols);
+		
+		for (int i = from; i < to; i++)
+		{
+			final JsonReader reader = slices.reader(i);
+			
+			try
+			{
+				PhotoDecoder.readPhoto(reader, builder);
+			}
+			
+			finally
+			{
+				reader.close();
+			}
+		}
+		
+		return builder.getPhotos();
+	}
+	
+	private static final class SharedPool
+	{
+		static final ExecutorService INSTANCE = Executors.newFixedThreadPool(PROCESSORS, new ThreadFactory()
+		{
+			private final AtomicInteger count = new AtomicInteger();
+			
+			public Thread newThread(final Runnable task)
+			{
+				final Thread thread = new Thread(task, "face4j-decoder-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				
+				return thread;
+			}
+		});
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.response;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.lang.Validate;
+
+import face4j.model.SymbolTable;
+
+/**
+ * Immutable settings for decoding responses from a {@link face4j.json.JsonReader}
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class ParseOptions
+{
+	/**
+	 * Keeps nothing but the typed model and decodes on the calling thread
+	 */
+	public static final ParseOptions DEFAULT = new ParseOptions(false, null, Integer.MAX_VALUE, null);
+	
+	/**
+	 * Default size of a {@code photos} array, in bytes, from which it is decoded in parallel
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 256 * 1024;
+	
+	private final boolean retainRaw;
+	
+	private final ExecutorService executor;
+	
+	private final int parallelThreshold;
+	
+	private final SymbolTable symbolTable;
+	
+	private ParseOptions(final boolean retainRaw, final ExecutorService executor, final int parallelThreshold, 
+		final SymbolTable symbolTable)
+	{
+		this.retainRaw         = retainRaw;
+		this.executor          = executor;
+		this.parallelThreshold = parallelThreshold;
+		this.symbolTable       = symbolTable;
+	}
+	
+	/**
+	 * @param retainRaw Whether responses keep a deflated copy of the raw body, which is 
+	 *                  printed by their {@code toString()}
+	 */
+	public ParseOptions withRetainRaw(final boolean retainRaw)
+	{
+		return new ParseOptions(retainRaw, executor, parallelThreshold, symbolTable);
+	}
+	
+	/**
+	 * Decodes the elements of {@code photos} arrays of at least {@code threshold} bytes on a 
+	 * shared pool with one thread per processor. The decoded list keeps the order of the response.
+	 */
+	public ParseOptions withParallelDecoding(final int threshold)
+	{
+		return withParallelDecoding(ParallelDecoder.sharedPool(), threshold);
+	}
+	
+	/**
+	 * Same as {@link #withParallelDecoding(int)} but on the given {@code executor}, which 
+	 * is not shut down by face4j
+	 */
+	public ParseOptions withParallelDecoding(final ExecutorService executor, final int threshold)
+	{
+		Validate.notNull(executor, "Executor is null");
+		Validate.isTrue(threshold >= 0, "Threshold must be positive");
+		
+		return new ParseOptions(retainRaw, executor, threshold, symbolTable);
+	}
+	
+	/**
+	 * Decodes everything on the calling thread
+	 */
+	public ParseOptions withoutParallelDecoding()
+	{
+		return new ParseOptions(retainRaw, null, Integer.MAX_VALUE, symbolTable);
+	}
+	
+	/**
+	 * Interns uids in {@code symbolTable}, so responses decoded with the same options share 
+	 * their uid strings and carry ids for them. {@code null} turns interning off.
+	 */
+	public ParseOptions withSymbolTable(final SymbolTable symbolTable)
+	{
+		return new ParseOptions(retainRaw, executor, parallelThreshold, symbolTable);
+	}
+	
+	public boolean isRetainRaw()
+	{
+		return retainRaw;
+	}
+	
+	public boolean isParallel()
+	{
+		return executor != null;
+	}
+	
+	/**
+	 * @return The executor for parallel decoding or {@code null} 
+	 */
+	public ExecutorService getExecutor()
+	{
+		return executor;
+	}
+	
+	public int getParallelThreshold()
+	{
+		return parallelThreshold;
+	}
+	
+	/**
+	 * @return The table uids are interned in or {@code null}
+	 */
+	public SymbolTable getSymbolTable()
+	{
+		return symbolTable;
+	}
+	
+	public String toString()
+	{
+		return "ParseOptions[retainRaw=" + retainRaw + ", parallel=" + isParallel() + ", threshold=" + parallelThreshold + ", symbols=" + symbolTable + "]";
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.response;
+
+import face4j.model.Photo;
+
+/**
+ * Receives the photos of a response one at a time, as soon as each has been decoded. The 
+ * decoder keeps no reference to a photo once it has been handed over. Memory only stays 
+ * bounded if the body itself is streamed, see 
+ * {@link face4j.FaceClient#getTags(String, String, String, String, String, boolean, int, PhotoHandler)}.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public interface PhotoHandler
+{
+	/**
+	 * Called once per photo in response order, on the thread that made the request. A 
+	 * {@code RuntimeException} thrown here aborts the call and closes the connection.
+	 */
+	public void onPhoto(Photo photo);
+}
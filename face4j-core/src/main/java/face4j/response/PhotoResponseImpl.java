@@ -1,91 +1,185 @@
-/*
- * Copyright (c) 2010 Marlon Hendred
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in
- * all copies or substantial portions of the Software.
- *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
- * THE SOFTWARE.
- */
-
-package face4j.response;
-
-import static face4j.response.ResponseHelper.toPhotoList;
-
-import java.util.List;
-
-import org.json.JSONException;
-
-import face4j.exception.FaceClientException;
-import face4j.model.Photo;
-
-public class PhotoResponseImpl extends LimitsResponseImpl implements PhotoResponse
-{	
-	private final List<Photo> photos;
-
-	public PhotoResponseImpl(final String json) throws FaceClientException
-	{
-		super(json);
-
-		try
-		{
-			photos = toPhotoList(response.getJSONArray("photos"));
-		}
-		
-		catch (JSONException jex)
-		{
-			logger.error("Error getting photos: " + jex.getMessage(), jex);
-			throw new FaceClientException(jex);
-		}
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see com.face.api.client.response.PhotoReponse#getPhotos()
-	 */
-	public List<Photo> getPhotos ()
-	{
-		return photos;
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see com.face.api.client.response.PhotoReponse#getPhoto()
-	 */
-	public Photo getPhoto ()
-	{
-		try
-		{
-			return photos.get(0);
-		}
-		
-		catch (IndexOutOfBoundsException ioob)
-		{
-			if (logger.isInfoEnabled())
-			{
-				logger.info("No photos...");
-			}
-			
-			return null;
-		}
-	}
-
-	public String toString ()
-	{
-		return super.toString();
-	}	
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.response;
+
+import static face4j.response.ResponseHelper.toPhotoList;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONException;
+
+import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+import face4j.json.JsonReader;
+import face4j.model.FaceVisitor;
+import face4j.model.Photo;
+import face4j.model.PhotoBuilder;
+import face4j.model.PhotoDecoder;
+import face4j.model.SymbolTable;
+
+public class PhotoResponseImpl extends LimitsResponseImpl implements PhotoResponse
+{	
+	private List<Photo> photos;
+	
+	/**
+	 * Receives the photos instead of {@link #photos} when streaming, {@code null} otherwise
+	 */
+	private final FaceVisitor visitor;
+
+	public PhotoResponseImpl(final String json) throws FaceClientException
+	{
+		super(json);
+		
+		visitor = null;
+
+		try
+		{
+			photos = toPhotoList(response.getJSONArray("photos"));
+		}
+		
+		catch (JSONException jex)
+		{
+			logger.error("Error getting photos: " + jex.getMessage(), jex);
+			throw new FaceClientException(jex);
+		}
+	}
+	
+	public PhotoResponseImpl(final JsonReader reader) throws FaceClientException, FaceServerException
+	{
+		this(reader, ParseOptions.DEFAULT);
+	}
+	
+	public PhotoResponseImpl(final JsonReader reader, final ParseOptions options) throws FaceClientException, FaceServerException
+	{
+		this(reader, options, (FaceVisitor) null);
+	}
+	
+	/**
+	 * Streams the photos to {@code handler} as they are decoded, the response itself keeps 
+	 * no photos. Parallel decoding does not apply.
+	 */
+	public PhotoResponseImpl(final JsonReader reader, final ParseOptions options, final PhotoHandler handler) 
+		throws FaceClientException, FaceServerException
+	{
+		this(reader, options, new HandlerAdapter(handler, options.getSymbolTable()));
+	}
+	
+	/**
+	 * Decodes the photos straight into {@code visitor}, the response itself keeps no photos. 
+	 * Parallel decoding does not apply.
+	 */
+	public PhotoResponseImpl(final JsonReader reader, final ParseOptions options, final FaceVisitor visitor) 
+		throws FaceClientException, FaceServerException
+	{
+		super();
+		
+		this.visitor = visitor;
+		
+		parse(reader, options);
+		
+		required(photos, "photos");
+	}
+	
+	@Override
+	protected boolean readField(final String name, final JsonReader reader) throws IOException
+	{
+		if ("photos".equals(name))
+		{
+			if (visitor == null)
+			{
+				photos = toPhotoList(reader, getParseOptions());
+			}
+			
+			else
+			{
+				PhotoDecoder.readPhotos(reader, visitor);
+				photos = Collections.emptyList();
+			}
+			
+			return true;
+		}
+		
+		return super.readField(name, reader);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.face.api.client.response.PhotoReponse#getPhotos()
+	 */
+	public List<Photo> getPhotos ()
+	{
+		return photos;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.face.api.client.response.PhotoReponse#getPhoto()
+	 */
+	public Photo getPhoto ()
+	{
+		try
+		{
+			return photos.get(0);
+		}
+		
+		catch (IndexOutOfBoundsException ioob)
+		{
+			if (logger.isInfoEnabled())
+			{
+				logger.info("No photos...");
+			}
+			
+			return null;
+		}
+	}
+
+	public String toString ()
+	{
+		return super.toString();
+	}	
+	
+	/**
+	 * Hands every built photo to a {@link PhotoHandler} instead of collecting it
+	 */
+	private static final class HandlerAdapter extends PhotoBuilder
+	{
+		private final PhotoHandler handler;
+		
+		HandlerAdapter(final PhotoHandler handler, final SymbolTable symbols)
+		{
+			super(symbols);
+			
+			this.handler = handler;
+		}
+		
+		@Override
+		protected void onPhoto(final Photo photo)
+		{
+			handler.onPhoto(photo);
+		}
+	}
 }
\ No newline at end of file
@@ -1,18 +1,24 @@
 package face4j.response;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import face4j.json.JsonReader;
+import face4j.json.JsonToken;
 import face4j.model.Group;
+import face4j.model.ImmutableArrayList;
 import face4j.model.Namespace;
 import face4j.model.Photo;
+import face4j.model.PhotoBuilder;
+import face4j.model.PhotoDecoder;
 import face4j.model.RemovedTag;
 import face4j.model.SavedTag;
+import face4j.model.SymbolTable;
 import face4j.model.UserStatus;
 
 /**
@@ -43,7 +49,7 @@ final class ResponseHelper
 			}
 		}
 		
-		return savedTags;
+		return ImmutableArrayList.copyOf(savedTags);
 	}
 	
 	static List<Photo> toPhotoList (JSONArray jArr) throws JSONException
@@ -60,7 +66,7 @@ final class ResponseHelper
 	
 	static List<UserStatus> toUserStatusList (JSONArray jArr) throws JSONException
 	{
-		final List<UserStatus> status = new LinkedList<UserStatus>();
+		final List<UserStatus> status = new ArrayList<UserStatus>();
 		
 		if (jArr != null) 
 		{
@@ -70,19 +76,19 @@ final class ResponseHelper
 			}
 		}
 		
-		return status;
+		return ImmutableArrayList.copyOf(status);
 	}
 	
 	static List<RemovedTag> toRemovedTagList (JSONArray jArr) throws JSONException
 	{
-		final List<RemovedTag> removedTags = new LinkedList<RemovedTag>();
+		final List<RemovedTag> removedTags = new ArrayList<RemovedTag>();
 		
 		for (int i = 0; i < jArr.length(); i++)
 		{
 			removedTags.add(new RemovedTag(jArr.getJSONObject(i)));
 		}
 		
-		return removedTags;
+		return ImmutableArrayList.copyOf(removedTags);
 	}
 	
 	static List<Group> toGroupList (JSONArray jArr) throws JSONException
@@ -94,7 +100,7 @@ final class ResponseHelper
 			groups.add(new Group(jArr.getJSONObject(i)));
 		}
 		
-		return groups;
+		return ImmutableArrayList.copyOf(groups);
 	}
 	
 	static List<String> toStringList (JSONArray jArr) throws JSONException
@@ -106,7 +112,7 @@ final class ResponseHelper
 			strings.add(jArr.getString(i));
 		}
 		
-		return strings;
+		return ImmutableArrayList.copyOf(strings);
 	}
 	
 	static List<Namespace> toNamespaceList (JSONArray jArr) throws JSONException
@@ -118,7 +124,146 @@ final class ResponseHelper
 			namespaces.add(new Namespace(jArr.getJSONObject(i)));
 		}
 		
-		return namespaces;
+		return ImmutableArrayList.copyOf(namespaces);
+	}
+	
+	static List<SavedTag> toSavedTagList (final JsonReader reader) throws IOException
+	{
+		final List<SavedTag> savedTags = new ArrayList<SavedTag>();
+		
+		if (reader.peek() == JsonToken.NULL)
+		{
+			reader.nextNull();
+			return ImmutableArrayList.of();
+		}
+		
+		reader.beginArray();
+		
+		while (reader.hasNext())
+		{
+			savedTags.add(new SavedTag(reader));
+		}
+		
+		reader.endArray();
+		
+		return ImmutableArrayList.copyOf(savedTags);
+	}
+	
+	static List<Photo> toPhotoList (final JsonReader reader) throws IOException
+	{
+		return toPhotoList(reader, (SymbolTable) null);
+	}
+	
+	static List<Photo> toPhotoList (final JsonReader reader, final SymbolTable symbols) throws IOException
+	{
+		final PhotoBuilder builder = new PhotoBuilder(symbols);
+		
+		PhotoDecoder.readPhotos(reader, builder);
+		
+		return builder.getPhotos();
+	}
+	
+	/**
+	 * Locates the elements first and decodes them in parallel when {@code options} ask for it
+	 */
+	static List<Photo> toPhotoList (final JsonReader reader, final ParseOptions options) throws IOException
+	{
+		if (!options.isParallel())
+		{
+			return toPhotoList(reader, options.getSymbolTable());
+		}
+		
+		return ParallelDecoder.toPhotoList(reader.nextArraySlices(), options);
+	}
+	
+	static List<UserStatus> toUserStatusList (final JsonReader reader, final SymbolTable symbols) throws IOException
+	{
+		final List<UserStatus> status = new ArrayList<UserStatus>();
+		
+		if (reader.peek() == JsonToken.NULL)
+		{
+			reader.nextNull();
+			return ImmutableArrayList.of();
+		}
+		
+		reader.beginArray();
+		
+		while (reader.hasNext())
+		{
+			status.add(new UserStatus(reader, symbols));
+		}
+		
+		reader.endArray();
+		
+		return ImmutableArrayList.copyOf(status);
+	}
+	
+	static List<RemovedTag> toRemovedTagList (final JsonReader reader) throws IOException
+	{
+		final List<RemovedTag> removedTags = new ArrayList<RemovedTag>();
+		
+		reader.beginArray();
+		
+		while (reader.hasNext())
+		{
+			removedTags.add(new RemovedTag(reader));
+		}
+		
+		reader.endArray();
+		
+		return ImmutableArrayList.copyOf(removedTags);
+	}
+	
+	static List<Group> toGroupList (final JsonReader reader, final SymbolTable symbols) throws IOException
+	{
+		final List<Group> groups = new ArrayList<Group>();
+		
+		reader.beginArray();
+		
+		while (reader.hasNext())
+		{
+			groups.add(new Group(reader, symbols));
+		}
+		
+		reader.endArray();
+		
+		return ImmutableArrayList.copyOf(groups);
+	}
+	
+	/**
+	 * @param symbols Canonicalizes the strings, may be {@code null}
+	 */
+	static List<String> toStringList (final JsonReader reader, final SymbolTable symbols) throws IOException
+	{
+		final List<String> strings = new ArrayList<String>();
+		
+		reader.beginArray();
+		
+		while (reader.hasNext())
+		{
+			final String string = reader.nextString();
+			strings.add((symbols == null) ? string : symbols.canonical(string));
+		}
+		
+		reader.endArray();
+		
+		return ImmutableArrayList.copyOf(strings);
+	}
+	
+	static List<Namespace> toNamespaceList (final JsonReader reader) throws IOException
+	{
+		final List<Namespace> namespaces = new ArrayList<Namespace>();
+		
+		reader.beginArray();
+		
+		while (reader.hasNext())
+		{
+			namespaces.add(new Namespace(reader));
+		}
+		
+		reader.endArray();
+		
+		return ImmutableArrayList.copyOf(namespaces);
 	}
 	
 	static int optInt (JSONObject jObj, String name) throws JSONException
@@ -1,43 +1,71 @@
-package face4j.response;
-
-import static face4j.response.ResponseHelper.toSavedTagList;
-
-import java.util.List;
-
-import org.json.JSONException;
-
-import face4j.exception.FaceClientException;
-import face4j.model.SavedTag;
-
-public class SaveTagResponseImpl extends AbstractResponse implements SaveTagResponse
-{	
-	private final List<SavedTag> tags;
-
-	public SaveTagResponseImpl(String json) throws FaceClientException
-	{
-		super (json);
-		
-		try
-		{
-			tags = toSavedTagList (response.getJSONArray("saved_tags"));
-		}
-		
-		catch (JSONException jex)
-		{
-			logger.error("Error getting saved_tags: " + jex.getMessage(), jex);
-			throw new FaceClientException(jex);
-		}
-	}
-
-	@Override
-	public List<SavedTag> getSavedTags ()
-	{
-		return tags;
-	}
-	
-	@Override
-	public String toString ()
-	{
-		return super.toString();
-	}
+package face4j.response;
+
+import static face4j.response.ResponseHelper.toSavedTagList;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.json.JSONException;
+
+import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+import face4j.json.JsonReader;
+import face4j.model.SavedTag;
+
+public class SaveTagResponseImpl extends AbstractResponse implements SaveTagResponse
+{	
+	private List<SavedTag> tags;
+
+	public SaveTagResponseImpl(String json) throws FaceClientException
+	{
+		super (json);
+		
+		try
+		{
+			tags = toSavedTagList (response.getJSONArray("saved_tags"));
+		}
+		
+		catch (JSONException jex)
+		{
+			logger.error("Error getting saved_tags: " + jex.getMessage(), jex);
+			throw new FaceClientException(jex);
+		}
+	}
+	
+	public SaveTagResponseImpl(final JsonReader reader) throws FaceClientException, FaceServerException
+	{
+		this(reader, ParseOptions.DEFAULT);
+	}
+	
+	public SaveTagResponseImpl(final JsonReader reader, final ParseOptions options) throws FaceClientException, FaceServerException
+	{
+		super();
+		parse(reader, options);
+		
+		required(tags, "saved_tags");
+	}
+	
+	@Override
+	protected boolean readField(final String name, final JsonReader reader) throws IOException
+	{
+		if ("saved_tags".equals(name))
+		{
+			tags = toSavedTagList(reader);
+			return true;
+		}
+		
+		return false;
+	}
+
+	@Override
+	public List<SavedTag> getSavedTags ()
+	{
+		return tags;
+	}
+	
+	@Override
+	public String toString ()
+	{
+		return super.toString();
+	}
 }
\ No newline at end of file
@@ -1,122 +1,182 @@
-/*
- * Copyright (c) 2010 Marlon Hendred
- * 
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in
- * all copies or substantial portions of the Software.
- *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
- * THE SOFTWARE.
- */
-
-package face4j.response;
-
-import static face4j.response.ResponseHelper.toUserStatusList;
-
-import java.util.List;
-
-import org.json.JSONException;
-
-import face4j.exception.FaceClientException;
-import face4j.model.UserStatus;
-
-public final class TrainResponseImpl extends AbstractResponse implements TrainResponse
-{	
-	private List<UserStatus> created;
-
-	private List<UserStatus> no_training_set;
-
-	private List<UserStatus> updated;
-
-	private List<UserStatus> unchanged;
-
-	private List<UserStatus> in_progress;
-
-	public TrainResponseImpl(final String json) throws FaceClientException
-	{
-		super (json);
-		
-		try
-		{
-			no_training_set = toUserStatusList(response.optJSONArray("no_training_set"));
-			in_progress = toUserStatusList(response.optJSONArray("in_progress"));
-			unchanged = toUserStatusList(response.optJSONArray("unchanged"));
-			updated = toUserStatusList(response.optJSONArray("updated"));
-			created = toUserStatusList(response.optJSONArray("created"));
-
-		}
-		
-		catch (JSONException jex)
-		{
-			logger.error("Error getting user statuses: " + jex.getMessage(), jex);
-			throw new FaceClientException(jex);
-		}
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see com.face.api.client.response.TrainResponse#getCreated()
-	 */
-	public final List<UserStatus> getCreated ()
-	{
-		
-		return created;
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see com.face.api.client.response.TrainResponse#getNoTrainingSet()
-	 */
-	public final List<UserStatus> getNoTrainingSet ()
-	{
-		return (no_training_set);
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see com.face.api.client.response.TrainResponse#getUpdated()
-	 */
-	public final List<UserStatus> getUpdated ()
-	{
-		return (updated);
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see com.face.api.client.response.TrainResponse#getUnchanged()
-	 */
-	public final List<UserStatus> getUnchanged ()
-	{
-		return (unchanged);
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see com.face.api.client.response.TrainResponse#getInProgress()
-	 */
-	public final List<UserStatus> getInProgress ()
-	{
-		return (in_progress);
-	}
-
-	public String toString ()
-	{
-		return super.toString();
-	}
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.response;
+
+import static face4j.response.ResponseHelper.toUserStatusList;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONException;
+
+import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+import face4j.json.JsonReader;
+import face4j.model.UserStatus;
+
+public final class TrainResponseImpl extends AbstractResponse implements TrainResponse
+{	
+	private List<UserStatus> created;
+
+	private List<UserStatus> no_training_set;
+
+	private List<UserStatus> updated;
+
+	private List<UserStatus> unchanged;
+
+	private List<UserStatus> in_progress;
+
+	public TrainResponseImpl(final String json) throws FaceClientException
+	{
+		super (json);
+		
+		try
+		{
+			no_training_set = toUserStatusList(response.optJSONArray("no_training_set"));
+			in_progress = toUserStatusList(response.optJSONArray("in_progress"));
+			unchanged = toUserStatusList(response.optJSONArray("unchanged"));
+			updated = toUserStatusList(response.optJSONArray("updated"));
+			created = toUserStatusList(response.optJSONArray("created"));
+
+		}
+		
+		catch (JSONException jex)
+		{
+			logger.error("Error getting user statuses: " + jex.getMessage(), jex);
+			throw new FaceClientException(jex);
+		}
+	}
+	
+	public TrainResponseImpl(final JsonReader reader) throws FaceClientException, FaceServerException
+	{
+		this(reader, ParseOptions.DEFAULT);
+	}
+	
+	public TrainResponseImpl(final JsonReader reader, final ParseOptions options) throws FaceClientException, FaceServerException
+	{
+		super();
+		
+		final List<UserStatus> none = Collections.emptyList();
+		
+		no_training_set = none;
+		in_progress = none;
+		unchanged = none;
+		updated = none;
+		created = none;
+		
+		parse(reader, options);
+	}
+	
+	@Override
+	protected boolean readField(final String name, final JsonReader reader) throws IOException
+	{
+		if ("no_training_set".equals(name))
+		{
+			no_training_set = toUserStatusList(reader, getParseOptions().getSymbolTable());
+		}
+		
+		else if ("in_progress".equals(name))
+		{
+			in_progress = toUserStatusList(reader, getParseOptions().getSymbolTable());
+		}
+		
+		else if ("unchanged".equals(name))
+		{
+			unchanged = toUserStatusList(reader, getParseOptions().getSymbolTable());
+		}
+		
+		else if ("updated".equals(name))
+		{
+			updated = toUserStatusList(reader, getParseOptions().getSymbolTable());
+		}
+		
+		else if ("created".equals(name))
+		{
+			created = toUserStatusList(reader, getParseOptions().getSymbolTable());
+		}
+		
+		else
+		{
+			return false;
+		}
+		
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.face.api.client.response.TrainResponse#getCreated()
+	 */
+	public final List<UserStatus> getCreated ()
+	{
+		
+		return created;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.face.api.client.response.TrainResponse#getNoTrainingSet()
+	 */
+	public final List<UserStatus> getNoTrainingSet ()
+	{
+		return (no_training_set);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.face.api.client.response.TrainResponse#getUpdated()
+	 */
+	public final List<UserStatus> getUpdated ()
+	{
+		return (updated);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.face.api.client.response.TrainResponse#getUnchanged()
+	 */
+	public final List<UserStatus> getUnchanged ()
+	{
+		return (unchanged);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.face.api.client.response.TrainResponse#getInProgress()
+	 */
+	public final List<UserStatus> getInProgress ()
+	{
+		return (in_progress);
+	}
+
+	public String toString ()
+	{
+		return super.toString();
+	}
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package face4j.response;
 
 import static face4j.response.ResponseHelper.toStringList;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +11,8 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+import face4j.json.JsonReader;
 
 public class UsersResponseImpl extends AbstractResponse implements UsersResponse
 {
@@ -39,6 +42,44 @@ public class UsersResponseImpl extends AbstractResponse implements UsersResponse
 		
 	}
 	
+	/**
+	 * Decodes the users of every namespace present in the response
+	 */
+	public UsersResponseImpl(final JsonReader reader) throws FaceClientException, FaceServerException
+	{
+		this(reader, ParseOptions.DEFAULT);
+	}
+	
+	public UsersResponseImpl(final JsonReader reader, final ParseOptions options) throws FaceClientException, FaceServerException
+	{
+		super();
+		
+		userNamespaceMap = new HashMap<String, List<String>>();
+		
+		parse(reader, options);
+	}
+	
+	@Override
+	protected boolean readField(final String name, final JsonReader reader) throws IOException
+	{
+		if (!"users".equals(name))
+		{
+			return false;
+		}
+		
+		reader.beginObject();
+		
+		while (reader.hasNext())
+		{
+			final String namespace = reader.nextName();
+			userNamespaceMap.put(namespace, toStringList(reader, getParseOptions().getSymbolTable()));
+		}
+		
+		reader.endObject();
+		
+		return true;
+	}
+	
 	/* (non-Javadoc)
 	 * @see face4j.response.UsersResponse#getUsers(java.lang.String)
 	 */
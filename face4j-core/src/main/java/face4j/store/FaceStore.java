@@ -0,0 +1,616 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+
+import face4j.model.Face;
+import face4j.model.FaceData;
+import face4j.model.FaceVisitor;
+import face4j.model.Gender;
+import face4j.model.Photo;
+import face4j.model.Point;
+
+/**
+ * Off heap store of face results. Every face is written as a fixed 128 byte record into 
+ * direct or memory mapped buffers, strings are kept as ids into a {@link StringDictionary}. 
+ * Records are addressed by a {@code long} index so the store can hold far more faces than 
+ * fit on the heap, and scanning it creates no garbage.
+ * <p>
+ * Record layout, little endian:
+ * <pre>
+ *   0  int     tid id
+ *   4  int     pid id
+ *   8  int     top guess uid id
+ *  12  float   width, height, yaw, roll, pitch
+ *  32  int     landmark mask, bit n set when landmark n is present
+ *  36  float   x and y of the {@link FaceData#LANDMARKS} landmarks
+ * 116  byte    face, smiling, glasses, gender and top guess confidence
+ * 121  byte    gender, {@code Gender} ordinal + 1 or 0 if unknown to the response
+ * 122  short   flags: smiling, glasses, confirmed, manual, recognizable
+ * 124  int     threshold
+ * </pre>
+ * A file backed store keeps its records in {@code faces.dat} and its dictionary in 
+ * {@code strings.dat}; {@link #flush()} makes everything appended so far durable. 
+ * <p>
+ * Appending is not thread safe. Records below {@link #size()} may be read concurrently once 
+ * the appending thread has published the store.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class FaceStore implements FaceVisitor, Closeable
+{
+	public static final int RECORD_SIZE = 128;
+	
+	private static final int TID        = 0;
+	private static final int PID        = 4;
+	private static final int GUESS_UID  = 8;
+	private static final int WIDTH      = 12;
+	private static final int HEIGHT     = 16;
+	private static final int YAW        = 20;
+	private static final int ROLL       = 24;
+	private static final int PITCH      = 28;
+	private static final int MASK       = 32;
+	private static final int LANDMARKS  = 36;
+	private static final int FACE_CONF  = 116;
+	private static final int SMILE_CONF = 117;
+	private static final int GLASS_CONF = 118;
+	private static final int GENDR_CONF = 119;
+	private static final int GUESS_CONF = 120;
+	private static final int GENDER     = 121;
+	private static final int FLAGS      = 122;
+	private static final int THRESHOLD  = 124;
+	
+	private static final int SMILING      = 1;
+	private static final int GLASSES      = 1 << 1;
+	private static final int CONFIRMED    = 1 << 2;
+	private static final int MANUAL       = 1 << 3;
+	private static final int RECOGNIZABLE = 1 << 4;
+	
+	/**
+	 * 64K records (8MB) per chunk
+	 */
+	private static final int CHUNK_SHIFT = 16;
+	
+	private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+	
+	private static final long CHUNK_BYTES = (long) CHUNK_RECORDS * RECORD_SIZE;
+	
+	private static final int HEADER_SIZE = 64;
+	
+	private static final int MAGIC = 0x46344A53;
+	
+	private static final int VERSION = 1;
+	
+	private static final Gender[] GENDERS = Gender.values();
+	
+	private final StringDictionary strings;
+	
+	private final FileChannel channel;
+	
+	private final RandomAccessFile file;
+	
+	private final MappedByteBuffer header;
+	
+	private ByteBuffer[] chunks = new ByteBuffer[16];
+	
+	private volatile long size;
+	
+	/**
+	 * First record of the photo being visited, its pid is only known at its end
+	 */
+	private long photoStart;
+	
+	private FaceStore(final StringDictionary strings, final RandomAccessFile file) throws IOException
+	{
+		this.strings = strings;
+		this.file    = file;
+		
+		if (file == null)
+		{
+			channel = null;
+			header  = null;
+			return;
+		}
+		
+		channel = file.getChannel();
+		header  = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		
+		if (header.getInt(0) == 0)
+		{
+			header.putInt(0, MAGIC);
+			header.putInt(4, VERSION);
+			header.putInt(8, RECORD_SIZE);
+		}
+		
+		else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != RECORD_SIZE)
+		{
+			throw new IOException("Not a face store or unsupported version");
+		}
+		
+		size = header.getLong(16);
+		photoStart = size;
+		
+		for (long chunk = 0; chunk < chunkCount(size); chunk++)
+		{
+			chunk((int) chunk);
+		}
+	}
+	
+	/**
+	 * Creates a store backed by direct buffers, its contents are lost when it is closed
+	 */
+	public static FaceStore allocate ()
+	{
+		try
+		{
+			return new FaceStore(new StringDictionary(), null);
+		}
+		
+		catch (IOException ioe)
+		{
+			throw new AssertionError(ioe);
+		}
+	}
+	
+	/**
+	 * Opens the store in {@code directory}, creating it if needed
+	 */
+	public static FaceStore open (final File directory) throws IOException
+	{
+		if (!directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IOException("Can't create " + directory);
+		}
+		
+		final StringDictionary strings = new StringDictionary(new File(directory, "strings.dat"));
+		final RandomAccessFile file = new RandomAccessFile(new File(directory, "faces.dat"), "rw");
+		
+		try
+		{
+			return new FaceStore(strings, file);
+		}
+		
+		catch (IOException ioe)
+		{
+			file.close();
+			strings.close();
+			throw ioe;
+		}
+	}
+	
+	private static long chunkCount (final long records)
+	{
+		return (records + CHUNK_RECORDS - 1) >>> CHUNK_SHIFT;
+	}
+	
+	private ByteBuffer chunk (final int chunk) throws IOException
+	{
+		if (chunk >= chunks.length)
+		{
+			chunks = Arrays.copyOf(chunks, Math.max(chunks.length * 2, chunk + 1));
+		}
+		
+		ByteBuffer buffer = chunks[chunk];
+		
+		if (buffer == null)
+		{
+			if (channel == null)
+			{
+				buffer = ByteBuffer.allocateDirect((int) CHUNK_BYTES);
+			}
+			
+			else
+			{
+				buffer = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + chunk * CHUNK_BYTES, CHUNK_BYTES);
+			}
+			
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			chunks[chunk] = buffer;
+		}
+		
+		return buffer;
+	}
+	
+	/**
+	 * @return The chunk holding record {@code index}
+	 */
+	private ByteBuffer buffer (final long index)
+	{
+		if (index < 0 || index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		
+		return chunks[(int) (index >>> CHUNK_SHIFT)];
+	}
+	
+	private static int offset (final long index)
+	{
+		return (int) (index & (CHUNK_RECORDS - 1)) * RECORD_SIZE;
+	}
+	
+	/**
+	 * Appends every face of {@code photos}
+	 */
+	public void appendAll (final List<Photo> photos) throws IOException
+	{
+		for (Photo photo : photos)
+		{
+			append(photo);
+		}
+	}
+	
+	/**
+	 * Appends every face of {@code photo}
+	 */
+	public void append (final Photo photo) throws IOException
+	{
+		final int pid = strings.intern(photo.getPID());
+		
+		for (Face face : photo.getFaces())
+		{
+			final long index = size;
+			final ByteBuffer b = chunk((int) (index >>> CHUNK_SHIFT));
+			final int o = offset(index);
+			
+			final boolean guessed = face.getGuessCount() > 0;
+			
+			b.putInt(o + TID, strings.intern(face.getTID()));
+			b.putInt(o + PID, pid);
+			b.putInt(o + GUESS_UID, guessed ? strings.intern(face.getGuessUID(0)) : StringDictionary.NONE);
+			b.put(o + GUESS_CONF, guessed ? (byte) face.getGuessConfidence(0) : 0);
+			
+			b.putFloat(o + WIDTH, (float) face.getWidth());
+			b.putFloat(o + HEIGHT, (float) face.getHeight());
+			b.putFloat(o + YAW, face.getYaw());
+			b.putFloat(o + ROLL, face.getRoll());
+			b.putFloat(o + PITCH, face.getPitch());
+			
+			int mask = 0;
+			
+			for (int i = 0; i < FaceData.LANDMARKS; i++)
+			{
+				final Point p = face.getLandmark(i);
+				
+				b.putFloat(o + LANDMARKS + i * 8, (p == null) ? 0 : p.x);
+				b.putFloat(o + LANDMARKS + i * 8 + 4, (p == null) ? 0 : p.y);
+				
+				mask |= (p == null) ? 0 : 1 << i;
+			}
+			
+			b.putInt(o + MASK, mask);
+			
+			putAttributes(b, o, face.getFaceConfidence(), face.getSmilingConfidence(), face.getGlassesConfidence(), 
+				face.getGenderConfidence(), face.getGender(), face.getThreshHold());
+			
+			b.putShort(o + FLAGS, flags(face.isSmiling(), face.isWearingGlasses(), face.isConfirmed(), 
+				face.isManual(), face.IsRecognizable()));
+			
+			size = index + 1;
+		}
+		
+		photoStart = size;
+	}
+	
+	/**
+	 * Appends a face straight from the decoder, its pid is filled in by 
+	 * {@link #onPhoto(String, String, int, int, int)}
+	 */
+	public void onFace (final FaceData face)
+	{
+		try
+		{
+			final long index = size;
+			final ByteBuffer b = chunk((int) (index >>> CHUNK_SHIFT));
+			final int o = offset(index);
+			
+			int best = -1;
+			
+			for (int g = 0; g < face.getGuessCount(); g++)
+			{
+				if (best == -1 || face.getGuessConfidence(g) > face.getGuessConfidence(best))
+				{
+					best = g;
+				}
+			}
+			
+			b.putInt(o + TID, strings.intern(face.getTID()));
+			b.putInt(o + PID, StringDictionary.NONE);
+			b.putInt(o + GUESS_UID, (best == -1) ? StringDictionary.NONE : strings.intern(face.getGuessUID(best)));
+			b.put(o + GUESS_CONF, (best == -1) ? 0 : (byte) face.getGuessConfidence(best));
+			
+			b.putFloat(o + WIDTH, face.getWidth());
+			b.putFloat(o + HEIGHT, face.getHeight());
+			b.putFloat(o + YAW, face.getYaw());
+			b.putFloat(o + ROLL, face.getRoll());
+			b.putFloat(o + PITCH, face.getPitch());
+			
+			for (int i = 0; i < FaceData.LANDMARKS; i++)
+			{
+				b.putFloat(o + LANDMARKS + i * 8, face.getX(i));
+				b.putFloat(o + LANDMARKS + i * 8 + 4, face.getY(i));
+			}
+			
+			b.putInt(o + MASK, face.getLandmarkMask());
+			
+			putAttributes(b, o, face.getFaceConfidence(), face.getSmilingConfidence(), face.getGlassesConfidence(), 
+				face.getGenderConfidence(), face.getGender(), face.getThreshold());
+			
+			b.putShort(o + FLAGS, flags(face.isSmiling(), face.isWearingGlasses(), face.isConfirmed(), 
+				face.isManual(), face.isRecognizable()));
+			
+			size = index + 1;
+		}
+		
+		catch (IOException ioe)
+		{
+			throw new IllegalStateException("Can't grow the face store", ioe);
+		}
+	}
+	
+	public void onPhoto (final String pid, final String url, final int width, final int height, final int faceCount)
+	{
+		try
+		{
+			final int id = strings.intern(pid);
+			
+			for (long index = photoStart; index < size; index++)
+			{
+				buffer(index).putInt(offset(index) + PID, id);
+			}
+			
+			photoStart = size;
+		}
+		
+		catch (IOException ioe)
+		{
+			throw new IllegalStateException("Can't grow the face store", ioe);
+		}
+	}
+	
+	private static void putAttributes (final ByteBuffer b, final int o, final int face, final int smiling, 
+		final int glasses, final int gender, final Gender value, final int threshold)
+	{
+		b.put(o + FACE_CONF, (byte) face);
+		b.put(o + SMILE_CONF, (byte) smiling);
+		b.put(o + GLASS_CONF, (byte) glasses);
+		b.put(o + GENDR_CONF, (byte) gender);
+		b.put(o + GENDER, (value == null) ? 0 : (byte) (value.ordinal() + 1));
+		b.putInt(o + THRESHOLD, threshold);
+	}
+	
+	private static short flags (final boolean smiling, final boolean glasses, final boolean confirmed, 
+		final boolean manual, final boolean recognizable)
+	{
+		return (short) ((smiling ? SMILING : 0) | (glasses ? GLASSES : 0) | (confirmed ? CONFIRMED : 0) 
+			| (manual ? MANUAL : 0) | (recognizable ? RECOGNIZABLE : 0));
+	}
+	
+	/**
+	 * @return Number of faces in the store
+	 */
+	public long size ()
+	{
+		return size;
+	}
+	
+	public StringDictionary getStrings ()
+	{
+		return strings;
+	}
+	
+	public String getTID (final long index)
+	{
+		return strings.get(buffer(index).getInt(offset(index) + TID));
+	}
+	
+	/**
+	 * @return The pid of the photo the face was found in, {@code null} while that photo is 
+	 * still being visited
+	 */
+	public String getPID (final long index)
+	{
+		return strings.get(buffer(index).getInt(offset(index) + PID));
+	}
+	
+	/**
+	 * @return The uid of the most confident guess or {@code null} if there was none
+	 */
+	public String getTopGuessUID (final long index)
+	{
+		return strings.get(buffer(index).getInt(offset(index) + GUESS_UID));
+	}
+	
+	public int getTopGuessConfidence (final long index)
+	{
+		return buffer(index).get(offset(index) + GUESS_CONF);
+	}
+	
+	public float getWidth (final long index)
+	{
+		return buffer(index).getFloat(offset(index) + WIDTH);
+	}
+	
+	public float getHeight (final long index)
+	{
+		return buffer(index).getFloat(offset(index) + HEIGHT);
+	}
+	
+	public float getYaw (final long index)
+	{
+		return buffer(index).getFloat(offset(index) + YAW);
+	}
+	
+	public float getRoll (final long index)
+	{
+		return buffer(index).getFloat(offset(index) + ROLL);
+	}
+	
+	public float getPitch (final long index)
+	{
+		return buffer(index).getFloat(offset(index) + PITCH);
+	}
+	
+	public boolean hasLandmark (final long index, final int landmark)
+	{
+		return (buffer(index).getInt(offset(index) + MASK) & (1 << landmark)) != 0;
+	}
+	
+	public float getX (final long index, final int landmark)
+	{
+		return buffer(index).getFloat(offset(index) + LANDMARKS + landmark * 8);
+	}
+	
+	public float getY (final long index, final int landmark)
+	{
+		return buffer(index).getFloat(offset(index) + LANDMARKS + landmark * 8 + 4);
+	}
+	
+	public int getFaceConfidence (final long index)
+	{
+		return buffer(index).get(offset(index) + FACE_CONF);
+	}
+	
+	public int getSmilingConfidence (final long index)
+	{
+		return buffer(index).get(offset(index) + SMILE_CONF);
+	}
+	
+	public int getGlassesConfidence (final long index)
+	{
+		return buffer(index).get(offset(index) + GLASS_CONF);
+	}
+	
+	public int getGenderConfidence (final long index)
+	{
+		return buffer(index).get(offset(index) + GENDR_CONF);
+	}
+	
+	/**
+	 * @return The gender or {@code null} if the response had none
+	 */
+	public Gender getGender (final long index)
+	{
+		final int code = buffer(index).get(offset(index) + GENDER);
+		
+		return (code == 0) ? null : GENDERS[code - 1];
+	}
+	
+	public int getThreshold (final long index)
+	{
+		return buffer(index).getInt(offset(index) + THRESHOLD);
+	}
+	
+	private boolean flag (final long index, final int flag)
+	{
+		return (buffer(index).getShort(offset(index) + FLAGS) & flag) != 0;
+	}
+	
+	public boolean isSmiling (final long index)
+	{
+		return flag(index, SMILING);
+	}
+	
+	public boolean isWearingGlasses (final long index)
+	{
+		return flag(index, GLASSES);
+	}
+	
+	public boolean isConfirmed (final long index)
+	{
+		return flag(index, CONFIRMED);
+	}
+	
+	public boolean isManual (final long index)
+	{
+		return flag(index, MANUAL);
+	}
+	
+	public boolean isRecognizable (final long index)
+	{
+		return flag(index, RECOGNIZABLE);
+	}
+	
+	/**
+	 * Writes the dictionary and record count and forces mapped records to disk. Does nothing 
+	 * for an in memory store.
+	 */
+	public void flush () throws IOException
+	{
+		if (channel == null)
+		{
+			return;
+		}
+		
+		strings.flush();
+		
+		for (int chunk = 0; chunk < chunkCount(size); chunk++)
+		{
+			((MappedByteBuffer) chunks[chunk]).force();
+		}
+		
+		header.putLong(16, size);
+		header.force();
+	}
+	
+	/**
+	 * Flushes a file backed store and releases it. Mapped buffers are unmapped once they are 
+	 * garbage collected.
+	 */
+	public void close () throws IOException
+	{
+		try
+		{
+			flush();
+		}
+		
+		finally
+		{
+			Arrays.fill(chunks, null);
+			size = 0;
+			
+			if (file != null)
+			{
+				strings.close();
+				file.close();
+			}
+		}
+	}
+	
+	public String toString ()
+	{
+		return "FaceStore[size=" + size + ", strings=" + strings.size() + "]";
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2010 Marlon Hendred
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package face4j.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the strings referenced by a {@link FaceStore} (tids, uids, pids) to dense int ids, so 
+ * records only hold fixed width references. Ids are assigned in order starting at 0; 
+ * {@link #NONE} stands for {@code null}.
+ * <p>
+ * When backed by a file every new string is appended to it, the file is read back in full 
+ * when the dictionary is reopened. Not thread safe.
+ * 
+ * @author Marlon Hendred
+ *
+ */
+public final class StringDictionary
+{
+	public static final int NONE = -1;
+	
+	private final Map<String, Integer> ids = new HashMap<String, Integer>();
+	
+	private final List<String> strings = new ArrayList<String>();
+	
+	private final DataOutputStream out;
+	
+	/**
+	 * Creates an in memory dictionary
+	 */
+	public StringDictionary()
+	{
+		out = null;
+	}
+	
+	/**
+	 * Opens the dictionary stored in {@code file}, creating it if needed
+	 */
+	public StringDictionary(final File file) throws IOException
+	{
+		if (file.exists())
+		{
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			
+			try
+			{
+				while (true)
+				{
+					add(in.readUTF());
+				}
+			}
+			
+			catch (EOFException eof)
+			{
+				// Done
+			}
+			
+			finally
+			{
+				in.close();
+			}
+		}
+		
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+	}
+	
+	private int add (final String string)
+	{
+		final int id = strings.size();
+		
+		strings.add(string);
+		ids.put(string, id);
+		
+		return id;
+	}
+	
+	/**
+	 * @return The id of {@code string}, assigning the next free one if it is new
+	 */
+	public int intern (final String string) throws IOException
+	{
+		if (string == null)
+		{
+			return NONE;
+		}
+		
+		final Integer id = ids.get(string);
+		
+		if (id != null)
+		{
+			return id;
+		}
+		
+		if (out != null)
+		{
+			out.writeUTF(string);
+		}
+		
+		return add(string);
+	}
+	
+	/**
+	 * @return The string for {@code id} or {@code null} for {@link #NONE}
+	 */
+	public String get (final int id)
+	{
+		return (id == NONE) ? null : strings.get(id);
+	}
+	
+	public int size ()
+	{
+		return strings.size();
+	}
+	
+	void flush () throws IOException
+	{
+		if (out != null)
+		{
+			out.flush();
+		}
+	}
+	
+	void close () throws IOException
+	{
+		if (out != null)
+		{
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,218 @@
+package face4j.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.http.NameValuePair;
+
+import face4j.StreamingResponder;
+
+/**
+ * Answers POSTs by path, else with the default body, else with the number of the call,
+ * see {@link #post(int)}. Counts the calls per path and the closed responses, and keeps
+ * the uploaded files with their bytes. A call can be made to fail once, to wait for a
+ * gate or to take a delay first.
+ */
+public class FakeResponder implements StreamingResponder
+{
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	private final Map<String, String> bodies = new ConcurrentHashMap<String, String>();
+	
+	private final ConcurrentMap<String, AtomicInteger> calls = new ConcurrentHashMap<String, AtomicInteger>();
+	
+	private final AtomicInteger posts = new AtomicInteger();
+	
+	private final AtomicInteger closed = new AtomicInteger();
+	
+	private final AtomicReference<String> failure = new AtomicReference<String>();
+	
+	private final List<File> uploads = Collections.synchronizedList(new ArrayList<File>());
+	
+	private final List<byte[]> uploadedBytes = Collections.synchronizedList(new ArrayList<byte[]>());
+	
+	private volatile String body;
+	
+	private volatile CountDownLatch gate;
+	
+	private volatile long delay;
+	
+	public FakeResponder()
+	{
+	}
+	
+	public FakeResponder(String body)
+	{
+		this.body = body;
+	}
+	
+	/**
+	 * @return The answer to the {@code n}th call without a body
+	 */
+	public static String post(int n)
+	{
+		return "{\"post\":" + n + ",\"status\":\"success\"}";
+	}
+	
+	/**
+	 * Answers calls to {@code path}, such as {@code /faces/detect.json}, with {@code body}
+	 */
+	public FakeResponder answer(String path, String body)
+	{
+		bodies.put(path, body);
+		return this;
+	}
+	
+	/**
+	 * Answers calls to paths without a body of their own with {@code body}
+	 */
+	public void setBody(String body)
+	{
+		this.body = body;
+	}
+	
+	/**
+	 * Answers the next call with {@code failure} rather than its body
+	 */
+	public void failOnce(String failure)
+	{
+		this.failure.set(failure);
+	}
+	
+	/**
+	 * Makes every call wait for {@code gate}, once it's counted
+	 */
+	public void setGate(CountDownLatch gate)
+	{
+		this.gate = gate;
+	}
+	
+	public void setDelay(long millis)
+	{
+		this.delay = millis;
+	}
+	
+	public int posts()
+	{
+		return posts.get();
+	}
+	
+	public int posts(String path)
+	{
+		final AtomicInteger n = calls.get(path);
+		
+		return (n == null) ? 0 : n.get();
+	}
+	
+	/**
+	 * @return The number of response streams closed
+	 */
+	public int closed()
+	{
+		return closed.get();
+	}
+	
+	public List<File> getUploads()
+	{
+		return uploads;
+	}
+	
+	/**
+	 * @return The contents of the uploads, read while they still existed
+	 */
+	public List<byte[]> getUploadedBytes()
+	{
+		return uploadedBytes;
+	}
+	
+	public String doGet(URI uri)
+	{
+		throw new UnsupportedOperationException();
+	}
+	
+	public String doPost(URI uri, List<NameValuePair> params)
+	{
+		return doPost(null, uri, params);
+	}
+	
+	public String doPost(File file, URI uri, List<NameValuePair> params)
+	{
+		return new String(answer(file, uri), UTF8);
+	}
+	
+	public InputStream doPostStream(URI uri, List<NameValuePair> params)
+	{
+		return doPostStream(null, uri, params);
+	}
+	
+	public InputStream doPostStream(File file, URI uri, List<NameValuePair> params)
+	{
+		return new ByteArrayInputStream(answer(file, uri))
+		{
+			@Override
+			public void close()
+			{
+				closed.incrementAndGet();
+			}
+		};
+	}
+	
+	private byte[] answer(File file, URI uri)
+	{
+		final String path = uri.getPath();
+		final int n = posts.incrementAndGet();
+		
+		calls.putIfAbsent(path, new AtomicInteger());
+		calls.get(path).incrementAndGet();
+		
+		try
+		{
+			if (file != null)
+			{
+				uploads.add(file);
+				uploadedBytes.add(FileUtils.readFileToByteArray(file));
+			}
+			
+			if (gate != null)
+			{
+				gate.await();
+			}
+			
+			if (delay > 0)
+			{
+				Thread.sleep(delay);
+			}
+		}
+		
+		catch (IOException ioe)
+		{
+			throw new IllegalStateException(ioe);
+		}
+		
+		catch (InterruptedException ie)
+		{
+			throw new IllegalStateException(ie);
+		}
+		
+		final String failed = failure.getAndSet(null);
+		final String answer = (failed != null) ? failed
+			: bodies.containsKey(path) ? bodies.get(path)
+			: (body != null) ? body : post(n);
+		
+		return answer.getBytes(UTF8);
+	}
+}
@@ -0,0 +1,112 @@
+package face4j.tests.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import face4j.CachingResponder;
+import face4j.DefaultFaceClient;
+import face4j.cache.CacheWarmer;
+import face4j.cache.TagIndex;
+import face4j.cache.WarmUpListener;
+import face4j.cache.WarmUpProgress;
+import face4j.tests.BaseTest;
+import face4j.tests.FakeResponder;
+
+public class CacheWarmerTests extends BaseTest
+{
+	private static final String USERS = "{\"users\":{\"ns\":[\"a@ns\",\"b@ns\",\"c@ns\"]},\"status\":\"success\"}";
+	
+	private static final String TAGS = "/tags/get.json";
+	
+	private final FakeResponder http = new FakeResponder();
+	
+	private final DefaultFaceClient client = new DefaultFaceClient("key", "secret", new CachingResponder(http));
+	
+	public CacheWarmerTests() throws IOException
+	{
+		super();
+		
+		http.answer("/account/users.json", USERS);
+		http.answer(TAGS, twoFaces.replaceFirst("\"uids\":\\[\\]", "\"uids\":[{\"uid\":\"a@ns\",\"confidence\":80}]"));
+	}
+	
+	@Test
+	public void warm() throws Exception
+	{
+		final TagIndex index = new TagIndex();
+		final List<WarmUpProgress> reports = new ArrayList<WarmUpProgress>();
+		final boolean[] parallelClient = new boolean[1];
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		
+		try
+		{
+			final WarmUpProgress done = new CacheWarmer(client, index)
+				.setNamespaces("ns")
+				.setBatchSize(2)
+				.setExecutor(executor)
+				.setListener(new WarmUpListener()
+				{
+					public void onProgress(WarmUpProgress progress)
+					{
+						reports.add(progress);
+						parallelClient[0] |= client.getParseOptions().isParallel();
+					}
+				})
+				.warm();
+			
+			assertTrue(done.isComplete());
+			assertEquals(3, done.getUsers());
+			assertEquals(2, done.getPages());
+			assertEquals(3, reports.size());
+			assertEquals(2, reports.get(0).getUsers());
+			assertEquals("ns", reports.get(1).getNamespace());
+		}
+		
+		finally
+		{
+			executor.shutdown();
+		}
+		
+		assertEquals(2, http.posts(TAGS));
+		assertEquals(2, index.size());
+		assertEquals(1, index.getUserCount());
+		assertEquals(1, index.getFaces("a@ns").size());
+		assertTrue(index.getFaces("b@ns").isEmpty());
+		
+		// The responses are cached, and the client's options never changed
+		client.getTags(null, null, "a@ns,b@ns", null, null, false, 100);
+		assertEquals(2, http.posts(TAGS));
+		assertFalse(parallelClient[0]);
+	}
+	
+	@Test
+	public void budget() throws Exception
+	{
+		// Cached, so only the pages take the delay
+		client.users("ns");
+		http.setDelay(150);
+		
+		final TagIndex index = new TagIndex();
+		final WarmUpProgress done = new CacheWarmer(client, index)
+			.setNamespaces("ns")
+			.setBatchSize(1)
+			.setTimeBudget(100, TimeUnit.MILLISECONDS)
+			.warm();
+		
+		assertFalse(done.isComplete());
+		assertEquals(1, done.getPages());
+		assertEquals(3, done.getTotalUsers());
+		assertNull(done.getNamespace());
+	}
+}
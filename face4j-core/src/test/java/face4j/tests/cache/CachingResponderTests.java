@@ -0,0 +1,239 @@
+package face4j.tests.cache;
+
+import static face4j.tests.FakeResponder.post;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.NameValuePair;
+import org.apache.http.message.BasicNameValuePair;
+import org.junit.Test;
+
+import face4j.CachingResponder;
+import face4j.DefaultFaceClient;
+import face4j.StreamingResponder;
+import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+import face4j.tests.FakeResponder;
+
+public class CachingResponderTests
+{
+	private static final String NAMESPACES = "{\"namespaces\":[{\"name\":\"a\",\"size\":1,\"share_mode\":\"Private\",\"owner\":true},"
+		+ "{\"name\":\"b\",\"size\":2,\"share_mode\":\"Public\",\"owner\":false}],\"status\":\"success\"}";
+	
+	private static final URI LIMITS = URI.create("http://api.face.com/account/limits.json");
+	
+	private static String read(StreamingResponder responder, String secret) throws Exception
+	{
+		return read(responder, "key", secret);
+	}
+	
+	private static String read(StreamingResponder responder, String key, String secret) throws Exception
+	{
+		final List<NameValuePair> params = Arrays.<NameValuePair>asList(
+			new BasicNameValuePair("api_key", key), new BasicNameValuePair("api_secret", secret));
+		
+		return IOUtils.toString(responder.doPostStream(LIMITS, params));
+	}
+	
+	@Test
+	public void servesFreshAndStaleEntries() throws Exception
+	{
+		final FakeResponder http = new FakeResponder();
+		final CachingResponder cache = new CachingResponder(http);
+		
+		assertEquals(post(1), read(cache, "s1"));
+		assertEquals(post(1), read(cache, "s2"));
+		assertEquals(1, http.posts());
+		
+		cache.setTtl("/account/limits.json", 200, TimeUnit.MILLISECONDS);
+		Thread.sleep(250);
+		
+		// Stale: revalidated by the calling thread, which gets the fresh response
+		assertEquals(post(2), read(cache, "s1"));
+		assertEquals(post(2), read(cache, "s1"));
+		
+		cache.setStaleWindow(0, TimeUnit.MILLISECONDS);
+		Thread.sleep(250);
+		
+		assertEquals(post(3), read(cache, "s1"));
+		assertEquals(3, http.posts());
+	}
+	
+	@Test
+	public void boundsCachedBytes() throws Exception
+	{
+		final FakeResponder http = new FakeResponder();
+		final CachingResponder cache = new CachingResponder(http, 2 * post(1).length());
+		
+		assertEquals(post(1), read(cache, "k1", "s"));
+		assertEquals(post(2), read(cache, "k2", "s"));
+		assertEquals(post(3), read(cache, "k3", "s"));
+		
+		assertEquals(2, cache.getStats().getSize());
+		assertEquals(2 * post(1).length(), cache.getStats().getWeight());
+		
+		// The least recently used response was evicted
+		assertEquals(post(4), read(cache, "k1", "s"));
+		assertEquals(post(3), read(cache, "k3", "s"));
+		assertEquals(4, http.posts());
+	}
+	
+	@Test
+	public void servesStaleEntriesWhileRefreshing() throws Exception
+	{
+		final FakeResponder http = new FakeResponder();
+		final CachingResponder cache = new CachingResponder(http);
+		
+		cache.setTtl("/account/limits.json", 200, TimeUnit.MILLISECONDS);
+		cache.setRefreshExecutor(new Executor()
+		{
+			public void execute(Runnable command)
+			{
+				command.run();
+			}
+		});
+		
+		assertEquals(post(1), read(cache, "s1"));
+		Thread.sleep(250);
+		
+		// Stale, refreshed in the background
+		assertEquals(post(1), read(cache, "s1"));
+		assertEquals(post(2), read(cache, "s1"));
+		Thread.sleep(250);
+		
+		// A failed refresh keeps the stale entry and is retried
+		http.failOnce("{\"status\":\"failure\",\"error_code\":301,\"error_message\":\"RATE_LIMIT_EXCEEDED\"}");
+		
+		assertEquals(post(2), read(cache, "s1"));
+		assertEquals(post(2), read(cache, "s1"));
+		assertEquals(post(4), read(cache, "s1"));
+		assertEquals(4, http.posts());
+	}
+	
+	@Test
+	public void coalescesConcurrentMisses() throws Exception
+	{
+		final FakeResponder http = new FakeResponder();
+		final CachingResponder cache = new CachingResponder(http);
+		final String[] results = new String[4];
+		final Thread[] threads = new Thread[results.length];
+		final CountDownLatch gate = new CountDownLatch(1);
+		
+		http.setGate(gate);
+		
+		for (int i = 0; i < threads.length; i++)
+		{
+			final int n = i;
+			
+			threads[i] = new Thread()
+			{
+				public void run()
+				{
+					try
+					{
+						results[n] = read(cache, "secret");
+					}
+					
+					catch (Exception e)
+					{
+						results[n] = e.toString();
+					}
+				}
+			};
+			
+			threads[i].start();
+		}
+		
+		while (http.posts() == 0)
+		{
+			Thread.sleep(1);
+		}
+		
+		Thread.sleep(20);
+		gate.countDown();
+		
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+		
+		assertEquals(1, http.posts());
+		
+		for (String result : results)
+		{
+			assertEquals(post(1), result);
+		}
+	}
+	
+	@Test
+	public void doesNotCacheFailures() throws Exception
+	{
+		final FakeResponder http = new FakeResponder();
+		final CachingResponder cache = new CachingResponder(http);
+		
+		http.failOnce("{\"status\":\"failure\",\"error_code\":201,\"error_message\":\"API_SECRET_INVALID\"}");
+		
+		try
+		{
+			read(cache, "wrong");
+			fail();
+		}
+		
+		catch (FaceServerException fse)
+		{
+			assertEquals(201, fse.getErrorCode());
+		}
+		
+		// Neither a failure nor something other than JSON, e.g. a proxy error page
+		http.failOnce("<html>502 Bad Gateway</html>");
+		
+		try
+		{
+			read(cache, "right");
+			fail();
+		}
+		
+		catch (FaceClientException fce)
+		{
+			// Expected
+		}
+		
+		assertEquals(post(3), read(cache, "right"));
+		assertEquals(post(3), read(cache, "right"));
+		assertEquals(3, http.posts());
+	}
+	
+	@Test
+	public void cachesSuccessesMentioningFailure() throws Exception
+	{
+		final FakeResponder http = new FakeResponder("{\"label\":\"failure\",\"status\":\"success\"}");
+		final CachingResponder cache = new CachingResponder(http);
+		
+		read(cache, "secret");
+		read(cache, "secret");
+		assertEquals(1, http.posts());
+	}
+	
+	@Test
+	public void looksNamespacesUpByName() throws Exception
+	{
+		final FakeResponder http = new FakeResponder();
+		final DefaultFaceClient client = new DefaultFaceClient("key", "secret", new CachingResponder(http));
+		
+		http.setBody(NAMESPACES);
+		
+		assertEquals(2, client.getNamespace("b").getSize());
+		assertEquals("a", client.getNamespace("a").getName());
+		assertNull(client.getNamespace("c"));
+		assertEquals(1, http.posts());
+	}
+}
@@ -0,0 +1,188 @@
+package face4j.tests.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import face4j.cache.ContentDigest;
+import face4j.cache.DiskResultCache;
+import face4j.cache.EvictionListener;
+import face4j.cache.ResultKey;
+import face4j.json.Utf8JsonReader;
+import face4j.model.Photo;
+import face4j.model.PhotoDecoder;
+import face4j.response.PhotoResponseImpl;
+import face4j.tests.BaseTest;
+
+public class DiskResultCacheTests extends BaseTest
+{
+	private final File dir = new File(System.getProperty("java.io.tmpdir"), "face4j-cache-" + System.nanoTime());
+	
+	private final Photo photo;
+	
+	public DiskResultCacheTests() throws Exception
+	{
+		super();
+		
+		photo = new PhotoResponseImpl(new Utf8JsonReader(twoFaces.getBytes("UTF-8"))).getPhoto();
+	}
+	
+	@After
+	public void deleteDirectory() throws IOException
+	{
+		FileUtils.deleteDirectory(dir);
+	}
+	
+	private static ResultKey key(int i)
+	{
+		return new ResultKey("faces/detect.json", new ContentDigest(i, i), Collections.singletonMap("detector", "Normal"));
+	}
+	
+	private static byte[] bytes(Photo photo) throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		PhotoDecoder.writePhoto(photo, new DataOutputStream(bytes));
+		
+		return bytes.toByteArray();
+	}
+	
+	@Test
+	public void survivesReopen() throws IOException
+	{
+		DiskResultCache cache = DiskResultCache.open(dir);
+		
+		assertTrue(cache.put(key(1), photo));
+		assertTrue(cache.put(key(2), photo));
+		cache.invalidate(key(2));
+		cache.close();
+		
+		cache = DiskResultCache.open(dir);
+		
+		try
+		{
+			final Photo cached = cache.get(key(1));
+			
+			assertEquals(photo.getPID(), cached.getPID());
+			assertEquals(photo.getFace().getTID(), cached.getFace().getTID());
+			assertArrayEquals(bytes(photo), bytes(cached));
+			assertNull(cache.get(key(2)));
+			assertEquals(1, cache.size());
+		}
+		
+		finally
+		{
+			cache.close();
+		}
+	}
+	
+	@Test
+	public void dropsTornRecords() throws IOException
+	{
+		DiskResultCache cache = DiskResultCache.open(dir);
+		
+		cache.put(key(1), photo);
+		cache.put(key(2), photo);
+		
+		final long end = cache.getStats().getWeight();
+		
+		cache.close();
+		
+		final File segment = dir.listFiles()[0];
+		final RandomAccessFile file = new RandomAccessFile(segment, "rw");
+		
+		try
+		{
+			// Flip a byte of the last record
+			file.seek(end - 1);
+			
+			final int last = file.read();
+			
+			file.seek(end - 1);
+			file.write(last ^ 0xFF);
+		}
+		
+		finally
+		{
+			file.close();
+		}
+		
+		cache = DiskResultCache.open(dir);
+		
+		try
+		{
+			assertEquals(1, cache.size());
+			assertNull(cache.get(key(2)));
+			
+			assertTrue(cache.put(key(3), photo));
+			assertEquals(photo.getPID(), cache.get(key(3)).getPID());
+		}
+		
+		finally
+		{
+			cache.close();
+		}
+	}
+	
+	@Test
+	public void compactsAndEvicts() throws IOException
+	{
+		final int record = bytes(photo).length + 64;
+		final DiskResultCache cache = DiskResultCache.open(dir, 16 + 4 * record, 3);
+		final Set<ResultKey> evicted = new HashSet<ResultKey>();
+		
+		cache.setEvictionListener(new EvictionListener<ResultKey>()
+		{
+			public void onEviction(ResultKey key)
+			{
+				evicted.add(key);
+			}
+		});
+		
+		try
+		{
+			for (int round = 0; round < 4; round++)
+			{
+				cache.put(key(1), photo);
+				cache.put(key(2), photo);
+			}
+			
+			cache.compact();
+			
+			assertEquals(2, cache.size());
+			assertEquals(photo.getPID(), cache.get(key(1)).getPID());
+			assertEquals(0, cache.getStats().getEvictions());
+			
+			for (int i = 3; i < 30; i++)
+			{
+				cache.put(key(i), photo);
+			}
+			
+			assertTrue(cache.getStats().getEvictions() > 0);
+			assertNull(cache.get(key(3)));
+			assertEquals(cache.getStats().getEvictions(), evicted.size());
+			assertTrue(evicted.contains(key(3)));
+			assertEquals(photo.getPID(), cache.get(key(29)).getPID());
+			assertTrue(dir.listFiles().length <= 3);
+		}
+		
+		finally
+		{
+			cache.close();
+		}
+	}
+}
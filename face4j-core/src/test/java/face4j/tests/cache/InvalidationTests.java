@@ -0,0 +1,166 @@
+package face4j.tests.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import face4j.CachingResponder;
+import face4j.DefaultFaceClient;
+import face4j.cache.DependencyIndex;
+import face4j.cache.DiskResultCache;
+import face4j.cache.ResultCache;
+import face4j.cache.ResultKey;
+import face4j.model.Photo;
+import face4j.tests.BaseTest;
+import face4j.tests.FakeResponder;
+
+public class InvalidationTests extends BaseTest
+{
+	private static final String USERS = "{\"users\":{\"ns\":[\"a@ns\",\"b@ns\"],\"other\":[\"c@other\"]},\"status\":\"success\"}";
+	
+	private final FakeResponder http = new FakeResponder();
+	
+	private final DefaultFaceClient client = new DefaultFaceClient("key", "secret", new CachingResponder(http));
+	
+	public InvalidationTests() throws IOException
+	{
+		super();
+		
+		http.answer("/faces/recognize.json", twoFaces);
+		http.answer("/faces/train.json", train);
+		http.answer("/tags/save.json", saveTag);
+		http.answer("/account/users.json", USERS);
+	}
+	
+	@Test
+	public void dependencies()
+	{
+		final DependencyIndex<String> index = new DependencyIndex<String>();
+		
+		index.register("users", DependencyIndex.forUids("all@ns"));
+		index.register("status", DependencyIndex.forUids("a@ns,b@other"));
+		
+		assertEquals(DependencyIndex.namespace("ns"), DependencyIndex.forUids("all@ns").iterator().next());
+		assertTrue(index.invalidate(DependencyIndex.uid("c@ns")).isEmpty());
+		assertEquals(1, index.invalidate(DependencyIndex.uid("b@other")).size());
+		assertEquals(1, index.size());
+	}
+	
+	@Test
+	public void boundedDependencies()
+	{
+		final DependencyIndex<String> index = new DependencyIndex<String>(2);
+		
+		index.register("a", DependencyIndex.forUids("a@ns"));
+		index.register("b", DependencyIndex.forUids("b@ns"));
+		index.register("c", DependencyIndex.forUids("c@ns"));
+		
+		assertEquals(2, index.size());
+		assertTrue(index.invalidate(DependencyIndex.uid("a@ns")).isEmpty());
+		assertEquals(1, index.invalidate(DependencyIndex.uid("c@ns")).size());
+	}
+	
+	@Test
+	public void savingTagsEvictsTheirNamespace() throws Exception
+	{
+		client.users("ns");
+		client.users("other");
+		client.users("ns");
+		assertEquals(2, http.posts("/account/users.json"));
+		
+		client.saveTags("tid", "a@ns", "label");
+		
+		client.users("other");
+		client.users("ns");
+		assertEquals(3, http.posts("/account/users.json"));
+	}
+	
+	@Test
+	public void trainingEvictsRecognitions() throws Exception
+	{
+		final File image = File.createTempFile("face4j", ".jpg");
+		
+		try
+		{
+			FileUtils.writeByteArrayToFile(image, new byte[] { 1, 2, 3 });
+			client.setResultCache(new ResultCache<ResultKey, Photo>(100));
+			
+			client.recognize(image, "a@ns");
+			client.recognize(image, "c@other");
+			client.recognize(image, "a@ns");
+			assertEquals(2, http.posts("/faces/recognize.json"));
+			
+			client.train("b@ns");
+			assertEquals(1, client.getTrainingEpochs().get("ns"));
+			assertEquals(1, client.getResultCache().size());
+			
+			client.recognize(image, "a@ns");
+			client.recognize(image, "c@other");
+			assertEquals(3, http.posts("/faces/recognize.json"));
+		}
+		
+		finally
+		{
+			image.delete();
+		}
+	}
+	
+	@Test
+	public void trainingsSurviveRestarts() throws Exception
+	{
+		final File dir = new File(System.getProperty("java.io.tmpdir"), "face4j-epochs-" + System.nanoTime());
+		final File image = File.createTempFile("face4j", ".jpg");
+		
+		try
+		{
+			FileUtils.writeByteArrayToFile(image, new byte[] { 1, 2, 3 });
+			
+			// Recognized before any training
+			final DefaultFaceClient first = restart(dir, twoFaces);
+			
+			assertEquals(333, first.recognize(image, "a@ns").getWidth(), 0);
+			first.getDiskCache().close();
+			
+			// Trained and recognized again in the next run
+			final DefaultFaceClient second = restart(dir, twoFaces.replace("\"width\":333", "\"width\":334"));
+			
+			second.train("a@ns");
+			assertEquals(334, second.recognize(image, "a@ns").getWidth(), 0);
+			second.getDiskCache().close();
+			
+			// The result from before the training must not come back
+			final DefaultFaceClient third = restart(dir, "");
+			
+			assertEquals(1, third.getTrainingEpochs().get("ns"));
+			assertEquals(334, third.recognize(image, "a@ns").getWidth(), 0);
+			third.getDiskCache().close();
+		}
+		
+		finally
+		{
+			image.delete();
+			FileUtils.deleteDirectory(dir);
+		}
+	}
+	
+	/**
+	 * @return A new client over the disk cache in {@code dir}, answering recognitions with 
+	 * {@code recognized}
+	 */
+	private DefaultFaceClient restart(File dir, String recognized) throws Exception
+	{
+		final FakeResponder responder = new FakeResponder()
+			.answer("/faces/recognize.json", recognized)
+			.answer("/faces/train.json", train);
+		final DefaultFaceClient restarted = new DefaultFaceClient("key", "secret", responder);
+		
+		restarted.setDiskCache(DiskResultCache.open(dir));
+		
+		return restarted;
+	}
+}
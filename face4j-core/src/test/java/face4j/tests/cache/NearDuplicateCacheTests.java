@@ -0,0 +1,131 @@
+package face4j.tests.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import face4j.DefaultFaceClient;
+import face4j.cache.NearDuplicateCache;
+import face4j.cache.PerceptualHash;
+import face4j.cache.ResultCache;
+import face4j.cache.ResultKey;
+import face4j.model.Photo;
+import face4j.tests.BaseTest;
+import face4j.tests.FakeResponder;
+
+public class NearDuplicateCacheTests extends BaseTest
+{
+	public NearDuplicateCacheTests() throws IOException
+	{
+		super();
+	}
+	
+	private static BufferedImage scene(int width, int height)
+	{
+		final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = image.createGraphics();
+		
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		
+		for (int x = 0; x < width; x++)
+		{
+			g.setColor(new Color(x * 255 / width, 80, 255 - x * 255 / width));
+			g.drawLine(x, 0, x, height);
+		}
+		
+		g.setColor(Color.WHITE);
+		g.fillOval(width / 5, height / 4, width / 4, height / 2);
+		g.setColor(Color.BLACK);
+		g.fillRect(width * 3 / 5, height / 3, width / 5, height / 2);
+		g.dispose();
+		
+		return image;
+	}
+	
+	private static BufferedImage resize(BufferedImage image, int width, int height)
+	{
+		final BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = resized.createGraphics();
+		
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		
+		return resized;
+	}
+	
+	private static BufferedImage mirror(BufferedImage image)
+	{
+		final BufferedImage mirrored = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = mirrored.createGraphics();
+		
+		g.drawImage(image, image.getWidth(), 0, -image.getWidth(), image.getHeight(), null);
+		g.dispose();
+		
+		return mirrored;
+	}
+	
+	@Test
+	public void hashesSurviveResizing()
+	{
+		final BufferedImage image = scene(640, 480);
+		final long hash = PerceptualHash.of(image).getHash();
+		
+		assertTrue(PerceptualHash.distance(hash, PerceptualHash.of(resize(image, 160, 120)).getHash()) <= 4);
+		assertTrue(PerceptualHash.distance(hash, PerceptualHash.of(mirror(image)).getHash()) > 4);
+	}
+	
+	@Test
+	public void detectsThumbnailsFromCache() throws Exception
+	{
+		final FakeResponder http = new FakeResponder(twoFaces);
+		final DefaultFaceClient client = new DefaultFaceClient("key", "secret", http);
+		final File original = File.createTempFile("face4j", ".png");
+		final File thumbnail = File.createTempFile("face4j", ".jpg");
+		
+		try
+		{
+			final BufferedImage image = scene(640, 480);
+			
+			ImageIO.write(image, "png", original);
+			ImageIO.write(resize(image, 200, 150), "jpg", thumbnail);
+			
+			client.setNearDuplicateCache(new NearDuplicateCache(100));
+			client.setResultCache(new ResultCache<ResultKey, Photo>(100));
+			
+			final Photo photo = client.detect(original);
+			final Photo cached = client.detect(thumbnail);
+			
+			assertEquals(1, http.posts());
+			assertEquals(200f, cached.getWidth(), 0);
+			assertEquals(150f, cached.getHeight(), 0);
+			assertEquals(photo.getFaces(), cached.getFaces());
+			assertNull(cached.getPID());
+			assertNull(cached.getURL());
+			assertEquals(1, client.getNearDuplicateCache().getStats().getHits());
+			
+			// Still a near duplicate, not an exact hit
+			client.detect(thumbnail);
+			assertEquals(1, http.posts());
+			assertEquals(2, client.getNearDuplicateCache().getStats().getHits());
+			assertEquals(1, client.getResultCache().size());
+		}
+		
+		finally
+		{
+			original.delete();
+			thumbnail.delete();
+		}
+	}
+}
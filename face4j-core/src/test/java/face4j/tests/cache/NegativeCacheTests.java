@@ -0,0 +1,107 @@
+package face4j.tests.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import face4j.DefaultFaceClient;
+import face4j.cache.ContentDigest;
+import face4j.cache.NegativeCache;
+import face4j.tests.FakeResponder;
+
+public class NegativeCacheTests
+{
+	private static final String NO_FACES = "{\"photos\":[{\"url\":\"u\",\"pid\":\"p\",\"width\":10,\"height\":10,\"tags\":[]}],"
+		+ "\"status\":\"success\"}";
+	
+	private static ContentDigest digest(int i)
+	{
+		return ContentDigest.of(new byte[] { (byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i });
+	}
+	
+	@Test
+	public void boundsFalsePositives()
+	{
+		final NegativeCache cache = new NegativeCache(10000, 0.01, 1, TimeUnit.DAYS);
+		
+		for (int i = 0; i < 10000; i++)
+		{
+			cache.add(digest(i), "Normal");
+		}
+		
+		int falsePositives = 0;
+		
+		for (int i = 10000; i < 110000; i++)
+		{
+			falsePositives += cache.contains(digest(i), "Normal") ? 1 : 0;
+		}
+		
+		assertTrue(cache.contains(digest(42), "Normal"));
+		assertFalse(cache.contains(digest(42), "Aggressive"));
+		assertTrue("False positives: " + falsePositives, falsePositives < 1000);
+	}
+	
+	@Test
+	public void persistsAndExpires() throws Exception
+	{
+		final File file = new File(System.getProperty("java.io.tmpdir"), "face4j-negative-" + System.nanoTime());
+		
+		try
+		{
+			NegativeCache cache = NegativeCache.open(file, 100, 0.01, 1, TimeUnit.DAYS);
+			
+			cache.add(digest(1), "Normal");
+			cache.close();
+			
+			cache = NegativeCache.open(file, 100, 0.01, 1, TimeUnit.DAYS);
+			assertTrue(cache.contains(digest(1), "Normal"));
+			cache.close();
+			
+			cache = NegativeCache.open(file, 100, 0.01, 200, TimeUnit.MILLISECONDS);
+			cache.add(digest(2), "Normal");
+			Thread.sleep(450);
+			
+			assertFalse(cache.contains(digest(2), "Normal"));
+			cache.close();
+		}
+		
+		finally
+		{
+			FileUtils.forceDelete(file);
+		}
+	}
+	
+	@Test
+	public void skipsImagesWithoutFaces() throws Exception
+	{
+		final FakeResponder http = new FakeResponder(NO_FACES);
+		final DefaultFaceClient client = new DefaultFaceClient("key", "secret", http);
+		final File image = File.createTempFile("face4j", ".jpg");
+		
+		try
+		{
+			FileUtils.writeByteArrayToFile(image, new byte[] { 1, 2, 3 });
+			client.setNegativeCache(new NegativeCache(100, 0.01, 1, TimeUnit.HOURS));
+			
+			assertEquals(0, client.detect(image).getFaceCount());
+			assertSame(NegativeCache.NO_FACES, client.detect(image));
+			assertEquals(1, http.posts());
+			
+			client.setAggressive(true);
+			client.detect(image);
+			assertEquals(2, http.posts());
+		}
+		
+		finally
+		{
+			image.delete();
+		}
+	}
+}
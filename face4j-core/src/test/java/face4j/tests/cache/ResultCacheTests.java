@@ -0,0 +1,99 @@
+package face4j.tests.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import face4j.DefaultFaceClient;
+import face4j.cache.CacheStats;
+import face4j.cache.ContentDigest;
+import face4j.cache.ResultCache;
+import face4j.cache.ResultKey;
+import face4j.model.Photo;
+import face4j.tests.BaseTest;
+import face4j.tests.FakeResponder;
+
+public class ResultCacheTests extends BaseTest
+{
+	public ResultCacheTests() throws IOException
+	{
+		super();
+	}
+	
+	@Test
+	public void digest() throws IOException
+	{
+		final byte[] fox = "The quick brown fox jumps over the lazy dog".getBytes("US-ASCII");
+		final ContentDigest digest = ContentDigest.of(fox);
+		
+		assertEquals(0xe34bbc7bbc071b6cL, digest.getHigh());
+		assertEquals(0x7a433ca9c49a9347L, digest.getLow());
+		assertEquals(digest, ContentDigest.of(new ByteArrayInputStream(fox)));
+		assertEquals("e34bbc7bbc071b6c7a433ca9c49a9347", digest.toString());
+		assertEquals(0L, ContentDigest.of(new byte[0]).getHigh());
+		assertFalse(digest.equals(ContentDigest.of(fox, 0, fox.length - 1)));
+	}
+	
+	@Test
+	public void evictsLeastRecentlyUsedByWeight()
+	{
+		final ResultCache<String, String> cache = new ResultCache<String, String>(3);
+		
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.put("c", "3");
+		assertEquals("1", cache.get("a"));
+		
+		cache.put("d", "4");
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		
+		final CacheStats stats = cache.getStats();
+		
+		assertEquals(2, stats.getHits());
+		assertEquals(1, stats.getMisses());
+		assertEquals(1, stats.getEvictions());
+		assertEquals(3, stats.getSize());
+	}
+	
+	@Test
+	public void servesRepeatedUploadsFromCache() throws Exception
+	{
+		final FakeResponder http = new FakeResponder(twoFaces);
+		final DefaultFaceClient client = new DefaultFaceClient("key", "secret", http);
+		final File image = File.createTempFile("face4j", ".jpg");
+		
+		try
+		{
+			FileUtils.writeByteArrayToFile(image, new byte[] { 1, 2, 3, 4 });
+			client.setResultCache(new ResultCache<ResultKey, Photo>(100, ResultCache.PHOTO_WEIGHER));
+			
+			final Photo photo = client.detect(image);
+			
+			assertSame(photo, client.detect(image));
+			assertEquals(1, http.posts());
+			
+			client.recognize(image, "all@example");
+			client.setAggressive(true);
+			client.detect(image);
+			assertEquals(3, http.posts());
+			
+			assertEquals(1, client.getResultCache().getStats().getHits());
+			assertEquals(3 * (1 + photo.getFaceCount()), client.getResultCache().getStats().getWeight());
+		}
+		
+		finally
+		{
+			image.delete();
+		}
+	}
+}
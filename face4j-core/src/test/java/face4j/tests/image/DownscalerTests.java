@@ -0,0 +1,102 @@
+package face4j.tests.image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Test;
+
+import face4j.DefaultFaceClient;
+import face4j.image.Downscaler;
+import face4j.image.Upload;
+import face4j.model.Photo;
+import face4j.tests.BaseTest;
+import face4j.tests.FakeResponder;
+
+public class DownscalerTests extends BaseTest
+{
+	private final File image;
+	
+	public DownscalerTests() throws IOException
+	{
+		super();
+		
+		final BufferedImage noise = new BufferedImage(2000, 1500, BufferedImage.TYPE_INT_RGB);
+		final Random random = new Random(7);
+		
+		for (int y = 0; y < noise.getHeight(); y++)
+		{
+			for (int x = 0; x < noise.getWidth(); x++)
+			{
+				noise.setRGB(x, y, random.nextInt(0x1000000));
+			}
+		}
+		
+		image = File.createTempFile("downscaler", ".png");
+		ImageIO.write(noise, "png", image);
+	}
+	
+	@After
+	public void delete()
+	{
+		image.delete();
+	}
+	
+	@Test
+	public void downscale() throws IOException
+	{
+		final Upload upload = new Downscaler(500, 0.8f).prepare(image);
+		
+		try
+		{
+			assertTrue(upload.isTransformed());
+			assertEquals(2000, upload.getWidth());
+			assertEquals(1500, upload.getHeight());
+			assertTrue(upload.getFile().length() * 10 < image.length());
+			
+			final BufferedImage copy = ImageIO.read(upload.getFile());
+			
+			assertEquals(500, copy.getWidth());
+			assertEquals(375, copy.getHeight());
+		}
+		
+		finally
+		{
+			upload.release();
+		}
+		
+		assertFalse(upload.getFile().exists());
+		
+		// Small enough already
+		final Upload same = new Downscaler(2000, 0.8f).prepare(image);
+		
+		assertFalse(same.isTransformed());
+		assertSame(image, same.getFile());
+	}
+	
+	@Test
+	public void client() throws Exception
+	{
+		final FakeResponder http = new FakeResponder(twoFaces);
+		final DefaultFaceClient client = new DefaultFaceClient("key", "secret", http);
+		
+		client.setUploadPreprocessor(new Downscaler(800, 0.8f));
+		
+		final Photo photo = client.detect(image);
+		
+		assertEquals(800, ImageIO.read(new ByteArrayInputStream(http.getUploadedBytes().get(0))).getWidth());
+		assertEquals(2000, photo.getWidth(), 0);
+		assertEquals(1500, photo.getHeight(), 0);
+		assertEquals(2, photo.getFaceCount());
+	}
+}
@@ -0,0 +1,148 @@
+package face4j.tests.image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Test;
+
+import face4j.DefaultFaceClient;
+import face4j.image.FaceCropper;
+import face4j.image.Sheet;
+import face4j.image.Tile;
+import face4j.json.Utf8JsonReader;
+import face4j.model.Face;
+import face4j.model.Photo;
+import face4j.response.PhotoResponseImpl;
+import face4j.tests.BaseTest;
+import face4j.tests.FakeResponder;
+
+public class FaceCropperTests extends BaseTest
+{
+	private final File image;
+	
+	private final Photo detected;
+	
+	public FaceCropperTests() throws Exception
+	{
+		super();
+		
+		final BufferedImage noise = new BufferedImage(1333, 2000, BufferedImage.TYPE_INT_RGB);
+		final Random random = new Random(11);
+		
+		for (int y = 0; y < noise.getHeight(); y++)
+		{
+			for (int x = 0; x < noise.getWidth(); x++)
+			{
+				noise.setRGB(x, y, random.nextInt(0x1000000));
+			}
+		}
+		
+		image = File.createTempFile("cropper", ".png");
+		ImageIO.write(noise, "png", image);
+		
+		detected = new PhotoResponseImpl(new Utf8JsonReader(twoFaces.getBytes("UTF-8"))).getPhoto();
+	}
+	
+	@After
+	public void delete()
+	{
+		image.delete();
+	}
+	
+	@Test
+	public void crop() throws IOException
+	{
+		final Sheet sheet = new FaceCropper().crop(image, detected);
+		
+		try
+		{
+			assertEquals(2, sheet.getTiles().size());
+			assertTrue(sheet.getFile().length() * 4 < image.length());
+			
+			final BufferedImage decoded = ImageIO.read(sheet.getFile());
+			
+			assertEquals(sheet.getWidth(), decoded.getWidth());
+			assertEquals(sheet.getHeight(), decoded.getHeight());
+			
+			for (Tile tile : sheet.getTiles())
+			{
+				final Face face = detected.getFaces().get(tile.getSource());
+				final Face onSheet = sheet.fromSource(face, tile);
+				
+				assertSame(tile, sheet.tileOf(onSheet));
+				assertEquals(face.getCenter().x, sheet.toSource(onSheet, tile).getCenter().x, 0.01);
+				assertEquals(face.getCenter().y, sheet.toSource(onSheet, tile).getCenter().y, 0.01);
+				
+				// Too large to be within the tile
+				assertNull(sheet.tileOf(onSheet.transform(10, 10, -9 * onSheet.getCenter().x, -9 * onSheet.getCenter().y)));
+			}
+		}
+		
+		finally
+		{
+			sheet.release();
+		}
+	}
+	
+	@Test
+	public void recognize() throws Exception
+	{
+		final Sheet layout = new FaceCropper().crop(image, detected);
+		layout.release();
+		
+		// Answer with the detected faces where they are on the sheet
+		String json = twoFaces;
+		
+		for (Tile tile : layout.getTiles())
+		{
+			final Face face = detected.getFaces().get(tile.getSource());
+			final Face onSheet = layout.fromSource(face, tile);
+			
+			json = json.replace(
+				"\"x\":" + format(face.getCenter().x) + ",\"y\":" + format(face.getCenter().y), 
+				"\"x\":" + onSheet.getCenter().x + ",\"y\":" + onSheet.getCenter().y);
+			json = json.replace("\"width\":" + format((float) face.getWidth()), "\"width\":" + (float) onSheet.getWidth());
+			json = json.replace("\"height\":" + format((float) face.getHeight()), "\"height\":" + (float) onSheet.getHeight());
+		}
+		
+		assertFalse(json.equals(twoFaces));
+		
+		final String body = json;
+		final DefaultFaceClient client = new DefaultFaceClient("key", "secret", new FakeResponder(body));
+		
+		final Photo photo = client.recognize(image, "a@ns", detected);
+		
+		assertEquals(1333, photo.getWidth(), 0);
+		assertEquals(2000, photo.getHeight(), 0);
+		assertEquals(2, photo.getFaceCount());
+		assertEquals(detected.getPID(), photo.getPID());
+		
+		for (int i = 0; i < 2; i++)
+		{
+			assertEquals(detected.getFaces().get(i).getCenter().x, photo.getFaces().get(i).getCenter().x, 0.01);
+			assertEquals(detected.getFaces().get(i).getCenter().y, photo.getFaces().get(i).getCenter().y, 0.01);
+			assertEquals(detected.getFaces().get(i).getTID(), photo.getFaces().get(i).getTID());
+		}
+	}
+	
+	/**
+	 * Formats as in the fixture, without trailing zeros
+	 */
+	private static String format(float value)
+	{
+		final String s = Float.toString(value);
+		
+		return s.endsWith(".0") ? s.substring(0, s.length() - 2) : s;
+	}
+}
@@ -0,0 +1,121 @@
+package face4j.tests.image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import face4j.image.Downscaler;
+import face4j.image.ImageInfo;
+import face4j.image.ImageProbe;
+import face4j.image.Upload;
+
+public class ImageProbeTests
+{
+	/**
+	 * Big endian EXIF segment with a single IFD0 entry, orientation 6
+	 */
+	private static final byte[] EXIF = {
+		(byte) 0xFF, (byte) 0xE1, 0, 34, 
+		'E', 'x', 'i', 'f', 0, 0, 
+		'M', 'M', 0, 42, 0, 0, 0, 8, 
+		0, 1, 
+		0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, 6, 0, 0, 
+		0, 0, 0, 0
+	};
+	
+	private static byte[] encode(String format, int width, int height) throws IOException
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, out);
+		
+		return out.toByteArray();
+	}
+	
+	private static ImageInfo probe(byte[] image) throws IOException
+	{
+		return ImageProbe.probe(new ByteArrayInputStream(image));
+	}
+	
+	@Test
+	public void formats() throws IOException
+	{
+		final String[] formats = {"jpeg", "png", "gif"};
+		
+		for (String format : formats)
+		{
+			final ImageInfo info = probe(encode(format, 321, 123));
+			
+			assertEquals(format, info.getFormat());
+			assertEquals(321, info.getWidth());
+			assertEquals(123, info.getHeight());
+			assertEquals(1, info.getOrientation());
+		}
+		
+		assertNull(probe(encode("bmp", 10, 10)));
+		assertNull(probe("not an image".getBytes()));
+		assertNull(probe(new byte[] {(byte) 0xFF, (byte) 0xD8}));
+	}
+	
+	@Test
+	public void orientation() throws IOException
+	{
+		final byte[] jpeg = encode("jpeg", 40, 30);
+		final byte[] rotated = new byte[jpeg.length + EXIF.length];
+		
+		// Right after the start of image marker
+		System.arraycopy(jpeg, 0, rotated, 0, 2);
+		System.arraycopy(EXIF, 0, rotated, 2, EXIF.length);
+		System.arraycopy(jpeg, 2, rotated, 2 + EXIF.length, jpeg.length - 2);
+		
+		final ImageInfo info = probe(rotated);
+		
+		assertEquals(40, info.getWidth());
+		assertEquals(6, info.getOrientation());
+		assertTrue(info.isTransposed());
+	}
+	
+	@Test
+	public void conversion() throws IOException
+	{
+		final File bmp = File.createTempFile("probe", ".bmp");
+		
+		try
+		{
+			FileUtils.writeByteArrayToFile(bmp, encode("bmp", 200, 100));
+			
+			final Upload upload = new Downscaler(1024, 0.8f).prepare(bmp);
+			
+			try
+			{
+				assertTrue(upload.isTransformed());
+				assertEquals(200, upload.getWidth());
+				assertEquals("jpeg", ImageProbe.probe(upload.getFile()).getFormat());
+			}
+			
+			finally
+			{
+				upload.release();
+			}
+			
+			assertFalse(upload.getFile().exists());
+		}
+		
+		finally
+		{
+			bmp.delete();
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package face4j.tests.image;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Test;
+
+import face4j.DefaultFaceClient;
+import face4j.image.MosaicPacker;
+import face4j.image.Sheet;
+import face4j.image.Tile;
+import face4j.json.Utf8JsonReader;
+import face4j.model.Face;
+import face4j.model.Photo;
+import face4j.response.PhotoResponseImpl;
+import face4j.tests.BaseTest;
+import face4j.tests.FakeResponder;
+
+public class MosaicPackerTests extends BaseTest
+{
+	private final List<File> images = new ArrayList<File>();
+	
+	private final Photo detected;
+	
+	public MosaicPackerTests() throws Exception
+	{
+		super();
+		
+		final int[][] sizes = {{100, 150}, {200, 120}, {600, 400}};
+		
+		for (int[] size : sizes)
+		{
+			final File image = File.createTempFile("mosaic", ".png");
+			
+			ImageIO.write(new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_RGB), "png", image);
+			images.add(image);
+		}
+		
+		detected = new PhotoResponseImpl(new Utf8JsonReader(twoFaces.getBytes("UTF-8"))).getPhoto();
+	}
+	
+	@After
+	public void delete()
+	{
+		for (File image : images)
+		{
+			image.delete();
+		}
+	}
+	
+	@Test
+	public void split() throws IOException
+	{
+		final List<Sheet> sheets = new MosaicPacker(2, 256, 32, 0.9f).pack(images);
+		
+		try
+		{
+			assertEquals(2, sheets.size());
+			assertEquals(1, sheets.get(1).getTiles().size());
+			
+			// Scaled down to the tile size
+			final Tile large = sheets.get(1).getTiles().get(0);
+			
+			assertEquals(256, large.getWidth());
+			assertEquals(600, large.getSourceWidth());
+			
+			final Sheet sheet = sheets.get(0);
+			final Face first = detected.getFaces().get(0);
+			final Face second = detected.getFaces().get(1);
+			final Face onFirst = sheet.fromSource(first, sheet.getTiles().get(0));
+			final Face onSecond = sheet.fromSource(second, sheet.getTiles().get(1));
+			
+			// Large enough to straddle tiles
+			final Face straddling = onSecond.transform(8, 8, -7 * onSecond.getCenter().x, -7 * onSecond.getCenter().y);
+			
+			final List<Photo> photos = sheet.split(detected.withFaces(Arrays.asList(onFirst, onSecond, straddling)));
+			
+			assertEquals(2, photos.size());
+			assertEquals(100, photos.get(0).getWidth(), 0);
+			assertEquals(120, photos.get(1).getHeight(), 0);
+			assertEquals(1, photos.get(0).getFaceCount());
+			assertEquals(1, photos.get(1).getFaceCount());
+			assertEquals(first.getCenter().x, photos.get(0).getFace().getCenter().x, 0.01);
+			assertEquals(second.getCenter().y, photos.get(1).getFace().getCenter().y, 0.01);
+		}
+		
+		finally
+		{
+			for (Sheet sheet : sheets)
+			{
+				sheet.release();
+				assertFalse(sheet.getFile().exists());
+			}
+		}
+	}
+	
+	@Test
+	public void client() throws Exception
+	{
+		final FakeResponder http = new FakeResponder(twoFaces);
+		final DefaultFaceClient client = new DefaultFaceClient("key", "secret", http);
+		
+		client.setMosaicPacker(new MosaicPacker(2, 256, 32, 0.9f));
+		
+		final List<Photo> photos = client.detect(images);
+		
+		assertEquals(2, http.getUploads().size());
+		assertEquals(3, photos.size());
+		assertEquals(600, photos.get(2).getWidth(), 0);
+		
+		for (Photo photo : photos)
+		{
+			assertNull(photo.getPID());
+			
+			for (Face face : photo.getFaces())
+			{
+				assertNull(face.getTID());
+			}
+		}
+		
+		for (File upload : http.getUploads())
+		{
+			assertFalse(upload.exists());
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package face4j.tests.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import face4j.json.JsonArraySlices;
+import face4j.json.JsonReader;
+import face4j.json.JsonToken;
+import face4j.json.MalformedJsonException;
+import face4j.json.Utf8JsonReader;
+
+public class Utf8JsonReaderTests
+{
+	@Test
+	public void readsMembers () throws IOException
+	{
+		Utf8JsonReader reader = reader("{\"a\": 1.25, \"b\": \"x\\u00e9\\n\", \"c\": [true, null], \"d\": {\"e\": -3}}");
+		
+		reader.beginObject();
+		assertEquals("a", reader.nextName());
+		assertEquals(1.25, reader.nextDouble(), 0);
+		assertEquals("b", reader.nextName());
+		assertEquals("xé\n", reader.nextString());
+		assertEquals("c", reader.nextName());
+		reader.beginArray();
+		assertTrue(reader.nextBoolean());
+		assertNull(reader.nextString());
+		assertFalse(reader.hasNext());
+		reader.endArray();
+		assertEquals("d", reader.nextName());
+		reader.skipValue();
+		assertFalse(reader.hasNext());
+		reader.endObject();
+		assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+		reader.close();
+	}
+	
+	@Test
+	public void decodesMultiByteCharacters () throws IOException
+	{
+		Utf8JsonReader reader = reader("[\"über 日本\"]");
+		
+		reader.beginArray();
+		assertEquals("über 日本", reader.nextString());
+		reader.endArray();
+		reader.close();
+	}
+	
+	@Test
+	public void readsAcrossBufferBoundaries () throws IOException
+	{
+		StringBuilder json = new StringBuilder("[");
+		
+		for (int i = 0; i < 5000; i++)
+		{
+			json.append(i == 0 ? "" : ",").append(i).append(".5,\"é").append(i).append("\"");
+		}
+		
+		Utf8JsonReader reader = new Utf8JsonReader(new ByteArrayInputStream(json.append("]").toString().getBytes("UTF-8")));
+		
+		reader.beginArray();
+		
+		for (int i = 0; i < 5000; i++)
+		{
+			assertEquals(i + 0.5, reader.nextDouble(), 0);
+			assertEquals("é" + i, reader.nextString());
+		}
+		
+		reader.endArray();
+		reader.close();
+	}
+	
+	@Test
+	public void locatesArrayElements () throws IOException
+	{
+		String json = "{\"a\": [ {\"s\": \"],\\\"[\"}, [1, [2]] , \"x\" ,3 ], \"b\": true}";
+		
+		for (Utf8JsonReader reader : new Utf8JsonReader[] { reader(json), new Utf8JsonReader(new ByteArrayInputStream(json.getBytes("UTF-8"))) })
+		{
+			reader.beginObject();
+			assertEquals("a", reader.nextName());
+			
+			JsonArraySlices slices = reader.nextArraySlices();
+			assertEquals(4, slices.size());
+			
+			JsonReader element = slices.reader(0);
+			element.beginObject();
+			assertEquals("s", element.nextName());
+			assertEquals("],\"[", element.nextString());
+			element.endObject();
+			
+			element = slices.reader(1);
+			element.skipValue();
+			assertEquals(JsonToken.END_DOCUMENT, element.peek());
+			
+			assertEquals("x", slices.reader(2).nextString());
+			assertEquals(3, slices.reader(3).nextInt());
+			
+			assertEquals("b", reader.nextName());
+			assertTrue(reader.nextBoolean());
+			reader.endObject();
+			reader.close();
+		}
+	}
+	
+	@Test(expected = MalformedJsonException.class)
+	public void rejectsTruncatedInput () throws IOException
+	{
+		Utf8JsonReader reader = reader("{\"a\": [1, 2");
+		
+		reader.beginObject();
+		reader.nextName();
+		reader.skipValue();
+	}
+	
+	private static Utf8JsonReader reader (String json) throws IOException
+	{
+		return new Utf8JsonReader(json.getBytes("UTF-8"));
+	}
+}
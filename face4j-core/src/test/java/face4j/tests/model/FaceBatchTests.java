@@ -0,0 +1,74 @@
+package face4j.tests.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import face4j.json.Utf8JsonReader;
+import face4j.model.FaceBatch;
+import face4j.model.FaceBatch.FloatColumn;
+import face4j.model.FaceBatch.Flag;
+import face4j.model.FaceBatch.IntColumn;
+import face4j.model.FaceData;
+import face4j.model.Gender;
+import face4j.response.ParseOptions;
+import face4j.response.PhotoResponseImpl;
+import face4j.tests.BaseTest;
+
+public class FaceBatchTests extends BaseTest
+{
+	public FaceBatchTests() throws IOException
+	{
+		super();
+	}
+	
+	@Test
+	public void fromPhotosAndVisitorAgree() throws Exception
+	{
+		FaceBatch built = new FaceBatch();
+		built.addAll(new PhotoResponseImpl(twoFaces).getPhotos());
+		
+		FaceBatch visited = new FaceBatch(1);
+		new PhotoResponseImpl(new Utf8JsonReader(twoFaces.getBytes("UTF-8")), ParseOptions.DEFAULT, visited);
+		
+		for (FaceBatch batch : new FaceBatch[] { built, visited })
+		{
+			assertEquals(2, batch.size());
+			assertEquals(1, batch.getPhotoCount());
+			assertEquals(18.85f, batch.get(FloatColumn.YAW, 0), 0.001f);
+			assertEquals(36.93f, batch.get(FloatColumn.YAW, 1), 0.001f);
+			assertEquals(96, batch.get(IntColumn.GENDER_CONFIDENCE, 0));
+			assertEquals(Gender.male, batch.getGender(1));
+			assertTrue(batch.hasLandmark(0, FaceData.NOSE));
+			assertEquals(51.72f, batch.getLandmarkX(0, FaceData.NOSE), 0.001f);
+			assertEquals("F@53f98f0f3ffeef58413190e657e297ff_4b4b4c6d54c37", batch.getPID(1));
+		}
+	}
+	
+	@Test
+	public void scans() throws Exception
+	{
+		FaceBatch batch = new FaceBatch(1);
+		
+		for (int i = 0; i < 100; i++)
+		{
+			batch.addAll(new PhotoResponseImpl(twoFaces).getPhotos());
+		}
+		
+		assertEquals(200, batch.size());
+		assertEquals(200, batch.count(Flag.GLASSES));
+		assertEquals(0, batch.count(Flag.SMILING));
+		assertEquals(1.0, batch.ratio(Flag.RECOGNIZABLE), 0);
+		assertEquals(200, batch.countGenders()[Gender.male.ordinal()]);
+		assertEquals((18.85 + 36.93) / 2, batch.mean(FloatColumn.YAW), 0.001);
+		assertArrayEquals(new int[] { 0, 100, 0, 100 }, batch.histogram(FloatColumn.YAW, 0, 40, 4));
+		
+		float[] yaws = new float[2];
+		batch.copy(FloatColumn.YAW, 198, yaws, 0, 2);
+		assertEquals(36.93f, yaws[1], 0.001f);
+	}
+}
@@ -0,0 +1,110 @@
+package face4j.tests.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import face4j.model.Face;
+import face4j.model.FaceData;
+import face4j.model.Point;
+import face4j.model.Rect;
+
+public class FaceTests
+{
+	private static final String TAG = 
+		"{\"tid\":\"t1\",\"confirmed\":false,\"manual\":false,\"recognizable\":true," +
+		"\"width\":20,\"height\":10,\"yaw\":1,\"roll\":2,\"pitch\":3," +
+		"\"center\":{\"x\":50,\"y\":40},\"eye_left\":{\"x\":45,\"y\":35}," +
+		"\"attributes\":{\"face\":{\"value\":\"true\",\"confidence\":80}}}";
+	
+	@Test
+	public void landmarks() throws Exception
+	{
+		Face face = new Face(new JSONObject(TAG));
+		
+		assertEquals(new Point(50, 40), face.getCenter());
+		assertEquals(new Point(45, 35), face.getLeftEye());
+		assertTrue(face.hasLandmark(FaceData.EYE_LEFT));
+		assertFalse(face.hasLandmark(FaceData.NOSE));
+		assertNull(face.getNose());
+	}
+	
+	@Test
+	public void rectangleIsACopy() throws Exception
+	{
+		Face face = new Face(new JSONObject(TAG));
+		
+		Rect r = face.getRectangle();
+		assertEquals(new Rect(40, 35, 60, 45), r);
+		
+		r.left = 0;
+		assertEquals(new Rect(40, 35, 60, 45), face.getRectangle());
+	}
+	
+	@Test
+	public void guessesSortedByConfidence() throws Exception
+	{
+		JSONObject tag = new JSONObject(TAG);
+		tag.put("uids", new JSONArray("[{\"uid\":\"a@ns\",\"confidence\":40}," +
+			"{\"uid\":\"b@ns\",\"confidence\":90},{\"uid\":\"c@ns\",\"confidence\":60}]"));
+		
+		Face face = new Face(tag);
+		
+		assertEquals("b@ns", face.getGuess().first);
+		assertSame(face.getGuess(), face.getGuess());
+		assertEquals(3, face.getGuesses().size());
+		assertEquals("a@ns", face.getGuesses().get(2).first);
+		
+		String[] uids = new String[2];
+		int[] confidences = new int[2];
+		
+		assertEquals(2, face.getTopGuesses(2, uids, confidences));
+		assertArrayEquals(new String[] { "b@ns", "c@ns" }, uids);
+		assertArrayEquals(new int[] { 90, 60 }, confidences);
+		
+		assertNull(new Face(new JSONObject(TAG)).getGuess());
+	}
+	
+	@Test
+	public void transformsLeaveTheFaceUnchanged() throws Exception
+	{
+		Face face = new Face(new JSONObject(TAG));
+		
+		Face pixels = face.toPixels(200, 100);
+		assertEquals(new Point(100, 40), pixels.getCenter());
+		assertEquals(new Point(90, 35), pixels.getLeftEye());
+		assertEquals(new Rect(80, 35, 120, 45), pixels.getRectangle());
+		assertEquals(40, pixels.getWidth(), 0);
+		
+		Face moved = pixels.translate(-80, -35);
+		assertEquals(new Rect(0, 0, 40, 10), moved.getRectangle());
+		assertFalse(moved.hasLandmark(FaceData.NOSE));
+		
+		assertEquals(new Point(50, 40), face.getCenter());
+		assertEquals(new Rect(40, 35, 60, 45), face.getRectangle());
+		assertEquals("t1", moved.getTID());
+		assertEquals("bob", face.withLabel("bob").getLabel());
+		assertEquals("", face.getLabel());
+	}
+	
+	@Test
+	@SuppressWarnings("deprecation")
+	public void legacyMutatorsStillWork() throws Exception
+	{
+		Face face = new Face(new JSONObject(TAG));
+		Face bob = face.withLabel("bob");
+		
+		face.setLabel("alice");
+		assertEquals("alice", face.getLabel());
+		assertEquals("bob", bob.getLabel());
+		assertEquals("alice", face.translate(1, 1).getLabel());
+		assertEquals("carol", face.withLabel("carol").getLabel());
+	}
+}
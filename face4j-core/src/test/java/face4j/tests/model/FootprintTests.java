@@ -0,0 +1,192 @@
+package face4j.tests.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import face4j.json.Utf8JsonReader;
+import face4j.model.Photo;
+import face4j.response.PhotoResponseImpl;
+import face4j.tests.BaseTest;
+
+/**
+ * Retained size of decoded photos, computed by walking the object graph with the field 
+ * layout of a 64 bit JVM with compressed oops (12 byte headers, 4 byte references, 8 byte 
+ * alignment), the same model JOL reports by default. Fields of JDK classes are sized but 
+ * not followed, which later JDKs don't allow, apart from the characters of strings.
+ */
+public class FootprintTests extends BaseTest
+{
+	private static final int BYTES_PER_FACE = 448;
+	
+	private static final int BYTES_PER_PHOTO = 512;
+	
+	public FootprintTests() throws Exception
+	{
+		super();
+	}
+	
+	@Test
+	public void bytesPerPhoto() throws Exception
+	{
+		for (int faces : new int[] { 1, 10, 100 })
+		{
+			Footprint footprint = new Footprint();
+			footprint.walk(photoWith(faces));
+			
+			assertTrue(footprint.bytes + " bytes", footprint.bytes <= BYTES_PER_PHOTO + faces * BYTES_PER_FACE);
+			assertTrue(footprint.objects + " objects", footprint.objects <= 16 + faces * 5);
+			assertEquals(0, footprint.count("java.util.LinkedList$Entry") + footprint.count("java.util.LinkedList$Node"));
+			assertEquals(0, footprint.count("org.slf4j.impl.Log4jLoggerAdapter"));
+		}
+	}
+	
+	private Photo photoWith(int faces) throws Exception
+	{
+		JSONObject photo = new JSONObject(twoFaces).getJSONArray("photos").getJSONObject(0);
+		JSONObject tag = photo.getJSONArray("tags").getJSONObject(0);
+		JSONArray tags = new JSONArray();
+		
+		for (int i = 0; i < faces; i++)
+		{
+			tags.put(new JSONObject(tag.toString()).put("tid", tag.getString("tid") + i));
+		}
+		
+		String json = new JSONObject().put("status", "success")
+			.put("photos", new JSONArray().put(photo.put("tags", tags))).toString();
+		
+		return new PhotoResponseImpl(new Utf8JsonReader(json.getBytes("UTF-8"))).getPhoto();
+	}
+	
+	private static final class Footprint
+	{
+		private final Map<Object, Object> seen = new IdentityHashMap<Object, Object>();
+		
+		private final Map<String, Integer> counts = new HashMap<String, Integer>();
+		
+		long bytes;
+		
+		int objects;
+		
+		void walk(Object root) throws IllegalAccessException
+		{
+			Deque<Object> pending = new ArrayDeque<Object>();
+			pending.push(root);
+			
+			while (!pending.isEmpty())
+			{
+				Object o = pending.pop();
+				
+				if (seen.put(o, o) != null || o instanceof Class<?>)
+				{
+					continue;
+				}
+				
+				Class<?> type = o.getClass();
+				
+				objects++;
+				counts.put(type.getName(), count(type.getName()) + 1);
+				
+				if (type.isArray())
+				{
+					int length = Array.getLength(o);
+					Class<?> component = type.getComponentType();
+					
+					bytes += align(16 + (long) length * sizeOf(component));
+					
+					if (!component.isPrimitive())
+					{
+						for (int i = 0; i < length; i++)
+						{
+							push(pending, Array.get(o, i));
+						}
+					}
+					
+					continue;
+				}
+				
+				long size = 12;
+				
+				for (Class<?> c = type; c != null; c = c.getSuperclass())
+				{
+					boolean opaque = c.getName().startsWith("java.");
+					
+					for (Field f : c.getDeclaredFields())
+					{
+						if (Modifier.isStatic(f.getModifiers()))
+						{
+							continue;
+						}
+						
+						size += sizeOf(f.getType());
+						
+						if (!f.getType().isPrimitive() && !opaque)
+						{
+							f.setAccessible(true);
+							push(pending, f.get(o));
+						}
+					}
+				}
+				
+				bytes += align(size);
+				
+				if (o instanceof String)
+				{
+					// Its characters as a char[], which strings may share, so not counted as an object
+					bytes += align(16 + 2L * ((String) o).length());
+				}
+			}
+		}
+		
+		private static void push(Deque<Object> pending, Object o)
+		{
+			if (o != null)
+			{
+				pending.push(o);
+			}
+		}
+		
+		int count(String type)
+		{
+			Integer count = counts.get(type);
+			return (count == null) ? 0 : count;
+		}
+		
+		private static long align(long size)
+		{
+			return (size + 7) & ~7L;
+		}
+		
+		private static int sizeOf(Class<?> type)
+		{
+			if (type == long.class || type == double.class)
+			{
+				return 8;
+			}
+			
+			if (type == boolean.class || type == byte.class)
+			{
+				return 1;
+			}
+			
+			if (type == char.class || type == short.class)
+			{
+				return 2;
+			}
+			
+			return 4;
+		}
+	}
+}
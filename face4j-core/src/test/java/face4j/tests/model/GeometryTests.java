@@ -0,0 +1,58 @@
+package face4j.tests.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import face4j.model.Geometry;
+import face4j.model.Point;
+import face4j.model.Rect;
+
+public class GeometryTests
+{
+	private static final float[] RECTS = { 0, 0, 10, 10,  5, 0, 15, 10,  20, 20, 30, 30 };
+	
+	@Test
+	public void transforms()
+	{
+		float[] rects = RECTS.clone();
+		
+		Geometry.toPixels(rects, 3, 200, 50);
+		assertArrayEquals(new float[] { 0, 0, 20, 5,  10, 0, 30, 5,  40, 10, 60, 15 }, rects, 0);
+		
+		Geometry.translate(rects, 4, 2, -10, 1);
+		assertArrayEquals(new float[] { 0, 0, 20, 5,  0, 1, 20, 6,  40, 10, 60, 15 }, rects, 0);
+	}
+	
+	@Test
+	public void iouMatrix()
+	{
+		float[] iou = Geometry.iou(RECTS, 3, null);
+		
+		assertEquals(9, iou.length);
+		assertEquals(1f, iou[0], 0);
+		assertEquals(50f / 150f, iou[1], 1e-6f);
+		assertEquals(iou[1], iou[3], 0);
+		assertEquals(0f, iou[2], 0);
+		assertEquals(iou[1], new Rect(0, 0, 10, 10).iou(new Rect(5, 0, 15, 10)), 0);
+		assertEquals(0f, new Rect().iou(new Rect()), 0);
+	}
+	
+	@Test
+	public void pointsInRect()
+	{
+		float[] points = { 5, 5,  5, 7,  1, 1,  7, 6 };
+		boolean[] inside = new boolean[4];
+		
+		assertEquals(2, Geometry.contains(1, 1, 7, 6, points, 4, inside));
+		
+		for (int i = 0; i < 4; i++)
+		{
+			assertEquals(new Rect(1, 1, 7, 6).contains(new Point(points[i * 2], points[i * 2 + 1])), inside[i]);
+		}
+		
+		assertEquals(2, Geometry.indexOf(RECTS, 3, 25, 25));
+		assertEquals(-1, Geometry.indexOf(RECTS, 3, 40, 40));
+	}
+}
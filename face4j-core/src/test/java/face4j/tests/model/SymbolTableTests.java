@@ -0,0 +1,92 @@
+package face4j.tests.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import face4j.model.SymbolTable;
+
+public class SymbolTableTests
+{
+	@Test
+	public void internsToCanonicalInstances()
+	{
+		SymbolTable table = new SymbolTable(16);
+		
+		String first = new String("bob@ns");
+		String second = new String("bob@ns");
+		
+		assertEquals(0, table.id(first));
+		assertEquals(0, table.id(second));
+		assertSame(first, table.canonical(second));
+		assertEquals(table.id("ns"), table.namespaceId(second));
+		assertEquals(SymbolTable.NONE, table.id(null));
+		assertEquals(2, table.size());
+	}
+	
+	@Test
+	public void boundedByCapacity()
+	{
+		SymbolTable table = new SymbolTable(2);
+		
+		table.id("a@ns");
+		table.id("b@ns");
+		
+		String c = new String("c@ns");
+		
+		assertEquals(SymbolTable.NONE, table.id(c));
+		assertSame(c, table.canonical(c));
+		assertEquals(1, table.id("b@ns"));
+		assertEquals(2, table.size());
+	}
+	
+	@Test
+	public void concurrentInterning() throws Exception
+	{
+		final SymbolTable table = new SymbolTable(100000);
+		final ExecutorService pool = Executors.newFixedThreadPool(4);
+		final List<Future<int[]>> results = new ArrayList<Future<int[]>>();
+		
+		for (int t = 0; t < 4; t++)
+		{
+			results.add(pool.submit(new Callable<int[]>()
+			{
+				public int[] call()
+				{
+					int[] ids = new int[10000];
+					
+					for (int i = 0; i < ids.length; i++)
+					{
+						ids[i] = table.id("user" + i + "@ns");
+					}
+					
+					return ids;
+				}
+			}));
+		}
+		
+		int[] expected = results.get(0).get();
+		
+		for (Future<int[]> result : results)
+		{
+			int[] ids = result.get();
+			
+			for (int i = 0; i < ids.length; i++)
+			{
+				assertEquals(expected[i], ids[i]);
+				assertEquals("user" + i + "@ns", table.get(ids[i]));
+			}
+		}
+		
+		pool.shutdown();
+		assertEquals(10000, table.size());
+	}
+}
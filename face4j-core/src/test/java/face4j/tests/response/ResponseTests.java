@@ -1,14 +1,43 @@
 package face4j.tests.response;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.http.NameValuePair;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
 import org.junit.Test;
 
+import face4j.DefaultFaceClient;
+import face4j.Responder;
 import face4j.exception.FaceClientException;
+import face4j.exception.FaceServerException;
+import face4j.json.JsonCodec;
+import face4j.json.JsonCodecs;
+import face4j.json.JsonReader;
+import face4j.json.Utf8JsonReader;
+import face4j.model.Face;
+import face4j.model.FaceData;
+import face4j.model.FaceVisitor;
 import face4j.model.Photo;
+import face4j.model.Point;
+import face4j.model.SymbolTable;
+import face4j.model.UserStatus;
+import face4j.response.ParseOptions;
+import face4j.response.PhotoHandler;
 import face4j.response.PhotoResponse;
 import face4j.response.PhotoResponseImpl;
 import face4j.response.RemoveTagResponse;
@@ -20,6 +49,7 @@ import face4j.response.StatusResponseImpl;
 import face4j.response.TrainResponse;
 import face4j.response.TrainResponseImpl;
 import face4j.tests.BaseTest;
+import face4j.tests.FakeResponder;
 
 public class ResponseTests extends BaseTest
 {
@@ -75,4 +105,224 @@ public class ResponseTests extends BaseTest
 		
 		assertEquals(1, sr.getTrainingStatus().size());
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void photoResponseFromBytes () throws Exception
+	{
+		Photo expected = new PhotoResponseImpl(twoFaces).getPhoto();
+		Photo actual = new PhotoResponseImpl(reader(twoFaces)).getPhoto();
+		
+		assertEquals(expected.getFaceCount(), actual.getFaceCount());
+		assertEquals(expected.getURL(), actual.getURL());
+		assertEquals(expected.getFace().getTID(), actual.getFace().getTID());
+		assertEquals(expected.getFace().getCenter(), actual.getFace().getCenter());
+		assertEquals(expected.getFace().getGender(), actual.getFace().getGender());
+	}
+	
+	@Test
+	public void trainResponseFromBytes () throws Exception
+	{
+		TrainResponse tr = new TrainResponseImpl(reader(train));
+		
+		assertEquals(1, tr.getNoTrainingSet().size());
+		assertTrue(tr.getCreated().isEmpty());
+	}
+	
+	@Test
+	public void tagResponsesFromBytes () throws Exception
+	{
+		assertEquals(1, new RemoveTagResponseImpl(reader(removeTag)).getRemovedTags().size());
+		assertEquals(1, new SaveTagResponseImpl(reader(saveTag)).getSavedTags().size());
+		assertEquals(1, new StatusResponseImpl(reader(status)).getTrainingStatus().size());
+	}
+	
+	@Test
+	public void rawRetainedOnlyOnDemand () throws Exception
+	{
+		PhotoResponseImpl lean = new PhotoResponseImpl(reader(twoFaces));
+		assertNull(lean.getRawResponse());
+		
+		PhotoResponseImpl kept = new PhotoResponseImpl(reader(twoFaces), ParseOptions.DEFAULT.withRetainRaw(true));
+		assertEquals(twoFaces, kept.getRawResponse().toJson());
+		assertTrue(kept.getRawResponse().getCompressedLength() < twoFaces.length());
+		
+		Utf8JsonReader streamed = new Utf8JsonReader(new ByteArrayInputStream(twoFaces.getBytes("UTF-8")));
+		kept = new PhotoResponseImpl(streamed, ParseOptions.DEFAULT.withRetainRaw(true));
+		assertEquals(twoFaces, kept.getRawResponse().toJson());
+	}
+	
+	@Test
+	public void parallelPhotoList () throws Exception
+	{
+		JSONObject photo = new JSONObject(twoFaces).getJSONArray("photos").getJSONObject(0);
+		JSONArray photos = new JSONArray();
+		
+		for (int i = 0; i < 500; i++)
+		{
+			photos.put(new JSONObject(photo.toString()).put("url", "http://example.com/" + i + ".jpg"));
+		}
+		
+		String json = new JSONObject().put("status", "success").put("photos", photos).toString();
+		ParseOptions parallel = ParseOptions.DEFAULT.withParallelDecoding(0);
+		
+		List<Photo> expected = new PhotoResponseImpl(reader(json)).getPhotos();
+		List<Photo> fromBytes = new PhotoResponseImpl(reader(json), parallel).getPhotos();
+		List<Photo> fromStream = new PhotoResponseImpl(new Utf8JsonReader(new ByteArrayInputStream(json.getBytes("UTF-8"))), parallel).getPhotos();
+		
+		assertEquals(500, expected.size());
+		
+		for (int i = 0; i < expected.size(); i++)
+		{
+			assertEquals(expected.get(i).getURL(), fromBytes.get(i).getURL());
+			assertEquals(expected.get(i).getURL(), fromStream.get(i).getURL());
+			assertEquals(expected.get(i).getFaceCount(), fromStream.get(i).getFaceCount());
+		}
+	}
+	
+	@Test
+	public void streamedPhotos () throws Exception
+	{
+		final List<Photo> seen = new ArrayList<Photo>();
+		
+		PhotoResponse pr = new PhotoResponseImpl(reader(twoFaces), ParseOptions.DEFAULT, new PhotoHandler()
+		{
+			public void onPhoto(Photo photo)
+			{
+				seen.add(photo);
+			}
+		});
+		
+		assertTrue(pr.getPhotos().isEmpty());
+		assertEquals(1, seen.size());
+		assertEquals(2, seen.get(0).getFaceCount());
+	}
+	
+	@Test
+	public void visitedFaces () throws Exception
+	{
+		final Face expected = new PhotoResponseImpl(twoFaces).getPhoto().getFace();
+		final List<String> tids = new ArrayList<String>();
+		final float[] center = new float[2];
+		
+		new PhotoResponseImpl(reader(twoFaces), ParseOptions.DEFAULT, new FaceVisitor()
+		{
+			public void onFace(FaceData face)
+			{
+				if (tids.isEmpty())
+				{
+					center[0] = face.getX(FaceData.CENTER);
+					center[1] = face.getY(FaceData.CENTER);
+				}
+				
+				tids.add(face.getTID());
+			}
+			
+			public void onPhoto(String pid, String url, int width, int height, int faceCount)
+			{
+				assertEquals(2, faceCount);
+			}
+		});
+		
+		assertEquals(2, tids.size());
+		assertEquals(expected.getTID(), tids.get(0));
+		assertEquals(expected.getCenter(), new Point(center[0], center[1]));
+	}
+	
+	@Test
+	public void orgJsonCodec () throws Exception
+	{
+		JsonCodec codec = JsonCodecs.forName("org.json");
+		byte[] bytes = twoFaces.getBytes("UTF-8");
+		
+		Photo expected = new PhotoResponseImpl(twoFaces).getPhoto();
+		Photo actual = new PhotoResponseImpl(codec.newReader(new ByteArrayInputStream(bytes))).getPhoto();
+		
+		assertEquals(expected.getFaceCount(), actual.getFaceCount());
+		assertEquals(expected.getFace().getTID(), actual.getFace().getTID());
+		assertEquals(expected.getFace().getCenter(), actual.getFace().getCenter());
+		assertEquals(expected.getFace().getGuesses().size(), actual.getFace().getGuesses().size());
+		
+		assertEquals(1, new TrainResponseImpl(codec.newReader(train.getBytes("UTF-8"), 0, train.length())).getNoTrainingSet().size());
+	}
+	
+	@Test(expected = FaceServerException.class)
+	public void failureFromBytes () throws Exception
+	{
+		new PhotoResponseImpl(reader("{\"status\":\"failure\",\"error_code\":20,\"error_message\":\"API_KEY_DOES_NOT_EXIST\"}"));
+	}
+	
+	@Test
+	public void symbolTableSharesUids() throws Exception
+	{
+		ParseOptions options = ParseOptions.DEFAULT.withSymbolTable(new SymbolTable(1024));
+		
+		UserStatus first = new StatusResponseImpl(reader(status), options).getTrainingStatus().get(0);
+		UserStatus second = new StatusResponseImpl(reader(status), options).getTrainingStatus().get(0);
+		
+		assertEquals("somegirl@araucana", first.getUID());
+		assertSame(first.getUID(), second.getUID());
+		assertEquals(first.getUIDSymbol(), second.getUIDSymbol());
+		assertEquals(SymbolTable.NONE, new StatusResponseImpl(reader(status)).getTrainingStatus().get(0).getUIDSymbol());
+	}
+	
+	@Test
+	public void plainResponder() throws Exception
+	{
+		// Responders from before StreamingResponder answer with strings
+		final DefaultFaceClient client = new DefaultFaceClient("key", "secret", new Responder()
+		{
+			public String doGet(URI uri)
+			{
+				throw new UnsupportedOperationException();
+			}
+			
+			public String doPost(URI uri, List<NameValuePair> params)
+			{
+				return twoFaces;
+			}
+			
+			public String doPost(File file, URI uri, List<NameValuePair> params)
+			{
+				return twoFaces;
+			}
+		});
+		
+		assertEquals(2, client.detect("http://example.com/a.jpg").get(0).getFaceCount());
+	}
+	
+	@Test
+	public void closesResponseWhenReaderFails() throws Exception
+	{
+		final FakeResponder http = new FakeResponder(twoFaces);
+		final DefaultFaceClient client = new DefaultFaceClient("key", "secret", http);
+		
+		client.setJsonCodec(new JsonCodec()
+		{
+			public JsonReader newReader(InputStream in) throws IOException
+			{
+				throw new IOException("Broken codec");
+			}
+			
+			public JsonReader newReader(byte[] bytes, int offset, int length) throws IOException
+			{
+				throw new IOException("Broken codec");
+			}
+		});
+		
+		try
+		{
+			client.detect("http://example.com/a.jpg");
+			fail();
+		}
+		
+		catch (FaceClientException fce)
+		{
+			assertEquals(1, http.closed());
+		}
+	}
+	
+	private static Utf8JsonReader reader (String json) throws UnsupportedEncodingException
+	{
+		return new Utf8JsonReader(json.getBytes("UTF-8"));
+	}
+}
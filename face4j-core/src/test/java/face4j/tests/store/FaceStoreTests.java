@@ -0,0 +1,98 @@
+package face4j.tests.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import face4j.json.Utf8JsonReader;
+import face4j.model.FaceData;
+import face4j.model.Gender;
+import face4j.model.Photo;
+import face4j.response.ParseOptions;
+import face4j.response.PhotoResponseImpl;
+import face4j.store.FaceStore;
+import face4j.tests.BaseTest;
+
+public class FaceStoreTests extends BaseTest
+{
+	private static final String PID = "F@53f98f0f3ffeef58413190e657e297ff_4b4b4c6d54c37";
+	
+	public FaceStoreTests() throws IOException
+	{
+		super();
+	}
+	
+	@Test
+	public void appendAndRead() throws Exception
+	{
+		FaceStore store = FaceStore.allocate();
+		
+		store.appendAll(new PhotoResponseImpl(twoFaces).getPhotos());
+		new PhotoResponseImpl(new Utf8JsonReader(twoFaces.getBytes("UTF-8")), ParseOptions.DEFAULT, store);
+		
+		assertEquals(4, store.size());
+		
+		for (long i = 0; i < store.size(); i += 2)
+		{
+			assertEquals(PID, store.getPID(i));
+			assertEquals(18.85f, store.getYaw(i), 0.001f);
+			assertEquals(96, store.getGenderConfidence(i));
+			assertEquals(Gender.male, store.getGender(i));
+			assertTrue(store.isWearingGlasses(i));
+			assertFalse(store.isSmiling(i));
+			assertTrue(store.hasLandmark(i, FaceData.NOSE));
+			assertFalse(store.hasLandmark(i, FaceData.CHIN));
+			assertEquals(51.72f, store.getX(i, FaceData.NOSE), 0.001f);
+			assertNull(store.getTopGuessUID(i));
+		}
+		
+		assertEquals(store.getTID(1), store.getTID(3));
+		assertEquals(3, store.getStrings().size());
+		
+		store.close();
+	}
+	
+	@Test
+	public void persistsAcrossReopen() throws Exception
+	{
+		File dir = new File(System.getProperty("java.io.tmpdir"), "face4j-store-" + System.nanoTime());
+		
+		try
+		{
+			FaceStore store = FaceStore.open(dir);
+			List<Photo> photos = new PhotoResponseImpl(twoFaces).getPhotos();
+			
+			for (int i = 0; i < 40000; i++)
+			{
+				store.appendAll(photos);
+			}
+			
+			store.close();
+			
+			store = FaceStore.open(dir);
+			
+			assertEquals(80000, store.size());
+			assertEquals(36.93f, store.getYaw(79999), 0.001f);
+			assertEquals(PID, store.getPID(65536));
+			
+			store.appendAll(photos);
+			assertEquals(80002, store.size());
+			assertEquals(3, store.getStrings().size());
+			
+			store.close();
+		}
+		
+		finally
+		{
+			FileUtils.deleteDirectory(dir);
+		}
+	}
+}